@@ -53,6 +53,13 @@ android {
         targetCompatibility = JavaVersion.VERSION_17
     }
 
+    testOptions {
+        unitTests.all {
+            // Benchmarks only run with -Pbenchmarks=true.
+            systemProperty("benchmarks", project.findProperty("benchmarks")?.toString() ?: "false")
+        }
+    }
+
     dependenciesInfo {
         includeInApk = false
         includeInBundle = false
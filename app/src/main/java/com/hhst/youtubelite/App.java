@@ -6,11 +6,15 @@ import android.util.Log;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 
+import com.hhst.youtubelite.cache.WebAssetMemoryCache;
+import com.hhst.youtubelite.extractor.potoken.PoTokenHost;
 import com.tencent.mmkv.MMKV;
 
 import java.io.File;
 import java.io.IOException;
 
+import javax.inject.Inject;
+
 import dagger.hilt.android.HiltAndroidApp;
 
 /**
@@ -19,10 +23,17 @@ import dagger.hilt.android.HiltAndroidApp;
 @HiltAndroidApp
 public class App extends Application {
 
+	@Inject
+	WebAssetMemoryCache webAssetMemoryCache;
+	@Inject
+	PoTokenHost poTokenHost;
+
 	@Override
 	public void onCreate() {
 		super.onCreate();
 		MMKV.initialize(this);
+		registerComponentCallbacks(webAssetMemoryCache);
+		registerComponentCallbacks(poTokenHost);
 		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
 			String processName = getProcessName();
 			if (!getPackageName().equals(processName)) {
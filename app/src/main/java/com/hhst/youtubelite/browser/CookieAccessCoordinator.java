@@ -20,8 +20,12 @@ import okhttp3.Response;
 
 /**
  * Coordinator that serializes cookie access between WebView and extractor.
+ * One instance is shared app-wide, so the WebView interceptor and the player data sources read
+ * through the same short-lived cookie cache, which is pruned once it holds more than
+ * {@link #MAX_CACHED_URLS} keys.
  */
-final class CookieAccessCoordinator {
+public final class CookieAccessCoordinator {
+	static final int MAX_CACHED_URLS = 256;
 
 	@NonNull
 	private final Backend backend;
@@ -43,7 +47,7 @@ final class CookieAccessCoordinator {
 	}
 
 	@NonNull
-	static CookieAccessCoordinator create(@NonNull CookieManager cookieManager) {
+	public static CookieAccessCoordinator create(@NonNull CookieManager cookieManager) {
 		return new CookieAccessCoordinator(new CookieManagerBackend(cookieManager), new ExecutorScheduler(Executors.newSingleThreadScheduledExecutor(runnable -> {
 			Thread thread = new Thread(runnable, "web-cookie-flush");
 			thread.setDaemon(true);
@@ -52,7 +56,7 @@ final class CookieAccessCoordinator {
 	}
 
 	@Nullable
-	String getCookie(@NonNull String url) {
+	public String getCookie(@NonNull String url) {
 		long nowMillis = nowMillisSupplier.getAsLong();
 		String cacheKey = normalizeCacheKey(url);
 		CacheEntry cachedEntry = cookieCache.get(cacheKey);
@@ -62,10 +66,15 @@ final class CookieAccessCoordinator {
 
 		String cookie = backend.getCookie(url);
 		cookieCache.put(cacheKey, new CacheEntry(cookie, nowMillis));
+		if (cookieCache.size() > MAX_CACHED_URLS) prune(nowMillis);
 		return cookie;
 	}
 
-	void syncCookies(@NonNull Response response) {
+	int cachedUrls() {
+		return cookieCache.size();
+	}
+
+	public void syncCookies(@NonNull Response response) {
 		List<Response> responseChain = new ArrayList<>();
 		Response resp = response;
 		while (resp != null) {
@@ -86,6 +95,14 @@ final class CookieAccessCoordinator {
 		scheduler.schedule(flushDelayMillis, backend::flush);
 	}
 
+	/**
+	 * Drops expired entries; if every entry is still fresh, drops them all instead of tracking recency.
+	 */
+	private void prune(long nowMillis) {
+		cookieCache.values().removeIf(entry -> (nowMillis - entry.createdAtMillis) > readCacheTtlMillis);
+		if (cookieCache.size() > MAX_CACHED_URLS) cookieCache.clear();
+	}
+
 	@NonNull
 	private String normalizeCacheKey(@NonNull String url) {
 		try {
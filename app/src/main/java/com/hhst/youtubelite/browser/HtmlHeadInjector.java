@@ -0,0 +1,211 @@
+package com.hhst.youtubelite.browser;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Streaming stage that inserts configured snippets right after the {@code <head>} tag of HTML documents.
+ * Bytes are passed through as soon as they arrive; only a possible tag start is held back, and scanning
+ * stops for good after the insertion point or {@link #MAX_SCAN_BYTES}, so the document is never materialized.
+ * Documents without a head tag get the snippet before {@code <body>}, matching where the parser would put it.
+ */
+public final class HtmlHeadInjector {
+	static final long MAX_SCAN_BYTES = 64L * 1024L;
+	static final long MAX_TAG_BYTES = 4L * 1024L;
+	private static final ByteString COMMENT_END = ByteString.encodeUtf8("-->");
+	private static final int NO_MATCH = 0;
+	private static final int MATCH = 1;
+	private static final int NEED_MORE = 2;
+
+	@NonNull
+	private final List<Snippet> snippets = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Registers {@code html} for documents whose path equals {@code path}, or for every document when it is null.
+	 */
+	public void add(@Nullable String path, @NonNull String html) {
+		snippets.add(new Snippet(path, html.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Returns the snippets that apply to {@code path} joined in registration order, or null when none do.
+	 */
+	@Nullable
+	public byte[] snippetFor(@Nullable String path) {
+		ByteArrayOutputStream out = null;
+		for (Snippet snippet : snippets) {
+			if (snippet.path() != null && !snippet.path().equals(path)) continue;
+			if (out == null) out = new ByteArrayOutputStream();
+			out.write(snippet.html(), 0, snippet.html().length);
+		}
+		return out != null ? out.toByteArray() : null;
+	}
+
+	/**
+	 * Wraps {@code upstream} so {@code snippet} is emitted after the document's head tag.
+	 */
+	@NonNull
+	public static Source inject(@NonNull Source upstream, @NonNull byte[] snippet) {
+		return new InjectingSource(Okio.buffer(upstream), snippet);
+	}
+
+/**
+ * Value object for one registered snippet.
+ */
+	private record Snippet(@Nullable String path, @NonNull byte[] html) {
+	}
+
+/**
+ * Component that scans a document for the insertion point while streaming it through.
+ */
+	private static final class InjectingSource implements Source {
+		@NonNull
+		private final BufferedSource source;
+		@NonNull
+		private final byte[] snippet;
+		@NonNull
+		private final Buffer out = new Buffer();
+		private long scanned;
+		private boolean inComment;
+		private boolean done;
+
+		private InjectingSource(@NonNull BufferedSource source, @NonNull byte[] snippet) {
+			this.source = source;
+			this.snippet = snippet;
+		}
+
+		@Override
+		public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+			if (byteCount == 0L) return 0L;
+			while (true) {
+				boolean waiting = out.size() > 0L;
+				if (done) {
+					if (waiting) break;
+					return source.read(sink, byteCount);
+				}
+				if (source.getBuffer().size() == 0L) {
+					if (waiting) break;
+					if (!source.request(1L)) done = true;
+					continue;
+				}
+				// Only block for more input when there is nothing to hand back yet.
+				if (!scan(!waiting)) break;
+			}
+			return out.read(sink, byteCount);
+		}
+
+		/**
+		 * Moves buffered bytes to {@link #out}, inserting the snippet when the insertion point is reached.
+		 * Returns false without progress when a tag start is too short to classify and {@code mayBlock} is false.
+		 */
+		private boolean scan(final boolean mayBlock) throws IOException {
+			Buffer buffer = source.getBuffer();
+			if (scanned >= MAX_SCAN_BYTES) {
+				done = true;
+				return true;
+			}
+			if (inComment) {
+				long end = buffer.indexOf(COMMENT_END);
+				if (end >= 0L) {
+					inComment = false;
+					pass(end + COMMENT_END.size());
+				} else if (buffer.size() > 2L) {
+					pass(buffer.size() - 2L);
+				} else if (!mayBlock) {
+					return false;
+				} else if (!source.request(buffer.size() + 1L)) {
+					pass(buffer.size());
+				}
+				return true;
+			}
+			long lt = buffer.indexOf((byte) '<');
+			if (lt != 0L) {
+				pass(lt < 0L ? buffer.size() : lt);
+				return true;
+			}
+			int comment = match(buffer, "<!--", false);
+			int head = match(buffer, "<head", true);
+			int body = match(buffer, "<body", true);
+			if (comment == NEED_MORE || head == NEED_MORE || body == NEED_MORE) {
+				if (!mayBlock) return false;
+				if (!source.request(buffer.size() + 1L)) done = true;
+				return true;
+			}
+			if (comment == MATCH) {
+				inComment = true;
+				pass(4L);
+			} else if (head == MATCH) {
+				long close = buffer.indexOf((byte) '>');
+				if (close < 0L) {
+					if (buffer.size() >= MAX_TAG_BYTES) {
+						done = true;
+					} else if (!mayBlock) {
+						return false;
+					} else if (!source.request(buffer.size() + 1L)) {
+						done = true;
+					}
+					return true;
+				}
+				pass(close + 1L);
+				insert();
+			} else if (body == MATCH) {
+				insert();
+			} else {
+				pass(1L);
+			}
+			return true;
+		}
+
+		private void pass(final long byteCount) throws IOException {
+			out.write(source.getBuffer(), byteCount);
+			scanned += byteCount;
+		}
+
+		private void insert() {
+			out.write(snippet);
+			done = true;
+		}
+
+		@NonNull
+		@Override
+		public Timeout timeout() {
+			return source.timeout();
+		}
+
+		@Override
+		public void close() throws IOException {
+			source.close();
+		}
+	}
+
+	/**
+	 * Checks whether {@code buffer} starts with the lower-case {@code prefix}, ignoring ASCII case; a tag
+	 * prefix must also be followed by whitespace, {@code >} or {@code /} so {@code <header} is not {@code <head}.
+	 */
+	private static int match(@NonNull Buffer buffer, @NonNull String prefix, final boolean tag) {
+		int length = prefix.length() + (tag ? 1 : 0);
+		for (int i = 0; i < length; i++) {
+			if (i >= buffer.size()) return NEED_MORE;
+			int c = buffer.getByte(i) & 0xff;
+			if (i < prefix.length()) {
+				if (Character.toLowerCase(c) != prefix.charAt(i)) return NO_MATCH;
+			} else if (c != '>' && c != '/' && !Character.isWhitespace(c)) {
+				return NO_MATCH;
+			}
+		}
+		return MATCH;
+	}
+}
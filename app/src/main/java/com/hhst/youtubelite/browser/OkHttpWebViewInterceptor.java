@@ -1,6 +1,5 @@
 package com.hhst.youtubelite.browser;
 
-import android.webkit.CookieManager;
 import android.webkit.WebResourceRequest;
 import android.webkit.WebResourceResponse;
 
@@ -8,17 +7,18 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.media3.common.util.UnstableApi;
 
+import com.hhst.youtubelite.cache.WebAssetMemoryCache;
 import com.hhst.youtubelite.cache.WebViewCachePolicy;
 import com.hhst.youtubelite.util.UrlUtils;
 import com.hhst.youtubelite.util.WebResourceUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -40,23 +40,36 @@ import okio.Sink;
 
 /**
  * Intercepts WebView traffic through OkHttp.
+ * Concurrent identical subresource fetches share one network response via {@link ResponseCoalescer},
+ * and HTML documents pass through {@link HtmlHeadInjector} for any registered head snippets.
  */
 @UnstableApi
 public final class OkHttpWebViewInterceptor {
+	private static final List<String> VARY_HEADERS = List.of("Accept", "Accept-Language", "Cookie", "Origin", "User-Agent");
 
 	@NonNull
 	private final OkHttpClient client;
 	@NonNull
 	private final WebViewCachePolicy cachePolicy;
 	@NonNull
+	private final WebAssetMemoryCache memoryCache;
+	@NonNull
 	private final CookieAccessCoordinator cookieAccessCoordinator;
 	@NonNull
 	private final Set<String> refreshingUrls = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	@NonNull
+	private final ResponseCoalescer coalescer = new ResponseCoalescer();
+	@NonNull
+	private final HtmlHeadInjector headInjector = new HtmlHeadInjector();
 
-	public OkHttpWebViewInterceptor(@NonNull OkHttpClient client, @NonNull WebViewCachePolicy cachePolicy) {
+	public OkHttpWebViewInterceptor(@NonNull OkHttpClient client,
+	                                @NonNull WebViewCachePolicy cachePolicy,
+	                                @NonNull WebAssetMemoryCache memoryCache,
+	                                @NonNull CookieAccessCoordinator cookieAccessCoordinator) {
 		this.cachePolicy = cachePolicy;
+		this.memoryCache = memoryCache;
 		this.client = createResourceClient(client, cachePolicy);
-		this.cookieAccessCoordinator = CookieAccessCoordinator.create(CookieManager.getInstance());
+		this.cookieAccessCoordinator = cookieAccessCoordinator;
 	}
 
 	@NonNull
@@ -114,25 +127,39 @@ public final class OkHttpWebViewInterceptor {
 		if (!canExecute(request)) return null;
 		String url = request.getUrl().toString();
 		final WebViewCachePolicy.CacheRequestInfo cacheInfo = cachePolicy.classifyRequest(request.isForMainFrame(), url, request.getUrl().getPath());
+		// Hot assets are matched against the memory tier with the same headers the disk cache sees.
+		final Request hotRequest = cacheInfo.forceCacheStaticResource() && cachePolicy.shouldKeepInMemory(request.getUrl().getPath())
+						? buildRequest(request, null)
+						: null;
+		final byte[] headSnippet = headInjector.snippetFor(request.getUrl().getPath());
 		Response response = null;
 		try {
+			if (hotRequest != null) {
+				WebAssetMemoryCache.Hit hit = memoryCache.get(hotRequest);
+				if (hit != null) {
+					if (cachePolicy.shouldRefreshCache(hit.response())) scheduleRefresh(request);
+					return toWebResourceResponse(url, hit.response(), hit.stream());
+				}
+			}
 			if (cachePolicy.shouldAttemptCacheLookup(cacheInfo)) {
 				response = executeCacheOnly(request);
 				if (isUsableResponse(response)) {
 					if (cachePolicy.shouldRefreshCache(Objects.requireNonNull(response))) {
 						scheduleRefresh(request);
 					}
-					return toResponse(url, Objects.requireNonNull(response));
+					if (hotRequest != null) response = memoryCache.remember(hotRequest, Objects.requireNonNull(response));
+					return toResponse(url, Objects.requireNonNull(response), headSnippet);
 				}
 				closeQuietly(response);
 			}
 
-			response = execute(request);
+			response = fetch(request);
 			if (!isUsableResponse(response)) {
 				closeQuietly(response);
 				return null;
 			}
-			return toResponse(url, Objects.requireNonNull(response));
+			if (hotRequest != null) response = memoryCache.remember(hotRequest, Objects.requireNonNull(response));
+			return toResponse(url, Objects.requireNonNull(response), headSnippet);
 		} catch (IOException e) {
 			closeQuietly(response);
 			return null;
@@ -145,6 +172,48 @@ public final class OkHttpWebViewInterceptor {
 		return executeRequest(buildRequest(request, null));
 	}
 
+	/**
+	 * Registers {@code html} to be streamed in after the head tag of documents at {@code path}, or of
+	 * every intercepted document when it is null.
+	 */
+	public void addHeadSnippet(@Nullable String path, @NonNull String html) {
+		headInjector.add(path, html);
+	}
+
+	@NonNull
+	public ResponseCoalescer.Metrics coalescingMetrics() {
+		return coalescer.metrics();
+	}
+
+	/**
+	 * Returns counters for the pooled image bodies shared by every WebView.
+	 */
+	@NonNull
+	public PooledBodyStream.Metrics bodyPoolMetrics() {
+		return PooledBodyStream.Pool.SHARED.metrics();
+	}
+
+	/**
+	 * Runs the network fetch for {@code request}, joining an identical one already in flight.
+	 * Navigations are never shared since they carry per-page state such as Set-Cookie.
+	 */
+	@Nullable
+	private Response fetch(@NonNull WebResourceRequest request) throws IOException {
+		if (request.isForMainFrame()) return execute(request);
+		final Request networkRequest = buildRequest(request, null);
+		return coalescer.execute(flightKey(networkRequest), () -> executeRequest(networkRequest));
+	}
+
+	@NonNull
+	static String flightKey(@NonNull Request request) {
+		StringBuilder key = new StringBuilder(request.method()).append(' ').append(request.url());
+		for (String name : VARY_HEADERS) {
+			String value = request.header(name);
+			if (value != null) key.append('\n').append(name).append(':').append(value);
+		}
+		return key.toString();
+	}
+
 	@Nullable
 	private Response executeCacheOnly(@NonNull WebResourceRequest request) throws IOException {
 		if (!canExecute(request)) return null;
@@ -194,11 +263,15 @@ public final class OkHttpWebViewInterceptor {
 	}
 
 	@NonNull
-	private WebResourceResponse toResponse(@NonNull String url, @NonNull Response response) throws IOException {
+	private WebResourceResponse toResponse(@NonNull String url, @NonNull Response response, @Nullable byte[] headSnippet) throws IOException {
 		if (shouldBufferImageResponse(url, response)) {
 			return toBufferedWebResourceResponse(url, response);
 		}
-		return toWebResourceResponse(url, response, Objects.requireNonNull(response.body()).byteStream());
+		ResponseBody body = Objects.requireNonNull(response.body());
+		if (headSnippet != null && "text/html".equals(mimeTypeFrom(url, body))) {
+			return toWebResourceResponse(url, response, Okio.buffer(HtmlHeadInjector.inject(body.source(), headSnippet)).inputStream());
+		}
+		return toWebResourceResponse(url, response, body.byteStream());
 	}
 
 	@NonNull
@@ -207,11 +280,15 @@ public final class OkHttpWebViewInterceptor {
 		String mimeType = mimeTypeFrom(url, body);
 		String encoding = encodingFrom(body);
 		String reasonPhrase = reasonPhraseFrom(response.code(), response.message());
-		byte[] bytes = body.bytes();
+		final PooledBodyStream stream;
+		try {
+			stream = PooledBodyStream.readFully(body.source(), PooledBodyStream.Pool.SHARED);
+		} finally {
+			closeQuietly(response);
+		}
 		Map<String, String> headers = buildResponseHeaders(response);
-		headers.put("Content-Length", String.valueOf(bytes.length));
-		closeQuietly(response);
-		return new WebResourceResponse(mimeType, encoding, response.code(), reasonPhrase, headers, new ByteArrayInputStream(bytes));
+		headers.put("Content-Length", String.valueOf(stream.size()));
+		return new WebResourceResponse(mimeType, encoding, response.code(), reasonPhrase, headers, stream);
 	}
 
 	@NonNull
@@ -251,6 +328,8 @@ public final class OkHttpWebViewInterceptor {
 				try (response) {
 					cookieAccessCoordinator.syncCookies(response);
 					drainBody(response.body());
+					// The disk cache now holds the fresh copy; the next hit reloads it into memory.
+					memoryCache.invalidate(call.request().url().toString());
 				} catch (IOException ignored) {
 				} finally {
 					refreshingUrls.remove(url);
@@ -0,0 +1,187 @@
+package com.hhst.youtubelite.browser;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.BufferedSource;
+
+/**
+ * Input stream over a fully read response body held in pooled fixed-size chunks.
+ * Chunks go back to the pool as soon as they are read and on close, so a feed of thumbnails keeps
+ * reusing the same arrays instead of allocating one heap copy per image.
+ */
+public final class PooledBodyStream extends InputStream {
+	@NonNull
+	private final Pool pool;
+	@NonNull
+	private final List<byte[]> chunks;
+	private final long size;
+	private long position;
+	private boolean closed;
+
+	private PooledBodyStream(@NonNull Pool pool, @NonNull List<byte[]> chunks, final long size) {
+		this.pool = pool;
+		this.chunks = chunks;
+		this.size = size;
+	}
+
+	/**
+	 * Reads {@code source} to the end into chunks taken from {@code pool}.
+	 */
+	@NonNull
+	static PooledBodyStream readFully(@NonNull BufferedSource source, @NonNull Pool pool) throws IOException {
+		List<byte[]> chunks = new ArrayList<>();
+		long size = 0L;
+		try {
+			while (true) {
+				byte[] chunk = pool.acquire();
+				int filled = 0;
+				while (filled < chunk.length) {
+					int read = source.read(chunk, filled, chunk.length - filled);
+					if (read == -1) break;
+					filled += read;
+				}
+				if (filled == 0) {
+					pool.recycle(chunk);
+					break;
+				}
+				chunks.add(chunk);
+				size += filled;
+				if (filled < chunk.length) break;
+			}
+		} catch (IOException e) {
+			for (byte[] chunk : chunks) pool.recycle(chunk);
+			throw e;
+		}
+		pool.opened(size);
+		return new PooledBodyStream(pool, chunks, size);
+	}
+
+	long size() {
+		return size;
+	}
+
+	@Override
+	public synchronized int read() throws IOException {
+		if (closed) throw new IOException("closed");
+		if (position == size) return -1;
+		int value = chunks.get((int) (position / pool.chunkSize))[(int) (position % pool.chunkSize)] & 0xff;
+		advance(1);
+		return value;
+	}
+
+	@Override
+	public synchronized int read(@NonNull byte[] b, int off, int len) throws IOException {
+		if (closed) throw new IOException("closed");
+		if (len == 0) return 0;
+		if (position == size) return -1;
+		int offset = (int) (position % pool.chunkSize);
+		int count = (int) Math.min(Math.min(len, pool.chunkSize - offset), size - position);
+		System.arraycopy(chunks.get((int) (position / pool.chunkSize)), offset, b, off, count);
+		advance(count);
+		return count;
+	}
+
+	@Override
+	public synchronized int available() {
+		return (int) Math.min(size - position, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) return;
+		closed = true;
+		pool.consumed(size - position);
+		for (byte[] chunk : chunks) {
+			if (chunk != null) pool.recycle(chunk);
+		}
+		chunks.clear();
+	}
+
+	/**
+	 * Moves past {@code count} bytes of the current chunk and hands the chunk back once it is drained.
+	 */
+	private void advance(final int count) {
+		int index = (int) (position / pool.chunkSize);
+		position += count;
+		pool.consumed(count);
+		if (position % pool.chunkSize == 0 || position == size) {
+			pool.recycle(chunks.set(index, null));
+		}
+	}
+
+/**
+ * Component that recycles body chunks and counts the bytes open streams hold.
+ */
+	static final class Pool {
+		static final int CHUNK_SIZE = 16 * 1024;
+		static final int MAX_POOLED_CHUNKS = 128;
+		@NonNull
+		static final Pool SHARED = new Pool(CHUNK_SIZE, MAX_POOLED_CHUNKS);
+
+		private final int chunkSize;
+		private final int maxPooledChunks;
+		@NonNull
+		private final ArrayDeque<byte[]> free = new ArrayDeque<>();
+		private long responses;
+		private long bufferedBytes;
+		private long liveBytes;
+		private long peakLiveBytes;
+		private long allocatedChunks;
+		private long reusedChunks;
+
+		Pool(final int chunkSize, final int maxPooledChunks) {
+			this.chunkSize = chunkSize;
+			this.maxPooledChunks = maxPooledChunks;
+		}
+
+		@NonNull
+		synchronized byte[] acquire() {
+			byte[] chunk = free.pollLast();
+			if (chunk != null) {
+				reusedChunks++;
+				return chunk;
+			}
+			allocatedChunks++;
+			return new byte[chunkSize];
+		}
+
+		synchronized void recycle(@Nullable byte[] chunk) {
+			if (chunk != null && free.size() < maxPooledChunks) free.addLast(chunk);
+		}
+
+		synchronized void opened(final long bytes) {
+			responses++;
+			bufferedBytes += bytes;
+			liveBytes += bytes;
+			peakLiveBytes = Math.max(peakLiveBytes, liveBytes);
+		}
+
+		synchronized void consumed(final long bytes) {
+			liveBytes -= bytes;
+		}
+
+		@NonNull
+		synchronized Metrics metrics() {
+			return new Metrics(responses, bufferedBytes, liveBytes, peakLiveBytes, allocatedChunks, reusedChunks);
+		}
+	}
+
+/**
+ * Value object for pooled body counters; {@code liveBytes} is what open streams still hold and
+ * {@code allocatedChunks} counts the arrays that could not be taken from the pool.
+ */
+	public record Metrics(long responses,
+	                      long bufferedBytes,
+	                      long liveBytes,
+	                      long peakLiveBytes,
+	                      long allocatedChunks,
+	                      long reusedChunks) {
+	}
+}
@@ -0,0 +1,309 @@
+package com.hhst.youtubelite.browser;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Single-flight gate that lets concurrent identical requests share one network response.
+ * The first caller for a key runs the fetch; callers that arrive while it is in flight wait for
+ * its headers and read the same body through their own cursor over a shared buffer. A flight
+ * stops accepting joiners once its body is complete, fails, or grows past {@code maxJoinBytes},
+ * after which bytes every reader has consumed are released.
+ */
+public final class ResponseCoalescer {
+	static final long MAX_JOIN_BYTES = 4L * 1024L * 1024L;
+	private static final long READ_SIZE = 64L * 1024L;
+
+	@NonNull
+	private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+	@NonNull
+	private final AtomicLong networkFetches = new AtomicLong();
+	@NonNull
+	private final AtomicLong coalescedFetches = new AtomicLong();
+	private final long maxJoinBytes;
+
+	public ResponseCoalescer() {
+		this(MAX_JOIN_BYTES);
+	}
+
+	ResponseCoalescer(final long maxJoinBytes) {
+		this.maxJoinBytes = maxJoinBytes;
+	}
+
+	/**
+	 * Returns a response for {@code key}, running {@code fetch} only when no flight for the key is
+	 * joinable. Each caller owns and must close the returned response.
+	 */
+	@NonNull
+	public Response execute(@NonNull String key, @NonNull Fetch fetch) throws IOException {
+		Flight flight;
+		boolean leader;
+		while (true) {
+			flight = flights.get(key);
+			if (flight != null) {
+				leader = false;
+				if (flight.join()) break;
+				// Closed between lookup and join; it is on its way out of the map.
+				flights.remove(key, flight);
+				continue;
+			}
+			flight = new Flight(key);
+			leader = true;
+			if (flights.putIfAbsent(key, flight) == null) break;
+		}
+		(leader ? networkFetches : coalescedFetches).incrementAndGet();
+		if (leader) {
+			try {
+				flight.start(Objects.requireNonNull(fetch.execute()));
+			} catch (IOException | RuntimeException e) {
+				flight.fail(e instanceof IOException io ? io : new IOException(e));
+				throw e;
+			}
+		}
+		return flight.await();
+	}
+
+	@NonNull
+	public Metrics metrics() {
+		return new Metrics(networkFetches.get(), coalescedFetches.get(), flights.size());
+	}
+
+/**
+ * Contract for the network call behind a flight.
+ */
+	@FunctionalInterface
+	public interface Fetch {
+		@NonNull
+		Response execute() throws IOException;
+	}
+
+/**
+ * Value object for coalescing counters; {@code coalescedFetches} is the number of network fetches saved.
+ */
+	public record Metrics(long networkFetches, long coalescedFetches, int inFlight) {
+	}
+
+/**
+ * Component that tees one upstream body to every reader of a flight.
+ */
+	private final class Flight {
+		@NonNull
+		private final String key;
+		@NonNull
+		private final Buffer retained = new Buffer();
+		@NonNull
+		private final List<Reader> readers = new ArrayList<>();
+		@Nullable
+		private Response upstream;
+		@Nullable
+		private BufferedSource source;
+		@Nullable
+		private IOException failure;
+		private long base;
+		private int pending = 1;
+		private boolean open = true;
+		private boolean pumping;
+		private boolean exhausted;
+		private boolean released;
+
+		private Flight(@NonNull String key) {
+			this.key = key;
+		}
+
+		private synchronized boolean join() {
+			if (!open) return false;
+			pending++;
+			return true;
+		}
+
+		private synchronized void start(@NonNull Response response) {
+			upstream = response;
+			source = response.body().source();
+			notifyAll();
+		}
+
+		private synchronized void fail(@NonNull IOException e) {
+			if (failure == null) failure = e;
+			close();
+			notifyAll();
+		}
+
+		@NonNull
+		private synchronized Response await() throws IOException {
+			try {
+				while (upstream == null && failure == null) {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pending--;
+				if (pending == 0 && readers.isEmpty()) {
+					// Same as the last reader leaving: a released flight must not stay joinable.
+					close();
+					release();
+				}
+				throw new InterruptedIOException("Interrupted while waiting for a shared response");
+			}
+			pending--;
+			if (failure != null && upstream == null) throw failure;
+			Response response = Objects.requireNonNull(upstream);
+			Reader reader = new Reader(base);
+			readers.add(reader);
+			ResponseBody body = response.body();
+			return response.newBuilder()
+							.body(ResponseBody.create(Okio.buffer(reader), body.contentType(), body.contentLength()))
+							.build();
+		}
+
+		/**
+		 * Copies bytes at {@code position} to {@code sink}, pulling from upstream when no other reader is.
+		 */
+		private long read(@NonNull Reader reader, @NonNull Buffer sink, final long byteCount) throws IOException {
+			final BufferedSource pump;
+			synchronized (this) {
+				while (true) {
+					if (reader.closed) throw new IOException("closed");
+					long available = base + retained.size() - reader.position;
+					if (available > 0L) {
+						long count = Math.min(available, byteCount);
+						retained.copyTo(sink, reader.position - base, count);
+						reader.position += count;
+						trim();
+						return count;
+					}
+					if (failure != null) throw failure;
+					if (exhausted) return -1L;
+					if (!pumping) break;
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException();
+					}
+				}
+				pumping = true;
+				pump = Objects.requireNonNull(source);
+			}
+			Buffer chunk = new Buffer();
+			long read;
+			IOException error = null;
+			try {
+				read = pump.read(chunk, READ_SIZE);
+			} catch (IOException e) {
+				read = -1L;
+				error = e;
+			}
+			synchronized (this) {
+				pumping = false;
+				if (error != null) {
+					fail(error);
+				} else if (read == -1L) {
+					exhausted = true;
+					close();
+				} else {
+					retained.writeAll(chunk);
+					if (base + retained.size() > maxJoinBytes) close();
+				}
+				notifyAll();
+			}
+			return read(reader, sink, byteCount);
+		}
+
+		private synchronized void closeReader(@NonNull Reader reader) {
+			if (reader.closed) return;
+			reader.closed = true;
+			readers.remove(reader);
+			if (readers.isEmpty() && pending == 0) {
+				// Nobody is left to read the rest; later requests start a fresh flight.
+				close();
+				release();
+			} else {
+				trim();
+			}
+		}
+
+		/**
+		 * Stops accepting joiners and takes the flight out of the lookup map.
+		 */
+		private void close() {
+			if (!open) return;
+			open = false;
+			flights.remove(key, this);
+		}
+
+		/**
+		 * Drops the retained prefix every reader has passed once no one can join from offset zero.
+		 */
+		private void trim() {
+			if (open || pending > 0) return;
+			long min = base + retained.size();
+			for (Reader reader : readers) {
+				min = Math.min(min, reader.position);
+			}
+			if (min > base) {
+				try {
+					retained.skip(min - base);
+				} catch (EOFException ignored) {
+					// Cannot happen: min never exceeds the retained end.
+				}
+				base = min;
+			}
+		}
+
+		private void release() {
+			if (released) return;
+			released = true;
+			retained.clear();
+			Response response = upstream;
+			if (response == null) return;
+			try {
+				response.close();
+			} catch (Exception ignored) {
+			}
+		}
+
+		private final class Reader implements Source {
+			private long position;
+			private boolean closed;
+
+			private Reader(final long position) {
+				this.position = position;
+			}
+
+			@Override
+			public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+				if (byteCount == 0L) return 0L;
+				return Flight.this.read(this, sink, byteCount);
+			}
+
+			@NonNull
+			@Override
+			public Timeout timeout() {
+				return Timeout.NONE;
+			}
+
+			@Override
+			public void close() {
+				closeReader(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.hhst.youtubelite.browser;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hhst.youtubelite.util.StreamIOUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Single script that installs every bundled style and user script into a page.
+ * The assets are read and concatenated once per process; the payload carries a page guard keyed by
+ * its content hash, so evaluating it again in a page that already has it does nothing.
+ */
+public final class ScriptBundle {
+	static final String STYLE_DIR = "style";
+	static final String SCRIPT_DIR = "script";
+	static final List<String> INIT_SCRIPTS = List.of("init.js", "init.min.js");
+	private static final String TAG = "ScriptBundle";
+	@Nullable
+	private static volatile ScriptBundle cached;
+
+	@NonNull
+	private final String version;
+	@NonNull
+	private final String source;
+
+	private ScriptBundle(@NonNull String version, @NonNull String source) {
+		this.version = version;
+		this.source = source;
+	}
+
+	/**
+	 * Returns the process-wide bundle, reading the assets on first use.
+	 */
+	@NonNull
+	public static ScriptBundle load(@NonNull AssetManager assets) {
+		ScriptBundle bundle = cached;
+		if (bundle != null) return bundle;
+		synchronized (ScriptBundle.class) {
+			if (cached == null) cached = build(read(assets, STYLE_DIR, ".css"), read(assets, SCRIPT_DIR, ".js"));
+			return cached;
+		}
+	}
+
+	/**
+	 * Builds a bundle from ordered name to content maps. Styles go into one style element, and
+	 * scripts run in order with an init script first, each isolated so one failure does not stop the rest.
+	 */
+	@NonNull
+	static ScriptBundle build(@NonNull Map<String, String> styles, @NonNull Map<String, String> scripts) {
+		StringBuilder css = new StringBuilder();
+		for (String style : styles.values()) {
+			css.append(minifyCss(style)).append('\n');
+		}
+		StringBuilder body = new StringBuilder();
+		if (css.length() > 0) {
+			body.append("(function(){var s=document.createElement('style');s.id='lite-style';s.textContent=")
+							.append(quote(css.toString()))
+							.append(";var add=function(){var t=document.head||document.documentElement;if(!t)return false;t.appendChild(s);return true;};")
+							.append("if(!add())document.addEventListener('readystatechange',function f(){if(add())document.removeEventListener('readystatechange',f);});})();\n");
+		}
+		for (String name : ordered(scripts.keySet())) {
+			body.append("try{\n").append(scripts.get(name)).append("\n}catch(e){console.error('lite: ")
+							.append(name).append("',e);}\n");
+		}
+		String version = version(body.toString());
+		String source = "if(!/^accounts\\./.test(location.hostname)&&window.__liteBundle!=='" + version + "'){window.__liteBundle='"
+						+ version + "';\n" + body + "}\n";
+		return new ScriptBundle(version, source);
+	}
+
+	@NonNull
+	public String version() {
+		return version;
+	}
+
+	@NonNull
+	public String source() {
+		return source;
+	}
+
+	/**
+	 * Expression that evaluates to true when this bundle is already installed in the page.
+	 */
+	@NonNull
+	public String installedProbe() {
+		return "window.__liteBundle==='" + version + "'";
+	}
+
+	@NonNull
+	private static Map<String, String> read(@NonNull AssetManager assets, @NonNull String dir, @NonNull String suffix) {
+		Map<String, String> contents = new LinkedHashMap<>();
+		try {
+			String[] names = assets.list(dir);
+			if (names == null) return contents;
+			Arrays.sort(names);
+			for (String name : names) {
+				if (!name.endsWith(suffix)) continue;
+				String content = StreamIOUtils.readInputStream(assets.open(dir + "/" + name));
+				if (content != null) contents.put(name, content);
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to load assets", e);
+		}
+		return contents;
+	}
+
+	@NonNull
+	private static List<String> ordered(@NonNull Iterable<String> names) {
+		List<String> ordered = new ArrayList<>();
+		String init = null;
+		for (String name : names) {
+			if (init == null && INIT_SCRIPTS.contains(name)) init = name;
+			else ordered.add(name);
+		}
+		if (init != null) ordered.add(0, init);
+		return ordered;
+	}
+
+	/**
+	 * Drops comments and collapses whitespace outside string literals, leaving selectors and values intact.
+	 */
+	@NonNull
+	static String minifyCss(@NonNull String css) {
+		StringBuilder out = new StringBuilder(css.length());
+		int length = css.length();
+		boolean space = false;
+		for (int i = 0; i < length; i++) {
+			char c = css.charAt(i);
+			if (c == '/' && i + 1 < length && css.charAt(i + 1) == '*') {
+				int end = css.indexOf("*/", i + 2);
+				i = end < 0 ? length : end + 1;
+				space = true;
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				space = true;
+				continue;
+			}
+			if (space && out.length() > 0 && !isCssPunctuation(c) && !isCssPunctuation(out.charAt(out.length() - 1))) {
+				out.append(' ');
+			}
+			space = false;
+			if (c == '"' || c == '\'') {
+				int end = i + 1;
+				while (end < length && css.charAt(end) != c) {
+					if (css.charAt(end) == '\\') end++;
+					end++;
+				}
+				end = Math.min(end, length - 1);
+				out.append(css, i, end + 1);
+				i = end;
+				continue;
+			}
+			out.append(c);
+		}
+		return out.toString();
+	}
+
+	private static boolean isCssPunctuation(final char c) {
+		return c == '{' || c == '}' || c == ';' || c == ',';
+	}
+
+	/**
+	 * Quotes {@code value} as a JavaScript string literal.
+	 */
+	@NonNull
+	static String quote(@NonNull String value) {
+		StringBuilder out = new StringBuilder(value.length() + 16).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> out.append("\\\"");
+				case '\\' -> out.append("\\\\");
+				case '\n' -> out.append("\\n");
+				case '\r' -> out.append("\\r");
+				case '\t' -> out.append("\\t");
+				case '<' -> out.append("\\x3c");
+				case '\u2028' -> out.append("\\u2028");
+				case '\u2029' -> out.append("\\u2029");
+				default -> {
+					if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+					else out.append(c);
+				}
+			}
+		}
+		return out.append('"').toString();
+	}
+
+	@NonNull
+	private static String version(@NonNull String content) {
+		CRC32 crc = new CRC32();
+		crc.update(content.getBytes(StandardCharsets.UTF_8));
+		return Long.toHexString(crc.getValue());
+	}
+}
@@ -1,7 +1,6 @@
 package com.hhst.youtubelite.browser;
 
 import android.app.Activity;
-import android.util.Log;
 import android.webkit.ValueCallback;
 import android.webkit.WebBackForwardList;
 
@@ -18,13 +17,8 @@ import com.hhst.youtubelite.extension.ExtensionManager;
 import com.hhst.youtubelite.player.LitePlayer;
 import com.hhst.youtubelite.util.UrlUtils;
 
-import org.apache.commons.io.FilenameUtils;
-
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -41,7 +35,6 @@ import lombok.Getter;
 @UnstableApi
 public class TabManager {
 
-	private static final String TAG = "TabManager";
 	private static final Set<String> NAV_TAGS = Set.of(Constant.PAGE_HOME, Constant.PAGE_SUBSCRIPTIONS, Constant.PAGE_LIBRARY);
 	private final Activity activity;
 	private final Lazy<LitePlayer> player;
@@ -165,30 +158,7 @@ public class TabManager {
 	}
 
 	public void injectScripts(@NonNull YoutubeWebview webView) {
-		var assetMgr = activity.getAssets();
-		try {
-			for (var dir : List.of("style", "script")) {
-				var list = assetMgr.list(dir);
-				if (list == null) continue;
-				var resources = new ArrayList<>(List.of(list));
-				var initScript = resources.contains("init.js") ? "init.js" : resources.contains("init.min.js") ? "init.min.js" : null;
-				if (initScript != null) {
-					try (var is = assetMgr.open(dir + "/" + initScript)) {
-						webView.injectJavaScript(is);
-					}
-					resources.remove(initScript);
-				}
-				for (var resName : resources) {
-					try (var stream = assetMgr.open(dir + "/" + resName)) {
-						var ext = FilenameUtils.getExtension(resName);
-						if ("js".equals(ext)) webView.injectJavaScript(stream);
-						else if ("css".equals(ext)) webView.injectCss(stream);
-					}
-				}
-			}
-		} catch (IOException e) {
-			Log.e(TAG, "Failed to load assets", e);
-		}
+		webView.setScriptBundle(ScriptBundle.load(activity.getAssets()));
 	}
 
 	@Nullable
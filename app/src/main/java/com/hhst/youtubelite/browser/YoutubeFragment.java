@@ -14,8 +14,10 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.hhst.youtubelite.Constant;
 import com.hhst.youtubelite.R;
+import com.hhst.youtubelite.cache.WebAssetMemoryCache;
 import com.hhst.youtubelite.cache.WebViewCachePolicy;
 import com.hhst.youtubelite.extension.ExtensionManager;
+import com.hhst.youtubelite.extractor.ConnectionWarmer;
 import com.hhst.youtubelite.extractor.YoutubeExtractor;
 import com.hhst.youtubelite.extractor.potoken.PoTokenContextStore;
 import com.hhst.youtubelite.player.LitePlayer;
@@ -53,7 +55,13 @@ public final class YoutubeFragment extends Fragment {
 	@Inject
 	WebViewCachePolicy webViewCachePolicy;
 	@Inject
+	WebAssetMemoryCache webAssetMemoryCache;
+	@Inject
+	CookieAccessCoordinator cookieAccessCoordinator;
+	@Inject
 	PoTokenContextStore poTokenContextStore;
+	@Inject
+	ConnectionWarmer connectionWarmer;
 
 	@Nullable
 	private String url;
@@ -117,8 +125,9 @@ public final class YoutubeFragment extends Fragment {
 		webView.setExtensionManager(extensionManager);
 		webView.setTabManager(tabManager);
 		webView.setQueueRepository(queueRepository);
-		webView.setOkHttpClient(okHttpClient, webViewCachePolicy);
+		webView.setOkHttpClient(okHttpClient, webViewCachePolicy, webAssetMemoryCache, cookieAccessCoordinator);
 		webView.setPoTokenContextStore(poTokenContextStore);
+		webView.setConnectionWarmer(connectionWarmer);
 		tabManager.injectScripts(webView);
 		webView.setUpdateVisitedHistory(url -> {
 			YoutubeFragment.this.url = url;
@@ -26,11 +26,15 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.media3.common.util.Consumer;
 import androidx.media3.common.util.UnstableApi;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
 
 import com.hhst.youtubelite.Constant;
 import com.hhst.youtubelite.R;
+import com.hhst.youtubelite.cache.WebAssetMemoryCache;
 import com.hhst.youtubelite.cache.WebViewCachePolicy;
 import com.hhst.youtubelite.extension.ExtensionManager;
+import com.hhst.youtubelite.extractor.ConnectionWarmer;
 import com.hhst.youtubelite.extractor.YoutubeExtractor;
 import com.hhst.youtubelite.extractor.potoken.PoTokenContextStore;
 import com.hhst.youtubelite.extractor.potoken.PoTokenJsonUtils;
@@ -39,28 +43,19 @@ import com.hhst.youtubelite.player.LitePlayer;
 import com.hhst.youtubelite.player.queue.QueueRepository;
 import com.hhst.youtubelite.ui.MainActivity;
 import com.hhst.youtubelite.ui.widget.LoadingProgressBar;
-import com.hhst.youtubelite.util.StreamIOUtils;
 import com.hhst.youtubelite.util.ToastUtils;
 import com.hhst.youtubelite.util.UrlUtils;
 import com.hhst.youtubelite.util.ViewUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.Collections;
-import java.util.Enumeration;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.OkHttpClient;
-import okhttp3.Response;
 
 /**
  * WebView wrapper that constrains navigation and injects page hooks.
@@ -68,6 +63,7 @@ import okhttp3.Response;
 @UnstableApi
 public class YoutubeWebview extends WebView {
 
+	private static final String LIVE_CHAT_SNIPPET = "<script>(function(){ " + "document.addEventListener('tap', (e) => { " + "const msg = e.target.closest('yt-live-chat-text-message-renderer'); " + "if (!msg) return; " + "e.preventDefault(); " + "e.stopImmediatePropagation(); " + "}, true); " + "})();</script>";
 	private static final String PO_TOKEN_CONTEXT_SCRIPT = """
 					(function(){
 					try{
@@ -116,7 +112,9 @@ public class YoutubeWebview extends WebView {
 					}
 					})();
 					""";
-	private final ArrayList<String> scripts = new ArrayList<>();
+	private static final Set<String> DOCUMENT_START_ORIGINS = Set.of(
+					"https://" + Constant.YOUTUBE_DOMAIN,
+					"https://*." + Constant.YOUTUBE_DOMAIN);
 	@NonNull
 	private final Frame frame = new Frame();
 	@Nullable
@@ -136,12 +134,17 @@ public class YoutubeWebview extends WebView {
 	private LoadingProgressBar progressBar;
 	@Nullable
 	private PoTokenContextStore poTokenContextStore;
+	@Nullable
+	private ConnectionWarmer connectionWarmer;
 	private volatile boolean initialized;
 	@Nullable
 	private volatile String poTokenInflightKey;
 	@Nullable
 	private volatile String poTokenDoneKey;
 	private volatile long prefVersion = -1L;
+	@Nullable
+	private ScriptBundle scriptBundle;
+	private boolean documentStartScript;
 
 	public YoutubeWebview(@NonNull Context context) {
 		this(context, null);
@@ -215,8 +218,12 @@ public class YoutubeWebview extends WebView {
 		}
 	}
 
-	public void setOkHttpClient(@NonNull OkHttpClient okHttpClient, @NonNull WebViewCachePolicy webViewCachePolicy) {
-		okHttpWebViewInterceptor = new OkHttpWebViewInterceptor(okHttpClient, webViewCachePolicy);
+	public void setOkHttpClient(@NonNull OkHttpClient okHttpClient,
+	                            @NonNull WebViewCachePolicy webViewCachePolicy,
+	                            @NonNull WebAssetMemoryCache webAssetMemoryCache,
+	                            @NonNull CookieAccessCoordinator cookieAccessCoordinator) {
+		okHttpWebViewInterceptor = new OkHttpWebViewInterceptor(okHttpClient, webViewCachePolicy, webAssetMemoryCache, cookieAccessCoordinator);
+		okHttpWebViewInterceptor.addHeadSnippet("/live_chat", LIVE_CHAT_SNIPPET);
 	}
 
 	public void setUpdateVisitedHistory(@Nullable Consumer<String> updateVisitedHistory) {
@@ -251,6 +258,10 @@ public class YoutubeWebview extends WebView {
 		this.poTokenContextStore = poTokenContextStore;
 	}
 
+	public void setConnectionWarmer(@NonNull ConnectionWarmer connectionWarmer) {
+		this.connectionWarmer = connectionWarmer;
+	}
+
 	public boolean isPoTokenReadyCandidate() {
 		String url = frame.url;
 		return initialized && frame.finished && UrlUtils.isAllowedUrl(url) && !UrlUtils.isGoogleAccountsUrl(url) && !url.startsWith("file:");
@@ -363,6 +374,10 @@ public class YoutubeWebview extends WebView {
 				frame.finished = false;
 				frame.url = url;
 				onNavStarted();
+				// Feed pages request thumbnails as soon as they render.
+				if (connectionWarmer != null && UrlUtils.isAllowedUrl(url) && !UrlUtils.isGoogleAccountsUrl(url)) {
+					connectionWarmer.warmThumbnails();
+				}
 				if (progressBar != null) progressBar.beginLoading();
 				evaluateJavascript("window.dispatchEvent(new Event('onPageStarted'));", null);
 				injectJavaScript(url);
@@ -410,27 +425,6 @@ public class YoutubeWebview extends WebView {
 			@Nullable
 			@Override
 			public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
-				Uri uri = request.getUrl();
-				String path = uri.getPath();
-				if (path != null && path.equals("/live_chat") && okHttpWebViewInterceptor != null && okHttpWebViewInterceptor.canExecute(request)) {
-					String url = uri.toString();
-					Response okHttpResponse = null;
-					try {
-						okHttpResponse = okHttpWebViewInterceptor.execute(request);
-						if (okHttpResponse == null) {
-							return super.shouldInterceptRequest(view, request);
-						}
-
-						InputStream sourceStream = okHttpResponse.body().byteStream();
-						String injectedScript = "<script>(function(){ " + "document.addEventListener('tap', (e) => { " + "const msg = e.target.closest('yt-live-chat-text-message-renderer'); " + "if (!msg) return; " + "e.preventDefault(); " + "e.stopImmediatePropagation(); " + "}, true); " + "})();</script>";
-						InputStream injectedStream = new ByteArrayInputStream(injectedScript.getBytes(StandardCharsets.UTF_8));
-						Enumeration<InputStream> streams = Collections.enumeration(Arrays.asList(injectedStream, sourceStream));
-						SequenceInputStream sequenceInputStream = new SequenceInputStream(streams);
-						return okHttpWebViewInterceptor.toWebResourceResponse(url, okHttpResponse, sequenceInputStream);
-					} catch (Exception ignored) {
-						if (okHttpResponse != null) okHttpResponse.close();
-					}
-				}
 				if (okHttpWebViewInterceptor != null) {
 					WebResourceResponse response = okHttpWebViewInterceptor.intercept(request);
 					if (response != null) return response;
@@ -527,33 +521,37 @@ public class YoutubeWebview extends WebView {
 		});
 	}
 
+	/**
+	 * Evaluates the script bundle unless the page reports it as already installed.
+	 */
 	private void injectJavaScript(@Nullable String url) {
-		if (UrlUtils.isGoogleAccountsUrl(url)) return;
-		for (String js : scripts) evaluateJavascript(js, null);
-	}
-
-	public void injectJavaScript(@NonNull InputStream jsInputStream) {
-		String js = StreamIOUtils.readInputStream(jsInputStream);
-		if (js != null) {
-			addScript(js);
-		}
+		ScriptBundle bundle = scriptBundle;
+		if (bundle == null || url == null || UrlUtils.isGoogleAccountsUrl(url)) return;
+		evaluateJavascript(bundle.installedProbe(), installed -> {
+			if (!"true".equals(installed)) evaluateJavascript(bundle.source(), null);
+		});
 	}
 
-	public void injectCss(@NonNull InputStream cssInputStream) {
-		String css = StreamIOUtils.readInputStream(cssInputStream);
-		if (css != null) {
-			String encodedCss = Base64.getEncoder().encodeToString(css.getBytes());
-			String js = String.format("""
-							(function(){
-							let style = document.createElement('style');
-							style.type = 'text/css';
-							style.textContent = window.atob('%s');
-							let target = document.head || document.documentElement;
-							if (target) target.appendChild(style);
-							})()
-							""", encodedCss);
-			addScript(js);
+	/**
+	 * Sets the bundle injected into every page. Where the WebView supports document-start scripts it is
+	 * registered once to run before page scripts; page callbacks still evaluate it as a fallback, which
+	 * the bundle's page guard turns into a no-op once it is installed.
+	 */
+	public void setScriptBundle(@NonNull ScriptBundle bundle) {
+		Runnable task = () -> {
+			if (bundle == scriptBundle) return;
+			scriptBundle = bundle;
+			if (!documentStartScript && WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)) {
+				WebViewCompat.addDocumentStartJavaScript(this, bundle.source(), DOCUMENT_START_ORIGINS);
+				documentStartScript = true;
+			}
+			injectJavaScript(frame.url);
+		};
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			task.run();
+			return;
 		}
+		post(task);
 	}
 
 	public void setScriptActive(boolean active) {
@@ -573,20 +571,6 @@ public class YoutubeWebview extends WebView {
 		poTokenDoneKey = null;
 	}
 
-	private void addScript(@NonNull String js) {
-		Runnable task = () -> {
-			scripts.add(js);
-			if (frame.url != null && !UrlUtils.isGoogleAccountsUrl(frame.url)) {
-				evaluateJavascript(js, null);
-			}
-		};
-		if (Looper.myLooper() == Looper.getMainLooper()) {
-			task.run();
-			return;
-		}
-		post(task);
-	}
-
 /**
  * Snapshot of the current WebView navigation frame.
  */
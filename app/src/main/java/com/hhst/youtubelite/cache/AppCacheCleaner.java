@@ -28,12 +28,16 @@ public final class AppCacheCleaner {
 	private final Context context;
 	@NonNull
 	private final Cache cache;
+	@NonNull
+	private final WebAssetMemoryCache memoryCache;
 
 	@Inject
 	public AppCacheCleaner(@ApplicationContext @NonNull Context context,
-	                       @NonNull Cache cache) {
+	                       @NonNull Cache cache,
+	                       @NonNull WebAssetMemoryCache memoryCache) {
 		this.context = context;
 		this.cache = cache;
+		this.memoryCache = memoryCache;
 	}
 
 	static void deleteContents(File dir) throws IOException {
@@ -101,6 +105,7 @@ public final class AppCacheCleaner {
 	}
 
 	void clearCacheDirectories() throws IOException {
+		memoryCache.clear();
 		cache.evictAll();
 		deleteContents(context.getCacheDir());
 		deleteContents(context.getExternalCacheDir());
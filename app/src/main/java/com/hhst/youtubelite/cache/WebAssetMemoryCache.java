@@ -0,0 +1,210 @@
+package com.hhst.youtubelite.cache;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * Memory tier in front of the OkHttp disk cache for hot WebView assets such as scripts, styles and fonts.
+ * Entries are immutable byte arrays keyed by URL and matched against the request's Vary headers, as the
+ * disk cache does; eviction is least recently used by byte weight and follows {@link #onTrimMemory(int)}.
+ */
+@Singleton
+public final class WebAssetMemoryCache implements ComponentCallbacks2 {
+	static final long MAX_ENTRY_BYTES = 4L * 1024L * 1024L;
+	private static final long MAX_BYTES = 32L * 1024L * 1024L;
+	private static final long ENTRY_OVERHEAD_BYTES = 256L;
+
+	@NonNull
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true);
+	private final long maxBytes;
+	private final long maxEntryBytes;
+	private long size;
+	private long hits;
+	private long misses;
+
+	@Inject
+	public WebAssetMemoryCache() {
+		this(Math.min(MAX_BYTES, Runtime.getRuntime().maxMemory() / 16L), MAX_ENTRY_BYTES);
+	}
+
+	WebAssetMemoryCache(final long maxBytes, final long maxEntryBytes) {
+		this.maxBytes = maxBytes;
+		this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+	}
+
+	/**
+	 * Returns the cached asset for {@code request}, or null on a miss.
+	 */
+	@Nullable
+	public synchronized Hit get(@NonNull Request request) {
+		Entry entry = entries.get(key(request));
+		if (entry == null || !entry.matches(request)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return new Hit(entry.response(), entry.body());
+	}
+
+	/**
+	 * Buffers {@code response} into memory when it is a complete 200 that fits in one entry, and
+	 * returns a response to serve in its place. Larger bodies are left streaming and not cached.
+	 */
+	@NonNull
+	public Response remember(@NonNull Request request, @NonNull Response response) throws IOException {
+		if (response.code() != 200 || varyFields(response.headers()).contains("*")) return response;
+		ResponseBody body = response.body();
+		if (body.contentLength() > maxEntryBytes) return response;
+		BufferedSource source = body.source();
+		// request() buffers ahead without consuming, so an oversized body still streams in full.
+		if (source.request(maxEntryBytes + 1L)) return response;
+		byte[] bytes = source.readByteArray();
+		response.close();
+		Entry entry = new Entry(response.newBuilder().body(ResponseBody.EMPTY).build(),
+						body.contentType(), varyValues(request, response.headers()), bytes);
+		synchronized (this) {
+			Entry previous = entries.put(key(request), entry);
+			if (previous != null) size -= previous.weight();
+			size += entry.weight();
+			trimToSize(maxBytes);
+		}
+		return entry.response();
+	}
+
+	public synchronized void invalidate(@NonNull String url) {
+		Entry removed = entries.remove(url);
+		if (removed != null) size -= removed.weight();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		size = 0L;
+	}
+
+	@NonNull
+	public synchronized Stats stats() {
+		return new Stats(entries.size(), size, maxBytes, hits, misses);
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+			clear();
+		} else if (level == TRIM_MEMORY_RUNNING_LOW) {
+			trim(maxBytes / 4L);
+		} else {
+			trim(maxBytes / 2L);
+		}
+	}
+
+	@Override
+	public void onConfigurationChanged(@NonNull Configuration newConfig) {
+	}
+
+	@Override
+	public void onLowMemory() {
+		clear();
+	}
+
+	synchronized void trim(final long targetBytes) {
+		trimToSize(targetBytes);
+	}
+
+	private void trimToSize(final long targetBytes) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (size > targetBytes && iterator.hasNext()) {
+			size -= iterator.next().weight();
+			iterator.remove();
+		}
+	}
+
+	@NonNull
+	private static String key(@NonNull Request request) {
+		return request.url().toString();
+	}
+
+	@NonNull
+	private static Map<String, String> varyValues(@NonNull Request request, @NonNull Headers responseHeaders) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (String name : varyFields(responseHeaders)) {
+			values.put(name, String.join(",", request.headers(name)));
+		}
+		return values;
+	}
+
+	@NonNull
+	private static Set<String> varyFields(@NonNull Headers headers) {
+		Set<String> fields = new TreeSet<>();
+		for (String value : headers.values("Vary")) {
+			for (String field : value.split(",")) {
+				String name = field.trim().toLowerCase(Locale.US);
+				if (!name.isEmpty()) fields.add(name);
+			}
+		}
+		return fields;
+	}
+
+/**
+ * Value object for one cached asset.
+ */
+	private record Entry(@NonNull Response head,
+	                     @Nullable MediaType contentType,
+	                     @NonNull Map<String, String> vary,
+	                     @NonNull byte[] body) {
+		boolean matches(@NonNull Request request) {
+			for (Map.Entry<String, String> field : vary.entrySet()) {
+				if (!Objects.equals(field.getValue(), String.join(",", request.headers(field.getKey())))) return false;
+			}
+			return true;
+		}
+
+		@NonNull
+		Response response() {
+			return head.newBuilder().body(ResponseBody.create(body, contentType)).build();
+		}
+
+		long weight() {
+			return body.length + head.headers().byteCount() + ENTRY_OVERHEAD_BYTES;
+		}
+	}
+
+/**
+ * Value object for a cache hit; {@code body} is shared and must not be modified.
+ */
+	public record Hit(@NonNull Response response, @NonNull byte[] body) {
+		@NonNull
+		public InputStream stream() {
+			return new ByteArrayInputStream(body);
+		}
+	}
+
+/**
+ * Value object for memory tier counters.
+ */
+	public record Stats(int entries, long bytes, long maxBytes, long hits, long misses) {
+	}
+}
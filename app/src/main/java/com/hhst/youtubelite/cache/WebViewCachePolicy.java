@@ -74,15 +74,20 @@ public final class WebViewCachePolicy {
 	}
 
 	public boolean shouldForceCachePath(@Nullable String path) {
-		if (path == null || path.isEmpty()) return false;
-		int lastSlash = path.lastIndexOf('/');
-		String filename = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
-		int dot = filename.lastIndexOf('.');
-		if (dot < 0 || dot == filename.length() - 1) return false;
-		String extension = filename.substring(dot + 1).toLowerCase(Locale.US);
+		String extension = extensionOf(path);
+		if (extension == null) return false;
 		return Set.of("html", "htm", "js", "ico", "css", "png", "jpg", "jpeg", "gif", "bmp", "ttf", "woff", "woff2", "otf", "eot", "svg", "xml", "swf", "txt", "text", "conf", "webp").contains(extension);
 	}
 
+	/**
+	 * Returns whether a static asset is worth keeping in the memory tier: scripts, styles, fonts and
+	 * SVG are reused by every page, unlike thumbnails.
+	 */
+	public boolean shouldKeepInMemory(@Nullable String path) {
+		String extension = extensionOf(path);
+		return extension != null && Set.of("js", "css", "ttf", "woff", "woff2", "otf", "eot", "svg").contains(extension);
+	}
+
 	boolean shouldForceCacheMainFrame(boolean mainFrame, @Nullable String url) {
 		if (!mainFrame || url == null || url.isEmpty()) return false;
 		try {
@@ -202,6 +207,16 @@ public final class WebViewCachePolicy {
 		}
 	}
 
+	@Nullable
+	private String extensionOf(@Nullable String path) {
+		if (path == null || path.isEmpty()) return null;
+		int lastSlash = path.lastIndexOf('/');
+		String filename = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
+		int dot = filename.lastIndexOf('.');
+		if (dot < 0 || dot == filename.length() - 1) return null;
+		return filename.substring(dot + 1).toLowerCase(Locale.US);
+	}
+
 	private boolean hasText(@Nullable String value) {
 		return value != null && !value.isEmpty();
 	}
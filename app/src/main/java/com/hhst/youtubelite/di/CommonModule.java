@@ -1,6 +1,7 @@
 package com.hhst.youtubelite.di;
 
 import android.content.Context;
+import android.webkit.CookieManager;
 
 import androidx.annotation.NonNull;
 import androidx.media3.common.util.UnstableApi;
@@ -9,6 +10,7 @@ import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
 import androidx.media3.datasource.cache.SimpleCache;
 
 import com.google.gson.Gson;
+import com.hhst.youtubelite.browser.CookieAccessCoordinator;
 import com.hhst.youtubelite.cache.WebViewCachePolicy;
 import com.tencent.mmkv.MMKV;
 
@@ -74,6 +76,12 @@ public class CommonModule {
 						.build();
 	}
 
+	@Provides
+	@Singleton
+	public CookieAccessCoordinator provideCookieAccessCoordinator() {
+		return CookieAccessCoordinator.create(CookieManager.getInstance());
+	}
+
 	@Provides
 	@Singleton
 	public Executor provideExecutor() {
@@ -23,11 +23,15 @@ public final class DownloadPrefs {
 	private static final String KEY_SUB_LANG = "download_subtitle_language";
 	private static final String KEY_MEDIA_MODE = "download_primary_media_mode";
 	private static final String KEY_THREADS = "download_thread_count";
+	private static final String KEY_PREPARE_PARALLELISM = "download_playlist_prepare_parallelism";
 	private static final String KEY_VID_ITAG = "download_video_itag";
 	private static final String KEY_VID_H = "download_video_height";
 	private static final String KEY_VID_FPS = "download_video_fps";
 	private static final String KEY_AUD_ITAG = "download_audio_itag";
 	private static final int DEF_THREADS = 4;
+	private static final int DEF_PREPARE_PARALLELISM = 4;
+	/** Stays below the extractor pool's core size so playback extraction is never starved by a batch. */
+	private static final int MAX_PREPARE_PARALLELISM = 6;
 	private static final int NO_VALUE = -1;
 
 	@NonNull
@@ -98,6 +102,17 @@ public final class DownloadPrefs {
 		kv.encode(KEY_THREADS, Math.max(1, threadCount));
 	}
 
+	/**
+	 * Returns how many playlist items are extracted at once while a batch is prepared.
+	 */
+	public int getPreparationParallelism() {
+		return Math.min(MAX_PREPARE_PARALLELISM, Math.max(1, kv.decodeInt(KEY_PREPARE_PARALLELISM, DEF_PREPARE_PARALLELISM)));
+	}
+
+	public void setPreparationParallelism(int parallelism) {
+		kv.encode(KEY_PREPARE_PARALLELISM, Math.min(MAX_PREPARE_PARALLELISM, Math.max(1, parallelism)));
+	}
+
 	public void saveVideoSelection(@Nullable VideoStream stream) {
 		if (stream == null) return;
 		kv.encode(KEY_VID_ON, true);
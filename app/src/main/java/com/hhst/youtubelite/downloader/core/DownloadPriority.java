@@ -0,0 +1,13 @@
+package com.hhst.youtubelite.downloader.core;
+
+/**
+ * Enumeration of scheduling priorities, lowest first.
+ */
+public enum DownloadPriority {
+	/** Playlist items queued in bulk. */
+	LOW,
+	/** A single download the user started. */
+	NORMAL,
+	/** Small side files such as subtitles and thumbnails. */
+	HIGH
+}
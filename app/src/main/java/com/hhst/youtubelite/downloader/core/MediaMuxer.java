@@ -7,6 +7,8 @@ import com.googlecode.mp4parser.authoring.Movie;
 import com.googlecode.mp4parser.authoring.Track;
 import com.googlecode.mp4parser.authoring.builder.DefaultMp4Builder;
 import com.googlecode.mp4parser.authoring.container.mp4.MovieCreator;
+import com.hhst.youtubelite.downloader.core.mp4.Mp4FormatException;
+import com.hhst.youtubelite.downloader.core.mp4.StreamingMuxer;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -19,7 +21,15 @@ import java.util.List;
  */
 public final class MediaMuxer {
 	public static void merge(@NonNull File videoFile, @NonNull File audioFile, @NonNull File outputFile) throws IOException {
+		try {
+			StreamingMuxer.merge(videoFile, audioFile, outputFile);
+		} catch (Mp4FormatException e) {
+			// Layouts the streaming path does not understand still go through mp4parser.
+			mergeWithMp4parser(videoFile, audioFile, outputFile);
+		}
+	}
 
+	static void mergeWithMp4parser(@NonNull File videoFile, @NonNull File audioFile, @NonNull File outputFile) throws IOException {
 		Movie video = MovieCreator.build(videoFile.getAbsolutePath());
 		Movie audio = MovieCreator.build(audioFile.getAbsolutePath());
 
@@ -15,4 +15,10 @@ public interface ProgressCallback {
 
 	void onCancel();
 
+	/**
+	 * Reports that the first {@code bytes} of the output are written; later ranges may still be in flight.
+	 */
+	default void onPrefix(long bytes) {
+	}
+
 }
@@ -12,9 +12,15 @@ import java.util.concurrent.CompletableFuture;
  */
 public interface StreamDownloader {
 
-	CompletableFuture<File> download(@NonNull String url, @NonNull File output, @Nullable ProgressCallback callback);
-
-	void setMaxThreadCount(int count);
+	/**
+	 * @param connections most connections this file may hold at once
+	 * @param priority    share of the global connection budget relative to other files
+	 */
+	CompletableFuture<File> download(@NonNull String url,
+	                                 @NonNull File output,
+	                                 @Nullable ProgressCallback callback,
+	                                 int connections,
+	                                 @NonNull DownloadPriority priority);
 
 	void pause(@NonNull String url);
 
@@ -9,114 +9,270 @@ import com.tencent.mmkv.MMKV;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
  * Repository for persisted download history records.
+ * Each record is stored under its task id in a dedicated MMKV instance and indexed in memory by parent and creation time,
+ * so updates write one record and queries never parse the whole history.
  */
 @Singleton
 public final class DownloadHistoryRepository {
+	/** Legacy key that held the whole history as one JSON list in the default MMKV. */
 	public static final String KEY_DOWNLOAD_HISTORY = "download_history";
+	static final String ID = "download_history";
 
 	private static final Type LIST_TYPE = new TypeToken<List<DownloadRecord>>() {
 	}.getType();
+	private static final String ROOT = "";
+	/** Newest first; the task id breaks ties so records with equal timestamps stay distinct. */
+	private static final Comparator<DownloadRecord> ORDER = Comparator
+					.comparingLong(DownloadRecord::getCreatedAt).reversed()
+					.thenComparing(DownloadRecord::getTaskId);
 
 	@NonNull
-	private final MMKV mmkv;
+	private final Backend store;
+	@NonNull
+	private final Backend legacy;
 	@NonNull
 	private final Gson gson;
+	@NonNull
+	private final Map<String, DownloadRecord> records = new HashMap<>();
+	@NonNull
+	private final Map<String, NavigableSet<DownloadRecord>> groups = new HashMap<>();
+	private boolean loaded;
 
 	@Inject
 	public DownloadHistoryRepository(@NonNull MMKV mmkv, @NonNull Gson gson) {
-		this.mmkv = mmkv;
-		this.gson = gson;
+		this(new MmkvBackend(MMKV.mmkvWithID(ID)), new MmkvBackend(mmkv), gson);
+	}
+
+	DownloadHistoryRepository(@NonNull Backend store,
+	                          @NonNull Backend legacy,
+	                          @NonNull Gson gson) {
+		this.store = Objects.requireNonNull(store);
+		this.legacy = Objects.requireNonNull(legacy);
+		this.gson = Objects.requireNonNull(gson);
 	}
 
 	@NonNull
-	public synchronized List<DownloadRecord> getAllSorted() {
-		List<DownloadRecord> items = readAllInternal();
-		items.sort(Comparator.comparingLong(DownloadRecord::getCreatedAt).reversed());
-		return items;
+	public synchronized List<DownloadRecord> getChildrenSorted(@NonNull String parentId) {
+		return page(parentId, null, Integer.MAX_VALUE);
 	}
 
+	/**
+	 * Returns up to {@code limit} top-level records, newest first, that sort after {@code after}.
+	 *
+	 * @param after last record of the previous page, or null for the first page; it may have been deleted since
+	 */
 	@NonNull
-	public synchronized List<DownloadRecord> getRootsSorted() {
-		List<DownloadRecord> roots = new ArrayList<>();
-		for (DownloadRecord record : readAllInternal()) {
-			if (record.getParentId() == null || record.getParentId().isBlank()) roots.add(record);
-		}
-		roots.sort(Comparator.comparingLong(DownloadRecord::getCreatedAt).reversed());
-		return roots;
+	public synchronized List<DownloadRecord> getRootsPage(@Nullable DownloadRecord after, final int limit) {
+		return page(ROOT, after, limit);
 	}
 
+	/**
+	 * Returns up to {@code limit} children of {@code parentId}, newest first, that sort after {@code after}.
+	 */
 	@NonNull
-	public synchronized List<DownloadRecord> getChildrenSorted(@NonNull String parentId) {
-		List<DownloadRecord> children = new ArrayList<>();
-		for (DownloadRecord record : readAllInternal()) {
-			if (Objects.equals(parentId, record.getParentId())) children.add(record);
-		}
-		children.sort(Comparator.comparingLong(DownloadRecord::getCreatedAt).reversed());
-		return children;
+	public synchronized List<DownloadRecord> getChildrenPage(@NonNull String parentId,
+	                                                         @Nullable DownloadRecord after,
+	                                                         final int limit) {
+		return page(parentId, after, limit);
 	}
 
 	@Nullable
 	public synchronized DownloadRecord findByTaskId(@Nullable String taskId) {
 		if (taskId == null) return null;
-		for (DownloadRecord record : readAllInternal()) {
-			if (Objects.equals(record.getTaskId(), taskId)) return record;
-		}
-		return null;
+		load();
+		DownloadRecord record = records.get(taskId);
+		return record != null ? record.copy() : null;
 	}
 
 	public synchronized void upsert(@NonNull DownloadRecord record) {
-		List<DownloadRecord> items = readAllInternal();
-		boolean updated = false;
-		for (int i = 0; i < items.size(); i++) {
-			if (Objects.equals(items.get(i).getTaskId(), record.getTaskId())) {
-				items.set(i, record);
-				updated = true;
-				break;
-			}
-		}
-		if (!updated) items.add(record);
-		writeAllInternal(items);
+		load();
+		DownloadRecord stored = record.copy();
+		index(stored);
+		store.put(stored.getTaskId(), gson.toJson(stored));
 	}
 
 	public synchronized void remove(@NonNull String taskId) {
-		List<DownloadRecord> items = readAllInternal();
-		items.removeIf(record -> Objects.equals(record.getTaskId(), taskId));
-		writeAllInternal(items);
+		load();
+		if (unindex(taskId) != null) store.remove(taskId);
 	}
 
 	public synchronized void removeWithChildren(@NonNull String taskId) {
-		List<DownloadRecord> items = readAllInternal();
-		items.removeIf(record -> Objects.equals(record.getTaskId(), taskId) || Objects.equals(taskId, record.getParentId()));
-		writeAllInternal(items);
+		load();
+		List<String> keys = new ArrayList<>();
+		NavigableSet<DownloadRecord> children = groups.get(taskId);
+		if (children != null) {
+			for (DownloadRecord child : new ArrayList<>(children)) {
+				unindex(child.getTaskId());
+				keys.add(child.getTaskId());
+			}
+		}
+		if (unindex(taskId) != null) keys.add(taskId);
+		if (!keys.isEmpty()) store.removeAll(keys);
 	}
 
 	public synchronized void clear() {
-		mmkv.removeValueForKey(KEY_DOWNLOAD_HISTORY);
+		records.clear();
+		groups.clear();
+		loaded = true;
+		store.clear();
+		legacy.remove(KEY_DOWNLOAD_HISTORY);
 	}
 
 	@NonNull
-	private List<DownloadRecord> readAllInternal() {
-		String json = mmkv.decodeString(KEY_DOWNLOAD_HISTORY, null);
-		if (json == null || json.isBlank()) return new ArrayList<>();
+	private List<DownloadRecord> page(@NonNull String parentId,
+	                                  @Nullable DownloadRecord after,
+	                                  final int limit) {
+		load();
+		NavigableSet<DownloadRecord> group = groups.get(parentId);
+		if (group == null || limit <= 0) return new ArrayList<>();
+		Iterable<DownloadRecord> source = after == null ? group : group.tailSet(after, false);
+		List<DownloadRecord> items = new ArrayList<>(Math.min(limit, group.size()));
+		for (DownloadRecord record : source) {
+			if (items.size() >= limit) break;
+			items.add(record.copy());
+		}
+		return items;
+	}
+
+	/**
+	 * Builds the indexes on first use and moves records out of the legacy blob, keeping newer copies already stored.
+	 */
+	private void load() {
+		if (loaded) return;
+		loaded = true;
+		List<String> corrupt = new ArrayList<>();
+		for (String key : store.keys()) {
+			DownloadRecord record = parse(store.get(key));
+			if (record != null && key.equals(record.getTaskId())) index(record);
+			else corrupt.add(key);
+		}
+		if (!corrupt.isEmpty()) store.removeAll(corrupt);
+
+		String json = legacy.get(KEY_DOWNLOAD_HISTORY);
+		if (json == null) return;
+		List<DownloadRecord> items = null;
+		try {
+			items = gson.fromJson(json, LIST_TYPE);
+		} catch (Exception ignored) {
+			// An unreadable blob is dropped, as the old repository did.
+		}
+		if (items != null) {
+			for (DownloadRecord record : items) {
+				if (record == null || record.getTaskId() == null || records.containsKey(record.getTaskId())) continue;
+				index(record);
+				store.put(record.getTaskId(), gson.toJson(record));
+			}
+		}
+		legacy.remove(KEY_DOWNLOAD_HISTORY);
+	}
+
+	@Nullable
+	private DownloadRecord parse(@Nullable String json) {
+		if (json == null || json.isBlank()) return null;
 		try {
-			List<DownloadRecord> items = gson.fromJson(json, LIST_TYPE);
-			return items != null ? items : new ArrayList<>();
+			return gson.fromJson(json, DownloadRecord.class);
 		} catch (Exception ignored) {
-			return new ArrayList<>();
+			return null;
 		}
 	}
 
-	private void writeAllInternal(@NonNull List<DownloadRecord> items) {
-		mmkv.encode(KEY_DOWNLOAD_HISTORY, gson.toJson(items, LIST_TYPE));
+	private void index(@NonNull DownloadRecord record) {
+		unindex(record.getTaskId());
+		records.put(record.getTaskId(), record);
+		groups.computeIfAbsent(groupOf(record), key -> new TreeSet<>(ORDER)).add(record);
 	}
-}
 
+	@Nullable
+	private DownloadRecord unindex(@NonNull String taskId) {
+		DownloadRecord previous = records.remove(taskId);
+		if (previous == null) return null;
+		String group = groupOf(previous);
+		NavigableSet<DownloadRecord> siblings = groups.get(group);
+		if (siblings != null) {
+			siblings.remove(previous);
+			if (siblings.isEmpty()) groups.remove(group);
+		}
+		return previous;
+	}
+
+	@NonNull
+	private static String groupOf(@NonNull DownloadRecord record) {
+		String parentId = record.getParentId();
+		return parentId == null || parentId.isBlank() ? ROOT : parentId;
+	}
+
+/**
+ * Contract for string storage keyed by task id.
+ */
+	interface Backend {
+		@Nullable
+		String get(@NonNull String key);
+
+		void put(@NonNull String key, @NonNull String value);
+
+		void remove(@NonNull String key);
+
+		void removeAll(@NonNull List<String> keys);
+
+		@NonNull
+		List<String> keys();
+
+		void clear();
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record MmkvBackend(@NonNull MMKV kv) implements Backend {
+		private MmkvBackend {
+			Objects.requireNonNull(kv);
+		}
+
+		@Override
+		@Nullable
+		public String get(@NonNull String key) {
+			return kv.decodeString(key, null);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull String value) {
+			kv.encode(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			kv.removeValueForKey(key);
+		}
+
+		@Override
+		public void removeAll(@NonNull List<String> keys) {
+			kv.removeValuesForKeys(keys.toArray(new String[0]));
+		}
+
+		@Override
+		@NonNull
+		public List<String> keys() {
+			String[] keys = kv.allKeys();
+			return keys == null ? List.of() : Arrays.asList(keys);
+		}
+
+		@Override
+		public void clear() {
+			kv.clearAll();
+		}
+	}
+}
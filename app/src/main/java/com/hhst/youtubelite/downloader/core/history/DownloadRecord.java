@@ -44,4 +44,34 @@ public class DownloadRecord {
 	private int failedCount;
 	private int runningCount;
 	private boolean sealed;
+
+	/**
+	 * Returns a field-by-field copy. Fields are assigned directly so records read from older JSON with missing values
+	 * copy without tripping the null checks on the setters.
+	 */
+	@NonNull
+	public DownloadRecord copy() {
+		DownloadRecord copy = new DownloadRecord();
+		copy.taskId = taskId;
+		copy.videoId = videoId;
+		copy.type = type;
+		copy.status = status;
+		copy.progress = progress;
+		copy.fileName = fileName;
+		copy.outputPath = outputPath;
+		copy.createdAt = createdAt;
+		copy.updatedAt = updatedAt;
+		copy.errorMessage = errorMessage;
+		copy.downloadedSize = downloadedSize;
+		copy.totalSize = totalSize;
+		copy.parentId = parentId;
+		copy.title = title;
+		copy.thumbnailUrl = thumbnailUrl;
+		copy.itemCount = itemCount;
+		copy.doneCount = doneCount;
+		copy.failedCount = failedCount;
+		copy.runningCount = runningCount;
+		copy.sealed = sealed;
+		return copy;
+	}
 }
@@ -0,0 +1,467 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out byte ranges to download workers and splits slow ranges so idle workers can steal their tail.
+ */
+final class ChunkPlanner {
+	static final long MIN_SPLIT_BYTES = 512L * 1024L;
+	static final long STALL_MS = 3_000L;
+	private static final long MIN_RANGE_BYTES = 2L * 1024L * 1024L;
+	/** Keeps first-pass ranges short and in file order so the written prefix trails the download closely. */
+	private static final long MAX_RANGE_BYTES = 16L * 1024L * 1024L;
+	private static final long MIN_RATE_WINDOW_MS = 500L;
+	static final long IDLE_POLL_MS = 250L;
+	private static final byte FORMAT_VERSION = 2;
+
+	@NonNull
+	private final Deque<Range> queued = new ArrayDeque<>();
+	@NonNull
+	private final List<Range> active = new ArrayList<>();
+	@NonNull
+	private final List<long[]> completed = new ArrayList<>();
+	@NonNull
+	private final LongSupplier clock;
+	private final boolean splittable;
+	private int parked;
+	private boolean aborted;
+	@Nullable
+	private Runnable wake;
+
+	/**
+	 * @param gaps missing {@code [start, limit)} intervals; a single unbounded gap disables splitting
+	 */
+	ChunkPlanner(@NonNull List<long[]> gaps,
+	             @NonNull List<long[]> done,
+	             final int workers,
+	             final boolean splittable,
+	             @NonNull LongSupplier clock) {
+		this.clock = clock;
+		this.splittable = splittable;
+		for (long[] interval : done) {
+			completed.add(interval.clone());
+		}
+		long remaining = 0L;
+		for (long[] gap : gaps) {
+			remaining += gap[1] - gap[0];
+		}
+		long size = splittable
+						? Math.min(MAX_RANGE_BYTES, Math.max(MIN_RANGE_BYTES, (remaining + Math.max(1, workers) - 1) / Math.max(1, workers)))
+						: Long.MAX_VALUE;
+		for (long[] gap : gaps) {
+			long start = gap[0];
+			while (start < gap[1]) {
+				long limit = gap[1] - start - size <= MIN_SPLIT_BYTES ? gap[1] : start + size;
+				queued.add(new Range(start, limit));
+				start = limit;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next range to download, stealing the tail of the slowest active range when the queue is empty.
+	 */
+	@Nullable
+	synchronized Range next() {
+		long now = clock.getAsLong();
+		Range range = queued.poll();
+		if (range == null && splittable) {
+			range = steal(now);
+		}
+		if (range != null) {
+			range.begin(now);
+			active.add(range);
+		}
+		return range;
+	}
+
+	/**
+	 * Returns the next range without blocking. When nothing can be handed out while other ranges are still in
+	 * flight, the caller is counted as parked and comes back through the wake action once work turns up.
+	 */
+	@Nullable
+	synchronized Range take() {
+		if (aborted) return null;
+		Range range = next();
+		if (range == null) {
+			if (active.isEmpty()) parked = 0;
+			else parked++;
+		}
+		return range;
+	}
+
+	/**
+	 * Registers the action that resubmits one parked worker.
+	 */
+	synchronized void onWake(@Nullable Runnable wake) {
+		this.wake = wake;
+	}
+
+	synchronized boolean hasParked() {
+		return parked > 0;
+	}
+
+	/**
+	 * Resubmits one parked worker if a range is queued or an active range can be split.
+	 * Called when a range is put back and on a timer, since a stall only shows once time has passed.
+	 */
+	void wakeIfReady() {
+		Runnable action;
+		synchronized (this) {
+			if (parked == 0 || wake == null || aborted) return;
+			if (queued.isEmpty() && !(splittable && victim(clock.getAsLong()) != null)) return;
+			parked--;
+			action = wake;
+		}
+		action.run();
+	}
+
+	void advance(@NonNull Range range, final int bytes) {
+		range.advance(bytes, clock.getAsLong());
+	}
+
+	/**
+	 * Marks socket activity that has not been written yet, so buffered reads do not look like a stall.
+	 */
+	void touch(@NonNull Range range) {
+		range.touch(clock.getAsLong());
+	}
+
+	/**
+	 * Records the downloaded prefix of a range and re-queues whatever the connection did not deliver.
+	 * Without range support a retry would restart at byte 0, so an unsplittable remainder is never re-queued.
+	 */
+	void finish(@NonNull Range range) {
+		synchronized (this) {
+			active.remove(range);
+			long position = range.position();
+			if (position > range.start) {
+				completed.add(new long[]{range.start, position});
+			}
+			if (splittable && !aborted && range.remaining() > 0) {
+				queued.addFirst(new Range(position, range.limit()));
+			}
+			if (active.isEmpty() && queued.isEmpty()) parked = 0;
+		}
+		wakeIfReady();
+	}
+
+	/**
+	 * Stops handing out ranges after a failure: drops the queue and parked workers, and drops the connections
+	 * of ranges still in flight. What they already wrote stays recorded for resume.
+	 */
+	void abort() {
+		List<Range> running;
+		synchronized (this) {
+			if (aborted) return;
+			aborted = true;
+			queued.clear();
+			parked = 0;
+			running = new ArrayList<>(active);
+		}
+		for (Range range : running) {
+			range.cancel();
+		}
+	}
+
+	/**
+	 * Returns the merged intervals written so far, including the prefixes of ranges still in flight.
+	 */
+	@NonNull
+	synchronized List<long[]> completed() {
+		List<long[]> intervals = new ArrayList<>(completed);
+		for (Range range : active) {
+			long position = range.position();
+			if (position > range.start) intervals.add(new long[]{range.start, position});
+		}
+		return merge(intervals);
+	}
+
+	/**
+	 * Returns the length of the contiguous written run that starts at byte 0.
+	 */
+	synchronized long prefix() {
+		List<long[]> done = completed();
+		return done.isEmpty() || done.get(0)[0] > 0L ? 0L : done.get(0)[1];
+	}
+
+	synchronized long completedBytes() {
+		long bytes = 0L;
+		for (long[] interval : completed()) {
+			bytes += interval[1] - interval[0];
+		}
+		return bytes;
+	}
+
+	@Nullable
+	private Range steal(final long now) {
+		Range victim = victim(now);
+		return victim == null ? null : victim.split(now, poolRate(now));
+	}
+
+	/**
+	 * Returns the active range expected to finish last among those worth splitting.
+	 */
+	@Nullable
+	private Range victim(final long now) {
+		double pool = poolRate(now);
+		Range victim = null;
+		double worst = -1d;
+		for (Range range : active) {
+			long remaining = range.remaining();
+			if (remaining < 2 * MIN_SPLIT_BYTES && !(range.stalled(now) && remaining > 0)) continue;
+			double rate = range.stalled(now) ? 0d : range.rate(now, pool);
+			double eta = rate <= 0d ? Double.MAX_VALUE : remaining / rate;
+			if (eta > worst) {
+				victim = range;
+				worst = eta;
+			}
+		}
+		return victim;
+	}
+
+	private double poolRate(final long now) {
+		double sum = 0d;
+		int count = 0;
+		for (Range range : active) {
+			double rate = range.measuredRate(now);
+			if (rate > 0d && !range.stalled(now)) {
+				sum += rate;
+				count++;
+			}
+		}
+		return count == 0 ? 0d : sum / count;
+	}
+
+	@NonNull
+	static List<long[]> merge(@NonNull List<long[]> intervals) {
+		List<long[]> sorted = new ArrayList<>(intervals);
+		sorted.sort(Comparator.comparingLong(interval -> interval[0]));
+		List<long[]> merged = new ArrayList<>();
+		for (long[] interval : sorted) {
+			if (interval[1] <= interval[0]) continue;
+			long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (last != null && interval[0] <= last[1]) {
+				last[1] = Math.max(last[1], interval[1]);
+			} else {
+				merged.add(new long[]{interval[0], interval[1]});
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Returns the intervals of {@code [0, total)} that are not covered by {@code done}.
+	 */
+	@NonNull
+	static List<long[]> gaps(final long total,
+	                         @NonNull List<long[]> done) {
+		List<long[]> gaps = new ArrayList<>();
+		long cursor = 0L;
+		for (long[] interval : merge(done)) {
+			long start = Math.max(0L, Math.min(total, interval[0]));
+			long end = Math.max(0L, Math.min(total, interval[1]));
+			if (start > cursor) gaps.add(new long[]{cursor, start});
+			cursor = Math.max(cursor, end);
+		}
+		if (cursor < total) gaps.add(new long[]{cursor, total});
+		return gaps;
+	}
+
+	/**
+	 * Encodes completed intervals as version, total length, count, then start/limit pairs.
+	 */
+	@NonNull
+	static byte[] encode(final long total,
+	                     @NonNull List<long[]> done) {
+		List<long[]> merged = merge(done);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(13 + merged.size() * 16);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(total);
+			out.writeInt(merged.size());
+			for (long[] interval : merged) {
+				out.writeLong(interval[0]);
+				out.writeLong(interval[1]);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes intervals written by {@link #encode}; state recorded for a different length is discarded.
+	 */
+	@NonNull
+	static List<long[]> decode(@Nullable byte[] data,
+	                           final long total) {
+		List<long[]> done = new ArrayList<>();
+		if (data == null || data.length < 13) return done;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			if (in.readByte() != FORMAT_VERSION || in.readLong() != total) return done;
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				done.add(new long[]{in.readLong(), in.readLong()});
+			}
+		} catch (IOException e) {
+			return new ArrayList<>();
+		}
+		return merge(done);
+	}
+
+	/**
+	 * Maps the legacy whole-chunk bitmap onto byte intervals.
+	 */
+	@NonNull
+	static List<long[]> decodeLegacy(@Nullable byte[] bits,
+	                                 final long total) {
+		List<long[]> done = new ArrayList<>();
+		if (bits == null || total <= 0) return done;
+		BitSet set = BitSet.valueOf(bits);
+		int candidate = (int) Math.min(128, Math.max(4, total / 512 * 1024));
+		int chunks = (total / Math.max(candidate, 1)) > 0 ? candidate : 1;
+		long part = total / chunks;
+		for (int i = set.nextSetBit(0); i >= 0 && i < chunks; i = set.nextSetBit(i + 1)) {
+			long start = i * part;
+			long limit = i == chunks - 1 ? total : start + part;
+			done.add(new long[]{start, limit});
+		}
+		return merge(done);
+	}
+
+/**
+ * Byte range owned by one worker; its limit shrinks when an idle worker steals the tail.
+ */
+	static final class Range {
+		final long start;
+		private long position;
+		private long limit;
+		private long startedAt;
+		private long progressAt;
+		@Nullable
+		private Runnable abort;
+		private boolean cancelled;
+
+		Range(final long start,
+		      final long limit) {
+			this.start = start;
+			this.position = start;
+			this.limit = limit;
+		}
+
+		synchronized long position() {
+			return position;
+		}
+
+		synchronized long limit() {
+			return limit;
+		}
+
+		synchronized long remaining() {
+			return Math.max(0L, limit - position);
+		}
+
+		/**
+		 * Returns how many of {@code bytes} still fall inside this range.
+		 */
+		synchronized int allowance(final int bytes) {
+			return (int) Math.min(bytes, Math.max(0L, limit - position));
+		}
+
+		/**
+		 * Registers the action that drops the connection once the whole remainder has been stolen
+		 * or the planner has been aborted.
+		 */
+		void onAbort(@Nullable Runnable abort) {
+			boolean drop;
+			synchronized (this) {
+				this.abort = abort;
+				drop = cancelled || limit <= position;
+			}
+			if (drop && abort != null) abort.run();
+		}
+
+		private void cancel() {
+			Runnable drop;
+			synchronized (this) {
+				cancelled = true;
+				drop = abort;
+			}
+			if (drop != null) drop.run();
+		}
+
+		private synchronized void begin(final long now) {
+			startedAt = now;
+			progressAt = now;
+		}
+
+		private synchronized void advance(final int bytes,
+		                                  final long now) {
+			position = Math.min(limit, position + bytes);
+			progressAt = now;
+		}
+
+		private synchronized void touch(final long now) {
+			progressAt = now;
+		}
+
+		private synchronized boolean stalled(final long now) {
+			return now - progressAt >= STALL_MS;
+		}
+
+		private synchronized double measuredRate(final long now) {
+			long elapsed = now - startedAt;
+			if (elapsed < MIN_RATE_WINDOW_MS || position == start) return 0d;
+			return (position - start) / (double) elapsed;
+		}
+
+		private double rate(final long now,
+		                    final double pool) {
+			double measured = measuredRate(now);
+			if (measured > 0d) return measured;
+			return pool > 0d ? pool : 1d;
+		}
+
+		@Nullable
+		private Range split(final long now,
+		                    final double pool) {
+			Runnable drop = null;
+			Range tail;
+			synchronized (this) {
+				long remaining = limit - position;
+				long keep;
+				if (stalled(now)) {
+					keep = 0L;
+				} else {
+					double own = rate(now, pool);
+					double thief = pool > 0d ? pool : own;
+					keep = (long) (remaining * (own / (own + thief)));
+					keep = Math.max(MIN_SPLIT_BYTES, Math.min(remaining - MIN_SPLIT_BYTES, keep));
+				}
+				long at = position + keep;
+				if (at >= limit) return null;
+				tail = new Range(at, limit);
+				limit = at;
+				if (keep == 0L) drop = abort;
+			}
+			if (drop != null) drop.run();
+			return tail;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of direct buffers shared by download workers.
+ */
+final class DirectBufferPool {
+	@NonNull
+	private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+	@NonNull
+	private final AtomicInteger pooled = new AtomicInteger();
+	private final int bufferSize;
+	private final int maxPooled;
+
+	DirectBufferPool(final int bufferSize,
+	                 final int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	@NonNull
+	ByteBuffer acquire() {
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) return ByteBuffer.allocateDirect(bufferSize);
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	void release(@NonNull ByteBuffer buffer) {
+		if (pooled.incrementAndGet() <= maxPooled) {
+			free.offer(buffer);
+		} else {
+			pooled.decrementAndGet();
+		}
+	}
+}
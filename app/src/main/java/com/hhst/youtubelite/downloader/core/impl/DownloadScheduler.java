@@ -0,0 +1,244 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Runs every download connection under one global budget and one budget per host.
+ * Each file gets a {@link Lane}; free connections go to the highest priority, then to the lane running the fewest
+ * connections, then to the oldest lane. Only a few lanes are admitted at once, so bulk queues finish file by file.
+ */
+@Singleton
+public final class DownloadScheduler {
+	static final int MAX_CONNECTIONS = 16;
+	static final int MAX_CONNECTIONS_PER_HOST = 12;
+	static final int MAX_OPEN_LANES = 6;
+
+	private final int maxConnections;
+	private final int maxConnectionsPerHost;
+	private final int maxOpenLanes;
+	@NonNull
+	private final ThreadPoolExecutor executor;
+	@NonNull
+	private final List<Lane> lanes = new ArrayList<>();
+	@NonNull
+	private final Map<String, Integer> hostConnections = new HashMap<>();
+	private long nextSequence;
+	private int queuedJobs;
+	private int activeConnections;
+	private int openLanes;
+	private int peakConnections;
+
+	@Inject
+	public DownloadScheduler() {
+		this(MAX_CONNECTIONS, MAX_CONNECTIONS_PER_HOST, MAX_OPEN_LANES);
+	}
+
+	DownloadScheduler(final int maxConnections,
+	                  final int maxConnectionsPerHost,
+	                  final int maxOpenLanes) {
+		this.maxConnections = Math.max(1, maxConnections);
+		this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+		this.maxOpenLanes = Math.max(1, maxOpenLanes);
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(this.maxConnections, this.maxConnections, 30L, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "dl-node-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Opens a lane for one file.
+	 *
+	 * @param host           host the lane connects to; lanes on the same host share its budget
+	 * @param maxConnections connections this file may hold at once
+	 */
+	@NonNull
+	public synchronized Lane lane(@NonNull String host,
+	                              @NonNull DownloadPriority priority,
+	                              final int maxConnections) {
+		return new Lane(host, priority, Math.max(1, maxConnections), nextSequence++);
+	}
+
+	@NonNull
+	public synchronized Metrics metrics() {
+		int waiting = 0;
+		for (Lane lane : lanes) {
+			if (!lane.open) waiting++;
+		}
+		return new Metrics(queuedJobs, activeConnections, peakConnections, openLanes, waiting);
+	}
+
+	private synchronized void submit(@NonNull Lane lane,
+	                                 @NonNull Runnable job) {
+		if (lane.closed) return;
+		if (!lane.listed) {
+			lane.listed = true;
+			lanes.add(lane);
+		}
+		lane.jobs.add(job);
+		queuedJobs++;
+		dispatch();
+	}
+
+	private synchronized void close(@NonNull Lane lane) {
+		if (lane.closed) return;
+		lane.closed = true;
+		queuedJobs -= lane.jobs.size();
+		lane.jobs.clear();
+		if (lane.open) openLanes--;
+		lanes.remove(lane);
+		// An admission slot may have opened up for a waiting lane.
+		dispatch();
+	}
+
+	/**
+	 * Starts jobs until the global budget is spent or nothing is eligible; the caller holds the lock.
+	 */
+	private void dispatch() {
+		while (activeConnections < maxConnections) {
+			Job next = poll();
+			if (next == null) break;
+			executor.execute(() -> run(next));
+		}
+	}
+
+	/**
+	 * Runs a job, then keeps the thread for the next eligible job instead of handing it back to the pool.
+	 */
+	private void run(@NonNull Job first) {
+		Job job = first;
+		while (job != null) {
+			try {
+				job.runnable.run();
+			} catch (RuntimeException ignored) {
+				// Jobs report their own failures; a stray exception must not leak the connection.
+			}
+			synchronized (this) {
+				release(job.lane);
+				job = poll();
+			}
+		}
+	}
+
+	/**
+	 * Picks the next job and charges its connection; the caller holds the lock.
+	 */
+	@Nullable
+	private Job poll() {
+		DownloadPriority lowestOpen = null;
+		for (Lane lane : lanes) {
+			if (lane.open && (lowestOpen == null || lane.priority.compareTo(lowestOpen) < 0)) lowestOpen = lane.priority;
+		}
+		Lane best = null;
+		for (Lane lane : lanes) {
+			if (lane.jobs.isEmpty() || lane.running >= lane.maxConnections) continue;
+			if (hostConnections.getOrDefault(lane.host, 0) >= maxConnectionsPerHost) continue;
+			// A more urgent file may jump the admission limit, otherwise it waits for an open lane to close.
+			if (!lane.open && openLanes >= maxOpenLanes
+							&& (lowestOpen == null || lane.priority.compareTo(lowestOpen) <= 0)) continue;
+			if (best == null || before(lane, best)) best = lane;
+		}
+		if (best == null) return null;
+		if (!best.open) {
+			best.open = true;
+			openLanes++;
+		}
+		best.running++;
+		hostConnections.merge(best.host, 1, Integer::sum);
+		queuedJobs--;
+		activeConnections++;
+		peakConnections = Math.max(peakConnections, activeConnections);
+		return new Job(best, best.jobs.poll());
+	}
+
+	private void release(@NonNull Lane lane) {
+		lane.running--;
+		hostConnections.computeIfPresent(lane.host, (host, count) -> count > 1 ? count - 1 : null);
+		activeConnections--;
+	}
+
+	private static boolean before(@NonNull Lane a,
+	                              @NonNull Lane b) {
+		int priority = a.priority.compareTo(b.priority);
+		if (priority != 0) return priority > 0;
+		if (a.running != b.running) return a.running < b.running;
+		return a.sequence < b.sequence;
+	}
+
+/**
+ * Queue of connection jobs for one file.
+ */
+	public final class Lane {
+		@NonNull
+		final String host;
+		@NonNull
+		final DownloadPriority priority;
+		final int maxConnections;
+		final long sequence;
+		@NonNull
+		final Deque<Runnable> jobs = new ArrayDeque<>();
+		int running;
+		boolean listed;
+		boolean open;
+		boolean closed;
+
+		private Lane(@NonNull String host,
+		             @NonNull DownloadPriority priority,
+		             final int maxConnections,
+		             final long sequence) {
+			this.host = host;
+			this.priority = priority;
+			this.maxConnections = maxConnections;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Queues one connection's worth of work; ignored once the lane is closed.
+		 */
+		public void submit(@NonNull Runnable job) {
+			DownloadScheduler.this.submit(this, job);
+		}
+
+		/**
+		 * Drops queued jobs and frees the lane's admission slot. Running jobs finish normally.
+		 */
+		public void close() {
+			DownloadScheduler.this.close(this);
+		}
+	}
+
+/**
+ * Value object for scheduler load.
+ *
+ * @param queuedJobs        jobs waiting for a connection
+ * @param activeConnections jobs running now
+ * @param peakConnections   highest concurrent connection count seen
+ * @param openLanes         files admitted to the scheduler
+ * @param waitingLanes      files queued behind the admission limit
+ */
+	public record Metrics(int queuedJobs, int activeConnections, int peakConnections, int openLanes, int waitingLanes) {
+	}
+
+	private record Job(@NonNull Lane lane, @NonNull Runnable runnable) {
+	}
+}
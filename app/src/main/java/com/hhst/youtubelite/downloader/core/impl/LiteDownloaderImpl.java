@@ -4,12 +4,15 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
 import com.hhst.youtubelite.downloader.core.LiteDownloader;
 import com.hhst.youtubelite.downloader.core.MediaMuxer;
 import com.hhst.youtubelite.downloader.core.ProgressCallback;
 import com.hhst.youtubelite.downloader.core.ProgressCallback2;
 import com.hhst.youtubelite.downloader.core.StreamDownloader;
 import com.hhst.youtubelite.downloader.core.Task;
+import com.hhst.youtubelite.downloader.core.mp4.Mp4FormatException;
+import com.hhst.youtubelite.downloader.core.mp4.PipelinedMuxer;
 
 import org.apache.commons.io.FileUtils;
 import org.schabi.newpipe.extractor.stream.Stream;
@@ -22,11 +25,14 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import dagger.hilt.android.qualifiers.ApplicationContext;
+import okhttp3.HttpUrl;
 
 /**
  * Runs file downloads and merge callbacks.
@@ -36,22 +42,35 @@ public class LiteDownloaderImpl implements LiteDownloader {
 	private final Context context;
 	private final StreamDownloader streamDL;
 	private final MediaMerger mediaMerger;
-	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final DownloadScheduler scheduler;
+	private final boolean pipelined;
+	/** Merges run one at a time off the connection threads. */
+	private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "dl-merge");
+		thread.setDaemon(true);
+		return thread;
+	});
 	private final Map<String, Task> tasks = new ConcurrentHashMap<>();
 	private final Map<String, ProgressCallback2> callbacks = new ConcurrentHashMap<>();
+	private final Map<String, PipelinedMuxer> pipelines = new ConcurrentHashMap<>();
 
 	@Inject
 	public LiteDownloaderImpl(@ApplicationContext Context ctx,
-	                          StreamDownloader streamDL) {
-		this(ctx, streamDL, MediaMuxer::merge);
+	                          StreamDownloader streamDL,
+	                          DownloadScheduler scheduler) {
+		this(ctx, streamDL, scheduler, MediaMuxer::merge, true);
 	}
 
 	LiteDownloaderImpl(@ApplicationContext Context ctx,
 	                   StreamDownloader streamDL,
-	                   MediaMerger mediaMerger) {
+	                   DownloadScheduler scheduler,
+	                   MediaMerger mediaMerger,
+	                   boolean pipelined) {
 		this.context = ctx;
 		this.streamDL = streamDL;
+		this.scheduler = scheduler;
 		this.mediaMerger = mediaMerger;
+		this.pipelined = pipelined;
 	}
 
 	@Override
@@ -64,51 +83,68 @@ public class LiteDownloaderImpl implements LiteDownloader {
 	public void download(@NonNull Task t) {
 		tasks.put(t.videoId(), t);
 		if (t.subtitle() != null) {
-			exec(t, () -> FileUtils.copyURLToFile(new URL(t.subtitle().getContent()), outputFile(t)));
+			String url = t.subtitle().getContent();
+			exec(t, url, () -> FileUtils.copyURLToFile(new URL(url), outputFile(t)));
 		} else if (t.thumbnail() != null) {
-			exec(t, () -> FileUtils.copyURLToFile(new URL(t.thumbnail()), outputFile(t)));
+			exec(t, t.thumbnail(), () -> FileUtils.copyURLToFile(new URL(t.thumbnail()), outputFile(t)));
 		} else {
 			downloadMedia(t);
 		}
 	}
 
-	private void exec(Task task, RunnableIOC run) {
+	private void exec(Task task, String url, RunnableIOC run) {
+		HttpUrl parsed = HttpUrl.parse(url);
+		DownloadScheduler.Lane lane = scheduler.lane(parsed == null ? url : parsed.host(), priority(task), 1);
 		CompletableFuture.runAsync(() -> {
 			try {
 				run.run();
 				complete(task.videoId(), outputFile(task));
 			} catch (Exception e) {
 				throw new CompletionException(e);
+			} finally {
+				lane.close();
 			}
-		}, executor).exceptionally(e -> handleErr(task, e));
+		}, lane::submit).exceptionally(e -> handleErr(task, e));
+	}
+
+	/**
+	 * Side files are small and jump the queue; bulk playlist items yield to downloads the user started directly.
+	 */
+	private static DownloadPriority priority(@NonNull Task task) {
+		if (task.subtitle() != null || task.thumbnail() != null) return DownloadPriority.HIGH;
+		return task.parentId() != null ? DownloadPriority.LOW : DownloadPriority.NORMAL;
 	}
 
 	private void downloadMedia(Task task) {
 		// Download audio and video separately, then merge when needed.
-		streamDL.setMaxThreadCount(task.threadCount());
 		File vF = tmp(task, "_v"), aF = tmp(task, "_a"), out = outputFile(task);
 		long vSz = len(task.video()), aSz = len(task.audio());
 
 		Aggregator agg = new Aggregator(vSz, aSz, (p, d, tot) -> progress(task.videoId(), p, d, tot));
 
+		// Mux fragments while both streams download, so only the index is left once they finish.
+		PipelinedMuxer pipe = pipelined && task.video() != null && task.audio() != null
+						? new PipelinedMuxer(vF, aF, tmp(task, "_m")) : null;
+		if (pipe != null) pipelines.put(task.videoId(), pipe);
+
 		CompletableFuture<File> vFut = task.video() == null ? null : streamDL.download(task.video().getContent(), vF, createProgressAdapter(p -> {
 			if (aSz > 0) agg.updV(p);
 			else progress(task.videoId(), p, (long) (vSz * (p / 100.0)), vSz);
-		}));
+		}, pipe == null ? null : pipe::videoAvailable), task.threadCount(), priority(task));
 
 		CompletableFuture<File> aFut = task.audio() == null ? null : streamDL.download(task.audio().getContent(), aF, createProgressAdapter(p -> {
 			if (vSz > 0) agg.updA(p);
 			else progress(task.videoId(), p, (long) (aSz * (p / 100.0)), aSz);
-		}));
+		}, pipe == null ? null : pipe::audioAvailable), task.threadCount(), priority(task));
 
-		(vFut != null && aFut != null ? CompletableFuture.allOf(vFut, aFut) : (vFut != null ? vFut : aFut)).thenRun(() -> {
+		(vFut != null && aFut != null ? CompletableFuture.allOf(vFut, aFut) : (vFut != null ? vFut : aFut)).thenRunAsync(() -> {
 			try {
 				if (!tasks.containsKey(task.videoId())) return;
 				if (vFut != null && aFut != null) {
 					notify(task.videoId(), ProgressCallback2::onMerge);
 					File mF = tmp(task, "_m");
 					try {
-						mediaMerger.merge(vF, aF, mF);
+						merge(pipe, vF, aF, mF);
 						FileUtils.moveFile(mF, out);
 					} finally {
 						FileUtils.deleteQuietly(vF);
@@ -122,13 +158,26 @@ public class LiteDownloaderImpl implements LiteDownloader {
 			} catch (Exception e) {
 				throw new CompletionException(e);
 			}
-		}).exceptionally(e -> handleErr(task, e));
+		}, mergeExecutor).exceptionally(e -> handleErr(task, e));
+	}
+
+	private void merge(PipelinedMuxer pipe, File vF, File aF, File mF) throws Exception {
+		if (pipe != null) {
+			try {
+				pipe.finish();
+				return;
+			} catch (Mp4FormatException e) {
+				// Sources that are not fragmented are muxed from the finished files instead.
+			}
+		}
+		mediaMerger.merge(vF, aF, mF);
 	}
 
 	@Override
 	public void cancel(@NonNull String videoId) {
 		Task t = tasks.remove(videoId);
 		try {
+			abortPipeline(videoId);
 			if (t == null) return;
 			if (t.video() != null) streamDL.cancel(t.video().getContent());
 			if (t.audio() != null) streamDL.cancel(t.audio().getContent());
@@ -139,13 +188,18 @@ public class LiteDownloaderImpl implements LiteDownloader {
 		}
 	}
 
-	private ProgressCallback createProgressAdapter(java.util.function.IntConsumer action) {
+	private ProgressCallback createProgressAdapter(IntConsumer action, LongConsumer prefix) {
 		return new ProgressCallback() {
 			@Override
 			public void onProgress(int progress) {
 				action.accept(progress);
 			}
 
+			@Override
+			public void onPrefix(long bytes) {
+				if (prefix != null) prefix.accept(bytes);
+			}
+
 			@Override
 			public void onComplete(File file) {
 			}
@@ -162,6 +216,7 @@ public class LiteDownloaderImpl implements LiteDownloader {
 
 	private Void handleErr(Task t, Throwable e) {
 		Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+		abortPipeline(t.videoId());
 		try {
 			if (tasks.containsKey(t.videoId())) {
 				notify(t.videoId(), callback -> callback.onError(cause instanceof Exception ? (Exception) cause : new Exception(cause)));
@@ -174,6 +229,7 @@ public class LiteDownloaderImpl implements LiteDownloader {
 	}
 
 	private void complete(String videoId, File f) {
+		pipelines.remove(videoId);
 		try {
 			if (tasks.remove(videoId) != null) notify(videoId, callback -> callback.onComplete(f));
 		} finally {
@@ -190,6 +246,11 @@ public class LiteDownloaderImpl implements LiteDownloader {
 		if (callback != null) action.run(callback);
 	}
 
+	private void abortPipeline(@NonNull String videoId) {
+		PipelinedMuxer pipe = pipelines.remove(videoId);
+		if (pipe != null) pipe.abort();
+	}
+
 	private void clearCallback(@NonNull String videoId) {
 		callbacks.remove(videoId);
 	}
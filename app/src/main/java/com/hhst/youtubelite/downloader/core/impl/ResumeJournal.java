@@ -0,0 +1,192 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record of the byte intervals that are durable in a download's output file.
+ * Intervals are batched, the data file is forced first, then the records are appended and forced.
+ */
+final class ResumeJournal implements Closeable {
+	static final long FLUSH_INTERVAL_MS = 1_000L;
+	private static final int MAGIC = 0x594c4a31;
+	private static final int HEADER_BYTES = 4 + 8;
+	private static final int RECORD_BYTES = 8 + 8 + 4;
+	private static final int COMPACT_RECORDS = 4_096;
+
+	@NonNull
+	private final File file;
+	@NonNull
+	private final FileChannel data;
+	private final long total;
+	@NonNull
+	private final LongSupplier clock;
+	@NonNull
+	private final ConcurrentLinkedQueue<long[]> pending = new ConcurrentLinkedQueue<>();
+	@NonNull
+	private final AtomicBoolean flushing = new AtomicBoolean();
+	@NonNull
+	private List<long[]> durable;
+	@NonNull
+	private FileChannel channel;
+	private int records;
+	private volatile long flushedAt;
+
+	private ResumeJournal(@NonNull File file,
+	                      @NonNull FileChannel data,
+	                      final long total,
+	                      @NonNull List<long[]> done,
+	                      @NonNull LongSupplier clock) throws IOException {
+		this.file = file;
+		this.data = data;
+		this.total = total;
+		this.clock = clock;
+		this.durable = ChunkPlanner.merge(done);
+		this.channel = rewrite();
+		this.flushedAt = clock.getAsLong();
+	}
+
+	/**
+	 * Starts a compacted journal seeded with {@code done}, replacing whatever the file held before.
+	 */
+	@NonNull
+	static ResumeJournal open(@NonNull File file,
+	                          @NonNull FileChannel data,
+	                          final long total,
+	                          @NonNull List<long[]> done,
+	                          @NonNull LongSupplier clock) throws IOException {
+		return new ResumeJournal(file, data, total, done, clock);
+	}
+
+	/**
+	 * Returns the intervals recorded for a file of {@code total} bytes, stopping at the first torn record.
+	 */
+	@NonNull
+	static List<long[]> replay(@NonNull File file,
+	                           final long total) {
+		List<long[]> done = new ArrayList<>();
+		if (!file.isFile()) return done;
+		try {
+			ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+			if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.getLong() != total) return done;
+			while (in.remaining() >= RECORD_BYTES) {
+				long start = in.getLong();
+				long end = in.getLong();
+				int crc = in.getInt();
+				if (crc != checksum(start, end) || start < 0 || end > total || start >= end) break;
+				done.add(new long[]{start, end});
+			}
+		} catch (IOException e) {
+			return new ArrayList<>();
+		}
+		return ChunkPlanner.merge(done);
+	}
+
+	/**
+	 * Records bytes written at {@code [start, end)}; they become durable with the next batched flush.
+	 */
+	void commit(final long start,
+	            final long end) throws IOException {
+		pending.add(new long[]{start, end});
+		if (clock.getAsLong() - flushedAt < FLUSH_INTERVAL_MS || !flushing.compareAndSet(false, true)) return;
+		try {
+			flush();
+		} finally {
+			flushing.set(false);
+		}
+	}
+
+	synchronized void flush() throws IOException {
+		List<long[]> batch = new ArrayList<>();
+		long[] interval;
+		while ((interval = pending.poll()) != null) {
+			batch.add(interval);
+		}
+		flushedAt = clock.getAsLong();
+		if (batch.isEmpty()) return;
+		data.force(false);
+		List<long[]> merged = ChunkPlanner.merge(batch);
+		ByteBuffer out = ByteBuffer.allocate(merged.size() * RECORD_BYTES);
+		for (long[] record : merged) {
+			put(out, record);
+		}
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		channel.force(false);
+		merged.addAll(durable);
+		durable = ChunkPlanner.merge(merged);
+		records += batch.size();
+		if (records > COMPACT_RECORDS) {
+			channel.close();
+			channel = rewrite();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	synchronized void delete() {
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+		pending.clear();
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+
+	@NonNull
+	private FileChannel rewrite() throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + durable.size() * RECORD_BYTES);
+		out.putInt(MAGIC).putLong(total);
+		for (long[] record : durable) {
+			put(out, record);
+		}
+		out.flip();
+		try (FileChannel fresh = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (out.hasRemaining()) {
+				fresh.write(out);
+			}
+			fresh.force(true);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		records = durable.size();
+		return FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private static void put(@NonNull ByteBuffer out,
+	                        @NonNull long[] record) {
+		out.putLong(record[0]).putLong(record[1]).putInt(checksum(record[0], record[1]));
+	}
+
+	private static int checksum(final long start,
+	                            final long end) {
+		CRC32 crc = new CRC32();
+		crc.update(ByteBuffer.allocate(16).putLong(start).putLong(end).array());
+		return (int) crc.getValue();
+	}
+}
@@ -3,80 +3,83 @@ package com.hhst.youtubelite.downloader.core.impl;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
 import com.hhst.youtubelite.downloader.core.ProgressCallback;
 import com.hhst.youtubelite.downloader.core.StreamDownloader;
 import com.tencent.mmkv.MMKV;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
-import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import lombok.AllArgsConstructor;
-import okhttp3.Dispatcher;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okio.BufferedSource;
 
 /**
- * Streams a file by chunk and keeps resume state in MMKV.
+ * Streams a file over dynamically split byte ranges and keeps resume state in a per-file journal.
+ * Every connection runs as a {@link DownloadScheduler} job, one range at a time; a worker with nothing to take
+ * gives its connection back and is resubmitted once a range is put back or a slow range can be split.
  */
 @Singleton
 public class StreamDownloaderImpl implements StreamDownloader {
+	private static final int BUFFER_BYTES = 128 * 1024;
+	private static final int POOLED_BUFFERS = 32;
 	private final OkHttpClient client;
-	private final MMKV mmkv;
-	private final ThreadPoolExecutor executor;
+	private final ResumeStore store;
+	private final DownloadScheduler scheduler;
 	private final Map<String, TaskContext> tasks = new ConcurrentHashMap<>();
+	private final DirectBufferPool buffers = new DirectBufferPool(BUFFER_BYTES, POOLED_BUFFERS);
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "dl-steal");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	@Inject
-	public StreamDownloaderImpl(OkHttpClient client, MMKV mmkv) {
+	public StreamDownloaderImpl(OkHttpClient client, MMKV mmkv, DownloadScheduler scheduler) {
+		this(client, new MmkvResumeStore(mmkv), scheduler);
+	}
+
+	StreamDownloaderImpl(OkHttpClient client, ResumeStore store, DownloadScheduler scheduler) {
 		this.client = client.newBuilder()
 						.cache(null)
-						.dispatcher(createDispatcher())
 						.callTimeout(0L, TimeUnit.MILLISECONDS)
 						.connectTimeout(20L, TimeUnit.SECONDS)
 						.writeTimeout(30L, TimeUnit.SECONDS)
 						.readTimeout(60L, TimeUnit.SECONDS)
 						.build();
-		this.mmkv = mmkv;
-		this.executor = new ThreadPoolExecutor(8, 8, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> new Thread(r, "dl-node"));
-		this.executor.allowCoreThreadTimeOut(true);
-	}
-
-	private static Dispatcher createDispatcher() {
-		Dispatcher dispatcher = new Dispatcher();
-		dispatcher.setMaxRequests(24);
-		dispatcher.setMaxRequestsPerHost(12);
-		return dispatcher;
-	}
-
-	private static long chunkLength(int idx, int totalChunks, long partSize, long totalLen) {
-		long start = idx * partSize;
-		long end = (idx == totalChunks - 1 && totalLen > 0) ? totalLen - 1 : (start + partSize - 1);
-		if (totalLen <= 0 || end < start) return 0;
-		return end - start + 1;
+		this.store = store;
+		this.scheduler = scheduler;
 	}
 
-	private static void maybeReportProgress(@NonNull TaskContext task, long totalLen) {
+	private static void maybeReportProgress(@NonNull TaskContext task, @NonNull ChunkPlanner planner, long totalLen) {
 		if (task.callback == null || totalLen <= 0) return;
-		long downloaded = Math.min(totalLen, Math.max(0, task.downloadedBytes.get()));
+		long downloaded = Math.min(totalLen, Math.max(0, task.downloadedBytes.sum()));
 		int progress = (int) Math.min(99, (downloaded * 100) / totalLen);
+		if (progress <= task.lastProgress.get()) return;
 		synchronized (task.progressLock) {
 			int prev;
 			do {
@@ -84,30 +87,44 @@ public class StreamDownloaderImpl implements StreamDownloader {
 				if (progress <= prev) return;
 			} while (!task.lastProgress.compareAndSet(prev, progress));
 			task.callback.onProgress(progress);
+			task.callback.onPrefix(planner.prefix());
 		}
 	}
 
 	@Override
-	public CompletableFuture<File> download(@NonNull String url, @NonNull File out, @Nullable ProgressCallback callback) {
+	public CompletableFuture<File> download(@NonNull String url,
+	                                        @NonNull File out,
+	                                        @Nullable ProgressCallback callback,
+	                                        int connections,
+	                                        @NonNull DownloadPriority priority) {
 		CompletableFuture<File> future = new CompletableFuture<>();
 		TaskContext task = new TaskContext(
 						url,
 						out,
+						"dlr_" + md5(url),
 						"dl_" + md5(url),
 						future,
 						callback,
+						Math.max(1, connections),
+						priority,
 						new AtomicBoolean(),
 						new AtomicBoolean(),
-						new AtomicInteger(),
-						new AtomicLong(),
+						new LongAdder(),
 						new AtomicInteger(-1));
 		tasks.put(url, task);
-		new Thread(() -> runTask(task)).start();
+		start(task);
 		return future;
 	}
 
-	private void runTask(TaskContext task) {
+	private void start(@NonNull TaskContext task) {
+		HttpUrl parsed = HttpUrl.parse(task.url);
+		DownloadScheduler.Lane lane = scheduler.lane(parsed == null ? task.url : parsed.host(), task.priority, task.connections);
+		lane.submit(() -> runTask(task, lane));
+	}
+
+	private void runTask(@NonNull TaskContext task, @NonNull DownloadScheduler.Lane lane) {
 		RandomAccessFile raf = null;
+		ResumeJournal journal = null;
 		try {
 			// 1. fetch metadata
 			final long total;
@@ -115,100 +132,219 @@ public class StreamDownloaderImpl implements StreamDownloader {
 			try (Response head = client.newCall(new Request.Builder().url(task.url).head().build()).execute()) {
 				if (!head.isSuccessful()) throw new IOException("HEAD " + head.code());
 				total = Long.parseLong(head.header("Content-Length", "-1"));
-				range = head.code() == 206 || "bytes".equalsIgnoreCase(head.header("Accept-Ranges"));
-			}
-
-			// 2. calculate chunk count
-			int chunks;
-			if (total <= 0 || !range) chunks = 1;
-			else {
-				int candidate = (int) Math.min(128, Math.max(4, total / 512 * 1024));
-				chunks = (total / Math.max(candidate, 1)) > 0 ? candidate : 1;
+				range = total > 0 && (head.code() == 206 || "bytes".equalsIgnoreCase(head.header("Accept-Ranges")));
 			}
-			long part = total > 0 ? total / chunks : total;
 
-			// 3. resume or initialize
-			byte[] saved = mmkv.decodeBytes(task.key);
-			BitSet bits = (range && saved != null) ? BitSet.valueOf(saved) : new BitSet();
-			task.done.set(bits.cardinality());
-			if (total > 0) {
-				long initialDownloaded = IntStream.range(0, chunks)
-								.filter(bits::get)
-								.mapToLong(i -> chunkLength(i, chunks, part, total))
-								.sum();
-				task.downloadedBytes.set(initialDownloaded);
-				maybeReportProgress(task, total);
-			}
+			// 2. resume from the durable journal or initialize
+			List<long[]> done = range ? loadResumeState(task, total) : List.of();
 			raf = new RandomAccessFile(task.out, "rw");
 			if (total > 0) raf.setLength(total);
 			else raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			if (range) {
+				journal = ResumeJournal.open(journalFile(task), channel, total, done, System::currentTimeMillis);
+			}
+			List<long[]> gaps = total > 0 ? ChunkPlanner.gaps(total, done) : List.of(new long[]{0L, Long.MAX_VALUE});
+			int workers = range ? task.connections : 1;
+			ChunkPlanner planner = new ChunkPlanner(gaps, done, workers, range, System::currentTimeMillis);
+			if (total > 0) {
+				task.downloadedBytes.reset();
+				task.downloadedBytes.add(planner.completedBytes());
+				maybeReportProgress(task, planner, total);
+			}
 
-			// 4. submit task
-			if (task.done.get() < chunks) {
-				RandomAccessFile finalRaf = raf;
-				CompletableFuture.allOf(IntStream.range(0, chunks).filter(i -> !bits.get(i)) // skip finished
-								.mapToObj(i -> CompletableFuture.runAsync(() -> downloadChunk(task, i, chunks, part, total, range, finalRaf, bits), executor)).toArray(CompletableFuture[]::new)).join();
+			// 3. queue workers; each one takes a range per scheduler job until nothing is left to steal
+			Transfer transfer = new Transfer(task, lane, raf, journal, planner, channel, total, range,
+							new AtomicInteger(workers), new AtomicReference<>(), new AtomicBoolean());
+			if (gaps.isEmpty()) {
+				finish(transfer);
+				return;
 			}
+			planner.onWake(() -> {
+				transfer.workers().incrementAndGet();
+				lane.submit(() -> work(transfer));
+			});
+			for (int i = 0; i < workers; i++) {
+				lane.submit(() -> work(transfer));
+			}
+		} catch (Exception e) {
+			fail(task, e);
+			closeJournal(task, journal, false);
+			closeQuietly(raf);
+			lane.close();
+		}
+	}
 
-			// 5. clean up
-			if (!task.isInactive()) {
-				mmkv.removeValueForKey(task.key);
+	private void work(@NonNull Transfer transfer) {
+		boolean more = false;
+		try {
+			// After a failure the download cannot succeed, so no further range is worth fetching.
+			boolean stop = transfer.task().isInactive() || transfer.error().get() != null;
+			ChunkPlanner.Range range = stop ? null : transfer.planner().take();
+			if (range != null) {
+				try {
+					downloadRange(transfer.task(), transfer.planner(), range, transfer.total(), transfer.ranged(), transfer.channel(), transfer.journal());
+					more = true;
+				} finally {
+					transfer.planner().finish(range);
+				}
+			}
+		} catch (RuntimeException e) {
+			if (transfer.error().compareAndSet(null, e)) transfer.planner().abort();
+		}
+		// Hand the connection back between ranges so other files get their share of the budget.
+		if (more) {
+			transfer.lane().submit(() -> work(transfer));
+			return;
+		}
+		if (transfer.planner().hasParked()) watch(transfer);
+		if (transfer.workers().decrementAndGet() == 0) finish(transfer);
+	}
+
+	/**
+	 * Checks parked workers of a transfer every idle interval until none are left.
+	 */
+	private void watch(@NonNull Transfer transfer) {
+		if (!transfer.watching().compareAndSet(false, true)) return;
+		timer.schedule(() -> {
+			transfer.watching().set(false);
+			if (transfer.task().isInactive() || transfer.workers().get() == 0) return;
+			transfer.planner().wakeIfReady();
+			if (transfer.planner().hasParked()) watch(transfer);
+		}, ChunkPlanner.IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Settles the task once its last worker has stopped.
+	 */
+	private void finish(@NonNull Transfer transfer) {
+		TaskContext task = transfer.task();
+		boolean finished = false;
+		try {
+			Exception error = transfer.error().get();
+			if (error != null) {
+				fail(task, error);
+			} else if (!task.isInactive()) {
+				finished = true;
 				tasks.remove(task.url);
 				task.future.complete(task.out);
 				if (task.callback != null) task.callback.onComplete(task.out);
 			}
-		} catch (Exception e) {
-			if (!task.isInactive()) {
-				tasks.remove(task.url);
-				task.future.completeExceptionally(e);
-				if (task.callback != null)
-					task.callback.onError(e instanceof RuntimeException && e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
-			}
 		} finally {
-			try {
-				if (raf != null) raf.close();
-			} catch (IOException ignored) {
-			}
+			closeJournal(task, transfer.journal(), finished);
+			closeQuietly(transfer.raf());
+			transfer.lane().close();
 		}
 	}
 
-	private void downloadChunk(TaskContext task, int idx, int totalChunks, long partSize, long totalLen, boolean rangeSupported, RandomAccessFile raf, BitSet bits) {
+	private void fail(@NonNull TaskContext task, @NonNull Exception e) {
 		if (task.isInactive()) return;
-		long start = idx * partSize;
-		long end = (idx == totalChunks - 1 && totalLen > 0) ? totalLen - 1 : (start + partSize - 1);
-		String range = rangeSupported && totalLen > 0 ? "bytes=" + start + "-" + end : null;
+		tasks.remove(task.url);
+		task.future.completeExceptionally(e);
+		if (task.callback != null)
+			task.callback.onError(e instanceof RuntimeException && e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+	}
+
+	private static void closeQuietly(@Nullable RandomAccessFile raf) {
+		try {
+			if (raf != null) raf.close();
+		} catch (IOException ignored) {
+		}
+	}
 
+	private void downloadRange(TaskContext task, ChunkPlanner planner, ChunkPlanner.Range range, long total, boolean ranged, FileChannel channel, @Nullable ResumeJournal journal) {
+		long start = range.position();
 		Request.Builder rb = new Request.Builder().url(task.url);
-		if (range != null) rb.header("Range", range);
+		if (ranged) rb.header("Range", "bytes=" + start + "-" + (range.limit() - 1));
+		Call call = client.newCall(rb.build());
+		range.onAbort(call::cancel);
 
-		try (Response resp = client.newCall(rb.build()).execute()) {
+		try (Response resp = call.execute()) {
 			if (!resp.isSuccessful()) throw new IOException("GET " + resp.code());
-			try (InputStream is = resp.body().byteStream()) {
-				byte[] buf = new byte[8192];
-				int read;
+			BufferedSource source = resp.body().source();
+			ByteBuffer buffer = buffers.acquire();
+			try {
 				long offset = start;
-				while ((read = is.read(buf)) != -1) {
-					if (task.isInactive()) throw new IOException("Stop");
-					synchronized (task.lock) {
-						raf.seek(offset);
-						raf.write(buf, 0, read);
+				boolean eof = false;
+				while (!eof) {
+					// Fill a whole pooled buffer before one positional write; no lock is shared between workers.
+					buffer.clear();
+					buffer.limit((int) Math.min(buffer.capacity(), Math.max(1L, range.remaining())));
+					while (buffer.hasRemaining()) {
+						if (task.isInactive()) throw new IOException("Stop");
+						if (source.read(buffer) == -1) {
+							eof = true;
+							break;
+						}
+						planner.touch(range);
 					}
-					if (totalLen > 0) {
-						task.downloadedBytes.addAndGet(read);
-						maybeReportProgress(task, totalLen);
+					buffer.flip();
+					int allowed = range.allowance(buffer.remaining());
+					if (allowed > 0) {
+						buffer.limit(allowed);
+						long position = offset;
+						while (buffer.hasRemaining()) {
+							position += channel.write(buffer, position);
+						}
+						planner.advance(range, allowed);
+						if (journal != null) journal.commit(offset, offset + allowed);
+						offset += allowed;
+						if (total > 0) {
+							task.downloadedBytes.add(allowed);
+							maybeReportProgress(task, planner, total);
+						}
 					}
-					offset += read;
-				}
-				if (range != null) synchronized (task.lock) {
-					bits.set(idx);
-					mmkv.encode(task.key, bits.toByteArray());
+					if (ranged && range.remaining() == 0) break;
 				}
+				if (ranged && offset == start && range.remaining() > 0) throw new IOException("Empty range " + start);
+				// Without ranges the body cannot be resumed; EOF ends an unknown length and truncates a known one.
+				if (!ranged && total > 0 && offset < total) throw new IOException("Truncated at " + offset + " of " + total);
+			} finally {
+				buffers.release(buffer);
 			}
 		} catch (Exception e) {
+			// The remainder was stolen from a stalled connection, so the cancelled call is expected.
+			if (ranged && range.remaining() == 0) return;
 			throw new RuntimeException(e);
+		} finally {
+			range.onAbort(null);
 		}
 	}
 
+	/**
+	 * Reads the journal, falling back once to state left in MMKV by older versions.
+	 */
+	@NonNull
+	private List<long[]> loadResumeState(TaskContext task, long total) {
+		byte[] legacy = store.get(task.legacyKey);
+		byte[] ranges = store.get(task.key);
+		if (legacy != null) store.remove(task.legacyKey);
+		if (ranges != null) store.remove(task.key);
+		if (!task.out.isFile() || task.out.length() != total) return List.of();
+		List<long[]> done = ResumeJournal.replay(journalFile(task), total);
+		if (!done.isEmpty()) return done;
+		if (ranges != null) return ChunkPlanner.decode(ranges, total);
+		return ChunkPlanner.decodeLegacy(legacy, total);
+	}
+
+	private void closeJournal(TaskContext task, @Nullable ResumeJournal journal, boolean finished) {
+		if (journal == null) return;
+		if (finished || task.cancelled.get()) {
+			journal.delete();
+			return;
+		}
+		try {
+			journal.close();
+		} catch (IOException ignored) {
+			// The last batch is lost; those ranges are downloaded again on resume.
+		}
+	}
+
+	@NonNull
+	private static File journalFile(@NonNull TaskContext task) {
+		return new File(task.out.getPath() + ".journal");
+	}
+
 	@Override
 	public void pause(@NonNull String url) {
 		Optional.ofNullable(tasks.get(url)).ifPresent(t -> t.paused.set(true));
@@ -220,7 +356,10 @@ public class StreamDownloaderImpl implements StreamDownloader {
 		if (t != null) {
 			t.cancelled.set(true);
 			t.future.cancel(true);
-			mmkv.removeValueForKey(t.key);
+			store.remove(t.key);
+			store.remove(t.legacyKey);
+			//noinspection ResultOfMethodCallIgnored
+			journalFile(t).delete();
 			if (t.callback != null) t.callback.onCancel();
 		}
 	}
@@ -228,22 +367,7 @@ public class StreamDownloaderImpl implements StreamDownloader {
 	@Override
 	public void resume(@NonNull String url) {
 		TaskContext t = tasks.get(url);
-		if (t != null && t.paused.compareAndSet(true, false)) new Thread(() -> runTask(t)).start();
-	}
-
-	@Override
-	public synchronized void setMaxThreadCount(int count) {
-		int targetCount = Math.max(1, count);
-		Dispatcher dispatcher = client.dispatcher();
-		dispatcher.setMaxRequests(targetCount);
-		dispatcher.setMaxRequestsPerHost(targetCount);
-		if (targetCount > executor.getMaximumPoolSize()) {
-			executor.setMaximumPoolSize(targetCount);
-			executor.setCorePoolSize(targetCount);
-		} else {
-			executor.setCorePoolSize(targetCount);
-			executor.setMaximumPoolSize(targetCount);
-		}
+		if (t != null && t.paused.compareAndSet(true, false)) start(t);
 	}
 
 	private String md5(String s) {
@@ -265,18 +389,68 @@ public class StreamDownloaderImpl implements StreamDownloader {
 		final String url;
 		final File out;
 		final String key;
+		final String legacyKey;
 		final CompletableFuture<File> future;
 		final ProgressCallback callback;
-		final Object lock = new Object();
+		final int connections;
+		final DownloadPriority priority;
 		final Object progressLock = new Object();
 		final AtomicBoolean paused;
 		final AtomicBoolean cancelled;
-		final AtomicInteger done;
-		final AtomicLong downloadedBytes;
+		final LongAdder downloadedBytes;
 		final AtomicInteger lastProgress;
 
 		boolean isInactive() {
 			return paused.get() || cancelled.get() || future.isCancelled();
 		}
 	}
+
+/**
+ * Value object for one run of a task, shared by its workers.
+ */
+	private record Transfer(@NonNull TaskContext task,
+	                        @NonNull DownloadScheduler.Lane lane,
+	                        @NonNull RandomAccessFile raf,
+	                        @Nullable ResumeJournal journal,
+	                        @NonNull ChunkPlanner planner,
+	                        @NonNull FileChannel channel,
+	                        long total,
+	                        boolean ranged,
+	                        @NonNull AtomicInteger workers,
+	                        @NonNull AtomicReference<Exception> error,
+	                        @NonNull AtomicBoolean watching) {
+	}
+
+/**
+ * Contract for app logic.
+ */
+	interface ResumeStore {
+		@Nullable
+		byte[] get(@NonNull String key);
+
+		void put(@NonNull String key, @NonNull byte[] value);
+
+		void remove(@NonNull String key);
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record MmkvResumeStore(@NonNull MMKV mmkv) implements ResumeStore {
+		@Nullable
+		@Override
+		public byte[] get(@NonNull String key) {
+			return mmkv.decodeBytes(key);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull byte[] value) {
+			mmkv.encode(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			mmkv.removeValueForKey(key);
+		}
+	}
 }
@@ -0,0 +1,106 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Big-endian byte builder for header boxes; sizes of nested boxes are patched when they are closed.
+ */
+final class BoxWriter {
+	@NonNull
+	private final Deque<Integer> open = new ArrayDeque<>();
+	@NonNull
+	private byte[] buf = new byte[4096];
+	private int size;
+
+	@NonNull
+	BoxWriter start(@NonNull String type) {
+		open.push(size);
+		u32(0);
+		return fourcc(type);
+	}
+
+	@NonNull
+	BoxWriter start(@NonNull String type,
+	                final int version,
+	                final int flags) {
+		start(type);
+		return u32(version << 24 | flags & 0xFFFFFF);
+	}
+
+	@NonNull
+	BoxWriter end() {
+		int at = open.pop();
+		int length = size - at;
+		buf[at] = (byte) (length >>> 24);
+		buf[at + 1] = (byte) (length >>> 16);
+		buf[at + 2] = (byte) (length >>> 8);
+		buf[at + 3] = (byte) length;
+		return this;
+	}
+
+	@NonNull
+	BoxWriter u8(final int value) {
+		ensure(1);
+		buf[size++] = (byte) value;
+		return this;
+	}
+
+	@NonNull
+	BoxWriter u16(final int value) {
+		return u8(value >>> 8).u8(value);
+	}
+
+	@NonNull
+	BoxWriter u32(final long value) {
+		ensure(4);
+		buf[size++] = (byte) (value >>> 24);
+		buf[size++] = (byte) (value >>> 16);
+		buf[size++] = (byte) (value >>> 8);
+		buf[size++] = (byte) value;
+		return this;
+	}
+
+	@NonNull
+	BoxWriter u64(final long value) {
+		return u32(value >>> 32).u32(value);
+	}
+
+	@NonNull
+	BoxWriter zeros(final int count) {
+		ensure(count);
+		size += count;
+		return this;
+	}
+
+	@NonNull
+	BoxWriter bytes(@NonNull byte[] value) {
+		ensure(value.length);
+		System.arraycopy(value, 0, buf, size, value.length);
+		size += value.length;
+		return this;
+	}
+
+	@NonNull
+	BoxWriter fourcc(@NonNull String type) {
+		return bytes(type.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	int size() {
+		return size;
+	}
+
+	@NonNull
+	byte[] toByteArray() {
+		if (!open.isEmpty()) throw new IllegalStateException("Unclosed box");
+		return Arrays.copyOf(buf, size);
+	}
+
+	private void ensure(final int extra) {
+		if (size + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+	}
+}
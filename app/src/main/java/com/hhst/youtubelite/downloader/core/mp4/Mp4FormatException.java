@@ -0,0 +1,18 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Signals an MP4 layout the streaming muxer does not understand.
+ */
+public class Mp4FormatException extends IOException {
+	public Mp4FormatException(@NonNull String message) {
+		super(message);
+	}
+
+	public Mp4FormatException(@NonNull String message, @NonNull Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,173 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Header boxes shared by the flat and the fragmented muxer.
+ */
+final class Mp4Headers {
+	static final long MOVIE_TIMESCALE = 1_000L;
+	static final long MAX_U32 = 0xFFFFFFFFL;
+
+	private Mp4Headers() {
+	}
+
+	@NonNull
+	static byte[] ftyp(@NonNull String major,
+	                   @NonNull String... compatible) {
+		BoxWriter w = new BoxWriter().start("ftyp").fourcc(major).u32(512);
+		for (String brand : compatible) {
+			w.fourcc(brand);
+		}
+		return w.end().toByteArray();
+	}
+
+	static void mvhd(@NonNull BoxWriter w,
+	                 final long duration,
+	                 final int nextTrackId) {
+		boolean wide = duration > MAX_U32;
+		w.start("mvhd", wide ? 1 : 0, 0);
+		times(w, wide, MOVIE_TIMESCALE, duration);
+		w.u32(0x00010000).u16(0x0100).zeros(10);
+		matrix(w);
+		w.zeros(24).u32(nextTrackId).end();
+	}
+
+	/**
+	 * Writes a trak box; without {@code offsets} the sample tables stay empty for a fragmented file.
+	 */
+	static void trak(@NonNull BoxWriter w,
+	                 @NonNull Mp4Track track,
+	                 final int trackId,
+	                 @Nullable long[] offsets,
+	                 final long base,
+	                 final boolean wide) {
+		long duration = offsets == null ? 0L : track.presentationDuration(MOVIE_TIMESCALE);
+		boolean wideHeader = duration > MAX_U32;
+		w.start("trak");
+		w.start("tkhd", wideHeader ? 1 : 0, track.tkhdFlags);
+		if (wideHeader) {
+			w.u64(0).u64(0).u32(trackId).u32(0).u64(duration);
+		} else {
+			w.u32(0).u32(0).u32(trackId).u32(0).u32(duration);
+		}
+		w.bytes(track.tkhdTail).end();
+
+		if (track.edits.size > 0) {
+			w.start("edts").start("elst", 1, 0).u32(track.edits.size / 3);
+			for (int i = 0; i < track.edits.size; i += 3) {
+				w.u64(track.edits.get(i) * MOVIE_TIMESCALE / track.movieTimescale)
+								.u64(track.edits.get(i + 1))
+								.u32(track.edits.get(i + 2));
+			}
+			w.end().end();
+		}
+
+		long mediaDuration = offsets == null ? 0L : track.duration;
+		boolean wideMedia = mediaDuration > MAX_U32;
+		w.start("mdia");
+		w.start("mdhd", wideMedia ? 1 : 0, 0);
+		times(w, wideMedia, track.timescale, mediaDuration);
+		w.u16(track.language).u16(0).end();
+		w.bytes(track.hdlr);
+		w.start("minf").bytes(track.mediaHeader);
+		if (track.dinf != null) {
+			w.bytes(track.dinf);
+		} else {
+			w.start("dinf").start("dref", 0, 0).u32(1).start("url ", 0, 1).end().end().end();
+		}
+		if (offsets != null) {
+			stbl(w, track, offsets, base, wide);
+		} else {
+			w.start("stbl").bytes(track.stsd);
+			w.start("stts", 0, 0).u32(0).end();
+			w.start("stsc", 0, 0).u32(0).end();
+			w.start("stsz", 0, 0).u32(0).u32(0).end();
+			w.start("stco", 0, 0).u32(0).end();
+			w.end();
+		}
+		w.end().end().end();
+	}
+
+	private static void stbl(@NonNull BoxWriter w,
+	                         @NonNull Mp4Track track,
+	                         @NonNull long[] offsets,
+	                         final long base,
+	                         final boolean wide) {
+		w.start("stbl").bytes(track.stsd);
+		runs(w, "stts", 0, track.durations);
+		if (track.compositionOffsets.size() > 0 && !track.compositionOffsets.allZero()) {
+			runs(w, "ctts", track.compositionOffsets.anyNegative() ? 1 : 0, track.compositionOffsets);
+		}
+		if (track.hasNonSync) {
+			w.start("stss", 0, 0).u32(track.syncSamples.size);
+			for (int i = 0; i < track.syncSamples.size; i++) {
+				w.u32(track.syncSamples.get(i));
+			}
+			w.end();
+		}
+
+		int entries = 0;
+		for (int i = 0; i < track.chunkCount(); i++) {
+			if (i == 0 || !sameChunkShape(track, i - 1, i)) entries++;
+		}
+		w.start("stsc", 0, 0).u32(entries);
+		for (int i = 0; i < track.chunkCount(); i++) {
+			if (i > 0 && sameChunkShape(track, i - 1, i)) continue;
+			w.u32(i + 1).u32(track.chunkSamples.get(i)).u32(track.chunkDescriptions.get(i));
+		}
+		w.end();
+
+		w.start("stsz", 0, 0).u32(0).u32(track.sampleCount());
+		for (int i = 0; i < track.sampleCount(); i++) {
+			w.u32(track.sizes.get(i));
+		}
+		w.end();
+
+		w.start(wide ? "co64" : "stco", 0, 0).u32(offsets.length);
+		for (long offset : offsets) {
+			if (wide) {
+				w.u64(base + offset);
+			} else {
+				w.u32(base + offset);
+			}
+		}
+		w.end().end();
+	}
+
+	private static boolean sameChunkShape(@NonNull Mp4Track track,
+	                                      final int previous,
+	                                      final int current) {
+		return track.chunkSamples.get(previous) == track.chunkSamples.get(current)
+						&& track.chunkDescriptions.get(previous) == track.chunkDescriptions.get(current);
+	}
+
+	private static void runs(@NonNull BoxWriter w,
+	                         @NonNull String type,
+	                         final int version,
+	                         @NonNull Mp4Track.Runs runs) {
+		w.start(type, version, 0).u32(runs.size());
+		for (int i = 0; i < runs.size(); i++) {
+			w.u32(runs.counts.get(i)).u32(runs.values.get(i));
+		}
+		w.end();
+	}
+
+	private static void times(@NonNull BoxWriter w,
+	                          final boolean wide,
+	                          final long timescale,
+	                          final long duration) {
+		if (wide) {
+			w.u64(0).u64(0).u32(timescale).u64(duration);
+		} else {
+			w.u32(0).u32(0).u32(timescale).u32(duration);
+		}
+	}
+
+	private static void matrix(@NonNull BoxWriter w) {
+		w.u32(0x00010000).u32(0).u32(0)
+						.u32(0).u32(0x00010000).u32(0)
+						.u32(0).u32(0).u32(0x40000000);
+	}
+}
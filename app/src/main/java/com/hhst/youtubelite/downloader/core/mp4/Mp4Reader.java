@@ -0,0 +1,501 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the sample tables of one track from a flat or fragmented MP4 without touching media payloads.
+ * Out-of-bounds reads caused by malformed boxes surface as {@link Mp4FormatException}, so callers fall back to the
+ * full muxer instead of failing.
+ */
+final class Mp4Reader {
+	private static final int MAX_HEADER_BOX_BYTES = 64 * 1024 * 1024;
+	private static final int TRUN_DATA_OFFSET = 0x1;
+	private static final int TRUN_FIRST_SAMPLE_FLAGS = 0x4;
+	private static final int TRUN_SAMPLE_DURATION = 0x100;
+	private static final int TRUN_SAMPLE_SIZE = 0x200;
+	private static final int TRUN_SAMPLE_FLAGS = 0x400;
+	private static final int TRUN_COMPOSITION_OFFSET = 0x800;
+	private static final int TFHD_BASE_DATA_OFFSET = 0x1;
+	private static final int TFHD_DESCRIPTION_INDEX = 0x2;
+	private static final int TFHD_DEFAULT_DURATION = 0x8;
+	private static final int TFHD_DEFAULT_SIZE = 0x10;
+	private static final int TFHD_DEFAULT_FLAGS = 0x20;
+	private static final int TFHD_BASE_IS_MOOF = 0x20000;
+	private static final int SAMPLE_IS_NON_SYNC = 0x10000;
+
+	private Mp4Reader() {
+	}
+
+	/**
+	 * Returns the first track whose handler matches, e.g. {@code vide} or {@code soun}.
+	 */
+	@NonNull
+	static Mp4Track read(@NonNull FileChannel channel,
+	                     @NonNull String handler) throws IOException {
+		try {
+			return readTrack(channel, handler);
+		} catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+			throw malformed(e);
+		}
+	}
+
+	@Nullable
+	static Defaults readMoov(@NonNull ByteBuffer moov,
+	                         @NonNull Mp4Track track) throws IOException {
+		try {
+			return parseMoov(moov, track);
+		} catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+			throw malformed(e);
+		}
+	}
+
+	/**
+	 * Appends the samples of one fragment; each trun becomes a chunk at its absolute file offset.
+	 */
+	static void readMoof(@NonNull ByteBuffer moof,
+	                     final long moofStart,
+	                     @NonNull Defaults defaults,
+	                     @NonNull Mp4Track track) throws IOException {
+		try {
+			parseMoof(moof, moofStart, defaults, track);
+		} catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+			throw malformed(e);
+		}
+	}
+
+	@NonNull
+	private static Mp4FormatException malformed(@NonNull RuntimeException e) {
+		return new Mp4FormatException("Malformed box: " + e, e);
+	}
+
+	@NonNull
+	private static Mp4Track readTrack(@NonNull FileChannel channel,
+	                                  @NonNull String handler) throws IOException {
+		Mp4Track track = new Mp4Track(handler);
+		Defaults defaults = null;
+		long size = channel.size();
+		long pos = 0L;
+		ByteBuffer header = ByteBuffer.allocate(16);
+		while (size - pos >= 8) {
+			header.clear();
+			header.limit((int) Math.min(16L, size - pos));
+			readFully(channel, header, pos);
+			long boxSize = header.getInt(0) & 0xFFFFFFFFL;
+			String type = fourcc(header, 4);
+			int headerSize = 8;
+			if (boxSize == 1) {
+				if (header.limit() < 16) break;
+				boxSize = header.getLong(8);
+				headerSize = 16;
+			} else if (boxSize == 0) {
+				boxSize = size - pos;
+			}
+			if (boxSize < headerSize || boxSize > size - pos) throw new Mp4FormatException("Truncated " + type + " box");
+			if ("moov".equals(type)) {
+				defaults = parseMoov(load(channel, type, pos + headerSize, boxSize - headerSize), track);
+			} else if ("moof".equals(type)) {
+				if (defaults == null) throw new Mp4FormatException("moof before moov");
+				parseMoof(load(channel, type, pos + headerSize, boxSize - headerSize), pos, defaults, track);
+			}
+			pos += boxSize;
+		}
+		if (defaults == null) throw new Mp4FormatException("No " + handler + " track");
+		if (track.sampleCount() == 0) throw new Mp4FormatException("Empty " + handler + " track");
+		for (int i = 0; i < track.chunkCount(); i++) {
+			if (track.chunkOffsets.get(i) < 0 || track.chunkOffsets.get(i) + track.chunkBytes.get(i) > size) {
+				throw new Mp4FormatException("Chunk outside file");
+			}
+		}
+		return track;
+	}
+
+	@Nullable
+	private static Defaults parseMoov(@NonNull ByteBuffer moov,
+	                                  @NonNull Mp4Track track) throws IOException {
+		ByteBuffer mvhd = child(moov, "mvhd");
+		if (mvhd != null) track.movieTimescale = u32(mvhd, mvhd.get(0) == 1 ? 20 : 12);
+		int trackId = -1;
+		for (ByteBuffer trak : children(moov, "trak")) {
+			ByteBuffer mdia = child(trak, "mdia");
+			ByteBuffer hdlr = mdia == null ? null : child(mdia, "hdlr");
+			if (hdlr == null || !track.handler.equals(fourcc(hdlr, 8))) continue;
+			trackId = readTrak(trak, mdia, track);
+			break;
+		}
+		if (trackId < 0) return null;
+		Defaults defaults = new Defaults(trackId);
+		ByteBuffer mvex = child(moov, "mvex");
+		if (mvex != null) {
+			for (ByteBuffer trex : children(mvex, "trex")) {
+				if (trex.getInt(4) != trackId) continue;
+				defaults.description = Math.max(1, trex.getInt(8));
+				defaults.duration = trex.getInt(12);
+				defaults.size = trex.getInt(16);
+				defaults.flags = trex.getInt(20);
+			}
+		}
+		return defaults;
+	}
+
+	private static int readTrak(@NonNull ByteBuffer trak,
+	                            @NonNull ByteBuffer mdia,
+	                            @NonNull Mp4Track track) throws IOException {
+		ByteBuffer tkhd = require(trak, "tkhd");
+		boolean wide = tkhd.get(0) == 1;
+		track.tkhdFlags = tkhd.getInt(0) & 0xFFFFFF;
+		int trackId = tkhd.getInt(wide ? 20 : 12);
+		track.tkhdTail = range(tkhd, wide ? 36 : 24, 60);
+
+		ByteBuffer edts = child(trak, "edts");
+		ByteBuffer elst = edts == null ? null : child(edts, "elst");
+		if (elst != null) {
+			boolean wideEdits = elst.get(0) == 1;
+			int count = elst.getInt(4);
+			int at = 8;
+			for (int i = 0; i < count; i++) {
+				track.edits.add(wideEdits ? elst.getLong(at) : u32(elst, at));
+				track.edits.add(wideEdits ? elst.getLong(at + 8) : elst.getInt(at + 4));
+				track.edits.add(elst.getInt(at + (wideEdits ? 16 : 8)));
+				at += wideEdits ? 20 : 12;
+			}
+		}
+
+		ByteBuffer mdhd = require(mdia, "mdhd");
+		boolean wideMedia = mdhd.get(0) == 1;
+		track.timescale = u32(mdhd, wideMedia ? 20 : 12);
+		track.language = mdhd.getShort(wideMedia ? 32 : 20) & 0xFFFF;
+		if (track.timescale <= 0) throw new Mp4FormatException("Bad timescale");
+		track.hdlr = box(mdia, "hdlr");
+
+		ByteBuffer minf = require(mdia, "minf");
+		ByteBuffer stbl = null;
+		for (Box box : boxes(minf)) {
+			if ("stbl".equals(box.type)) {
+				stbl = payload(minf, box);
+			} else if ("dinf".equals(box.type)) {
+				track.dinf = bytes(minf, box);
+			} else if (track.mediaHeader.length == 0) {
+				track.mediaHeader = bytes(minf, box);
+			}
+		}
+		if (stbl == null) throw new Mp4FormatException("No stbl");
+		track.stsd = box(stbl, "stsd");
+		readSampleTables(stbl, track);
+		return trackId;
+	}
+
+	/**
+	 * Loads the tables of a flat file; fragmented files carry empty tables and are filled from moof boxes.
+	 */
+	private static void readSampleTables(@NonNull ByteBuffer stbl,
+	                                     @NonNull Mp4Track track) throws IOException {
+		ByteBuffer stsz = child(stbl, "stsz");
+		if (stsz == null) {
+			if (child(stbl, "stz2") != null) throw new Mp4FormatException("stz2 is not supported");
+			return;
+		}
+		int constant = stsz.getInt(4);
+		int samples = stsz.getInt(8);
+		if (samples <= 0) return;
+		for (int i = 0; i < samples; i++) {
+			track.sizes.add(constant != 0 ? constant : stsz.getInt(12 + 4 * i));
+		}
+
+		ByteBuffer stts = require(stbl, "stts");
+		long timed = 0L;
+		for (int i = 0, n = stts.getInt(4); i < n; i++) {
+			int count = stts.getInt(8 + 8 * i);
+			int delta = stts.getInt(12 + 8 * i);
+			track.durations.add(count, delta);
+			track.duration += (count & 0xFFFFFFFFL) * (delta & 0xFFFFFFFFL);
+			timed += count & 0xFFFFFFFFL;
+		}
+		if (timed != samples) throw new Mp4FormatException("stts does not cover stsz");
+
+		ByteBuffer ctts = child(stbl, "ctts");
+		if (ctts != null) {
+			for (int i = 0, n = ctts.getInt(4); i < n; i++) {
+				track.compositionOffsets.add(ctts.getInt(8 + 8 * i), ctts.getInt(12 + 8 * i));
+			}
+		}
+		ByteBuffer stss = child(stbl, "stss");
+		if (stss != null) {
+			track.hasNonSync = true;
+			for (int i = 0, n = stss.getInt(4); i < n; i++) {
+				track.syncSamples.add(stss.getInt(8 + 4 * i));
+			}
+		}
+
+		ByteBuffer stsc = require(stbl, "stsc");
+		ByteBuffer stco = child(stbl, "stco");
+		ByteBuffer co64 = stco == null ? require(stbl, "co64") : null;
+		int chunks = (stco != null ? stco : co64).getInt(4);
+		int entries = stsc.getInt(4);
+		int entry = 0;
+		int sample = 0;
+		int run = 0;
+		long runLeft = track.durations.size() > 0 ? track.durations.counts.get(0) & 0xFFFFFFFFL : 0L;
+		long time = 0L;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			while (entry + 1 < entries && stsc.getInt(8 + 12 * (entry + 1)) <= chunk + 1) {
+				entry++;
+			}
+			int perChunk = stsc.getInt(12 + 12 * entry);
+			int description = stsc.getInt(16 + 12 * entry);
+			if (perChunk <= 0 || sample + perChunk > samples) throw new Mp4FormatException("stsc does not match stsz");
+			long offset = stco != null ? u32(stco, 8 + 4 * chunk) : co64.getLong(8 + 8 * chunk);
+			long bytes = 0L;
+			long start = time;
+			for (int i = 0; i < perChunk; i++, sample++) {
+				bytes += track.sizes.get(sample) & 0xFFFFFFFFL;
+				while (runLeft == 0L) {
+					run++;
+					runLeft = track.durations.counts.get(run) & 0xFFFFFFFFL;
+				}
+				time += track.durations.values.get(run) & 0xFFFFFFFFL;
+				runLeft--;
+			}
+			track.addChunk(offset, perChunk, description, bytes, start);
+		}
+		if (sample != samples) throw new Mp4FormatException("Chunks do not cover all samples");
+	}
+
+	private static void parseMoof(@NonNull ByteBuffer moof,
+	                              final long moofStart,
+	                              @NonNull Defaults defaults,
+	                              @NonNull Mp4Track track) throws IOException {
+		boolean first = true;
+		for (ByteBuffer traf : children(moof, "traf")) {
+			ByteBuffer tfhd = require(traf, "tfhd");
+			int flags = tfhd.getInt(0) & 0xFFFFFF;
+			boolean ours = tfhd.getInt(4) == defaults.trackId;
+			boolean implicit = (flags & (TFHD_BASE_DATA_OFFSET | TFHD_BASE_IS_MOOF)) == 0;
+			if (!first && implicit && ours) throw new Mp4FormatException("Implicit base offset after first traf");
+			first = false;
+			if (!ours) continue;
+			int at = 8;
+			long base = moofStart;
+			if ((flags & TFHD_BASE_DATA_OFFSET) != 0) {
+				base = tfhd.getLong(at);
+				at += 8;
+			}
+			int description = defaults.description;
+			if ((flags & TFHD_DESCRIPTION_INDEX) != 0) {
+				description = tfhd.getInt(at);
+				at += 4;
+			}
+			int duration = defaults.duration;
+			if ((flags & TFHD_DEFAULT_DURATION) != 0) {
+				duration = tfhd.getInt(at);
+				at += 4;
+			}
+			int size = defaults.size;
+			if ((flags & TFHD_DEFAULT_SIZE) != 0) {
+				size = tfhd.getInt(at);
+				at += 4;
+			}
+			int sampleFlags = defaults.flags;
+			if ((flags & TFHD_DEFAULT_FLAGS) != 0) {
+				sampleFlags = tfhd.getInt(at);
+			}
+
+			long data = base;
+			for (ByteBuffer trun : children(traf, "trun")) {
+				int runFlags = trun.getInt(0) & 0xFFFFFF;
+				int count = trun.getInt(4);
+				int pos = 8;
+				if ((runFlags & TRUN_DATA_OFFSET) != 0) {
+					data = base + trun.getInt(pos);
+					pos += 4;
+				}
+				int firstFlags = sampleFlags;
+				if ((runFlags & TRUN_FIRST_SAMPLE_FLAGS) != 0) {
+					firstFlags = trun.getInt(pos);
+					pos += 4;
+				}
+				long start = data;
+				long time = track.duration;
+				long bytes = 0L;
+				for (int i = 0; i < count; i++) {
+					int sampleDuration = duration;
+					int sampleSize = size;
+					int flagsOfSample = i == 0 ? firstFlags : sampleFlags;
+					int offset = 0;
+					if ((runFlags & TRUN_SAMPLE_DURATION) != 0) {
+						sampleDuration = trun.getInt(pos);
+						pos += 4;
+					}
+					if ((runFlags & TRUN_SAMPLE_SIZE) != 0) {
+						sampleSize = trun.getInt(pos);
+						pos += 4;
+					}
+					if ((runFlags & TRUN_SAMPLE_FLAGS) != 0) {
+						flagsOfSample = trun.getInt(pos);
+						pos += 4;
+					}
+					if ((runFlags & TRUN_COMPOSITION_OFFSET) != 0) {
+						offset = trun.getInt(pos);
+						pos += 4;
+					}
+					track.addSample(sampleSize, sampleDuration, offset, (flagsOfSample & SAMPLE_IS_NON_SYNC) == 0);
+					bytes += sampleSize & 0xFFFFFFFFL;
+				}
+				if (count > 0) track.addChunk(start, count, description, bytes, time);
+				data = start + bytes;
+			}
+		}
+	}
+
+	@NonNull
+	static ByteBuffer load(@NonNull FileChannel channel,
+	                       @NonNull String type,
+	                       final long pos,
+	                       final long length) throws IOException {
+		if (length > MAX_HEADER_BOX_BYTES) throw new Mp4FormatException("Oversized " + type + " box");
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		readFully(channel, buffer, pos);
+		return buffer;
+	}
+
+	static void readFully(@NonNull FileChannel channel,
+	                      @NonNull ByteBuffer buffer,
+	                      final long pos) throws IOException {
+		long at = pos;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, at);
+			if (read < 0) throw new EOFException();
+			at += read;
+		}
+		buffer.flip();
+	}
+
+	@NonNull
+	static List<Box> boxes(@NonNull ByteBuffer parent) throws Mp4FormatException {
+		List<Box> boxes = new ArrayList<>();
+		int pos = 0;
+		int limit = parent.limit();
+		while (limit - pos >= 8) {
+			long size = parent.getInt(pos) & 0xFFFFFFFFL;
+			String type = fourcc(parent, pos + 4);
+			int header = 8;
+			if (size == 1) {
+				if (limit - pos < 16) break;
+				size = parent.getLong(pos + 8);
+				header = 16;
+			} else if (size == 0) {
+				size = limit - pos;
+			}
+			if (size < header || size > limit - pos) throw new Mp4FormatException("Truncated " + type + " box");
+			boxes.add(new Box(type, pos, pos + header, (int) (pos + size)));
+			pos += (int) size;
+		}
+		return boxes;
+	}
+
+	@Nullable
+	static ByteBuffer child(@NonNull ByteBuffer parent,
+	                        @NonNull String type) throws Mp4FormatException {
+		for (Box box : boxes(parent)) {
+			if (type.equals(box.type)) return payload(parent, box);
+		}
+		return null;
+	}
+
+	@NonNull
+	static ByteBuffer require(@NonNull ByteBuffer parent,
+	                          @NonNull String type) throws Mp4FormatException {
+		ByteBuffer child = child(parent, type);
+		if (child == null) throw new Mp4FormatException("No " + type + " box");
+		return child;
+	}
+
+	@NonNull
+	static List<ByteBuffer> children(@NonNull ByteBuffer parent,
+	                                 @NonNull String type) throws Mp4FormatException {
+		List<ByteBuffer> children = new ArrayList<>();
+		for (Box box : boxes(parent)) {
+			if (type.equals(box.type)) children.add(payload(parent, box));
+		}
+		return children;
+	}
+
+	@NonNull
+	private static byte[] box(@NonNull ByteBuffer parent,
+	                          @NonNull String type) throws Mp4FormatException {
+		for (Box box : boxes(parent)) {
+			if (type.equals(box.type)) return bytes(parent, box);
+		}
+		throw new Mp4FormatException("No " + type + " box");
+	}
+
+	@NonNull
+	private static ByteBuffer payload(@NonNull ByteBuffer parent,
+	                                  @NonNull Box box) {
+		ByteBuffer view = parent.duplicate();
+		view.limit(box.end).position(box.payload);
+		return view.slice();
+	}
+
+	@NonNull
+	private static byte[] bytes(@NonNull ByteBuffer parent,
+	                            @NonNull Box box) {
+		return range(parent, box.start, box.end - box.start);
+	}
+
+	@NonNull
+	private static byte[] range(@NonNull ByteBuffer buffer,
+	                            final int offset,
+	                            final int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return bytes;
+	}
+
+	private static long u32(@NonNull ByteBuffer buffer,
+	                        final int offset) {
+		return buffer.getInt(offset) & 0xFFFFFFFFL;
+	}
+
+	@NonNull
+	static String fourcc(@NonNull ByteBuffer buffer,
+	                     final int offset) {
+		byte[] type = new byte[4];
+		for (int i = 0; i < 4; i++) {
+			type[i] = buffer.get(offset + i);
+		}
+		return new String(type, StandardCharsets.ISO_8859_1);
+	}
+
+/**
+ * Box located inside a parent buffer.
+ */
+	record Box(@NonNull String type, int start, int payload, int end) {
+	}
+
+/**
+ * Per-track defaults from trex that fragments fall back to.
+ */
+	static final class Defaults {
+		final int trackId;
+		int description = 1;
+		int duration;
+		int size;
+		int flags;
+
+		Defaults(final int trackId) {
+			this.trackId = trackId;
+		}
+	}
+}
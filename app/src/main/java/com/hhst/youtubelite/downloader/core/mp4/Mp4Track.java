@@ -0,0 +1,187 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Sample tables of one track plus the source boxes that are copied verbatim into the output.
+ */
+final class Mp4Track {
+	@NonNull
+	final String handler;
+	/** Movie timescale of the source file, used to rescale edit lists. */
+	long movieTimescale;
+	long timescale;
+	int language;
+	int tkhdFlags;
+	/** Width, height, volume and matrix from the source tkhd, starting at its reserved field. */
+	@NonNull
+	byte[] tkhdTail = new byte[0];
+	@NonNull
+	byte[] hdlr = new byte[0];
+	@NonNull
+	byte[] mediaHeader = new byte[0];
+	@Nullable
+	byte[] dinf;
+	@NonNull
+	byte[] stsd = new byte[0];
+	/** Edit list entries as segment duration, media time and packed rate, in source units. */
+	@NonNull
+	final Longs edits = new Longs();
+
+	@NonNull
+	final Ints sizes = new Ints();
+	@NonNull
+	final Runs durations = new Runs();
+	@NonNull
+	final Runs compositionOffsets = new Runs();
+	@NonNull
+	final Ints syncSamples = new Ints();
+	boolean hasNonSync;
+	long duration;
+
+	@NonNull
+	final Longs chunkOffsets = new Longs();
+	@NonNull
+	final Longs chunkBytes = new Longs();
+	@NonNull
+	final Longs chunkTimes = new Longs();
+	@NonNull
+	final Ints chunkSamples = new Ints();
+	@NonNull
+	final Ints chunkDescriptions = new Ints();
+
+	Mp4Track(@NonNull String handler) {
+		this.handler = handler;
+	}
+
+	int sampleCount() {
+		return sizes.size;
+	}
+
+	int chunkCount() {
+		return chunkOffsets.size;
+	}
+
+	void addSample(final int size,
+	               final int duration,
+	               final int compositionOffset,
+	               final boolean sync) {
+		sizes.add(size);
+		durations.add(1, duration);
+		compositionOffsets.add(1, compositionOffset);
+		if (sync) {
+			syncSamples.add(sizes.size);
+		} else {
+			hasNonSync = true;
+		}
+		this.duration += duration & 0xFFFFFFFFL;
+	}
+
+	void addChunk(final long offset,
+	              final int samples,
+	              final int description,
+	              final long bytes,
+	              final long time) {
+		chunkOffsets.add(offset);
+		chunkSamples.add(samples);
+		chunkDescriptions.add(description);
+		chunkBytes.add(bytes);
+		chunkTimes.add(time);
+	}
+
+	/**
+	 * Returns the chunk start time in seconds, used to interleave tracks with different timescales.
+	 */
+	double chunkSeconds(final int chunk) {
+		return chunkTimes.get(chunk) / (double) timescale;
+	}
+
+	/**
+	 * Returns the presentation length in {@code target} units, honouring an edit list when present.
+	 */
+	long presentationDuration(final long target) {
+		if (edits.size == 0 || movieTimescale <= 0) return duration * target / timescale;
+		long total = 0L;
+		for (int i = 0; i < edits.size; i += 3) {
+			total += edits.get(i);
+		}
+		return total * target / movieTimescale;
+	}
+
+/**
+ * Growable int array.
+ */
+	static final class Ints {
+		int[] values = new int[16];
+		int size;
+
+		void add(final int value) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int get(final int index) {
+			return values[index];
+		}
+	}
+
+/**
+ * Growable long array.
+ */
+	static final class Longs {
+		long[] values = new long[16];
+		int size;
+
+		void add(final long value) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		long get(final int index) {
+			return values[index];
+		}
+	}
+
+/**
+ * Run-length list of (count, value) pairs as stored by stts and ctts.
+ */
+	static final class Runs {
+		@NonNull
+		final Ints counts = new Ints();
+		@NonNull
+		final Ints values = new Ints();
+
+		void add(final int count,
+		         final int value) {
+			if (count <= 0) return;
+			int last = counts.size - 1;
+			if (last >= 0 && values.get(last) == value) {
+				counts.values[last] += count;
+			} else {
+				counts.add(count);
+				values.add(value);
+			}
+		}
+
+		int size() {
+			return counts.size;
+		}
+
+		boolean allZero() {
+			for (int i = 0; i < values.size; i++) {
+				if (values.get(i) != 0) return false;
+			}
+			return true;
+		}
+
+		boolean anyNegative() {
+			for (int i = 0; i < values.size; i++) {
+				if (values.get(i) < 0) return true;
+			}
+			return false;
+		}
+	}
+}
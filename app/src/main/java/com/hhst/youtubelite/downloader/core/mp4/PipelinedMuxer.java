@@ -0,0 +1,404 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a fragmented MP4 while the video and audio files are still downloading.
+ * A fragment is copied once its moof and mdat lie inside the written prefix of its source;
+ * {@link #finish()} only copies what is left and appends the mfra index.
+ */
+public final class PipelinedMuxer {
+	private static final int TFHD_BASE_DATA_OFFSET = 0x1;
+
+	@NonNull
+	private final File output;
+	@NonNull
+	private final Source[] sources;
+	@NonNull
+	private final ExecutorService executor;
+	@NonNull
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	@NonNull
+	private final Mp4Track.Longs[] syncTimes = {new Mp4Track.Longs(), new Mp4Track.Longs()};
+	@NonNull
+	private final Mp4Track.Longs[] syncOffsets = {new Mp4Track.Longs(), new Mp4Track.Longs()};
+	@Nullable
+	private FileChannel out;
+	@Nullable
+	private volatile IOException failure;
+	private volatile boolean closed;
+	private long mehdAt;
+	private int sequence;
+
+	public PipelinedMuxer(@NonNull File videoFile,
+	                      @NonNull File audioFile,
+	                      @NonNull File outputFile) {
+		this.output = outputFile;
+		this.sources = new Source[]{new Source(videoFile, "vide"), new Source(audioFile, "soun")};
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "mux-pipeline");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Reports that the first {@code bytes} of the video file are written.
+	 */
+	public void videoAvailable(final long bytes) {
+		available(0, bytes);
+	}
+
+	/**
+	 * Reports that the first {@code bytes} of the audio file are written.
+	 */
+	public void audioAvailable(final long bytes) {
+		available(1, bytes);
+	}
+
+	/**
+	 * Copies the fragments that are left once both files are complete, then writes the index.
+	 * Throws {@link Mp4FormatException} when the sources cannot be muxed fragment by fragment.
+	 */
+	public void finish() throws IOException {
+		Future<Void> done;
+		try {
+			done = executor.submit(() -> {
+				try {
+					IOException earlier = failure;
+					if (earlier != null) throw earlier;
+					for (Source source : sources) {
+						source.complete();
+					}
+					drain();
+					for (Source source : sources) {
+						if (!source.exhausted()) throw new Mp4FormatException("Unread data in " + source.track.handler + " source");
+					}
+					writeIndex();
+					return null;
+				} finally {
+					close();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			throw new IOException("Muxer already closed", e);
+		}
+		try {
+			done.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while muxing");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) throw io;
+			throw new IOException(e.getCause());
+		} finally {
+			abort();
+		}
+	}
+
+	/**
+	 * Stops muxing and releases the files; the partial output is left for the caller to delete.
+	 */
+	public void abort() {
+		closed = true;
+		try {
+			executor.execute(this::close);
+		} catch (RejectedExecutionException ignored) {
+		}
+		executor.shutdown();
+	}
+
+	private void available(final int index,
+	                       final long bytes) {
+		sources[index].advance(bytes);
+		if (closed || failure != null || !scheduled.compareAndSet(false, true)) return;
+		try {
+			executor.execute(() -> {
+				scheduled.set(false);
+				try {
+					drain();
+				} catch (IOException e) {
+					// Kept for finish(), which reports it or lets the caller fall back to a full mux.
+					failure = e;
+				}
+			});
+		} catch (RejectedExecutionException ignored) {
+		}
+	}
+
+	private void drain() throws IOException {
+		if (closed) return;
+		Fragment video = sources[0].peek();
+		Fragment audio = sources[1].peek();
+		if (out == null) {
+			if (!sources[0].ready() || !sources[1].ready()) return;
+			writeHeader();
+		}
+		while (video != null || audio != null) {
+			int pick = audio == null || (video != null && video.seconds <= audio.seconds) ? 0 : 1;
+			write(pick, sources[pick].take());
+			video = sources[0].peek();
+			audio = sources[1].peek();
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		byte[] ftyp = Mp4Headers.ftyp("iso6", "iso6", "isom", "avc1", "mp41");
+		BoxWriter w = new BoxWriter().start("moov");
+		Mp4Headers.mvhd(w, 0L, sources.length + 1);
+		for (int i = 0; i < sources.length; i++) {
+			Mp4Headers.trak(w, sources[i].track, i + 1, null, 0L, false);
+		}
+		w.start("mvex");
+		w.start("mehd", 1, 0);
+		mehdAt = ftyp.length + w.size();
+		w.u64(0).end();
+		for (int i = 0; i < sources.length; i++) {
+			Mp4Reader.Defaults defaults = sources[i].defaults;
+			if (defaults == null) throw new IllegalStateException("Header not parsed");
+			w.start("trex", 0, 0).u32(i + 1).u32(defaults.description).u32(defaults.duration).u32(defaults.size).u32(defaults.flags).end();
+		}
+		w.end();
+		FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		out = channel;
+		writeFully(channel, ByteBuffer.wrap(ftyp));
+		writeFully(channel, ByteBuffer.wrap(w.end().toByteArray()));
+	}
+
+	/**
+	 * Copies one moof and its mdat, renumbering the fragment and the track and moving explicit base offsets.
+	 */
+	private void write(final int index,
+	                   @NonNull Fragment fragment) throws IOException {
+		FileChannel channel = out;
+		if (channel == null) throw new IllegalStateException("Header not written");
+		long at = channel.position();
+		Mp4Reader.require(fragment.moof, "mfhd").putInt(4, ++sequence);
+		ByteBuffer tfhd = Mp4Reader.require(Mp4Reader.require(fragment.moof, "traf"), "tfhd");
+		tfhd.putInt(4, index + 1);
+		if ((tfhd.getInt(0) & TFHD_BASE_DATA_OFFSET) != 0) tfhd.putLong(8, tfhd.getLong(8) - fragment.start + at);
+		if (fragment.sync) {
+			syncTimes[index].add(fragment.time);
+			syncOffsets[index].add(at);
+		}
+		writeFully(channel, fragment.box.duplicate());
+		StreamingMuxer.copy(sources[index].channel(), fragment.mdatStart, fragment.end - fragment.mdatStart, channel);
+	}
+
+	private void writeIndex() throws IOException {
+		FileChannel channel = out;
+		if (channel == null) throw new Mp4FormatException("Sources have no fragments");
+		BoxWriter w = new BoxWriter().start("mfra");
+		long duration = 0L;
+		for (int i = 0; i < sources.length; i++) {
+			duration = Math.max(duration, sources[i].track.presentationDuration(Mp4Headers.MOVIE_TIMESCALE));
+			w.start("tfra", 1, 0).u32(i + 1).u32(0).u32(syncTimes[i].size);
+			for (int j = 0; j < syncTimes[i].size; j++) {
+				w.u64(syncTimes[i].get(j)).u64(syncOffsets[i].get(j)).u8(1).u8(1).u8(1);
+			}
+			w.end();
+		}
+		w.start("mfro", 0, 0);
+		w.u32(w.size() + 4).end();
+		writeFully(channel, ByteBuffer.wrap(w.end().toByteArray()));
+		ByteBuffer mehd = ByteBuffer.allocate(8).putLong(0, duration);
+		while (mehd.hasRemaining()) {
+			channel.write(mehd, mehdAt + mehd.position());
+		}
+		channel.force(false);
+	}
+
+	private void close() {
+		try {
+			if (out != null) out.close();
+		} catch (IOException ignored) {
+		}
+		for (Source source : sources) {
+			source.close();
+		}
+	}
+
+	private static void writeFully(@NonNull FileChannel channel,
+	                               @NonNull ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+/**
+ * One source file read forward as its written prefix grows.
+ */
+	private static final class Source {
+		@NonNull
+		final File file;
+		@NonNull
+		final Mp4Track track;
+		@NonNull
+		private final AtomicLong available = new AtomicLong();
+		@NonNull
+		private final ByteBuffer header = ByteBuffer.allocate(16);
+		@Nullable
+		Mp4Reader.Defaults defaults;
+		@Nullable
+		private FileChannel channel;
+		@Nullable
+		private Fragment pending;
+		private volatile boolean complete;
+		private long pos;
+		private String boxType = "";
+		private int boxHeader;
+
+		Source(@NonNull File file,
+		       @NonNull String handler) {
+			this.file = file;
+			this.track = new Mp4Track(handler);
+		}
+
+		void advance(final long bytes) {
+			available.accumulateAndGet(bytes, Math::max);
+		}
+
+		void complete() throws IOException {
+			available.set(channel().size());
+			complete = true;
+		}
+
+		boolean ready() {
+			return defaults != null;
+		}
+
+		boolean exhausted() {
+			return complete && pending == null && pos >= available.get();
+		}
+
+		@Nullable
+		Fragment peek() throws IOException {
+			if (pending == null) pending = next();
+			return pending;
+		}
+
+		@NonNull
+		Fragment take() {
+			Fragment fragment = pending;
+			if (fragment == null) throw new IllegalStateException("Nothing to take");
+			pending = null;
+			return fragment;
+		}
+
+		@NonNull
+		FileChannel channel() throws IOException {
+			if (channel == null) channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			return channel;
+		}
+
+		void close() {
+			try {
+				if (channel != null) channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+
+		@Nullable
+		private Fragment next() throws IOException {
+			long limit = available.get();
+			while (true) {
+				long end = boxEnd(pos, limit);
+				if (end < 0) return null;
+				String type = boxType;
+				int headerSize = boxHeader;
+				if ("moov".equals(type)) {
+					defaults = Mp4Reader.readMoov(Mp4Reader.load(channel(), type, pos + headerSize, end - pos - headerSize), track);
+					if (defaults == null) throw new Mp4FormatException("No " + track.handler + " track");
+					pos = end;
+				} else if ("moof".equals(type)) {
+					Mp4Reader.Defaults trex = defaults;
+					if (trex == null) throw new Mp4FormatException("moof before moov");
+					long mdatEnd = boxEnd(end, limit);
+					if (mdatEnd < 0) return null;
+					if (!"mdat".equals(boxType)) throw new Mp4FormatException("moof without mdat");
+					Fragment fragment = fragment(trex, pos, headerSize, end, mdatEnd);
+					pos = mdatEnd;
+					return fragment;
+				} else if ("mdat".equals(type)) {
+					throw new Mp4FormatException("Media data outside fragments");
+				} else {
+					pos = end;
+				}
+			}
+		}
+
+		@NonNull
+		private Fragment fragment(@NonNull Mp4Reader.Defaults trex,
+		                          final long start,
+		                          final int headerSize,
+		                          final long mdatStart,
+		                          final long end) throws IOException {
+			ByteBuffer box = Mp4Reader.load(channel(), "moof", start, mdatStart - start);
+			ByteBuffer view = box.duplicate();
+			view.position(headerSize);
+			ByteBuffer moof = view.slice();
+			if (Mp4Reader.children(moof, "traf").size() != 1) throw new Mp4FormatException("Fragment with several tracks");
+			int chunks = track.chunkCount();
+			int samples = track.sampleCount();
+			int syncs = track.syncSamples.size;
+			long time = track.duration;
+			Mp4Reader.readMoof(moof, start, trex, track);
+			if (track.chunkCount() == chunks) throw new Mp4FormatException("Fragment for another track");
+			for (int i = chunks; i < track.chunkCount(); i++) {
+				long offset = track.chunkOffsets.get(i);
+				if (offset < mdatStart || offset + track.chunkBytes.get(i) > end) {
+					throw new Mp4FormatException("Fragment data outside its mdat");
+				}
+			}
+			boolean sync = track.syncSamples.size > syncs && track.syncSamples.get(syncs) == samples + 1;
+			return new Fragment(box, moof, start, mdatStart, end, time, sync, time / (double) track.timescale);
+		}
+
+		/**
+		 * Returns where the box at {@code at} ends, or -1 while it is not fully inside the written prefix.
+		 */
+		private long boxEnd(final long at,
+		                    final long limit) throws IOException {
+			if (limit - at < 8) return -1L;
+			header.clear();
+			header.limit((int) Math.min(16L, limit - at));
+			Mp4Reader.readFully(channel(), header, at);
+			long size = header.getInt(0) & 0xFFFFFFFFL;
+			boxType = Mp4Reader.fourcc(header, 4);
+			boxHeader = 8;
+			if (size == 1) {
+				if (header.limit() < 16) return -1L;
+				size = header.getLong(8);
+				boxHeader = 16;
+			} else if (size == 0) {
+				if (!complete) return -1L;
+				size = limit - at;
+			}
+			if (size < boxHeader) throw new Mp4FormatException("Bad " + boxType + " box");
+			return at + size <= limit ? at + size : -1L;
+		}
+	}
+
+/**
+ * Value object for one parsed moof and the mdat that follows it.
+ */
+	private record Fragment(@NonNull ByteBuffer box, @NonNull ByteBuffer moof, long start, long mdatStart, long end,
+	                        long time, boolean sync, double seconds) {
+	}
+}
@@ -0,0 +1,150 @@
+package com.hhst.youtubelite.downloader.core.mp4;
+
+import androidx.annotation.NonNull;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Merges one video and one audio track into a flat MP4 by rewriting only the header boxes.
+ * Media payloads are copied chunk by chunk with {@link FileChannel#transferTo}, so heap use stays small.
+ */
+public final class StreamingMuxer {
+	private StreamingMuxer() {
+	}
+
+	public static void merge(@NonNull File videoFile,
+	                         @NonNull File audioFile,
+	                         @NonNull File outputFile) throws IOException {
+		try (FileChannel video = FileChannel.open(videoFile.toPath(), StandardOpenOption.READ);
+		     FileChannel audio = FileChannel.open(audioFile.toPath(), StandardOpenOption.READ)) {
+			Mp4Track videoTrack = Mp4Reader.read(video, "vide");
+			Mp4Track audioTrack = Mp4Reader.read(audio, "soun");
+			write(List.of(videoTrack, audioTrack), List.of(video, audio), outputFile);
+		}
+	}
+
+	private static void write(@NonNull List<Mp4Track> tracks,
+	                          @NonNull List<FileChannel> sources,
+	                          @NonNull File outputFile) throws IOException {
+		Layout layout = Layout.interleave(tracks);
+		byte[] ftyp = Mp4Headers.ftyp("isom", "isom", "iso2", "avc1", "mp41");
+		long payload = layout.payloadBytes;
+		int mdatHeader = payload + 8 > Mp4Headers.MAX_U32 ? 16 : 8;
+		boolean wide = false;
+		byte[] moov = moov(tracks, layout, 0L, false);
+		long base = ftyp.length + moov.length + mdatHeader;
+		if (base + payload > Mp4Headers.MAX_U32) {
+			wide = true;
+			moov = moov(tracks, layout, 0L, true);
+			base = ftyp.length + moov.length + mdatHeader;
+		}
+		moov = moov(tracks, layout, base, wide);
+
+		try (FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer head = ByteBuffer.allocate(ftyp.length + moov.length + mdatHeader);
+			head.put(ftyp).put(moov);
+			if (mdatHeader == 16) {
+				head.putInt(1).put(new byte[]{'m', 'd', 'a', 't'}).putLong(payload + 16);
+			} else {
+				head.putInt((int) (payload + 8)).put(new byte[]{'m', 'd', 'a', 't'});
+			}
+			head.flip();
+			while (head.hasRemaining()) {
+				out.write(head);
+			}
+			for (int i = 0; i < layout.order.length; i++) {
+				int track = layout.order[i] >>> 28;
+				int chunk = layout.order[i] & 0x0FFFFFFF;
+				Mp4Track source = tracks.get(track);
+				copy(sources.get(track), source.chunkOffsets.get(chunk), source.chunkBytes.get(chunk), out);
+			}
+			out.force(false);
+		}
+	}
+
+	static void copy(@NonNull FileChannel in,
+	                 final long offset,
+	                 final long length,
+	                 @NonNull FileChannel out) throws IOException {
+		long pos = offset;
+		long remaining = length;
+		while (remaining > 0) {
+			long sent = in.transferTo(pos, remaining, out);
+			if (sent <= 0) throw new EOFException("Source ended at " + pos);
+			pos += sent;
+			remaining -= sent;
+		}
+	}
+
+	@NonNull
+	static byte[] moov(@NonNull List<Mp4Track> tracks,
+	                   @NonNull Layout layout,
+	                   final long base,
+	                   final boolean wide) {
+		long duration = 0L;
+		for (Mp4Track track : tracks) {
+			duration = Math.max(duration, track.presentationDuration(Mp4Headers.MOVIE_TIMESCALE));
+		}
+		BoxWriter w = new BoxWriter().start("moov");
+		Mp4Headers.mvhd(w, duration, tracks.size() + 1);
+		for (int i = 0; i < tracks.size(); i++) {
+			Mp4Headers.trak(w, tracks.get(i), i + 1, layout.offsets[i], base, wide);
+		}
+		return w.end().toByteArray();
+	}
+
+/**
+ * Output order of source chunks and where each one lands relative to the mdat payload.
+ */
+	static final class Layout {
+		/** Track index in the top four bits, chunk index below. */
+		@NonNull
+		final int[] order;
+		@NonNull
+		final long[][] offsets;
+		final long payloadBytes;
+
+		private Layout(@NonNull int[] order,
+		               @NonNull long[][] offsets,
+		               final long payloadBytes) {
+			this.order = order;
+			this.offsets = offsets;
+			this.payloadBytes = payloadBytes;
+		}
+
+		/**
+		 * Orders chunks by start time so players read both tracks from nearby file positions.
+		 */
+		@NonNull
+		static Layout interleave(@NonNull List<Mp4Track> tracks) {
+			int total = 0;
+			long[][] offsets = new long[tracks.size()][];
+			for (int i = 0; i < tracks.size(); i++) {
+				offsets[i] = new long[tracks.get(i).chunkCount()];
+				total += offsets[i].length;
+			}
+			int[] order = new int[total];
+			int[] next = new int[tracks.size()];
+			long position = 0L;
+			for (int n = 0; n < total; n++) {
+				int pick = -1;
+				for (int i = 0; i < tracks.size(); i++) {
+					if (next[i] >= offsets[i].length) continue;
+					if (pick < 0 || tracks.get(i).chunkSeconds(next[i]) < tracks.get(pick).chunkSeconds(next[pick])) pick = i;
+				}
+				int chunk = next[pick]++;
+				order[n] = pick << 28 | chunk;
+				offsets[pick][chunk] = position;
+				position += tracks.get(pick).chunkBytes.get(chunk);
+			}
+			return new Layout(order, offsets, position);
+		}
+	}
+}
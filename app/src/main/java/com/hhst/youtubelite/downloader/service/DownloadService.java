@@ -30,10 +30,13 @@ import com.hhst.youtubelite.util.DownloadStorageUtils;
 
 import java.io.File;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Inject;
 
@@ -41,6 +44,8 @@ import dagger.hilt.android.AndroidEntryPoint;
 
 /**
  * Foreground service for download jobs and records.
+ * Progress callbacks are coalesced by a {@link ProgressAggregator} and published on one background
+ * thread at a fixed cadence, while terminal and merging states are written immediately.
  */
 @AndroidEntryPoint
 @UnstableApi
@@ -49,8 +54,18 @@ public class DownloadService extends Service {
 	public static final String EXTRA_TASK_ID = "extra_task_id";
 	private static final String CHANNEL_ID = "download_channel";
 	private static final int NOTIFICATION_ID = 1001;
+	private static final ScheduledExecutorService PROGRESS_PUBLISHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "download-progress");
+		thread.setDaemon(true);
+		return thread;
+	});
 	private final Set<String> activeIds = ConcurrentHashMap.newKeySet();
 	private final Map<String, String> activeNames = new ConcurrentHashMap<>();
+	private final Object recordLock = new Object();
+	private final ProgressAggregator progressAggregator = new ProgressAggregator(
+					new ProgressAggregator.ExecutorScheduler(PROGRESS_PUBLISHER),
+					this::publishProgress,
+					ProgressAggregator.PUBLISH_INTERVAL_MS);
 	@Inject
 	LiteDownloader downloader;
 	@Inject
@@ -142,16 +157,17 @@ public class DownloadService extends Service {
 		updateParentRecord(record.getParentId());
 		activeIds.add(taskId);
 		activeNames.put(taskId, task.fileName());
+		progressAggregator.begin(taskId);
 
 		downloader.setCallback(taskId, new ProgressCallback2() {
 			@Override
 			public void onProgress(int progress, long downloaded, long total) {
-				updateRecordProgress(taskId, progress, downloaded, total, DownloadStatus.RUNNING);
-				updateNotificationProgress(task.fileName(), progress);
+				progressAggregator.report(taskId, task.fileName(), progress, downloaded, total);
 			}
 
 			@Override
 			public void onComplete(File file) {
+				progressAggregator.remove(taskId);
 				long fileSize = file.length();
 				try {
 					String outputReference = DownloadStorageUtils.publishToDownloads(DownloadService.this, file, file.getName());
@@ -165,18 +181,21 @@ public class DownloadService extends Service {
 
 			@Override
 			public void onError(Exception error) {
+				progressAggregator.remove(taskId);
 				updateRecordProgress(taskId, -1, -1, -1, DownloadStatus.FAILED);
 				onTaskCompleted(taskId, task.fileName(), false);
 			}
 
 			@Override
 			public void onCancel() {
+				progressAggregator.remove(taskId);
 				updateRecordProgress(taskId, -1, -1, -1, DownloadStatus.CANCELED);
 				onTaskCancelled(taskId);
 			}
 
 			@Override
 			public void onMerge() {
+				progressAggregator.remove(taskId);
 				updateRecordProgress(taskId, -1, -1, -1, DownloadStatus.MERGING);
 				updateNotificationMerging(task.fileName());
 			}
@@ -190,16 +209,21 @@ public class DownloadService extends Service {
 	}
 
 	private void settleCanceledRecord(@NonNull String taskId) {
-		DownloadRecord record = historyRepository.findByTaskId(taskId);
-		if (record == null) {
-			onTaskCancelled(taskId);
-			return;
+		progressAggregator.remove(taskId);
+		DownloadRecord record;
+		boolean settled = false;
+		synchronized (recordLock) {
+			record = historyRepository.findByTaskId(taskId);
+			if (record != null
+							&& record.getStatus() != DownloadStatus.COMPLETED
+							&& record.getStatus() != DownloadStatus.CANCELED) {
+				record.setStatus(DownloadStatus.CANCELED);
+				record.setUpdatedAt(System.currentTimeMillis());
+				historyRepository.upsert(record);
+				settled = true;
+			}
 		}
-		if (record.getStatus() != DownloadStatus.COMPLETED
-						&& record.getStatus() != DownloadStatus.CANCELED) {
-			record.setStatus(DownloadStatus.CANCELED);
-			record.setUpdatedAt(System.currentTimeMillis());
-			historyRepository.upsert(record);
+		if (settled) {
 			broadcastRecordUpdated(taskId);
 			updateParentRecord(record.getParentId());
 		}
@@ -207,32 +231,66 @@ public class DownloadService extends Service {
 	}
 
 	private void updateRecordProgress(String taskId, int p, long d, long t, DownloadStatus status) {
-		DownloadRecord record = historyRepository.findByTaskId(taskId);
-		if (record == null) return;
-		if (p >= 0) record.setProgress(p);
-		if (d >= 0) record.setDownloadedSize(d);
-		if (t >= 0) record.setTotalSize(t);
-		record.setStatus(status);
-		record.setUpdatedAt(System.currentTimeMillis());
-		historyRepository.upsert(record);
+		final DownloadRecord record;
+		synchronized (recordLock) {
+			record = historyRepository.findByTaskId(taskId);
+			if (record == null) return;
+			if (p >= 0) record.setProgress(p);
+			if (d >= 0) record.setDownloadedSize(d);
+			if (t >= 0) record.setTotalSize(t);
+			record.setStatus(status);
+			record.setUpdatedAt(System.currentTimeMillis());
+			historyRepository.upsert(record);
+		}
 		broadcastRecordUpdated(taskId);
 		updateParentRecord(record.getParentId());
 	}
 
 	private void markRecordCompleted(@NonNull String taskId, @NonNull String outputReference, long fileSize) {
-		DownloadRecord record = historyRepository.findByTaskId(taskId);
-		if (record == null) return;
-		record.setProgress(100);
-		record.setDownloadedSize(fileSize);
-		record.setTotalSize(fileSize);
-		record.setOutputPath(outputReference);
-		record.setStatus(DownloadStatus.COMPLETED);
-		record.setUpdatedAt(System.currentTimeMillis());
-		historyRepository.upsert(record);
+		final DownloadRecord record;
+		synchronized (recordLock) {
+			record = historyRepository.findByTaskId(taskId);
+			if (record == null) return;
+			record.setProgress(100);
+			record.setDownloadedSize(fileSize);
+			record.setTotalSize(fileSize);
+			record.setOutputPath(outputReference);
+			record.setStatus(DownloadStatus.COMPLETED);
+			record.setUpdatedAt(System.currentTimeMillis());
+			historyRepository.upsert(record);
+		}
 		broadcastRecordUpdated(taskId);
 		updateParentRecord(record.getParentId());
 	}
 
+	/**
+	 * Writes one coalesced progress batch to history, the download list and the notification.
+	 * Records that already left the running state are skipped so a late sample cannot overwrite them.
+	 */
+	private void publishProgress(@NonNull List<ProgressAggregator.Sample> changed,
+	                             @NonNull List<ProgressAggregator.Sample> active) {
+		Set<String> parentIds = new LinkedHashSet<>();
+		for (ProgressAggregator.Sample sample : changed) {
+			String parentId;
+			synchronized (recordLock) {
+				DownloadRecord record = historyRepository.findByTaskId(sample.taskId());
+				if (record == null || record.getStatus() != DownloadStatus.RUNNING) continue;
+				if (sample.progress() >= 0) record.setProgress(sample.progress());
+				if (sample.downloaded() >= 0) record.setDownloadedSize(sample.downloaded());
+				if (sample.total() >= 0) record.setTotalSize(sample.total());
+				record.setUpdatedAt(System.currentTimeMillis());
+				historyRepository.upsert(record);
+				parentId = record.getParentId();
+			}
+			broadcastRecordUpdated(sample.taskId());
+			if (parentId != null) parentIds.add(parentId);
+		}
+		for (String parentId : parentIds) {
+			updateParentRecord(parentId);
+		}
+		updateNotificationProgress(active);
+	}
+
 	private void updateParentRecord(@Nullable String parentId) {
 		if (parentId == null || parentId.isBlank()) return;
 		DownloadRecord parent = historyRepository.findByTaskId(parentId);
@@ -317,14 +375,21 @@ public class DownloadService extends Service {
 		}
 	}
 
-	private synchronized void updateNotificationProgress(String fileName, int progress) {
-		if (notificationBuilder != null) {
-			notificationBuilder.setContentTitle("Downloading: " + fileName)
-							.setContentText(progress + "%")
-							.setOngoing(true)
-							.setProgress(100, progress, false);
-			notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
+	private synchronized void updateNotificationProgress(@NonNull List<ProgressAggregator.Sample> active) {
+		if (notificationBuilder == null || active.isEmpty()) return;
+		int progress = 0;
+		for (ProgressAggregator.Sample sample : active) {
+			progress += Math.max(0, Math.min(100, sample.progress()));
 		}
+		progress /= active.size();
+		int running = Math.max(active.size(), activeIds.size());
+		notificationBuilder.setContentTitle(running == 1
+										? "Downloading: " + active.get(0).fileName()
+										: getString(R.string.downloads_running, running))
+						.setContentText(progress + "%")
+						.setOngoing(true)
+						.setProgress(100, progress, false);
+		notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
 	}
 
 	private synchronized void updateNotificationMerging(String fileName) {
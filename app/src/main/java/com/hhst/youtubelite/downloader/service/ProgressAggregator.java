@@ -0,0 +1,145 @@
+package com.hhst.youtubelite.downloader.service;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stage that coalesces download progress before it reaches the notification, history and UI.
+ * Download threads only overwrite their task's latest sample; a single publish runs at most once per
+ * interval and hands the changed samples plus the full snapshot to the {@link Sink}, so the publish
+ * rate stays bounded however many tasks are running.
+ */
+final class ProgressAggregator {
+	static final long PUBLISH_INTERVAL_MS = 250L;
+
+	@NonNull
+	private final Scheduler scheduler;
+	@NonNull
+	private final Sink sink;
+	private final long intervalMs;
+	@NonNull
+	private final Map<String, Sample> latest = new ConcurrentHashMap<>();
+	@NonNull
+	private final Map<String, Sample> pending = new ConcurrentHashMap<>();
+	@NonNull
+	private final Set<String> finished = ConcurrentHashMap.newKeySet();
+	@NonNull
+	private final AtomicBoolean publishScheduled = new AtomicBoolean();
+	@NonNull
+	private final AtomicLong reports = new AtomicLong();
+	@NonNull
+	private final AtomicLong publishes = new AtomicLong();
+
+	ProgressAggregator(@NonNull Scheduler scheduler, @NonNull Sink sink, long intervalMs) {
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.sink = Objects.requireNonNull(sink);
+		this.intervalMs = Math.max(0L, intervalMs);
+	}
+
+	/**
+	 * Accepts reports for a task again after an earlier {@link #remove(String)}, for a task that is started anew.
+	 */
+	void begin(@NonNull String taskId) {
+		finished.remove(taskId);
+	}
+
+	/**
+	 * Records the latest progress of a task; safe to call from any download thread.
+	 * Reports for a removed task are dropped until it is started again with {@link #begin(String)}.
+	 */
+	void report(@NonNull String taskId, @NonNull String fileName, int progress, long downloaded, long total) {
+		if (finished.contains(taskId)) return;
+		Sample sample = new Sample(taskId, fileName, progress, downloaded, total);
+		latest.put(taskId, sample);
+		pending.put(taskId, sample);
+		reports.incrementAndGet();
+		if (finished.contains(taskId)) {
+			// Raced with remove(); take back only this sample.
+			latest.remove(taskId, sample);
+			pending.remove(taskId, sample);
+			return;
+		}
+		if (publishScheduled.compareAndSet(false, true)) {
+			scheduler.schedule(intervalMs, this::publish);
+		}
+	}
+
+	/**
+	 * Forgets a task that reached a terminal or merging state so no stale sample is published after it.
+	 */
+	void remove(@NonNull String taskId) {
+		finished.add(taskId);
+		pending.remove(taskId);
+		latest.remove(taskId);
+	}
+
+	@NonNull
+	Metrics metrics() {
+		return new Metrics(reports.get(), publishes.get());
+	}
+
+	private void publish() {
+		publishScheduled.set(false);
+		List<Sample> changed = new ArrayList<>(pending.size());
+		for (Map.Entry<String, Sample> entry : pending.entrySet()) {
+			if (pending.remove(entry.getKey(), entry.getValue())) {
+				changed.add(entry.getValue());
+			}
+		}
+		if (changed.isEmpty()) return;
+		changed.removeIf(sample -> latest.get(sample.taskId()) != sample);
+		if (changed.isEmpty()) return;
+		publishes.incrementAndGet();
+		sink.publish(changed, new ArrayList<>(latest.values()));
+	}
+
+/**
+ * Value object for the latest progress of one download task.
+ */
+	record Sample(@NonNull String taskId, @NonNull String fileName, int progress, long downloaded, long total) {
+	}
+
+/**
+ * Value object for report and publish counters, used to check the publish rate.
+ */
+	record Metrics(long reports, long publishes) {
+	}
+
+/**
+ * Contract for the consumer of coalesced progress; always called from the scheduler's thread.
+ */
+	interface Sink {
+		void publish(@NonNull List<Sample> changed, @NonNull List<Sample> active);
+	}
+
+/**
+ * Contract for delayed execution of the publish step.
+ */
+	interface Scheduler {
+		void schedule(long delayMillis, @NonNull Runnable task);
+	}
+
+/**
+ * Value object for a scheduler backed by a single-thread executor.
+ */
+	record ExecutorScheduler(@NonNull ScheduledExecutorService executor) implements Scheduler {
+		ExecutorScheduler {
+			Objects.requireNonNull(executor);
+		}
+
+		@Override
+		public void schedule(long delayMillis, @NonNull Runnable task) {
+			executor.schedule(task, Math.max(0L, delayMillis), TimeUnit.MILLISECONDS);
+		}
+	}
+}
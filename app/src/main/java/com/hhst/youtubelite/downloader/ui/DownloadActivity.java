@@ -59,7 +59,7 @@ import com.hhst.youtubelite.util.PermissionUtils;
 import com.hhst.youtubelite.util.ToastUtils;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -82,6 +82,9 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 	public static final String EXTRA_PARENT_ID = "extra_parent_id";
 	public static final String EXTRA_PARENT_TITLE = "extra_parent_title";
 	private static final int MENU_CLEAR_HISTORY = 1;
+	private static final int PAGE_SIZE = 50;
+	/** Rows left below the viewport when the next page starts loading. */
+	private static final int PREFETCH_ROWS = 10;
 	@NonNull
 	private final Handler handler = new Handler(Looper.getMainLooper());
 	@NonNull
@@ -112,6 +115,13 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 		}
 	};
 	private boolean refreshScheduled;
+	/** Paging state, touched only on the main thread. */
+	private boolean hasMore;
+	private boolean pageLoading;
+	private int pageGeneration;
+	/** Last record read from the store, before verification drops rows whose files are gone. */
+	@Nullable
+	private DownloadRecord pageCursor;
 	@Nullable
 	private String parentId;
 	@Nullable
@@ -179,6 +189,13 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 		if (recyclerView.getItemAnimator() instanceof SimpleItemAnimator animator) {
 			animator.setSupportsChangeAnimations(false);
 		}
+		recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+				if (dy <= 0 || !(view.getLayoutManager() instanceof LinearLayoutManager layout)) return;
+				if (layout.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_ROWS) loadNextPage();
+			}
+		});
 	}
 
 	@Override
@@ -276,11 +293,46 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 		return parentId != null && !parentId.isBlank();
 	}
 
+	/**
+	 * Reloads from the top, keeping at least as many rows as are already shown so the scroll position survives.
+	 */
 	private void loadRecords() {
+		int limit = Math.max(PAGE_SIZE, adapter.getItemCount());
+		int generation = ++pageGeneration;
+		pageLoading = true;
 		recordExecutor.execute(() -> {
-			List<DownloadRecord> verified = loadVisibleRecords();
+			List<DownloadRecord> page = loadPage(null, limit);
+			List<DownloadRecord> verified = verifyRecords(page);
 			runOnUiThread(() -> {
+				if (generation != pageGeneration) return;
+				pageLoading = false;
+				hasMore = page.size() >= limit;
+				pageCursor = page.isEmpty() ? null : page.get(page.size() - 1);
 				adapter.setItems(verified);
+				// A page can lose every row to verification; keep going so the list is not left empty.
+				if (verified.isEmpty()) loadNextPage();
+				updateEmptyState();
+			});
+		});
+	}
+
+	private void loadNextPage() {
+		if (pageLoading || !hasMore) return;
+		DownloadRecord after = pageCursor;
+		if (after == null) return;
+		int generation = pageGeneration;
+		pageLoading = true;
+		recordExecutor.execute(() -> {
+			List<DownloadRecord> page = loadPage(after, PAGE_SIZE);
+			List<DownloadRecord> verified = verifyRecords(page);
+			runOnUiThread(() -> {
+				// A full reload started meanwhile and already covers this range.
+				if (generation != pageGeneration) return;
+				pageLoading = false;
+				hasMore = page.size() >= PAGE_SIZE;
+				if (!page.isEmpty()) pageCursor = page.get(page.size() - 1);
+				adapter.appendItems(verified);
+				if (verified.isEmpty()) loadNextPage();
 				updateEmptyState();
 			});
 		});
@@ -312,10 +364,14 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 	}
 
 	@NonNull
-	private List<DownloadRecord> loadVisibleRecords() {
-		List<DownloadRecord> source = isDetailMode()
-						? historyRepository.getChildrenSorted(parentId)
-						: historyRepository.getRootsSorted();
+	private List<DownloadRecord> loadPage(@Nullable DownloadRecord after, int limit) {
+		return isDetailMode()
+						? historyRepository.getChildrenPage(parentId, after, limit)
+						: historyRepository.getRootsPage(after, limit);
+	}
+
+	@NonNull
+	private List<DownloadRecord> verifyRecords(@NonNull List<DownloadRecord> source) {
 		List<DownloadRecord> verified = new ArrayList<>(source.size());
 		for (DownloadRecord record : source) {
 			DownloadRecord checked = verifyRecord(record);
@@ -337,10 +393,10 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 
 	@NonNull
 	private List<RecordMutation> buildRecordMutations(@NonNull List<String> taskIds) {
-		List<DownloadRecord> allRecords = historyRepository.getAllSorted();
-		Map<String, DownloadRecord> recordsById = new LinkedHashMap<>(allRecords.size());
-		for (DownloadRecord record : allRecords) {
-			recordsById.put(record.getTaskId(), record);
+		Map<String, DownloadRecord> recordsById = new HashMap<>(taskIds.size());
+		for (String taskId : taskIds) {
+			DownloadRecord record = historyRepository.findByTaskId(taskId);
+			if (record != null) recordsById.put(taskId, record);
 		}
 
 		Set<String> targetIds = new LinkedHashSet<>();
@@ -371,7 +427,7 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 
 		List<RecordMutation> mutations = new ArrayList<>(targetIds.size());
 		for (String taskId : targetIds) {
-			DownloadRecord updated = recordsById.get(taskId);
+			DownloadRecord updated = recordsById.computeIfAbsent(taskId, historyRepository::findByTaskId);
 			DownloadRecord checked = updated == null ? null : verifyRecord(updated);
 			if (checked == null) {
 				mutations.add(RecordMutation.remove(taskId));
@@ -395,7 +451,8 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 	}
 
 	private void updateEmptyState() {
-		boolean isEmpty = adapter.getItemCount() == 0;
+		// A page still on its way may fill the list.
+		boolean isEmpty = adapter.getItemCount() == 0 && !pageLoading;
 		emptyView.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
 		recyclerView.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
 	}
@@ -589,10 +646,19 @@ public class DownloadActivity extends AppCompatActivity implements DownloadPermi
 				return;
 			}
 			int insertIndex = findInsertIndex(record);
+			// Records older than the loaded window arrive with a later page.
+			if (insertIndex == items.size() && hasMore) return;
 			items.add(insertIndex, record);
 			notifyItemInserted(insertIndex);
 		}
 
+		void appendItems(@NonNull List<DownloadRecord> page) {
+			if (page.isEmpty()) return;
+			int start = items.size();
+			items.addAll(page);
+			notifyItemRangeInserted(start, page.size());
+		}
+
 		void removeItemByTaskId(@NonNull String taskId) {
 			int index = indexOf(taskId);
 			if (index < 0) return;
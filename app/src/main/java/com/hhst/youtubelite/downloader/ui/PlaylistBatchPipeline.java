@@ -0,0 +1,87 @@
+package com.hhst.youtubelite.downloader.ui;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Windowed pipeline for batch playlist preparation.
+ * Keeps up to {@code window} extractions in flight and hands each result to the {@link Sink} on the calling thread as
+ * soon as it completes, in completion order, so prepared items can be queued while later ones are still extracting and
+ * the sink never has to be thread-safe.
+ */
+final class PlaylistBatchPipeline {
+	static final long CANCEL_POLL_MS = 250L;
+
+	private PlaylistBatchPipeline() {
+	}
+
+	/**
+	 * Runs the batch until every index is sunk or {@code canceled} turns true; returns the indexes that were sunk.
+	 * Extractions still in flight after cancellation are abandoned, their owner cancels them through the session.
+	 */
+	@NonNull
+	static <T> Set<Integer> run(@NonNull List<Integer> indexes,
+	                            final int window,
+	                            @NonNull Launcher<T> launcher,
+	                            @NonNull Sink<T> sink,
+	                            @NonNull BooleanSupplier canceled) throws InterruptedException {
+		BlockingQueue<Result<T>> completed = new LinkedBlockingQueue<>();
+		Set<Integer> sunk = new LinkedHashSet<>();
+		Iterator<Integer> pending = indexes.iterator();
+		int inFlight = 0;
+		int limit = Math.max(1, window);
+		while (!canceled.getAsBoolean()) {
+			while (inFlight < limit && pending.hasNext()) {
+				int index = pending.next();
+				CompletableFuture<T> future = launcher.launch(index);
+				if (future == null) {
+					sunk.add(index);
+					continue;
+				}
+				inFlight++;
+				future.whenComplete((value, error) -> completed.add(new Result<>(index, value, error)));
+			}
+			if (inFlight == 0) break;
+			Result<T> result = completed.poll(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+			if (result == null) continue;
+			inFlight--;
+			if (canceled.getAsBoolean()) break;
+			sink.accept(result.index(), result.value(), result.error());
+			sunk.add(result.index());
+		}
+		return sunk;
+	}
+
+/**
+ * Contract for starting one item's extraction; null skips the item.
+ */
+	@FunctionalInterface
+	interface Launcher<T> {
+		@Nullable
+		CompletableFuture<T> launch(int index);
+	}
+
+/**
+ * Contract for consuming one finished extraction on the pipeline thread.
+ */
+	@FunctionalInterface
+	interface Sink<T> {
+		void accept(int index, @Nullable T value, @Nullable Throwable error);
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record Result<T>(int index, @Nullable T value, @Nullable Throwable error) {
+	}
+}
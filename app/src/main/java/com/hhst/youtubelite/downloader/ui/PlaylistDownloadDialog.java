@@ -64,6 +64,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -73,6 +75,7 @@ import java.util.concurrent.Executors;
 @UnstableApi
 public final class PlaylistDownloadDialog {
 	private static final long PLAYLIST_LOAD_RETRY_DELAY_MS = 250L;
+	private static final long ROW_STATUS_FLUSH_MS = 100L;
 	private final Context context;
 	private final YoutubeExtractor youtubeExtractor;
 	private final ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -91,6 +94,7 @@ public final class PlaylistDownloadDialog {
 	@Nullable
 	private final String seededTitle;
 	private final List<PlaylistDownloadItem> items = new ArrayList<>();
+	private final Map<Integer, RowStatus> pendingRowStatuses = new LinkedHashMap<>();
 	private final PlaylistDownloadItemsAdapter adapter;
 	private final View dialogView;
 	@Nullable
@@ -159,6 +163,7 @@ public final class PlaylistDownloadDialog {
 	private boolean batchCanceled;
 	private boolean backgroundBatch;
 	private boolean resourcesDisposed;
+	private boolean rowStatusFlushScheduled;
 	private boolean bindingRequested;
 	private boolean isBound;
 	private int threadCount;
@@ -709,89 +714,37 @@ public final class PlaylistDownloadDialog {
 	}
 
 	private void runBatchPreparation(@NonNull BatchRequest batchRequest) {
-		int queuedRows = 0;
-		int partialRows = 0;
-		int failedRows = 0;
+		BatchTally tally = new BatchTally();
 		Set<Integer> processedIndexes = new HashSet<>();
 		int requestedOutputs = 0;
 		if (batchRequest.config.primaryMediaMode() != DownloadSelectionConfig.PrimaryMediaMode.NONE)
 			requestedOutputs++;
 		if (batchRequest.config.subtitleEnabled()) requestedOutputs++;
 		if (batchRequest.config.thumbnailEnabled()) requestedOutputs++;
+		int outputsPerItem = requestedOutputs;
+		ExtractionSession session = batchExtractionSession;
 
-		for (int playlistIndex : batchRequest.selectedIndexes) {
-			if (batchCanceled || resourcesDisposed) break;
-			postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.PREPARING, null);
-			PlaylistDownloadItem item = findItem(playlistIndex);
-			if (item == null) continue;
-			try {
-				PlaybackDetails playbackDetails = youtubeExtractor.getInfo(
-								item.getVideoUrl(),
-								batchExtractionSession).get();
-				if (batchCanceled || resourcesDisposed) break;
-				List<Task> tasks = taskFactory.buildPlaylistTasksForItem(
-								playbackDetails,
-								batchRequest.config,
-								playlistIndex,
-								batchRequest.plannedNames.getOrDefault(playlistIndex, item.getTitle()),
-								DownloadStorageUtils.getWorkingDirectory(context),
-								batchRequest.parent.getTaskId());
-				if (tasks.isEmpty()) {
-					failedRows++;
-					postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
-				} else {
-					DownloadService service = downloadService;
-					if (service == null) {
-						failedRows++;
-						postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
-						break;
-					}
-					service.download(tasks);
-					if (tasks.size() < requestedOutputs) {
-						partialRows++;
-						postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.PARTIAL, null);
-					} else {
-						queuedRows++;
-						postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.QUEUED, null);
-					}
-				}
-				processedIndexes.add(playlistIndex);
-			} catch (final java.util.concurrent.ExecutionException e) {
-				Throwable cause = e.getCause();
-				if (cause instanceof InterruptedIOException || cause instanceof InterruptedException) {
-					Thread.currentThread().interrupt();
-					if (batchCanceled || resourcesDisposed) {
-						postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.CANCELED, null);
-						processedIndexes.add(playlistIndex);
-						break;
-					}
-					failedRows++;
-					postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
-					processedIndexes.add(playlistIndex);
-					continue;
-				}
-				throw new RuntimeException(cause);
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				if (batchCanceled || resourcesDisposed) {
-					postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.CANCELED, null);
-					processedIndexes.add(playlistIndex);
-					break;
-				}
-				failedRows++;
-				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
-				processedIndexes.add(playlistIndex);
-			} catch (Exception e) {
-				failedRows++;
-				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, e.getMessage());
-				processedIndexes.add(playlistIndex);
-			} finally {
-				batchPreparedCount++;
-				handler.post(() -> {
-					updateStatusText();
-					updateSelectionSummary();
-				});
-			}
+		try {
+			processedIndexes = PlaylistBatchPipeline.run(
+							batchRequest.selectedIndexes,
+							prefs.getPreparationParallelism(),
+							playlistIndex -> {
+								PlaylistDownloadItem item = findItem(playlistIndex);
+								if (item == null) return null;
+								postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.PREPARING, null);
+								return youtubeExtractor.getInfo(item.getVideoUrl(), session);
+							},
+							(playlistIndex, playbackDetails, error) -> {
+								try {
+									sinkPreparedItem(batchRequest, playlistIndex, playbackDetails, error, outputsPerItem, tally);
+								} finally {
+									batchPreparedCount++;
+									scheduleRowStatusFlush();
+								}
+							},
+							() -> batchCanceled || resourcesDisposed || tally.serviceLost);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 
 		boolean canceled = batchCanceled || resourcesDisposed;
@@ -802,10 +755,11 @@ public final class PlaylistDownloadDialog {
 			}
 		}
 
-		int addedRows = queuedRows + partialRows;
-		int finalPartialRows = partialRows;
-		int finalFailedRows = failedRows;
+		int addedRows = tally.queuedRows + tally.partialRows;
+		int finalPartialRows = tally.partialRows;
+		int finalFailedRows = tally.failedRows;
 		handler.post(() -> {
+			flushRowBatchStatuses();
 			if (batchExtractionSession != null) {
 				batchExtractionSession.cancel();
 				batchExtractionSession = null;
@@ -841,16 +795,107 @@ public final class PlaylistDownloadDialog {
 		});
 	}
 
+	/**
+	 * Builds and queues the tasks for one extracted item; runs on the batch thread in completion order.
+	 */
+	private void sinkPreparedItem(@NonNull BatchRequest batchRequest,
+	                              int playlistIndex,
+	                              @Nullable PlaybackDetails playbackDetails,
+	                              @Nullable Throwable error,
+	                              int requestedOutputs,
+	                              @NonNull BatchTally tally) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause != null) {
+			boolean interrupted = cause instanceof InterruptedIOException
+							|| cause instanceof InterruptedException
+							|| cause instanceof CancellationException;
+			if (interrupted && (batchCanceled || resourcesDisposed)) {
+				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.CANCELED, null);
+				return;
+			}
+			tally.failedRows++;
+			postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED,
+							interrupted ? null : cause.getMessage());
+			return;
+		}
+		PlaylistDownloadItem item = findItem(playlistIndex);
+		if (playbackDetails == null || item == null) {
+			tally.failedRows++;
+			postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
+			return;
+		}
+		try {
+			List<Task> tasks = taskFactory.buildPlaylistTasksForItem(
+							playbackDetails,
+							batchRequest.config,
+							playlistIndex,
+							batchRequest.plannedNames.getOrDefault(playlistIndex, item.getTitle()),
+							DownloadStorageUtils.getWorkingDirectory(context),
+							batchRequest.parent.getTaskId());
+			if (tasks.isEmpty()) {
+				tally.failedRows++;
+				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
+				return;
+			}
+			DownloadService service = downloadService;
+			if (service == null) {
+				tally.failedRows++;
+				tally.serviceLost = true;
+				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, null);
+				return;
+			}
+			service.download(tasks);
+			if (tasks.size() < requestedOutputs) {
+				tally.partialRows++;
+				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.PARTIAL, null);
+			} else {
+				tally.queuedRows++;
+				postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.QUEUED, null);
+			}
+		} catch (Exception e) {
+			tally.failedRows++;
+			postRowBatchStatus(playlistIndex, PlaylistDownloadItem.BatchResultStatus.FAILED, e.getMessage());
+		}
+	}
+
+	/**
+	 * Queues a row update; updates are applied together at most every {@link #ROW_STATUS_FLUSH_MS}.
+	 */
 	private void postRowBatchStatus(int playlistIndex,
 	                                @NonNull PlaylistDownloadItem.BatchResultStatus batchResultStatus,
 	                                @Nullable String failureReason) {
-		handler.post(() -> {
-			PlaylistDownloadItem item = findItem(playlistIndex);
-			if (item == null || resourcesDisposed) return;
-			item.setBatchResultStatus(batchResultStatus);
+		synchronized (pendingRowStatuses) {
+			pendingRowStatuses.put(playlistIndex, new RowStatus(batchResultStatus, failureReason));
+		}
+		scheduleRowStatusFlush();
+	}
+
+	private void scheduleRowStatusFlush() {
+		synchronized (pendingRowStatuses) {
+			if (rowStatusFlushScheduled) return;
+			rowStatusFlushScheduled = true;
+		}
+		handler.postDelayed(this::flushRowBatchStatuses, ROW_STATUS_FLUSH_MS);
+	}
+
+	private void flushRowBatchStatuses() {
+		Map<Integer, RowStatus> updates;
+		synchronized (pendingRowStatuses) {
+			rowStatusFlushScheduled = false;
+			updates = new LinkedHashMap<>(pendingRowStatuses);
+			pendingRowStatuses.clear();
+		}
+		if (resourcesDisposed) return;
+		for (Map.Entry<Integer, RowStatus> update : updates.entrySet()) {
+			PlaylistDownloadItem item = findItem(update.getKey());
+			if (item == null) continue;
+			item.setBatchResultStatus(update.getValue().status());
+			String failureReason = update.getValue().failureReason();
 			if (failureReason != null && !failureReason.isBlank()) item.setFailureReason(failureReason);
-			refreshItems();
-		});
+		}
+		if (!updates.isEmpty()) refreshItems();
+		updateStatusText();
+		updateSelectionSummary();
 	}
 
 	private void refreshItems() {
@@ -1023,6 +1068,22 @@ public final class PlaylistDownloadDialog {
 		dialog = null;
 	}
 
+/**
+ * Value object for a row status waiting for the next flush.
+ */
+	private record RowStatus(@NonNull PlaylistDownloadItem.BatchResultStatus status, @Nullable String failureReason) {
+	}
+
+/**
+ * Component that counts batch outcomes on the preparation thread.
+ */
+	private static final class BatchTally {
+		private int queuedRows;
+		private int partialRows;
+		private int failedRows;
+		private boolean serviceLost;
+	}
+
 /**
  * Value object for app logic.
  */
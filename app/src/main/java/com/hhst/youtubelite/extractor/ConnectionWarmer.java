@@ -0,0 +1,117 @@
+package com.hhst.youtubelite.extractor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Opens TLS connections to media and thumbnail hosts before they are needed.
+ * Each warm-up is a HEAD to the host's {@code /generate_204} through the shared client, so the
+ * negotiated HTTP/2 connection lands in the shared pool for the real requests to reuse; a host is
+ * warmed at most once per {@link #REWARM_AFTER_MS}.
+ */
+@Singleton
+public final class ConnectionWarmer {
+	public static final String THUMBNAIL_ORIGIN = "https://i.ytimg.com";
+	static final long REWARM_AFTER_MS = 60_000L;
+	private static final String PING_PATH = "generate_204";
+
+	@NonNull
+	private final Call.Factory client;
+	@NonNull
+	private final LongSupplier clock;
+	@NonNull
+	private final Map<String, Long> warmedAt = new ConcurrentHashMap<>();
+
+	@Inject
+	public ConnectionWarmer(@NonNull OkHttpClient client) {
+		this(client, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+	}
+
+	ConnectionWarmer(@NonNull Call.Factory client, @NonNull LongSupplier clock) {
+		this.client = client;
+		this.clock = clock;
+	}
+
+	/**
+	 * Warms every host the plan streams from, manifest first.
+	 */
+	public void warm(@NonNull PlaybackPlan plan) {
+		for (String origin : originsOf(plan)) {
+			warmOrigin(origin);
+		}
+	}
+
+	public void warmThumbnails() {
+		warmOrigin(THUMBNAIL_ORIGIN);
+	}
+
+	/**
+	 * Starts a warm-up for the origin of {@code url} unless one ran recently; returns whether it did.
+	 */
+	boolean warmOrigin(@NonNull String url) {
+		String origin = originOf(url);
+		if (origin == null) return false;
+		long now = clock.getAsLong();
+		Long last = warmedAt.get(origin);
+		if (last != null && now - last < REWARM_AFTER_MS) return false;
+		if (last == null ? warmedAt.putIfAbsent(origin, now) != null : !warmedAt.replace(origin, last, now)) return false;
+		Request request = new Request.Builder()
+						.url(origin + "/" + PING_PATH)
+						.head()
+						.build();
+		client.newCall(request).enqueue(new Callback() {
+			@Override
+			public void onFailure(@NonNull Call call, @NonNull IOException e) {
+				warmedAt.remove(origin, now);
+			}
+
+			@Override
+			public void onResponse(@NonNull Call call, @NonNull Response response) {
+				response.close();
+			}
+		});
+		return true;
+	}
+
+	@NonNull
+	static List<String> originsOf(@NonNull PlaybackPlan plan) {
+		Set<String> origins = new LinkedHashSet<>();
+		addOrigin(origins, plan.getManifestUrl());
+		for (StreamCandidate candidate : new StreamCandidate[]{plan.getVideoCandidate(), plan.getAudioCandidate(), plan.getMuxedCandidate()}) {
+			if (candidate != null) addOrigin(origins, candidate.getUrl());
+		}
+		return new ArrayList<>(origins);
+	}
+
+	private static void addOrigin(@NonNull Set<String> origins, @Nullable String url) {
+		String origin = url != null ? originOf(url) : null;
+		if (origin != null) origins.add(origin);
+	}
+
+	@Nullable
+	private static String originOf(@NonNull String url) {
+		HttpUrl parsed = HttpUrl.parse(url);
+		if (parsed == null || !parsed.isHttps()) return null;
+		return parsed.port() == 443 ? "https://" + parsed.host() : "https://" + parsed.host() + ":" + parsed.port();
+	}
+}
@@ -12,30 +12,48 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
- * Playback delivery candidate assembled from stream options.
+ * Immutable playback delivery candidate assembled from stream options.
  */
-@Data
-@NoArgsConstructor
+@Value
 public class Delivery {
 	@NonNull
-	private PlaybackMode mode = PlaybackMode.NONE;
+	PlaybackMode mode;
 	@NonNull
-	private StreamType streamType = StreamType.VIDEO_STREAM;
+	StreamType streamType;
 	@Nullable
-	private StreamCandidate manifest;
+	StreamCandidate manifest;
 	@NonNull
-	private List<StreamCandidate> video = new ArrayList<>();
+	List<StreamCandidate> video;
 	@NonNull
-	private List<StreamCandidate> audio = new ArrayList<>();
+	List<StreamCandidate> audio;
 	@NonNull
-	private List<StreamCandidate> muxed = new ArrayList<>();
-	private boolean abr;
-	private boolean trackLock;
-	private boolean cache;
+	List<StreamCandidate> muxed;
+	boolean abr;
+	boolean trackLock;
+	boolean cache;
+
+	public Delivery(@NonNull PlaybackMode mode,
+	                @NonNull StreamType streamType,
+	                @Nullable StreamCandidate manifest,
+	                @NonNull List<StreamCandidate> video,
+	                @NonNull List<StreamCandidate> audio,
+	                @NonNull List<StreamCandidate> muxed,
+	                final boolean abr,
+	                final boolean trackLock,
+	                final boolean cache) {
+		this.mode = mode;
+		this.streamType = streamType;
+		this.manifest = manifest;
+		this.video = List.copyOf(video);
+		this.audio = List.copyOf(audio);
+		this.muxed = List.copyOf(muxed);
+		this.abr = abr;
+		this.trackLock = trackLock;
+		this.cache = cache;
+	}
 
 	@Nullable
 	public String getUrl() {
@@ -5,22 +5,25 @@ import androidx.annotation.Nullable;
 
 import org.schabi.newpipe.extractor.stream.StreamType;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
- * Catalog of playback delivery candidates.
+ * Immutable catalog of playback delivery candidates.
  */
-@Data
-@NoArgsConstructor
+@Value
 public class DeliveryCatalog {
 	@NonNull
-	private StreamType streamType = StreamType.VIDEO_STREAM;
+	StreamType streamType;
 	@NonNull
-	private List<Delivery> items = new ArrayList<>();
+	List<Delivery> items;
+
+	public DeliveryCatalog(@NonNull StreamType streamType,
+	                       @NonNull List<Delivery> items) {
+		this.streamType = streamType;
+		this.items = List.copyOf(items);
+	}
 
 	@Nullable
 	public Delivery first(@NonNull PlaybackMode mode) {
@@ -0,0 +1,137 @@
+package com.hhst.youtubelite.extractor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Warms the extractor cache for upcoming queue or playlist items within a small concurrency budget.
+ */
+@Singleton
+public final class ExtractionPrefetcher {
+	public static final int DEPTH = 2;
+	private static final int MAX_CONCURRENT = 2;
+
+	@NonNull
+	private final BiFunction<String, ExtractionSession, CompletableFuture<PlaybackDetails>> fetch;
+	private final int budget;
+	@NonNull
+	private final Map<String, ExtractionSession> active = new LinkedHashMap<>();
+	@NonNull
+	private final Deque<String> pending = new ArrayDeque<>();
+	@Nullable
+	private String next;
+	@Nullable
+	private Consumer<PlaybackDetails> onNextReady;
+
+	@Inject
+	public ExtractionPrefetcher(@NonNull YoutubeExtractor extractor) {
+		this((videoId, session) -> extractor.getInfo("https://www.youtube.com/watch?v=" + videoId, session),
+						MAX_CONCURRENT);
+	}
+
+	ExtractionPrefetcher(@NonNull BiFunction<String, ExtractionSession, CompletableFuture<PlaybackDetails>> fetch,
+	                     final int budget) {
+		this.fetch = Objects.requireNonNull(fetch);
+		this.budget = Math.max(1, budget);
+	}
+
+	public void prefetch(@NonNull List<String> videoIds) {
+		prefetch(videoIds, null);
+	}
+
+	/**
+	 * Replaces the prefetch set; running fetches for ids that are no longer wanted are cancelled.
+	 * {@code onNextReady} receives the details of the first id once its extraction succeeds.
+	 */
+	public synchronized void prefetch(@NonNull List<String> videoIds,
+	                                  @Nullable Consumer<PlaybackDetails> onNextReady) {
+		Set<String> wanted = new LinkedHashSet<>();
+		for (String videoId : videoIds) {
+			if (videoId != null && !videoId.isBlank()) {
+				wanted.add(videoId);
+			}
+		}
+		cancelExcept(wanted);
+		this.next = wanted.isEmpty() ? null : wanted.iterator().next();
+		this.onNextReady = onNextReady;
+		for (String videoId : wanted) {
+			if (!active.containsKey(videoId)) {
+				pending.add(videoId);
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * Keeps only the fetch for the video the user navigated to, so playback can join it.
+	 */
+	public synchronized void retainOnly(@Nullable String videoId) {
+		cancelExcept(videoId == null ? Set.of() : Set.of(videoId));
+	}
+
+	public synchronized void cancel() {
+		cancelExcept(Set.of());
+	}
+
+	synchronized int activeCount() {
+		return active.size();
+	}
+
+	private void cancelExcept(@NonNull Set<String> keep) {
+		pending.clear();
+		next = null;
+		onNextReady = null;
+		List<ExtractionSession> stale = new ArrayList<>();
+		active.entrySet().removeIf(entry -> {
+			if (keep.contains(entry.getKey())) return false;
+			stale.add(entry.getValue());
+			return true;
+		});
+		for (ExtractionSession session : stale) {
+			session.cancel();
+		}
+	}
+
+	private void drain() {
+		while (active.size() < budget && !pending.isEmpty()) {
+			String videoId = pending.poll();
+			ExtractionSession session = new ExtractionSession();
+			active.put(videoId, session);
+			fetch.apply(videoId, session).whenComplete((details, error) -> finish(videoId, session, details));
+		}
+	}
+
+	private void finish(@NonNull String videoId,
+	                    @NonNull ExtractionSession session,
+	                    @Nullable PlaybackDetails details) {
+		Consumer<PlaybackDetails> listener = null;
+		synchronized (this) {
+			if (active.get(videoId) != session) return;
+			active.remove(videoId);
+			if (details != null && videoId.equals(next)) {
+				listener = onNextReady;
+				onNextReady = null;
+			}
+			drain();
+		}
+		if (listener != null) {
+			listener.accept(details);
+		}
+	}
+}
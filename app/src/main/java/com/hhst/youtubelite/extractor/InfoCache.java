@@ -1,34 +1,89 @@
 package com.hhst.youtubelite.extractor;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.google.gson.Gson;
-import com.tencent.mmkv.MMKV;
-
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
- * Cache for extractor playback and video details.
+ * Two-tier cache for extractor playback and video details: an in-memory LRU in front of a binary disk store.
  */
 @Singleton
 public final class InfoCache {
-	private static final String STREAM_KEY = "extractor:stream:";
-	private static final String INFO_KEY = "extractor:info:";
+	private static final String TAG = "InfoCache";
+	private static final String STREAM_KEY = "stream:";
+	private static final String INFO_KEY = "info:";
+	private static final int MEMORY_ENTRIES = 64;
+	private static final long STREAM_TTL_MS = TimeUnit.MINUTES.toMillis(2);
+	private static final long INFO_TTL_MS = TimeUnit.HOURS.toMillis(6);
+	private static final long SWEEP_DELAY_MS = TimeUnit.SECONDS.toMillis(30);
+	private static final long SWEEP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(15);
 
 	@NonNull
-	private final MMKV kv;
+	private final InfoStore store;
+	@NonNull
+	private final Executor io;
+	@NonNull
+	private final LongSupplier clock;
+	private final int capacity;
+	@NonNull
+	private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
 	@NonNull
-	private final Gson gson;
+	private final AtomicLong memoryHits = new AtomicLong();
+	@NonNull
+	private final AtomicLong diskHits = new AtomicLong();
+	@NonNull
+	private final AtomicLong misses = new AtomicLong();
+	@NonNull
+	private final AtomicLong evictions = new AtomicLong();
+	@NonNull
+	private final AtomicLong expirations = new AtomicLong();
 
 	@Inject
-	public InfoCache(@NonNull MMKV kv,
-	                 @NonNull Gson gson) {
-		this.kv = kv;
-		this.gson = gson;
+	public InfoCache(@NonNull InfoStore store) {
+		this(store, createSweeper(), System::currentTimeMillis, MEMORY_ENTRIES);
+	}
+
+	private InfoCache(@NonNull InfoStore store,
+	                  @NonNull ScheduledExecutorService sweeper,
+	                  @NonNull LongSupplier clock,
+	                  final int capacity) {
+		this(store, (Executor) sweeper, clock, capacity);
+		sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_DELAY_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	InfoCache(@NonNull InfoStore store,
+	          @NonNull Executor io,
+	          @NonNull LongSupplier clock,
+	          final int capacity) {
+		this.store = Objects.requireNonNull(store);
+		this.io = Objects.requireNonNull(io);
+		this.clock = Objects.requireNonNull(clock);
+		this.capacity = Math.max(1, capacity);
+	}
+
+	@NonNull
+	private static ScheduledExecutorService createSweeper() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "extractor-cache");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	@Nullable
@@ -38,7 +93,7 @@ public final class InfoCache {
 
 	public void putPlaybackDetails(@NonNull String videoId,
 	                               @NonNull PlaybackDetails details) {
-		write(STREAM_KEY + videoId, details, TimeUnit.MINUTES.toMillis(2));
+		write(STREAM_KEY + videoId, details, STREAM_TTL_MS);
 	}
 
 	@Nullable
@@ -48,23 +103,76 @@ public final class InfoCache {
 
 	public void putVideoDetails(@NonNull String videoId,
 	                            @NonNull VideoDetails details) {
-		write(INFO_KEY + videoId, details, TimeUnit.HOURS.toMillis(6));
+		write(INFO_KEY + videoId, details, INFO_TTL_MS);
+	}
+
+	@NonNull
+	public Stats stats() {
+		return new Stats(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(), expirations.get());
+	}
+
+	/**
+	 * Drops expired entries from both tiers.
+	 */
+	void sweep() {
+		long now = clock.getAsLong();
+		int expired = 0;
+		synchronized (memory) {
+			Iterator<Entry> iterator = memory.values().iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().until() <= now) {
+					iterator.remove();
+					expired++;
+				}
+			}
+		}
+		try {
+			expired += store.sweep();
+		} catch (RuntimeException e) {
+			Log.w(TAG, "Cache sweep failed", e);
+		}
+		expirations.addAndGet(expired);
 	}
 
 	@Nullable
 	private <T> T read(@NonNull String key,
 	                   @NonNull Class<T> type) {
-		String raw = kv.decodeString(key, null);
-		if (raw == null || raw.isBlank()) {
+		long now = clock.getAsLong();
+		synchronized (memory) {
+			Entry entry = memory.get(key);
+			if (entry != null) {
+				if (entry.until() > now && type.isInstance(entry.value())) {
+					memoryHits.incrementAndGet();
+					return type.cast(entry.value());
+				}
+				memory.remove(key);
+				expirations.incrementAndGet();
+			}
+		}
+		T value = readDisk(key, type);
+		if (value == null) {
+			misses.incrementAndGet();
 			return null;
 		}
+		diskHits.incrementAndGet();
+		return value;
+	}
+
+	@Nullable
+	private <T> T readDisk(@NonNull String key,
+	                       @NonNull Class<T> type) {
 		try {
-			Slot slot = gson.fromJson(raw, Slot.class);
-			if (slot == null || slot.until() <= System.currentTimeMillis()) {
+			InfoStore.Slot slot = store.get(key);
+			if (slot == null) {
 				return null;
 			}
-			return gson.fromJson(slot.json(), type);
-		} catch (RuntimeException ignored) {
+			Object value = type == PlaybackDetails.class
+							? InfoCodec.decodePlayback(slot.data())
+							: InfoCodec.decodeVideo(slot.data());
+			remember(key, value, slot.until());
+			return type.cast(value);
+		} catch (IOException | RuntimeException e) {
+			store.remove(key);
 			return null;
 		}
 	}
@@ -72,13 +180,47 @@ public final class InfoCache {
 	private void write(@NonNull String key,
 	                   @NonNull Object value,
 	                   final long ttlMs) {
-		Slot slot = new Slot(System.currentTimeMillis() + ttlMs, gson.toJson(value));
-		kv.encode(key, gson.toJson(slot));
+		long until = clock.getAsLong() + ttlMs;
+		remember(key, value, until);
+		io.execute(() -> {
+			try {
+				byte[] data = value instanceof PlaybackDetails details
+								? InfoCodec.encodePlayback(details)
+								: InfoCodec.encodeVideo((VideoDetails) value);
+				store.put(key, until, data);
+			} catch (IOException | RuntimeException e) {
+				Log.w(TAG, "Failed to persist " + key, e);
+			}
+		});
+	}
+
+	private void remember(@NonNull String key,
+	                      @NonNull Object value,
+	                      final long until) {
+		synchronized (memory) {
+			memory.put(key, new Entry(value, until));
+			Iterator<Entry> iterator = memory.values().iterator();
+			while (memory.size() > capacity && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+/**
+ * Snapshot of cache counters.
+ */
+	public record Stats(long memoryHits,
+	                    long diskHits,
+	                    long misses,
+	                    long evictions,
+	                    long expirations) {
 	}
 
 /**
  * Value object for app logic.
  */
-	private record Slot(long until, @NonNull String json) {
+	private record Entry(@NonNull Object value, long until) {
 	}
 }
@@ -0,0 +1,616 @@
+package com.hhst.youtubelite.extractor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.schabi.newpipe.extractor.MediaFormat;
+import org.schabi.newpipe.extractor.exceptions.ParsingException;
+import org.schabi.newpipe.extractor.services.youtube.ItagItem;
+import org.schabi.newpipe.extractor.stream.AudioStream;
+import org.schabi.newpipe.extractor.stream.AudioTrackType;
+import org.schabi.newpipe.extractor.stream.DeliveryMethod;
+import org.schabi.newpipe.extractor.stream.StreamSegment;
+import org.schabi.newpipe.extractor.stream.StreamType;
+import org.schabi.newpipe.extractor.stream.SubtitlesStream;
+import org.schabi.newpipe.extractor.stream.VideoStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact binary codec for cached extractor details.
+ * Extractor streams are written field by field and rebuilt through their builders on decode, so
+ * entries do not depend on Java serialization of extractor classes; any layout change bumps
+ * {@link #VERSION} and older entries are dropped as misses.
+ */
+final class InfoCodec {
+	static final int VERSION = 2;
+	private static final int NONE = -1;
+
+	private InfoCodec() {
+	}
+
+	@NonNull
+	static byte[] encodeVideo(@NonNull VideoDetails video) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			writeVideo(out, video);
+		}
+		return bytes.toByteArray();
+	}
+
+	@NonNull
+	static VideoDetails decodeVideo(@NonNull byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			checkVersion(in);
+			return readVideo(in);
+		}
+	}
+
+	@NonNull
+	static byte[] encodePlayback(@NonNull PlaybackDetails details) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			writeVideo(out, details.video());
+
+			StreamCatalog catalog = details.catalog();
+			DeliveryCatalog deliveries = details.deliveries();
+			PlaybackPlan plan = details.plan();
+
+			Map<StreamCandidate, Integer> candidates = new IdentityHashMap<>();
+			List<StreamCandidate> table = new ArrayList<>();
+			index(candidates, table, catalog.getManifestCandidates());
+			index(candidates, table, catalog.getVideoCandidates());
+			index(candidates, table, catalog.getAudioCandidates());
+			index(candidates, table, catalog.getMuxedCandidates());
+			index(candidates, table, catalog.getSubtitleCandidates());
+			List<Delivery> rows = new ArrayList<>(deliveries.getItems());
+			if (plan.getDelivery() != null && !rows.contains(plan.getDelivery())) {
+				rows.add(plan.getDelivery());
+			}
+			for (Delivery delivery : rows) {
+				index(candidates, table, delivery.getManifest());
+				index(candidates, table, delivery.getVideo());
+				index(candidates, table, delivery.getAudio());
+				index(candidates, table, delivery.getMuxed());
+			}
+			index(candidates, table, plan.getVideoCandidate());
+			index(candidates, table, plan.getAudioCandidate());
+			index(candidates, table, plan.getMuxedCandidate());
+
+			out.writeInt(table.size());
+			for (StreamCandidate candidate : table) {
+				writeCandidate(out, candidate);
+			}
+
+			writeEnum(out, catalog.getStreamType());
+			writeRefs(out, candidates, catalog.getManifestCandidates());
+			writeRefs(out, candidates, catalog.getVideoCandidates());
+			writeRefs(out, candidates, catalog.getAudioCandidates());
+			writeRefs(out, candidates, catalog.getMuxedCandidates());
+			writeRefs(out, candidates, catalog.getSubtitleCandidates());
+
+			writeEnum(out, deliveries.getStreamType());
+			out.writeInt(rows.size());
+			for (Delivery delivery : rows) {
+				writeEnum(out, delivery.getMode());
+				writeEnum(out, delivery.getStreamType());
+				writeRef(out, candidates, delivery.getManifest());
+				writeRefs(out, candidates, delivery.getVideo());
+				writeRefs(out, candidates, delivery.getAudio());
+				writeRefs(out, candidates, delivery.getMuxed());
+				out.writeByte((delivery.isAbr() ? 1 : 0)
+								| (delivery.isTrackLock() ? 2 : 0)
+								| (delivery.isCache() ? 4 : 0));
+			}
+			out.writeInt(deliveries.getItems().size());
+
+			writeEnum(out, plan.getMode());
+			writeEnum(out, plan.getStreamType());
+			out.writeInt(plan.getDelivery() == null ? NONE : rows.indexOf(plan.getDelivery()));
+			writeRef(out, candidates, plan.getVideoCandidate());
+			writeRef(out, candidates, plan.getAudioCandidate());
+			writeRef(out, candidates, plan.getMuxedCandidate());
+
+			out.writeInt(details.segments().size());
+			for (StreamSegment segment : details.segments()) {
+				writeSegment(out, segment);
+			}
+			out.writeInt(details.subtitles().size());
+			for (SubtitlesStream subtitle : details.subtitles()) {
+				writeSubtitleStream(out, subtitle);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	@NonNull
+	static PlaybackDetails decodePlayback(@NonNull byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			checkVersion(in);
+			VideoDetails video = readVideo(in);
+
+			int size = in.readInt();
+			List<StreamCandidate> table = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				table.add(readCandidate(in));
+			}
+
+			StreamCatalog catalog = new StreamCatalog(
+							readEnum(in, StreamType.class),
+							readRefs(in, table),
+							readRefs(in, table),
+							readRefs(in, table),
+							readRefs(in, table),
+							readRefs(in, table));
+
+			StreamType deliveryType = readEnum(in, StreamType.class);
+			int rows = in.readInt();
+			List<Delivery> items = new ArrayList<>(rows);
+			for (int i = 0; i < rows; i++) {
+				PlaybackMode mode = readEnum(in, PlaybackMode.class);
+				StreamType type = readEnum(in, StreamType.class);
+				StreamCandidate manifest = readRef(in, table);
+				List<StreamCandidate> videoRefs = readRefs(in, table);
+				List<StreamCandidate> audioRefs = readRefs(in, table);
+				List<StreamCandidate> muxedRefs = readRefs(in, table);
+				int flags = in.readByte();
+				items.add(new Delivery(mode, type, manifest, videoRefs, audioRefs, muxedRefs,
+								(flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0));
+			}
+			DeliveryCatalog deliveries = new DeliveryCatalog(deliveryType, items.subList(0, in.readInt()));
+
+			PlaybackMode mode = readEnum(in, PlaybackMode.class);
+			StreamType planType = readEnum(in, StreamType.class);
+			int delivery = in.readInt();
+			PlaybackPlan plan = new PlaybackPlan(
+							mode,
+							planType,
+							delivery == NONE ? null : items.get(delivery),
+							readRef(in, table),
+							readRef(in, table),
+							readRef(in, table));
+
+			int segmentCount = in.readInt();
+			List<StreamSegment> segments = new ArrayList<>(segmentCount);
+			for (int i = 0; i < segmentCount; i++) {
+				segments.add(readSegment(in));
+			}
+			int subtitleCount = in.readInt();
+			List<SubtitlesStream> subtitles = new ArrayList<>(subtitleCount);
+			for (int i = 0; i < subtitleCount; i++) {
+				subtitles.add(readSubtitleStream(in));
+			}
+			return new PlaybackDetails(video, catalog, deliveries, plan, segments, subtitles);
+		}
+	}
+
+	private static void checkVersion(@NonNull DataInputStream in) throws IOException {
+		int version = in.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported cache version " + version);
+		}
+	}
+
+	private static void writeVideo(@NonNull DataOutputStream out,
+	                               @NonNull VideoDetails video) throws IOException {
+		writeString(out, video.getId());
+		writeString(out, video.getTitle());
+		writeString(out, video.getAuthor());
+		writeString(out, video.getDescription());
+		out.writeBoolean(video.getDuration() != null);
+		if (video.getDuration() != null) {
+			out.writeLong(video.getDuration());
+		}
+		writeString(out, video.getThumbnailUrl());
+		out.writeLong(video.getLikeCount());
+		out.writeLong(video.getDislikeCount());
+		out.writeBoolean(video.getUploadDate() != null);
+		if (video.getUploadDate() != null) {
+			out.writeLong(video.getUploadDate().getTime());
+		}
+		writeString(out, video.getUploaderUrl());
+		writeString(out, video.getUploaderAvatarUrl());
+		out.writeLong(video.getViewCount());
+	}
+
+	@NonNull
+	private static VideoDetails readVideo(@NonNull DataInputStream in) throws IOException {
+		String id = readString(in);
+		String title = readString(in);
+		String author = readString(in);
+		String description = readString(in);
+		Long duration = in.readBoolean() ? in.readLong() : null;
+		String thumbnailUrl = readString(in);
+		long likeCount = in.readLong();
+		long dislikeCount = in.readLong();
+		Date uploadDate = in.readBoolean() ? new Date(in.readLong()) : null;
+		String uploaderUrl = readString(in);
+		String uploaderAvatarUrl = readString(in);
+		long viewCount = in.readLong();
+		return new VideoDetails(id, title, author, description, duration, thumbnailUrl,
+						likeCount, dislikeCount, uploadDate, uploaderUrl, uploaderAvatarUrl, viewCount);
+	}
+
+	private static void writeCandidate(@NonNull DataOutputStream out,
+	                                   @NonNull StreamCandidate candidate) throws IOException {
+		writeEnum(out, candidate.getKind());
+		writeEnum(out, candidate.getProtocol());
+		writeString(out, candidate.getSourceClient());
+		out.writeByte((candidate.isPlayerPoToken() ? 1 : 0)
+						| (candidate.isStreamPoToken() ? 2 : 0)
+						| (candidate.isLive() ? 4 : 0));
+		writeString(out, candidate.getUrl());
+		out.writeBoolean(candidate.getVideoStream() != null);
+		if (candidate.getVideoStream() != null) {
+			writeVideoStream(out, candidate.getVideoStream());
+		}
+		out.writeBoolean(candidate.getAudioStream() != null);
+		if (candidate.getAudioStream() != null) {
+			writeAudioStream(out, candidate.getAudioStream());
+		}
+		out.writeBoolean(candidate.getSubtitleStream() != null);
+		if (candidate.getSubtitleStream() != null) {
+			writeSubtitleStream(out, candidate.getSubtitleStream());
+		}
+	}
+
+	@NonNull
+	private static StreamCandidate readCandidate(@NonNull DataInputStream in) throws IOException {
+		StreamCandidateKind kind = readEnum(in, StreamCandidateKind.class);
+		StreamProtocol protocol = readEnum(in, StreamProtocol.class);
+		String sourceClient = readString(in);
+		int flags = in.readByte();
+		String url = readString(in);
+		return new StreamCandidate(kind, protocol, sourceClient,
+						(flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, url,
+						in.readBoolean() ? readVideoStream(in) : null,
+						in.readBoolean() ? readAudioStream(in) : null,
+						in.readBoolean() ? readSubtitleStream(in) : null);
+	}
+
+	private static void writeVideoStream(@NonNull DataOutputStream out,
+	                                     @NonNull VideoStream stream) throws IOException {
+		writeStreamBase(out, stream.getId(), stream.getContent(), stream.isUrl(),
+						stream.getFormat(), stream.getDeliveryMethod(), stream.getManifestUrl());
+		out.writeBoolean(stream.isVideoOnly());
+		writeString(out, stream.getResolution());
+		writeItag(out, stream.getItag(), stream.getItagItem());
+	}
+
+	@NonNull
+	private static VideoStream readVideoStream(@NonNull DataInputStream in) throws IOException {
+		String id = readString(in);
+		String content = readString(in);
+		boolean isUrl = in.readBoolean();
+		MediaFormat format = readOptionalEnum(in, MediaFormat.class);
+		DeliveryMethod deliveryMethod = readEnum(in, DeliveryMethod.class);
+		String manifestUrl = readString(in);
+		boolean videoOnly = in.readBoolean();
+		String resolution = readString(in);
+		ItagItem itagItem = readItag(in);
+		try {
+			return new VideoStream.Builder()
+							.setId(id)
+							.setContent(content, isUrl)
+							.setMediaFormat(format)
+							.setDeliveryMethod(deliveryMethod)
+							.setManifestUrl(manifestUrl)
+							.setIsVideoOnly(videoOnly)
+							.setResolution(resolution)
+							.setItagItem(itagItem)
+							.build();
+		} catch (IllegalStateException e) {
+			throw new IOException("Invalid video stream", e);
+		}
+	}
+
+	private static void writeAudioStream(@NonNull DataOutputStream out,
+	                                     @NonNull AudioStream stream) throws IOException {
+		writeStreamBase(out, stream.getId(), stream.getContent(), stream.isUrl(),
+						stream.getFormat(), stream.getDeliveryMethod(), stream.getManifestUrl());
+		out.writeInt(stream.getAverageBitrate());
+		writeString(out, stream.getAudioTrackId());
+		writeString(out, stream.getAudioTrackName());
+		writeLocale(out, stream.getAudioLocale());
+		writeOptionalEnum(out, stream.getAudioTrackType());
+		writeItag(out, stream.getItag(), stream.getItagItem());
+	}
+
+	@NonNull
+	private static AudioStream readAudioStream(@NonNull DataInputStream in) throws IOException {
+		String id = readString(in);
+		String content = readString(in);
+		boolean isUrl = in.readBoolean();
+		MediaFormat format = readOptionalEnum(in, MediaFormat.class);
+		DeliveryMethod deliveryMethod = readEnum(in, DeliveryMethod.class);
+		String manifestUrl = readString(in);
+		int averageBitrate = in.readInt();
+		String audioTrackId = readString(in);
+		String audioTrackName = readString(in);
+		Locale audioLocale = readLocale(in);
+		AudioTrackType audioTrackType = readOptionalEnum(in, AudioTrackType.class);
+		ItagItem itagItem = readItag(in);
+		try {
+			return new AudioStream.Builder()
+							.setId(id)
+							.setContent(content, isUrl)
+							.setMediaFormat(format)
+							.setDeliveryMethod(deliveryMethod)
+							.setManifestUrl(manifestUrl)
+							.setAverageBitrate(averageBitrate)
+							.setAudioTrackId(audioTrackId)
+							.setAudioTrackName(audioTrackName)
+							.setAudioLocale(audioLocale)
+							.setAudioTrackType(audioTrackType)
+							.setItagItem(itagItem)
+							.build();
+		} catch (IllegalStateException e) {
+			throw new IOException("Invalid audio stream", e);
+		}
+	}
+
+	private static void writeSubtitleStream(@NonNull DataOutputStream out,
+	                                        @NonNull SubtitlesStream stream) throws IOException {
+		writeStreamBase(out, stream.getId(), stream.getContent(), stream.isUrl(),
+						stream.getFormat(), stream.getDeliveryMethod(), stream.getManifestUrl());
+		writeString(out, stream.getLanguageTag());
+		out.writeBoolean(stream.isAutoGenerated());
+	}
+
+	@NonNull
+	private static SubtitlesStream readSubtitleStream(@NonNull DataInputStream in) throws IOException {
+		String id = readString(in);
+		String content = readString(in);
+		boolean isUrl = in.readBoolean();
+		MediaFormat format = readOptionalEnum(in, MediaFormat.class);
+		DeliveryMethod deliveryMethod = readEnum(in, DeliveryMethod.class);
+		String manifestUrl = readString(in);
+		String languageTag = readString(in);
+		boolean autoGenerated = in.readBoolean();
+		try {
+			return new SubtitlesStream.Builder()
+							.setId(id)
+							.setContent(content, isUrl)
+							.setMediaFormat(format)
+							.setDeliveryMethod(deliveryMethod)
+							.setManifestUrl(manifestUrl)
+							.setLanguageCode(languageTag)
+							.setAutoGenerated(autoGenerated)
+							.build();
+		} catch (IllegalStateException e) {
+			throw new IOException("Invalid subtitle stream", e);
+		}
+	}
+
+	private static void writeStreamBase(@NonNull DataOutputStream out,
+	                                    @Nullable String id,
+	                                    @Nullable String content,
+	                                    final boolean isUrl,
+	                                    @Nullable MediaFormat format,
+	                                    @NonNull DeliveryMethod deliveryMethod,
+	                                    @Nullable String manifestUrl) throws IOException {
+		writeString(out, id);
+		writeString(out, content);
+		out.writeBoolean(isUrl);
+		writeOptionalEnum(out, format);
+		writeEnum(out, deliveryMethod);
+		writeString(out, manifestUrl);
+	}
+
+	/**
+	 * Writes the per-stream values of an itag; the static ones come back from the extractor's itag table.
+	 */
+	private static void writeItag(@NonNull DataOutputStream out,
+	                              final int itag,
+	                              @Nullable ItagItem item) throws IOException {
+		out.writeBoolean(item != null);
+		if (item == null) {
+			return;
+		}
+		out.writeInt(itag);
+		out.writeInt(item.getBitrate());
+		out.writeInt(item.getWidth());
+		out.writeInt(item.getHeight());
+		out.writeInt(item.getFps());
+		out.writeInt(item.getInitStart());
+		out.writeInt(item.getInitEnd());
+		out.writeInt(item.getIndexStart());
+		out.writeInt(item.getIndexEnd());
+		writeString(out, item.getQuality());
+		writeString(out, item.getCodec());
+		out.writeInt(item.getTargetDurationSec());
+		out.writeLong(item.getApproxDurationMs());
+		out.writeLong(item.getContentLength());
+		out.writeInt(item.getSampleRate());
+		out.writeInt(item.getAudioChannels());
+		writeString(out, item.getAudioTrackId());
+		writeString(out, item.getAudioTrackName());
+		writeLocale(out, item.getAudioLocale());
+		writeOptionalEnum(out, item.getAudioTrackType());
+	}
+
+	@Nullable
+	private static ItagItem readItag(@NonNull DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		final ItagItem item;
+		try {
+			item = ItagItem.getItag(in.readInt());
+		} catch (ParsingException e) {
+			throw new IOException("Unknown itag", e);
+		}
+		item.setBitrate(in.readInt());
+		item.setWidth(in.readInt());
+		item.setHeight(in.readInt());
+		item.setFps(in.readInt());
+		item.setInitStart(in.readInt());
+		item.setInitEnd(in.readInt());
+		item.setIndexStart(in.readInt());
+		item.setIndexEnd(in.readInt());
+		item.setQuality(readString(in));
+		item.setCodec(readString(in));
+		item.setTargetDurationSec(in.readInt());
+		item.setApproxDurationMs(in.readLong());
+		item.setContentLength(in.readLong());
+		item.setSampleRate(in.readInt());
+		item.setAudioChannels(in.readInt());
+		item.setAudioTrackId(readString(in));
+		item.setAudioTrackName(readString(in));
+		item.setAudioLocale(readLocale(in));
+		item.setAudioTrackType(readOptionalEnum(in, AudioTrackType.class));
+		return item;
+	}
+
+	private static void writeSegment(@NonNull DataOutputStream out,
+	                                 @NonNull StreamSegment segment) throws IOException {
+		writeString(out, segment.getTitle());
+		out.writeInt(segment.getStartTimeSeconds());
+		writeString(out, segment.getChannelName());
+		writeString(out, segment.getUrl());
+		writeString(out, segment.getPreviewUrl());
+	}
+
+	@NonNull
+	private static StreamSegment readSegment(@NonNull DataInputStream in) throws IOException {
+		StreamSegment segment = new StreamSegment(readString(in), in.readInt());
+		segment.setChannelName(readString(in));
+		segment.setUrl(readString(in));
+		segment.setPreviewUrl(readString(in));
+		return segment;
+	}
+
+	private static void index(@NonNull Map<StreamCandidate, Integer> candidates,
+	                          @NonNull List<StreamCandidate> table,
+	                          @Nullable StreamCandidate candidate) {
+		if (candidate != null && !candidates.containsKey(candidate)) {
+			candidates.put(candidate, table.size());
+			table.add(candidate);
+		}
+	}
+
+	private static void index(@NonNull Map<StreamCandidate, Integer> candidates,
+	                          @NonNull List<StreamCandidate> table,
+	                          @NonNull List<StreamCandidate> list) {
+		for (StreamCandidate candidate : list) {
+			index(candidates, table, candidate);
+		}
+	}
+
+	private static void writeRef(@NonNull DataOutputStream out,
+	                             @NonNull Map<StreamCandidate, Integer> candidates,
+	                             @Nullable StreamCandidate candidate) throws IOException {
+		Integer index = candidate == null ? null : candidates.get(candidate);
+		out.writeInt(index == null ? NONE : index);
+	}
+
+	private static void writeRefs(@NonNull DataOutputStream out,
+	                              @NonNull Map<StreamCandidate, Integer> candidates,
+	                              @NonNull List<StreamCandidate> list) throws IOException {
+		out.writeInt(list.size());
+		for (StreamCandidate candidate : list) {
+			writeRef(out, candidates, candidate);
+		}
+	}
+
+	@Nullable
+	private static StreamCandidate readRef(@NonNull DataInputStream in,
+	                                       @NonNull List<StreamCandidate> table) throws IOException {
+		int index = in.readInt();
+		return index == NONE ? null : table.get(index);
+	}
+
+	@NonNull
+	private static List<StreamCandidate> readRefs(@NonNull DataInputStream in,
+	                                              @NonNull List<StreamCandidate> table) throws IOException {
+		int size = in.readInt();
+		List<StreamCandidate> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			StreamCandidate candidate = readRef(in, table);
+			if (candidate != null) {
+				list.add(candidate);
+			}
+		}
+		return list;
+	}
+
+	private static void writeEnum(@NonNull DataOutputStream out,
+	                              @NonNull Enum<?> value) throws IOException {
+		out.writeUTF(value.name());
+	}
+
+	@NonNull
+	private static <E extends Enum<E>> E readEnum(@NonNull DataInputStream in,
+	                                              @NonNull Class<E> type) throws IOException {
+		try {
+			return Enum.valueOf(type, in.readUTF());
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown " + type.getSimpleName(), e);
+		}
+	}
+
+	private static void writeOptionalEnum(@NonNull DataOutputStream out,
+	                                      @Nullable Enum<?> value) throws IOException {
+		writeString(out, value == null ? null : value.name());
+	}
+
+	@Nullable
+	private static <E extends Enum<E>> E readOptionalEnum(@NonNull DataInputStream in,
+	                                                      @NonNull Class<E> type) throws IOException {
+		String name = readString(in);
+		if (name == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown " + type.getSimpleName(), e);
+		}
+	}
+
+	private static void writeLocale(@NonNull DataOutputStream out,
+	                                @Nullable Locale locale) throws IOException {
+		writeString(out, locale == null ? null : locale.toLanguageTag());
+	}
+
+	@Nullable
+	private static Locale readLocale(@NonNull DataInputStream in) throws IOException {
+		String tag = readString(in);
+		return tag == null ? null : Locale.forLanguageTag(tag);
+	}
+
+	private static void writeString(@NonNull DataOutputStream out,
+	                                @Nullable String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NONE);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	@Nullable
+	private static String readString(@NonNull DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == NONE) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,181 @@
+package com.hhst.youtubelite.extractor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.tencent.mmkv.MMKV;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Dedicated on-disk store for binary extractor cache entries with expiry headers.
+ */
+@Singleton
+public final class InfoStore {
+	static final String ID = "extractor_cache";
+	private static final String[] LEGACY_KEYS = {"extractor:stream:", "extractor:info:"};
+	private static final int HEADER = Long.BYTES;
+
+	@NonNull
+	private final Backend backend;
+	@NonNull
+	private final LongSupplier clock;
+	@NonNull
+	private final Runnable migration;
+	@NonNull
+	private final AtomicBoolean migrated = new AtomicBoolean();
+
+	@Inject
+	public InfoStore(@NonNull MMKV legacy) {
+		this(new MmkvBackend(MMKV.mmkvWithID(ID)), System::currentTimeMillis, () -> purgeLegacy(legacy));
+	}
+
+	InfoStore(@NonNull Backend backend,
+	          @NonNull LongSupplier clock,
+	          @NonNull Runnable migration) {
+		this.backend = Objects.requireNonNull(backend);
+		this.clock = Objects.requireNonNull(clock);
+		this.migration = Objects.requireNonNull(migration);
+	}
+
+	private static void purgeLegacy(@NonNull MMKV legacy) {
+		String[] keys = legacy.allKeys();
+		if (keys == null) return;
+		List<String> stale = new ArrayList<>();
+		for (String key : keys) {
+			for (String prefix : LEGACY_KEYS) {
+				if (key.startsWith(prefix)) {
+					stale.add(key);
+					break;
+				}
+			}
+		}
+		if (!stale.isEmpty()) {
+			legacy.removeValuesForKeys(stale.toArray(new String[0]));
+			legacy.trim();
+		}
+	}
+
+	private static long until(@NonNull byte[] raw) {
+		return ByteBuffer.wrap(raw, 0, HEADER).getLong();
+	}
+
+	@Nullable
+	Slot get(@NonNull String key) {
+		byte[] raw = backend.get(key);
+		if (raw == null || raw.length < HEADER) {
+			return null;
+		}
+		long until = until(raw);
+		if (until <= clock.getAsLong()) {
+			backend.remove(key);
+			return null;
+		}
+		return new Slot(until, Arrays.copyOfRange(raw, HEADER, raw.length));
+	}
+
+	void put(@NonNull String key,
+	         final long until,
+	         @NonNull byte[] payload) {
+		byte[] raw = ByteBuffer.allocate(HEADER + payload.length)
+						.putLong(until)
+						.put(payload)
+						.array();
+		backend.put(key, raw);
+	}
+
+	void remove(@NonNull String key) {
+		backend.remove(key);
+	}
+
+	/**
+	 * Removes expired or unreadable entries and returns how many were dropped.
+	 */
+	int sweep() {
+		if (migrated.compareAndSet(false, true)) {
+			migration.run();
+		}
+		long now = clock.getAsLong();
+		List<String> expired = new ArrayList<>();
+		for (String key : backend.keys()) {
+			byte[] raw = backend.get(key);
+			if (raw == null || raw.length < HEADER || until(raw) <= now) {
+				expired.add(key);
+			}
+		}
+		if (!expired.isEmpty()) {
+			backend.removeAll(expired);
+		}
+		return expired.size();
+	}
+
+/**
+ * Stored payload together with its expiry time.
+ */
+	record Slot(long until, @NonNull byte[] data) {
+	}
+
+/**
+ * Contract for app logic.
+ */
+	interface Backend {
+		@Nullable
+		byte[] get(@NonNull String key);
+
+		void put(@NonNull String key, @NonNull byte[] value);
+
+		void remove(@NonNull String key);
+
+		void removeAll(@NonNull List<String> keys);
+
+		@NonNull
+		List<String> keys();
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record MmkvBackend(@NonNull MMKV kv) implements Backend {
+		private MmkvBackend {
+			Objects.requireNonNull(kv);
+		}
+
+		@Override
+		@Nullable
+		public byte[] get(@NonNull String key) {
+			return kv.decodeBytes(key);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull byte[] value) {
+			kv.encode(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			kv.removeValueForKey(key);
+		}
+
+		@Override
+		public void removeAll(@NonNull List<String> keys) {
+			kv.removeValuesForKeys(keys.toArray(new String[0]));
+			kv.trim();
+		}
+
+		@Override
+		@NonNull
+		public List<String> keys() {
+			String[] keys = kv.allKeys();
+			return keys == null ? List.of() : Arrays.asList(keys);
+		}
+	}
+}
@@ -8,7 +8,7 @@ import org.schabi.newpipe.extractor.stream.SubtitlesStream;
 import java.util.List;
 
 /**
- * Aggregated playback data assembled from extraction results.
+ * Immutable playback snapshot assembled from extraction results; shared as-is between subscribers.
  */
 public record PlaybackDetails(@NonNull VideoDetails video,
                               @NonNull StreamCatalog catalog,
@@ -16,4 +16,13 @@ public record PlaybackDetails(@NonNull VideoDetails video,
                               @NonNull PlaybackPlan plan,
                               @NonNull List<StreamSegment> segments,
                               @NonNull List<SubtitlesStream> subtitles) {
+	public PlaybackDetails {
+		segments = List.copyOf(segments);
+		subtitles = List.copyOf(subtitles);
+	}
+
+	@NonNull
+	public PlaybackDetails withPlan(@NonNull PlaybackPlan plan) {
+		return new PlaybackDetails(video, catalog, deliveries, plan, segments, subtitles);
+	}
 }
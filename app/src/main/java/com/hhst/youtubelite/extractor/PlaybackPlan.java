@@ -5,27 +5,34 @@ import androidx.annotation.Nullable;
 
 import org.schabi.newpipe.extractor.stream.StreamType;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.With;
 
 /**
- * Chosen playback plan for one video.
+ * Immutable playback plan for one video; changes produce a new plan via the {@code with*} methods.
  */
-@Data
-@NoArgsConstructor
+@Value
+@With
+@AllArgsConstructor
 public class PlaybackPlan {
 	@NonNull
-	private PlaybackMode mode = PlaybackMode.NONE;
+	PlaybackMode mode;
 	@NonNull
-	private StreamType streamType = StreamType.VIDEO_STREAM;
+	StreamType streamType;
 	@Nullable
-	private Delivery delivery;
+	Delivery delivery;
 	@Nullable
-	private StreamCandidate videoCandidate;
+	StreamCandidate videoCandidate;
 	@Nullable
-	private StreamCandidate audioCandidate;
+	StreamCandidate audioCandidate;
 	@Nullable
-	private StreamCandidate muxedCandidate;
+	StreamCandidate muxedCandidate;
+
+	@NonNull
+	public static PlaybackPlan none(@NonNull StreamType streamType) {
+		return new PlaybackPlan(PlaybackMode.NONE, streamType, null, null, null, null);
+	}
 
 	@Nullable
 	public String getManifestUrl() {
@@ -33,8 +33,7 @@ public final class PlaybackPlanner {
 	public static PlaybackPlan plan(@NonNull DeliveryCatalog deliveries,
 	                                @Nullable String preferredQuality,
 	                                @Nullable String preferredAudioLanguage) {
-		PlaybackPlan plan = new PlaybackPlan();
-		plan.setStreamType(deliveries.getStreamType());
+		PlaybackPlan plan = PlaybackPlan.none(deliveries.getStreamType());
 
 		boolean live = deliveries.getStreamType() == StreamType.LIVE_STREAM
 						|| deliveries.getStreamType() == StreamType.AUDIO_LIVE_STREAM;
@@ -45,9 +44,7 @@ public final class PlaybackPlanner {
 			}
 			Delivery hls = deliveries.first(PlaybackMode.LIVE_HLS);
 			if (hls != null) {
-				plan.setMode(PlaybackMode.LIVE_HLS);
-				plan.setDelivery(hls);
-				return plan;
+				return plan.withMode(PlaybackMode.LIVE_HLS).withDelivery(hls);
 			}
 			return plan;
 		}
@@ -63,19 +60,18 @@ public final class PlaybackPlanner {
 		Delivery muxed = deliveries.first(PlaybackMode.MUXED);
 		if (muxed != null) {
 			VideoStream selected = PlayerUtils.selectVideoStream(muxed.muxedStreams(), preferredQuality);
-			plan.setMode(PlaybackMode.MUXED);
-			plan.setDelivery(muxed);
-			plan.setMuxedCandidate(findVideoCandidate(muxed.getMuxed(), selected));
-			return plan;
+			return plan.withMode(PlaybackMode.MUXED)
+							.withDelivery(muxed)
+							.withMuxedCandidate(findVideoCandidate(muxed.getMuxed(), selected));
 		}
 
 		Delivery audio = deliveries.first(PlaybackMode.AUDIO_ONLY);
 		if (audio != null) {
 			List<AudioStream> tracks = reorderAudioTracks(audio.audioStreams(), preferredAudioLanguage);
-			plan.setMode(PlaybackMode.AUDIO_ONLY);
-			plan.setDelivery(audio);
-			plan.setAudioCandidate(findAudioCandidate(audio.getAudio(),
-							PlayerUtils.selectAudioStream(tracks, null)));
+			return plan.withMode(PlaybackMode.AUDIO_ONLY)
+							.withDelivery(audio)
+							.withAudioCandidate(findAudioCandidate(audio.getAudio(),
+											PlayerUtils.selectAudioStream(tracks, null)));
 		}
 		return plan;
 	}
@@ -163,12 +159,14 @@ public final class PlaybackPlanner {
 	                                         @NonNull Delivery delivery,
 	                                         @Nullable String preferredQuality,
 	                                         @Nullable String preferredAudioLanguage) {
-		plan.setMode(delivery.getMode());
-		plan.setDelivery(delivery);
 		VideoStream video = PlayerUtils.selectVideoStream(delivery.videoStreams(), preferredQuality);
 		List<AudioStream> tracks = reorderAudioTracks(delivery.audioStreams(), preferredAudioLanguage);
-		plan.setVideoCandidate(findVideoCandidate(delivery.getVideo(), video));
-		plan.setAudioCandidate(findAudioCandidate(delivery.getAudio(), PlayerUtils.selectAudioStream(tracks, null)));
-		return plan;
+		return new PlaybackPlan(
+						delivery.getMode(),
+						plan.getStreamType(),
+						delivery,
+						findVideoCandidate(delivery.getVideo(), video),
+						findAudioCandidate(delivery.getAudio(), PlayerUtils.selectAudioStream(tracks, null)),
+						null);
 	}
 }
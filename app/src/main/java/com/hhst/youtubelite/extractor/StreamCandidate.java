@@ -7,32 +7,30 @@ import org.schabi.newpipe.extractor.stream.AudioStream;
 import org.schabi.newpipe.extractor.stream.SubtitlesStream;
 import org.schabi.newpipe.extractor.stream.VideoStream;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
- * Candidate stream wrapper with selection metadata.
+ * Immutable candidate stream wrapper with selection metadata.
  */
-@Data
-@NoArgsConstructor
+@Value
 public class StreamCandidate {
 	@NonNull
-	private StreamCandidateKind kind = StreamCandidateKind.MUXED;
+	StreamCandidateKind kind;
 	@NonNull
-	private StreamProtocol protocol = StreamProtocol.UNKNOWN;
+	StreamProtocol protocol;
 	@Nullable
-	private String sourceClient;
-	private boolean playerPoToken;
-	private boolean streamPoToken;
-	private boolean live;
+	String sourceClient;
+	boolean playerPoToken;
+	boolean streamPoToken;
+	boolean live;
 	@Nullable
-	private String url;
+	String url;
 	@Nullable
-	private VideoStream videoStream;
+	VideoStream videoStream;
 	@Nullable
-	private AudioStream audioStream;
+	AudioStream audioStream;
 	@Nullable
-	private SubtitlesStream subtitleStream;
+	SubtitlesStream subtitleStream;
 
 	@NonNull
 	public static StreamCandidate dashManifest(@NonNull String url,
@@ -101,18 +99,8 @@ public class StreamCandidate {
 	                                         @Nullable VideoStream videoStream,
 	                                         @Nullable AudioStream audioStream,
 	                                         @Nullable SubtitlesStream subtitleStream) {
-		StreamCandidate candidate = new StreamCandidate();
-		candidate.setKind(kind);
-		candidate.setProtocol(protocol);
-		candidate.setUrl(url);
-		candidate.setSourceClient(sourceClient);
-		candidate.setPlayerPoToken(playerPoToken);
-		candidate.setStreamPoToken(streamPoToken);
-		candidate.setLive(live);
-		candidate.setVideoStream(videoStream);
-		candidate.setAudioStream(audioStream);
-		candidate.setSubtitleStream(subtitleStream);
-		return candidate;
+		return new StreamCandidate(kind, protocol, sourceClient, playerPoToken, streamPoToken, live,
+						url, videoStream, audioStream, subtitleStream);
 	}
 
 	@NonNull
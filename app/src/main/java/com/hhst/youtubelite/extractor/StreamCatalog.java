@@ -13,27 +13,39 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
- * Catalog of available stream candidates.
+ * Immutable catalog of available stream candidates, safe to share between subscribers.
  */
-@Data
-@NoArgsConstructor
+@Value
 public class StreamCatalog {
 	@NonNull
-	private StreamType streamType = StreamType.VIDEO_STREAM;
+	StreamType streamType;
 	@NonNull
-	private List<StreamCandidate> manifestCandidates = new ArrayList<>();
+	List<StreamCandidate> manifestCandidates;
 	@NonNull
-	private List<StreamCandidate> videoCandidates = new ArrayList<>();
+	List<StreamCandidate> videoCandidates;
 	@NonNull
-	private List<StreamCandidate> audioCandidates = new ArrayList<>();
+	List<StreamCandidate> audioCandidates;
 	@NonNull
-	private List<StreamCandidate> muxedCandidates = new ArrayList<>();
+	List<StreamCandidate> muxedCandidates;
 	@NonNull
-	private List<StreamCandidate> subtitleCandidates = new ArrayList<>();
+	List<StreamCandidate> subtitleCandidates;
+
+	public StreamCatalog(@NonNull StreamType streamType,
+	                     @NonNull List<StreamCandidate> manifestCandidates,
+	                     @NonNull List<StreamCandidate> videoCandidates,
+	                     @NonNull List<StreamCandidate> audioCandidates,
+	                     @NonNull List<StreamCandidate> muxedCandidates,
+	                     @NonNull List<StreamCandidate> subtitleCandidates) {
+		this.streamType = streamType;
+		this.manifestCandidates = List.copyOf(manifestCandidates);
+		this.videoCandidates = List.copyOf(videoCandidates);
+		this.audioCandidates = List.copyOf(audioCandidates);
+		this.muxedCandidates = List.copyOf(muxedCandidates);
+		this.subtitleCandidates = List.copyOf(subtitleCandidates);
+	}
 
 	@NonNull
 	public List<VideoStream> getVideoStreams() {
@@ -2,27 +2,55 @@ package com.hhst.youtubelite.extractor;
 
 import java.util.Date;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.With;
 
 /**
- * Video metadata extracted from YouTube.
+ * Immutable video metadata extracted from YouTube.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@With
 public class VideoDetails {
-	private String id;
-	private String title;
-	private String author;
-	private String description;
-	private Long duration;
-	private String thumbnailUrl;
-	private long likeCount;
-	private long dislikeCount;
-	private Date uploadDate;
-	private String uploaderUrl;
-	private String uploaderAvatarUrl;
-	private long viewCount;
+	String id;
+	String title;
+	String author;
+	String description;
+	Long duration;
+	String thumbnailUrl;
+	long likeCount;
+	long dislikeCount;
+	Date uploadDate;
+	String uploaderUrl;
+	String uploaderAvatarUrl;
+	long viewCount;
+
+	public VideoDetails(String id,
+	                    String title,
+	                    String author,
+	                    String description,
+	                    Long duration,
+	                    String thumbnailUrl,
+	                    long likeCount,
+	                    long dislikeCount,
+	                    Date uploadDate,
+	                    String uploaderUrl,
+	                    String uploaderAvatarUrl,
+	                    long viewCount) {
+		this.id = id;
+		this.title = title;
+		this.author = author;
+		this.description = description;
+		this.duration = duration;
+		this.thumbnailUrl = thumbnailUrl;
+		this.likeCount = likeCount;
+		this.dislikeCount = dislikeCount;
+		this.uploadDate = uploadDate == null ? null : new Date(uploadDate.getTime());
+		this.uploaderUrl = uploaderUrl;
+		this.uploaderAvatarUrl = uploaderAvatarUrl;
+		this.viewCount = viewCount;
+	}
+
+	public Date getUploadDate() {
+		return uploadDate == null ? null : new Date(uploadDate.getTime());
+	}
 }
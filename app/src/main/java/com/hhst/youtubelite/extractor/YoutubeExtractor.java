@@ -3,7 +3,6 @@ package com.hhst.youtubelite.extractor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.google.gson.Gson;
 import com.hhst.youtubelite.extractor.potoken.LitePoTokenProvider;
 
 import org.schabi.newpipe.extractor.Image;
@@ -15,6 +14,7 @@ import org.schabi.newpipe.extractor.stream.AudioStream;
 import org.schabi.newpipe.extractor.stream.Description;
 import org.schabi.newpipe.extractor.stream.Stream;
 import org.schabi.newpipe.extractor.stream.StreamInfo;
+import org.schabi.newpipe.extractor.stream.StreamType;
 import org.schabi.newpipe.extractor.stream.SubtitlesStream;
 import org.schabi.newpipe.extractor.stream.VideoStream;
 
@@ -66,8 +66,6 @@ public final class YoutubeExtractor {
 	@NonNull
 	private final Executor executor;
 	@NonNull
-	private final Gson gson;
-	@NonNull
 	private final AuthContextFactory auth;
 	@NonNull
 	private final ConcurrentMap<String, Task> tasks = new ConcurrentHashMap<>();
@@ -78,8 +76,7 @@ public final class YoutubeExtractor {
 	                        @NonNull AuthContextFactory auth,
 	                        @NonNull SessionClientProfileProvider profiles,
 	                        @NonNull InfoCache cache,
-	                        @NonNull Executor executor,
-	                        @NonNull Gson gson) {
+	                        @NonNull Executor executor) {
 		this(
 						(videoId, session) -> downloader.withExtractionSession(
 										() -> extract(
@@ -93,7 +90,6 @@ public final class YoutubeExtractor {
 										session),
 						cache,
 						executor,
-						gson,
 						auth);
 		NewPipe.init(downloader);
 		YoutubeStreamExtractor.setPoTokenProvider(litePoTokenProvider);
@@ -104,13 +100,11 @@ public final class YoutubeExtractor {
 	                 @NonNull Fetch info,
 	                 @NonNull InfoCache cache,
 	                 @NonNull Executor executor,
-	                 @NonNull Gson gson,
 	                 @NonNull AuthContextFactory auth) {
 		this.play = play;
 		this.info = info;
 		this.cache = cache;
 		this.executor = executor;
-		this.gson = gson;
 		this.auth = auth;
 	}
 
@@ -132,15 +126,10 @@ public final class YoutubeExtractor {
 		return Objects.equals(first, second);
 	}
 
-	private static boolean isLive(@NonNull org.schabi.newpipe.extractor.stream.StreamType streamType) {
-		return streamType == org.schabi.newpipe.extractor.stream.StreamType.LIVE_STREAM
-						|| streamType == org.schabi.newpipe.extractor.stream.StreamType.AUDIO_LIVE_STREAM
-						|| streamType == org.schabi.newpipe.extractor.stream.StreamType.POST_LIVE_STREAM;
-	}
-
-	@Nullable
-	private static <T> List<T> copyList(@Nullable List<T> source) {
-		return source == null ? null : new ArrayList<>(source);
+	private static boolean isLive(@NonNull StreamType streamType) {
+		return streamType == StreamType.LIVE_STREAM
+						|| streamType == StreamType.AUDIO_LIVE_STREAM
+						|| streamType == StreamType.POST_LIVE_STREAM;
 	}
 
 	@NonNull
@@ -197,7 +186,7 @@ public final class YoutubeExtractor {
 
 		PlaybackDetails cached = cache.getPlaybackDetails(videoId);
 		if (cached != null) {
-			return copy(cached, PlaybackDetails.class);
+			return cached;
 		}
 
 		VideoDetails longVideo = cache.getVideoDetails(videoId);
@@ -214,12 +203,12 @@ public final class YoutubeExtractor {
 								catalog,
 								deliveries,
 								plan,
-								copyList(orEmpty(streamInfo.getStreamSegments())),
-								copyList(orEmpty(streamInfo.getSubtitles())));
+								orEmpty(streamInfo.getStreamSegments()),
+								orEmpty(streamInfo.getSubtitles()));
 				ensurePlayableSources(videoId, details.deliveries(), details.plan());
 				cache.putPlaybackDetails(videoId, details);
 				cache.putVideoDetails(videoId, details.video());
-				return copy(details, PlaybackDetails.class);
+				return details;
 			} catch (IOException | org.schabi.newpipe.extractor.exceptions.ExtractionException e) {
 				ensureNotCancelled(session);
 			}
@@ -253,29 +242,29 @@ public final class YoutubeExtractor {
 						catalog,
 						deliveries,
 						plan,
-						copyList(orEmpty(streamInfo.getStreamSegments())),
-						copyList(orEmpty(streamInfo.getSubtitles())));
+						orEmpty(streamInfo.getStreamSegments()),
+						orEmpty(streamInfo.getSubtitles()));
 		ensurePlayableSources(videoId, details.deliveries(), details.plan());
 		cache.putPlaybackDetails(videoId, details);
 		cache.putVideoDetails(videoId, details.video());
-		return copy(details, PlaybackDetails.class);
+		return details;
 	}
 
 	@NonNull
 	private VideoDetails mergeVideo(@NonNull VideoDetails cached,
 	                                @NonNull StreamInfo streamInfo) {
-		VideoDetails details = copy(cached, VideoDetails.class);
+		VideoDetails details = cached;
 		if (isBlank(details.getId())) {
-			details.setId(streamInfo.getId());
+			details = details.withId(streamInfo.getId());
 		}
 		if (isBlank(details.getTitle())) {
-			details.setTitle(streamInfo.getName());
+			details = details.withTitle(streamInfo.getName());
 		}
 		if (isBlank(details.getThumbnailUrl())) {
-			details.setThumbnailUrl(buildDefaultThumbnailUrl(streamInfo.getId()));
+			details = details.withThumbnailUrl(buildDefaultThumbnailUrl(streamInfo.getId()));
 		}
 		if (details.getDuration() == null || details.getDuration() < 0L) {
-			details.setDuration(Math.max(0L, streamInfo.getDuration()));
+			details = details.withDuration(Math.max(0L, streamInfo.getDuration()));
 		}
 		return details;
 	}
@@ -283,117 +272,92 @@ public final class YoutubeExtractor {
 	@NonNull
 	private StreamCatalog buildCatalog(@NonNull StreamInfo streamInfo,
 	                                   @Nullable YoutubeStreamExtractor youtube) {
-		StreamCatalog catalog = new StreamCatalog();
-		catalog.setStreamType(streamInfo.getStreamType());
 		boolean live = isLive(streamInfo.getStreamType());
+		List<StreamCandidate> manifests = new ArrayList<>();
+		List<StreamCandidate> videos = new ArrayList<>();
+		List<StreamCandidate> audios = new ArrayList<>();
+		List<StreamCandidate> muxed = new ArrayList<>();
+		List<StreamCandidate> subtitles = new ArrayList<>();
 
 		if (youtube != null) {
-			addManifestChoices(catalog, youtube.getDashManifestChoices(), true, live);
-			addManifestChoices(catalog, youtube.getHlsManifestChoices(), false, live);
-			addVideoChoices(catalog.getVideoCandidates(), youtube.getVideoOnlyStreamChoices(), false, live);
-			addAudioChoices(catalog.getAudioCandidates(), youtube.getAudioStreamChoices(), live);
-			addVideoChoices(catalog.getMuxedCandidates(), youtube.getMuxedStreamChoices(), true, live);
+			addManifestChoices(manifests, youtube.getDashManifestChoices(), true, live);
+			addManifestChoices(manifests, youtube.getHlsManifestChoices(), false, live);
+			addVideoChoices(videos, youtube.getVideoOnlyStreamChoices(), false, live);
+			addAudioChoices(audios, youtube.getAudioStreamChoices(), live);
+			addVideoChoices(muxed, youtube.getMuxedStreamChoices(), true, live);
 		}
 
-		if (catalog.getManifestCandidates().isEmpty()) {
-			addFallbackManifests(catalog, streamInfo, live);
+		if (manifests.isEmpty()) {
+			addFallbackManifests(manifests, streamInfo, live);
 		}
-		if (catalog.getVideoCandidates().isEmpty()) {
+		if (videos.isEmpty()) {
 			for (VideoStream stream : normalizeVideoStreams(filterPlayableStreams(streamInfo.getVideoOnlyStreams()))) {
-				catalog.getVideoCandidates().add(StreamCandidate.videoOnly(stream, null, false, false, live));
+				videos.add(StreamCandidate.videoOnly(stream, null, false, false, live));
 			}
 		}
-		if (catalog.getAudioCandidates().isEmpty()) {
+		if (audios.isEmpty()) {
 			for (AudioStream stream : normalizeAudioStreams(filterPlayableAudioStreams(streamInfo.getAudioStreams()))) {
-				catalog.getAudioCandidates().add(StreamCandidate.audioOnly(stream, null, false, false, live));
+				audios.add(StreamCandidate.audioOnly(stream, null, false, false, live));
 			}
 		}
-		if (catalog.getMuxedCandidates().isEmpty()) {
+		if (muxed.isEmpty()) {
 			for (VideoStream stream : normalizeVideoStreams(filterPlayableStreams(streamInfo.getVideoStreams()))) {
-				catalog.getMuxedCandidates().add(StreamCandidate.muxed(stream, null, false, false, live));
+				muxed.add(StreamCandidate.muxed(stream, null, false, false, live));
 			}
 		}
 		for (SubtitlesStream stream : orEmpty(streamInfo.getSubtitles())) {
 			if (isPlayableUrl(stream.getContent())) {
-				catalog.getSubtitleCandidates().add(StreamCandidate.subtitle(stream));
+				subtitles.add(StreamCandidate.subtitle(stream));
 			}
 		}
-		return catalog;
+		return new StreamCatalog(streamInfo.getStreamType(), manifests, videos, audios, muxed, subtitles);
 	}
 
 	@NonNull
 	private DeliveryCatalog buildDeliveries(@NonNull StreamCatalog catalog) {
-		DeliveryCatalog deliveries = new DeliveryCatalog();
-		deliveries.setStreamType(catalog.getStreamType());
-		boolean live = isLive(catalog.getStreamType());
-		if (live) {
+		StreamType type = catalog.getStreamType();
+		List<Delivery> items = new ArrayList<>();
+		List<StreamCandidate> none = Collections.emptyList();
+		if (isLive(type)) {
 			StreamCandidate dash = catalog.firstDashManifest();
 			if (dash != null) {
-				Delivery delivery = new Delivery();
-				delivery.setMode(PlaybackMode.LIVE_DASH);
-				delivery.setStreamType(catalog.getStreamType());
-				delivery.setManifest(dash);
-				delivery.setVideo(copyList(catalog.getVideoCandidates()));
-				delivery.setAudio(copyList(catalog.getAudioCandidates()));
-				delivery.setAbr(true);
-				delivery.setTrackLock(false);
-				delivery.setCache(false);
-				deliveries.getItems().add(delivery);
+				items.add(new Delivery(PlaybackMode.LIVE_DASH, type, dash,
+								catalog.getVideoCandidates(), catalog.getAudioCandidates(), none,
+								true, false, false));
 			}
 			StreamCandidate hls = catalog.firstHlsManifest();
 			if (hls != null) {
-				Delivery delivery = new Delivery();
-				delivery.setMode(PlaybackMode.LIVE_HLS);
-				delivery.setStreamType(catalog.getStreamType());
-				delivery.setManifest(hls);
-				delivery.setAbr(false);
-				delivery.setTrackLock(false);
-				delivery.setCache(false);
-				deliveries.getItems().add(delivery);
+				items.add(new Delivery(PlaybackMode.LIVE_HLS, type, hls,
+								none, none, none,
+								false, false, false));
 			}
-			return deliveries;
+			return new DeliveryCatalog(type, items);
 		}
 		if (!catalog.getVideoCandidates().isEmpty() && !catalog.getAudioCandidates().isEmpty()) {
-			Delivery delivery = new Delivery();
-			delivery.setMode(PlaybackMode.ADAPTIVE);
-			delivery.setStreamType(catalog.getStreamType());
-			delivery.setVideo(copyList(catalog.getVideoCandidates()));
-			delivery.setAudio(copyList(catalog.getAudioCandidates()));
-			delivery.setAbr(false);
-			delivery.setTrackLock(false);
-			delivery.setCache(true);
-			deliveries.getItems().add(delivery);
+			items.add(new Delivery(PlaybackMode.ADAPTIVE, type, null,
+							catalog.getVideoCandidates(), catalog.getAudioCandidates(), none,
+							false, false, true));
 		}
 		if (!catalog.getMuxedCandidates().isEmpty()) {
-			Delivery delivery = new Delivery();
-			delivery.setMode(PlaybackMode.MUXED);
-			delivery.setStreamType(catalog.getStreamType());
-			delivery.setMuxed(copyList(catalog.getMuxedCandidates()));
-			delivery.setAbr(false);
-			delivery.setTrackLock(false);
-			delivery.setCache(true);
-			deliveries.getItems().add(delivery);
-		}
-		if (deliveries.getItems().isEmpty() && !catalog.getAudioCandidates().isEmpty()) {
-			Delivery delivery = new Delivery();
-			delivery.setMode(PlaybackMode.AUDIO_ONLY);
-			delivery.setStreamType(catalog.getStreamType());
-			delivery.setAudio(copyList(catalog.getAudioCandidates()));
-			delivery.setAbr(false);
-			delivery.setTrackLock(false);
-			delivery.setCache(true);
-			deliveries.getItems().add(delivery);
-		}
-		return deliveries;
-	}
-
-	private void addFallbackManifests(@NonNull StreamCatalog catalog,
+			items.add(new Delivery(PlaybackMode.MUXED, type, null,
+							none, none, catalog.getMuxedCandidates(),
+							false, false, true));
+		}
+		if (items.isEmpty() && !catalog.getAudioCandidates().isEmpty()) {
+			items.add(new Delivery(PlaybackMode.AUDIO_ONLY, type, null,
+							none, catalog.getAudioCandidates(), none,
+							false, false, true));
+		}
+		return new DeliveryCatalog(type, items);
+	}
+
+	private void addFallbackManifests(@NonNull List<StreamCandidate> out,
 	                                  @NonNull StreamInfo streamInfo,
 	                                  boolean live) {
 		String dash = sanitizePlaybackUrl(streamInfo.getDashMpdUrl());
 		String hls = sanitizePlaybackUrl(streamInfo.getHlsUrl());
 		if (dash != null) {
-			catalog.getManifestCandidates().add(StreamCandidate.dashManifest(
+			out.add(StreamCandidate.dashManifest(
 							dash,
 							null,
 							false,
@@ -401,7 +365,7 @@ public final class YoutubeExtractor {
 							live));
 		}
 		if (hls != null) {
-			catalog.getManifestCandidates().add(StreamCandidate.hlsManifest(
+			out.add(StreamCandidate.hlsManifest(
 							hls,
 							null,
 							false,
@@ -410,7 +374,7 @@ public final class YoutubeExtractor {
 		}
 	}
 
-	private void addManifestChoices(@NonNull StreamCatalog catalog,
+	private void addManifestChoices(@NonNull List<StreamCandidate> out,
 	                                @NonNull List<YoutubeStreamExtractor.ManifestChoice> choices,
 	                                boolean dash,
 	                                boolean live) {
@@ -432,7 +396,7 @@ public final class YoutubeExtractor {
 							choice.hasPlayerPoToken(),
 							choice.hasStreamPoToken(),
 							live);
-			addUnique(catalog.getManifestCandidates(), candidate);
+			addUnique(out, candidate);
 		}
 	}
 
@@ -680,13 +644,6 @@ public final class YoutubeExtractor {
 		return value == null || value.isBlank();
 	}
 
-	@NonNull
-	private <T> T copy(@NonNull T value,
-	                   @NonNull Class<T> type) {
-		T copy = gson.fromJson(gson.toJson(value), type);
-		return copy != null ? copy : value;
-	}
-
 /**
  * Download task description used by the download engine.
  */
@@ -730,7 +687,7 @@ public final class YoutubeExtractor {
 			}
 			base.whenComplete((value, error) -> {
 				if (error == null) {
-					future.complete(copy(value, PlaybackDetails.class));
+					future.complete(value);
 					return;
 				}
 				Throwable cause = error;
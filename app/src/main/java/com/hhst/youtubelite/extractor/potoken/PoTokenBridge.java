@@ -13,6 +13,7 @@ import javax.inject.Singleton;
 
 /**
  * Bridge between the WebView and PoToken extraction flow.
+ * Replies are matched to callers by request id, so any number of requests can be in flight at once.
  */
 @Singleton
 public final class PoTokenBridge {
@@ -36,6 +37,16 @@ public final class PoTokenBridge {
 		return future;
 	}
 
+	/**
+	 * Drops a request the caller stopped waiting for so a late reply is ignored.
+	 */
+	public void discard(@NonNull String requestId) {
+		CompletableFuture<String> future = pendingRequests.remove(requestId);
+		if (future != null) {
+			future.cancel(true);
+		}
+	}
+
 	@JavascriptInterface
 	public void onSuccess(@NonNull String requestId, @NonNull String value) {
 		CompletableFuture<String> future = pendingRequests.remove(requestId);
@@ -0,0 +1,195 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.hhst.youtubelite.extractor.AuthContext;
+import com.tencent.mmkv.MMKV;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Persistent cache of minted PoTokens in a dedicated MMKV instance.
+ * Each entry records when it expires and what it is bound to: the session token is bound to the visitorData or
+ * dataSyncId it was minted for, and content tokens additionally to their video id. Content tokens minted for an
+ * older session binding are orphans and are evicted in bulk together with expired entries.
+ */
+@Singleton
+public final class PoTokenCache {
+	static final String ID = "potoken_cache";
+	private static final String SESSION_KEY = ".session";
+	private static final String VIDEO_KEY = ".video.";
+
+	@NonNull
+	private final Store store;
+	@NonNull
+	private final Gson gson;
+
+	@Inject
+	public PoTokenCache(@NonNull Gson gson) {
+		this(new MmkvStore(MMKV.mmkvWithID(ID)), gson);
+	}
+
+	PoTokenCache(@NonNull Store store, @NonNull Gson gson) {
+		this.store = Objects.requireNonNull(store);
+		this.gson = Objects.requireNonNull(gson);
+	}
+
+	/**
+	 * Returns the unexpired session-bound token of {@code client} when it is bound to {@code auth}.
+	 */
+	@Nullable
+	public Entry getSessionToken(@NonNull String client, @Nullable AuthContext auth, final long nowMs) {
+		Entry entry = decode(store.get(client + SESSION_KEY));
+		return entry != null && entry.visitorData() != null && !entry.isExpired(nowMs) && entry.isBoundTo(auth)
+						? entry : null;
+	}
+
+	/**
+	 * Returns the unexpired token minted for {@code videoId} under the same binding as {@code session}.
+	 */
+	@Nullable
+	public Entry getContentToken(@NonNull String client,
+	                             @NonNull Entry session,
+	                             @NonNull String videoId,
+	                             final long nowMs) {
+		Entry entry = decode(store.get(client + VIDEO_KEY + videoId));
+		return entry != null && !entry.isExpired(nowMs) && entry.sharesBinding(session) && videoId.equals(entry.videoId())
+						? entry : null;
+	}
+
+	/**
+	 * Stores a session token and evicts what it makes stale.
+	 */
+	public void putSessionToken(@NonNull String client, @NonNull Entry entry, final long nowMs) {
+		store.put(client + SESSION_KEY, gson.toJson(entry));
+		evict(nowMs);
+	}
+
+	public void putContentToken(@NonNull String client, @NonNull Entry entry) {
+		if (entry.videoId() == null) return;
+		store.put(client + VIDEO_KEY + entry.videoId(), gson.toJson(entry));
+	}
+
+	/**
+	 * Removes expired and unreadable entries, and content tokens whose session token is gone or rebound, in one
+	 * batch; returns how many were removed.
+	 */
+	public int evict(final long nowMs) {
+		Map<String, Entry> sessions = new HashMap<>();
+		Map<String, Entry> contents = new HashMap<>();
+		List<String> stale = new ArrayList<>();
+		for (String key : store.keys()) {
+			Entry entry = decode(store.get(key));
+			if (entry == null || entry.isExpired(nowMs)) {
+				stale.add(key);
+			} else if (key.endsWith(SESSION_KEY)) {
+				sessions.put(key.substring(0, key.length() - SESSION_KEY.length()), entry);
+			} else {
+				contents.put(key, entry);
+			}
+		}
+		for (Map.Entry<String, Entry> content : contents.entrySet()) {
+			int split = content.getKey().indexOf(VIDEO_KEY);
+			Entry session = split > 0 ? sessions.get(content.getKey().substring(0, split)) : null;
+			if (session == null || !content.getValue().sharesBinding(session)) stale.add(content.getKey());
+		}
+		if (!stale.isEmpty()) store.removeAll(stale);
+		return stale.size();
+	}
+
+	@Nullable
+	private Entry decode(@Nullable String json) {
+		if (json == null) return null;
+		try {
+			Entry entry = gson.fromJson(json, Entry.class);
+			return entry != null && entry.token() != null ? entry : null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+/**
+ * Value object for one cached token and the identity it was minted for.
+ */
+	public record Entry(@NonNull String token,
+	                    @Nullable String visitorData,
+	                    @Nullable String dataSyncId,
+	                    @Nullable String videoId,
+	                    long expiresAtMs) {
+
+		boolean isExpired(final long nowMs) {
+			return nowMs >= expiresAtMs;
+		}
+
+		/**
+		 * Logged-in sessions are bound by dataSyncId, anonymous ones by visitorData when the caller knows it.
+		 */
+		boolean isBoundTo(@Nullable AuthContext auth) {
+			String authDataSyncId = auth != null ? auth.dataSyncId() : null;
+			if (!Objects.equals(dataSyncId, authDataSyncId)) return false;
+			String authVisitorData = auth != null ? auth.visitorData() : null;
+			return authVisitorData == null || authVisitorData.equals(visitorData);
+		}
+
+		boolean sharesBinding(@NonNull Entry other) {
+			return Objects.equals(visitorData, other.visitorData) && Objects.equals(dataSyncId, other.dataSyncId);
+		}
+	}
+
+/**
+ * Contract for string storage keyed by client and binding.
+ */
+	interface Store {
+		@Nullable
+		String get(@NonNull String key);
+
+		void put(@NonNull String key, @NonNull String value);
+
+		void removeAll(@NonNull List<String> keys);
+
+		@NonNull
+		List<String> keys();
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record MmkvStore(@NonNull MMKV kv) implements Store {
+		private MmkvStore {
+			Objects.requireNonNull(kv);
+		}
+
+		@Override
+		@Nullable
+		public String get(@NonNull String key) {
+			return kv.decodeString(key, null);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull String value) {
+			kv.encode(key, value);
+		}
+
+		@Override
+		public void removeAll(@NonNull List<String> keys) {
+			kv.removeValuesForKeys(keys.toArray(new String[0]));
+		}
+
+		@Override
+		@NonNull
+		public List<String> keys() {
+			String[] keys = kv.allKeys();
+			return keys == null ? List.of() : Arrays.asList(keys);
+		}
+	}
+}
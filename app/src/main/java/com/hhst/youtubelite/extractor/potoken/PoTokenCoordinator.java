@@ -24,10 +24,14 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -36,32 +40,46 @@ import okhttp3.Response;
 
 /**
  * Loads and mints Web client PoTokens.
+ * Only session setup is exclusive; mints run concurrently and are matched to their callers by request id
+ * through {@link PoTokenBridge}, and the session keeps the fetched visitorData for {@link #VISITOR_DATA_TTL_MS}.
+ * Minted tokens go to {@link PoTokenCache}: the session-bound streaming token is reused across videos, content
+ * tokens are reused per video, and both outlive the process. A cold start skips the host only for a video whose
+ * content token is cached; the player request is never given a token bound to another identifier.
  */
 @Singleton
 public final class PoTokenCoordinator {
 	private static final String REQUEST_KEY = "O43z0dpjhgX20SCx4KAo";
 	private static final String KEY_PREFIX = "potoken.";
+	private static final String WEB_CLIENT = "web";
 	private static final long INIT_TIMEOUT_MS = 4_000L;
 	private static final long MINT_TIMEOUT_MS = 2_000L;
+	static final long VISITOR_DATA_TTL_MS = TimeUnit.MINUTES.toMillis(30L);
 
 	@NonNull
 	private final Gson gson;
 	@NonNull
 	private final PoTokenBridge poTokenBridge;
 	@NonNull
-	private final PoTokenHost poTokenHost;
+	private final ScriptHost poTokenHost;
 	@NonNull
 	private final ExtractionSessionScope scope;
 	@NonNull
-	private final OkHttpClient okHttpClient;
+	private final Call.Factory okHttpClient;
 	@NonNull
 	private final MMKV kv;
 	@NonNull
-	private final Object lock = new Object();
+	private final PoTokenCache tokenCache;
+	@NonNull
+	private final Function<AuthContext, String> visitorDataFetcher;
+	@NonNull
+	private final LongSupplier clock;
+	@NonNull
+	private final Object sessionLock = new Object();
+	@NonNull
+	private final AtomicLong requestCounter = new AtomicLong();
 
 	@Nullable
-	private PoTokenSession session;
-	private long requestCounter;
+	private volatile PoTokenSession session;
 
 	@Inject
 	public PoTokenCoordinator(@NonNull Gson gson,
@@ -69,13 +87,30 @@ public final class PoTokenCoordinator {
 	                          @NonNull PoTokenHost poTokenHost,
 	                          @NonNull ExtractionSessionScope scope,
 	                          @NonNull OkHttpClient okHttpClient,
-	                          @NonNull MMKV kv) {
+	                          @NonNull MMKV kv,
+	                          @NonNull PoTokenCache tokenCache) {
+		this(gson, poTokenBridge, poTokenHost, scope, okHttpClient, kv, tokenCache,
+						PoTokenCoordinator::fetchVisitorDataFromInnertube, System::currentTimeMillis);
+	}
+
+	PoTokenCoordinator(@NonNull Gson gson,
+	                   @NonNull PoTokenBridge poTokenBridge,
+	                   @NonNull ScriptHost poTokenHost,
+	                   @NonNull ExtractionSessionScope scope,
+	                   @NonNull Call.Factory okHttpClient,
+	                   @NonNull MMKV kv,
+	                   @NonNull PoTokenCache tokenCache,
+	                   @NonNull Function<AuthContext, String> visitorDataFetcher,
+	                   @NonNull LongSupplier clock) {
 		this.gson = gson;
 		this.poTokenBridge = poTokenBridge;
 		this.poTokenHost = poTokenHost;
 		this.scope = scope;
 		this.okHttpClient = okHttpClient;
 		this.kv = kv;
+		this.tokenCache = tokenCache;
+		this.visitorDataFetcher = visitorDataFetcher;
+		this.clock = clock;
 	}
 
 	@Nullable
@@ -83,46 +118,78 @@ public final class PoTokenCoordinator {
 		if (Looper.myLooper() == Looper.getMainLooper()) {
 			return null;
 		}
-		synchronized (lock) {
-			// Reuse the active session when it is still valid for this host generation.
-			poTokenHost.prewarm();
-			if (!poTokenHost.awaitReady(4_000L)) {
-				session = null;
-				return null;
-			}
-			long hostGeneration = poTokenHost.getGeneration();
-			long nowMs = System.currentTimeMillis();
-			PoTokenSession active = session;
-			if (active == null || !active.matches(hostGeneration) || active.isExpired(nowMs)) {
-				active = initializeSession(hostGeneration);
-				session = active;
-			}
-			if (active == null) {
-				return null;
-			}
+		return mintWebClientPoToken(videoId);
+	}
 
-			String visitorData = fetchVisitorData();
-			if (visitorData == null) {
-				return null;
+	@Nullable
+	PoTokenResult mintWebClientPoToken(@NonNull String videoId) {
+		AuthContext auth = getAuth();
+		long nowMs = clock.getAsLong();
+		PoTokenCache.Entry cached = tokenCache.getSessionToken(WEB_CLIENT, auth, nowMs);
+		if (cached != null) {
+			PoTokenCache.Entry content = tokenCache.getContentToken(WEB_CLIENT, cached, videoId, nowMs);
+			if (content != null) {
+				return result(cached, content.token());
 			}
+		}
 
-			String playerPoToken = mintPoToken(hostGeneration, videoId);
-			if (playerPoToken == null) {
-				active = initializeSession(hostGeneration);
-				session = active;
-				if (active == null) {
-					return null;
-				}
-				playerPoToken = mintPoToken(hostGeneration, videoId);
-			}
-			if (playerPoToken == null) {
+		// The player token is bound to this videoId, so it has to come from the host.
+		poTokenHost.prewarm();
+		if (!poTokenHost.awaitReady(INIT_TIMEOUT_MS)) {
+			session = null;
+			return null;
+		}
+		long hostGeneration = poTokenHost.getGeneration();
+		PoTokenSession active = acquireSession(hostGeneration, null);
+		if (active == null) {
+			return null;
+		}
+
+		String visitorData = cached != null ? cached.visitorData() : visitorData(active);
+		if (visitorData == null) {
+			return null;
+		}
+		String dataSyncId = auth != null ? auth.dataSyncId() : null;
+
+		String playerPoToken = mintWithRetry(hostGeneration, active, videoId);
+		if (playerPoToken == null) {
+			return null;
+		}
+		if (cached == null) {
+			String streamingPoToken = mintWithRetry(hostGeneration, active, dataSyncId != null ? dataSyncId : visitorData);
+			if (streamingPoToken == null) {
 				return null;
 			}
-			return new PoTokenResult(
-							visitorData,
-							playerPoToken,
-							playerPoToken);
+			cached = new PoTokenCache.Entry(streamingPoToken, visitorData, dataSyncId, null, active.getExpiresAtMs());
+			tokenCache.putSessionToken(WEB_CLIENT, cached, nowMs);
+		}
+		tokenCache.putContentToken(WEB_CLIENT,
+						new PoTokenCache.Entry(playerPoToken, visitorData, dataSyncId, videoId, active.getExpiresAtMs()));
+		return result(cached, playerPoToken);
+	}
+
+	@Nullable
+	private String mintWithRetry(final long hostGeneration,
+	                             @NonNull PoTokenSession active,
+	                             @NonNull String identifier) {
+		String poToken = mintPoToken(hostGeneration, identifier);
+		if (poToken != null) {
+			return poToken;
+		}
+		// Callers that failed on the same session share one re-initialization.
+		if (acquireSession(hostGeneration, active) == null) {
+			return null;
 		}
+		return mintPoToken(hostGeneration, identifier);
+	}
+
+	@NonNull
+	private static PoTokenResult result(@NonNull PoTokenCache.Entry sessionToken,
+	                                    @NonNull String playerPoToken) {
+		return new PoTokenResult(
+						sessionToken.visitorData(),
+						playerPoToken,
+						sessionToken.token());
 	}
 
 	@Nullable
@@ -145,7 +212,7 @@ public final class PoTokenCoordinator {
 		String visitor = read(client, videoId, "visitor");
 		String gvs = read(client, videoId, "gvs");
 		return new PoTokenResult(
-						visitor != null ? visitor : fetchVisitorData(),
+						visitor != null ? visitor : visitorData(session),
 						player,
 						gvs != null ? gvs : player);
 	}
@@ -165,6 +232,34 @@ public final class PoTokenCoordinator {
 		return trimmed.isEmpty() ? null : trimmed;
 	}
 
+	/**
+	 * Returns the session for {@code hostGeneration}, initializing it at most once across concurrent callers.
+	 * A non-null {@code failed} session is replaced even if it has not expired yet.
+	 */
+	@Nullable
+	private PoTokenSession acquireSession(final long hostGeneration,
+	                                      @Nullable PoTokenSession failed) {
+		PoTokenSession active = session;
+		if (isUsable(active, hostGeneration, failed)) {
+			return active;
+		}
+		synchronized (sessionLock) {
+			active = session;
+			if (isUsable(active, hostGeneration, failed)) {
+				return active;
+			}
+			active = initializeSession(hostGeneration);
+			session = active;
+			return active;
+		}
+	}
+
+	private boolean isUsable(@Nullable PoTokenSession active,
+	                         final long hostGeneration,
+	                         @Nullable PoTokenSession failed) {
+		return active != null && active != failed && active.matches(hostGeneration) && !active.isExpired(clock.getAsLong());
+	}
+
 	@Nullable
 	private PoTokenSession initializeSession(long hostGeneration) {
 		// Build and verify the session in order.
@@ -205,7 +300,7 @@ public final class PoTokenCoordinator {
 			return null;
 		}
 
-		long expiresAtMs = System.currentTimeMillis()
+		long expiresAtMs = clock.getAsLong()
 						+ Math.max(0L, TimeUnit.SECONDS.toMillis(generateItResult.expirationSeconds) - TimeUnit.MINUTES.toMillis(10L));
 		return new PoTokenSession(hostGeneration, expiresAtMs);
 	}
@@ -219,12 +314,38 @@ public final class PoTokenCoordinator {
 		return Objects.equals(result, "ok") && isSameGeneration(hostGeneration);
 	}
 
+	/**
+	 * Prefers the extraction session's visitorData, then the copy cached on {@code active}, and only then
+	 * asks innertube; the fetched value is cached on {@code active} so concurrent callers share one request.
+	 */
 	@Nullable
-	private String fetchVisitorData() {
+	private String visitorData(@Nullable PoTokenSession active) {
 		AuthContext auth = getAuth();
 		if (auth != null && auth.visitorData() != null) {
 			return auth.visitorData();
 		}
+		if (active == null) {
+			return visitorDataFetcher.apply(auth);
+		}
+		String cached = active.getVisitorData(clock.getAsLong());
+		if (cached != null) {
+			return cached;
+		}
+		synchronized (active) {
+			cached = active.getVisitorData(clock.getAsLong());
+			if (cached != null) {
+				return cached;
+			}
+			String fetched = visitorDataFetcher.apply(auth);
+			if (fetched != null) {
+				active.setVisitorData(fetched, clock.getAsLong() + VISITOR_DATA_TTL_MS);
+			}
+			return fetched;
+		}
+	}
+
+	@Nullable
+	private static String fetchVisitorDataFromInnertube(@Nullable AuthContext auth) {
 		if (auth != null && auth.clientVersion() != null) {
 			return fetchVisitorDataFromInnertube(auth.clientVersion());
 		}
@@ -236,7 +357,7 @@ public final class PoTokenCoordinator {
 	}
 
 	@Nullable
-	private String fetchVisitorDataFromInnertube(@NonNull String clientVersion) {
+	private static String fetchVisitorDataFromInnertube(@NonNull String clientVersion) {
 		try {
 			InnertubeClientRequestInfo requestInfo = InnertubeClientRequestInfo.ofWebClient();
 			requestInfo.clientInfo.clientVersion = clientVersion;
@@ -271,8 +392,11 @@ public final class PoTokenCoordinator {
 										+ gson.toJson(requestId)
 										+ ");return 'queued';}catch(error){return 'error:' + (error && error.stack ? error.stack : error);}})();",
 						INIT_TIMEOUT_MS);
-		if (!Objects.equals(evaluateResult, "queued")) return null;
-		return awaitBridgeResult(future, hostGeneration, INIT_TIMEOUT_MS);
+		if (!Objects.equals(evaluateResult, "queued")) {
+			poTokenBridge.discard(requestId);
+			return null;
+		}
+		return awaitBridgeResult(requestId, future, hostGeneration, INIT_TIMEOUT_MS);
 	}
 
 	private boolean setIntegrityToken(long hostGeneration,
@@ -298,22 +422,27 @@ public final class PoTokenCoordinator {
 										+ gson.toJson(requestId)
 										+ ");return 'queued';}catch(error){return 'error:' + (error && error.stack ? error.stack : error);}})();",
 						MINT_TIMEOUT_MS);
-		if (!Objects.equals(evaluateResult, "queued")) return null;
-		return awaitBridgeResult(future, hostGeneration, MINT_TIMEOUT_MS);
+		if (!Objects.equals(evaluateResult, "queued")) {
+			poTokenBridge.discard(requestId);
+			return null;
+		}
+		return awaitBridgeResult(requestId, future, hostGeneration, MINT_TIMEOUT_MS);
 	}
 
 	@Nullable
-	private String awaitBridgeResult(@NonNull CompletableFuture<String> future,
+	private String awaitBridgeResult(@NonNull String requestId,
+	                                 @NonNull CompletableFuture<String> future,
 	                                 final long hostGeneration,
 	                                 final long timeoutMs) {
 		try {
 			String result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
 			return isSameGeneration(hostGeneration) ? result : null;
 		} catch (InterruptedException e) {
+			poTokenBridge.discard(requestId);
 			Thread.currentThread().interrupt();
 			return null;
 		} catch (ExecutionException | TimeoutException e) {
-			future.cancel(true);
+			poTokenBridge.discard(requestId);
 			return null;
 		}
 	}
@@ -355,8 +484,25 @@ public final class PoTokenCoordinator {
 
 	@NonNull
 	private String nextRequestId(@NonNull String prefix) {
-		requestCounter += 1L;
-		return prefix + "-" + requestCounter;
+		return prefix + "-" + requestCounter.incrementAndGet();
+	}
+
+/**
+ * Contract for the WebView that runs the PoToken script.
+ */
+	interface ScriptHost {
+		void prewarm();
+
+		boolean awaitReady(long timeoutMs);
+
+		long getGeneration();
+
+		boolean isCurrentGeneration(long expectedGeneration);
+
+		boolean isReady();
+
+		@Nullable
+		String evaluateJavascript(long expectedGeneration, @NonNull String script, long timeoutMs);
 	}
 
 /**
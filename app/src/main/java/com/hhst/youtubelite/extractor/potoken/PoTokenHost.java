@@ -1,10 +1,14 @@
 package com.hhst.youtubelite.extractor.potoken;
 
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
 import android.webkit.WebResourceRequest;
 import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
@@ -23,6 +27,8 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -33,15 +39,26 @@ import dagger.hilt.android.qualifiers.ApplicationContext;
 
 /**
  * Host that manages PoToken warm-up and handoff.
+ * The WebView itself must be created on the main thread, so the script asset is read on a background thread
+ * first and the main-thread part is scheduled for a quiet moment via {@link #schedulePrewarm(WarmUpPoint)}.
+ * Phase timings are exposed through {@link #metrics()}, and the WebView is destroyed on memory trim and
+ * rebuilt under a new generation when next needed. Load state lives in {@link PoTokenHostState}; the WebView is
+ * built outside its monitor so extraction threads checking readiness never wait on WebView construction.
  */
 @Singleton
-public final class PoTokenHost {
+public final class PoTokenHost implements PoTokenCoordinator.ScriptHost, ComponentCallbacks2 {
+	private static final String TAG = "PoTokenHost";
 	private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) "
 					+ "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36";
 	private static final String HOST_HTML_PREFIX =
 					"<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\"><script>";
 	private static final String HOST_HTML_SUFFIX =
 					"</script></head><body></body></html>";
+	private static final ExecutorService ASSET_LOADER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "potoken-host");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	@NonNull
 	private final Context appContext;
@@ -50,15 +67,12 @@ public final class PoTokenHost {
 	@NonNull
 	private final Handler handler = new Handler(Looper.getMainLooper());
 	@NonNull
-	private final Object lock = new Object();
+	private final PoTokenHostState<WebView> state = new PoTokenHostState<>(SystemClock::uptimeMillis);
+	@NonNull
+	private final Object htmlLock = new Object();
 
 	@Nullable
-	private WebView webView;
-	private boolean ready;
-	private boolean loading;
-	private long generation;
-	@Nullable
-	private String hostHtml;
+	private volatile String hostHtml;
 
 	@Inject
 	public PoTokenHost(@ApplicationContext @NonNull Context appContext,
@@ -67,68 +81,119 @@ public final class PoTokenHost {
 		this.poTokenBridge = poTokenBridge;
 	}
 
+	/**
+	 * Starts loading the host unless it is ready or loading; safe to call from any thread.
+	 */
+	@Override
 	public void prewarm() {
-		if (Looper.myLooper() == Looper.getMainLooper()) {
+		if (!state.requestWarmUp()) {
+			return;
+		}
+		boolean mainThread = Looper.myLooper() == Looper.getMainLooper();
+		if (hostHtml == null && mainThread) {
+			ASSET_LOADER.execute(() -> {
+				getHostHtml();
+				handler.post(this::ensureLoadedOnMainThread);
+			});
+			return;
+		}
+		if (mainThread) {
 			ensureLoadedOnMainThread();
 			return;
 		}
+		getHostHtml();
 		handler.post(this::ensureLoadedOnMainThread);
 	}
 
-	public boolean isReady() {
-		synchronized (lock) {
-			return ready && webView != null;
+	/**
+	 * Defers {@link #prewarm()} to {@code point} so creating the WebView does not compete with the first frames.
+	 * An extraction that needs the host earlier still starts it immediately.
+	 */
+	public void schedulePrewarm(@NonNull WarmUpPoint point) {
+		handler.post(() -> {
+			if (point == WarmUpPoint.FIRST_FRAME) {
+				Choreographer.getInstance().postFrameCallback(frameTimeNanos -> handler.post(this::prewarm));
+			} else {
+				Looper.myQueue().addIdleHandler(() -> {
+					prewarm();
+					return false;
+				});
+			}
+		});
+	}
+
+	@NonNull
+	public Metrics metrics() {
+		return state.metrics();
+	}
+
+	/**
+	 * Destroys the WebView; the next {@link #prewarm()} builds a fresh one under a new generation.
+	 */
+	public void recycle() {
+		if (Looper.myLooper() != Looper.getMainLooper()) {
+			handler.post(this::recycle);
+			return;
+		}
+		WebView view = state.recycle();
+		if (view == null) {
+			return;
 		}
+		view.removeJavascriptInterface(PoTokenBridge.JS_INTERFACE);
+		view.destroy();
 	}
 
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+			recycle();
+		}
+	}
+
+	@Override
+	public void onConfigurationChanged(@NonNull Configuration newConfig) {
+	}
+
+	@Override
+	public void onLowMemory() {
+		recycle();
+	}
+
+	@Override
+	public boolean isReady() {
+		return state.isReady();
+	}
+
+	@Override
 	public boolean awaitReady(long timeoutMs) {
 		prewarm();
 		if (Looper.myLooper() == Looper.getMainLooper()) {
 			return isReady();
 		}
-		long deadline = SystemClock.uptimeMillis() + timeoutMs;
-		synchronized (lock) {
-			while (!ready || webView == null) {
-				long remainingMs = deadline - SystemClock.uptimeMillis();
-				if (remainingMs <= 0L) {
-					return false;
-				}
-				try {
-					lock.wait(remainingMs);
-				} catch (InterruptedException e) {
-					Thread.currentThread().interrupt();
-					return false;
-				}
-			}
-			return true;
-		}
+		return state.awaitReady(timeoutMs);
 	}
 
+	@Override
 	public long getGeneration() {
-		synchronized (lock) {
-			return generation;
-		}
+		return state.generation();
 	}
 
+	@Override
 	public boolean isCurrentGeneration(long expectedGeneration) {
-		synchronized (lock) {
-			return ready && webView != null && generation == expectedGeneration;
-		}
+		return state.isCurrentGeneration(expectedGeneration);
 	}
 
+	@Override
 	@Nullable
 	public String evaluateJavascript(long expectedGeneration,
 	                                 @NonNull String script,
 	                                 final long timeoutMs) {
 		CompletableFuture<String> future = new CompletableFuture<>();
 		handler.post(() -> {
-			final WebView view;
-			synchronized (lock) {
-				if (webView == null || !ready || generation != expectedGeneration) {
-					future.complete(null);
-					return;
-				}
-				view = webView;
+			WebView view = state.viewFor(expectedGeneration);
+			if (view == null) {
+				future.complete(null);
+				return;
 			}
 			view.evaluateJavascript(script, future::complete);
 		});
@@ -146,19 +211,18 @@ public final class PoTokenHost {
 	}
 
 	private void ensureLoadedOnMainThread() {
-		final WebView hostWebView;
-		synchronized (lock) {
-			if (webView == null) {
-				webView = new WebView(appContext);
-				configureWebView(webView);
-			}
-			if (ready || loading) {
-				return;
+		if (state.needsView()) {
+			long start = SystemClock.uptimeMillis();
+			WebView created = new WebView(appContext);
+			configureWebView(created);
+			if (!state.publish(created, SystemClock.uptimeMillis() - start)) {
+				created.removeJavascriptInterface(PoTokenBridge.JS_INTERFACE);
+				created.destroy();
 			}
-			hostWebView = webView;
-			ready = false;
-			loading = true;
-			generation += 1L;
+		}
+		WebView hostWebView = state.beginLoad();
+		if (hostWebView == null) {
+			return;
 		}
 		hostWebView.loadDataWithBaseURL("https://www.youtube.com", getHostHtml(), "text/html", "utf-8", null);
 	}
@@ -179,13 +243,11 @@ public final class PoTokenHost {
 			@Override
 			public void onPageFinished(@NonNull WebView view, @NonNull String url) {
 				super.onPageFinished(view, url);
-				synchronized (lock) {
-					if (view != webView) {
-						return;
-					}
-					loading = false;
-					ready = true;
-					lock.notifyAll();
+				if (!state.onLoaded(view)) {
+					return;
+				}
+				if (Log.isLoggable(TAG, Log.DEBUG)) {
+					Log.d(TAG, "Host ready: " + metrics());
 				}
 			}
 
@@ -195,7 +257,7 @@ public final class PoTokenHost {
 			                                @NonNull WebResourceResponse errorResponse) {
 				super.onReceivedHttpError(view, request, errorResponse);
 				if (request.isForMainFrame()) {
-					onLoadFailed(view);
+					state.onLoadFailed(view);
 				}
 			}
 
@@ -205,30 +267,22 @@ public final class PoTokenHost {
 			                            @NonNull android.webkit.WebResourceError error) {
 				super.onReceivedError(view, request, error);
 				if (request.isForMainFrame()) {
-					onLoadFailed(view);
+					state.onLoadFailed(view);
 				}
 			}
 		});
 	}
 
-	private void onLoadFailed(@NonNull WebView view) {
-		synchronized (lock) {
-			if (view != webView) {
-				return;
-			}
-			loading = false;
-			ready = false;
-			lock.notifyAll();
-		}
-	}
-
 	@NonNull
 	private String getHostHtml() {
-		synchronized (lock) {
-			if (hostHtml != null) {
-				return hostHtml;
+		String html = hostHtml;
+		if (html != null) {
+			return html;
+		}
+		synchronized (htmlLock) {
+			if (hostHtml == null) {
+				hostHtml = HOST_HTML_PREFIX + loadPoTokenScript() + HOST_HTML_SUFFIX;
 			}
-			hostHtml = HOST_HTML_PREFIX + loadPoTokenScript() + HOST_HTML_SUFFIX;
 			return hostHtml;
 		}
 	}
@@ -241,4 +295,20 @@ public final class PoTokenHost {
 			throw new IllegalStateException("Unable to load potoken script asset", e);
 		}
 	}
+
+/**
+ * Enumeration of start-up points for a scheduled warm-up: right after the next frame, or once the main looper is idle.
+ */
+	public enum WarmUpPoint {
+		FIRST_FRAME,
+		IDLE
+	}
+
+/**
+ * Value object for start-up timings of the latest load in milliseconds, -1 until a phase has completed.
+ * {@code readyMs} spans from the first warm-up request to the page being ready, and {@code blockedMs}
+ * totals the time extraction threads spent waiting in {@link #awaitReady(long)}.
+ */
+	public record Metrics(long createMs, long loadMs, long readyMs, int loads, int recycles, long blockedMs) {
+	}
 }
@@ -0,0 +1,177 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Load state of the PoToken host view: which view is current, whether it is loading or ready, its generation,
+ * and the start-up timings. Kept free of Android types so the warm-up and recycle rules can be unit tested;
+ * {@link PoTokenHost} creates, loads and destroys the views outside this monitor.
+ *
+ * @param <V> the host view type
+ */
+final class PoTokenHostState<V> {
+	@NonNull
+	private final LongSupplier clock;
+	@Nullable
+	private V view;
+	private boolean ready;
+	private boolean loading;
+	private long generation;
+	private long warmUpStartedAtMs;
+	private long loadStartedAtMs;
+	private long createMs = -1L;
+	private long loadMs = -1L;
+	private long readyMs = -1L;
+	private int loads;
+	private int recycles;
+	private long blockedMs;
+
+	PoTokenHostState(@NonNull LongSupplier clock) {
+		this.clock = Objects.requireNonNull(clock);
+	}
+
+	/**
+	 * Returns whether a warm-up should start, and marks when the first request for it arrived.
+	 */
+	synchronized boolean requestWarmUp() {
+		if (ready || loading) {
+			return false;
+		}
+		if (warmUpStartedAtMs == 0L) {
+			warmUpStartedAtMs = clock.getAsLong();
+		}
+		return true;
+	}
+
+	synchronized boolean needsView() {
+		return view == null;
+	}
+
+	/**
+	 * Installs a view built outside the monitor; returns false if another view got there first.
+	 */
+	synchronized boolean publish(@NonNull V created, final long createMs) {
+		if (view != null) {
+			return false;
+		}
+		view = created;
+		this.createMs = createMs;
+		return true;
+	}
+
+	/**
+	 * Starts a load under a new generation and returns the view to load, or null if there is nothing to load.
+	 */
+	@Nullable
+	synchronized V beginLoad() {
+		if (view == null || ready || loading) {
+			return null;
+		}
+		loading = true;
+		generation += 1L;
+		loads += 1;
+		loadStartedAtMs = clock.getAsLong();
+		if (warmUpStartedAtMs == 0L) {
+			warmUpStartedAtMs = loadStartedAtMs;
+		}
+		return view;
+	}
+
+	/**
+	 * Marks {@code loaded} ready; returns false when it is no longer the current view.
+	 */
+	synchronized boolean onLoaded(@NonNull V loaded) {
+		if (loaded != view) {
+			return false;
+		}
+		long now = clock.getAsLong();
+		loading = false;
+		ready = true;
+		loadMs = now - loadStartedAtMs;
+		readyMs = now - warmUpStartedAtMs;
+		warmUpStartedAtMs = 0L;
+		notifyAll();
+		return true;
+	}
+
+	synchronized void onLoadFailed(@NonNull V failed) {
+		if (failed != view) {
+			return;
+		}
+		loading = false;
+		ready = false;
+		notifyAll();
+	}
+
+	/**
+	 * Detaches the current view under a new generation and returns it for destruction, or null if there is none.
+	 */
+	@Nullable
+	synchronized V recycle() {
+		V old = view;
+		if (old == null) {
+			return null;
+		}
+		view = null;
+		ready = false;
+		loading = false;
+		generation += 1L;
+		recycles += 1;
+		notifyAll();
+		return old;
+	}
+
+	synchronized boolean isReady() {
+		return ready && view != null;
+	}
+
+	/**
+	 * Blocks until the view is ready or {@code timeoutMs} has passed, adding the wait to {@code blockedMs}.
+	 */
+	synchronized boolean awaitReady(final long timeoutMs) {
+		long start = clock.getAsLong();
+		long deadline = start + timeoutMs;
+		try {
+			while (!ready || view == null) {
+				long remainingMs = deadline - clock.getAsLong();
+				if (remainingMs <= 0L) {
+					return false;
+				}
+				try {
+					wait(remainingMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			blockedMs += clock.getAsLong() - start;
+		}
+	}
+
+	synchronized long generation() {
+		return generation;
+	}
+
+	synchronized boolean isCurrentGeneration(final long expectedGeneration) {
+		return ready && view != null && generation == expectedGeneration;
+	}
+
+	/**
+	 * Returns the view if it is ready and still belongs to {@code expectedGeneration}.
+	 */
+	@Nullable
+	synchronized V viewFor(final long expectedGeneration) {
+		return isCurrentGeneration(expectedGeneration) ? view : null;
+	}
+
+	@NonNull
+	synchronized PoTokenHost.Metrics metrics() {
+		return new PoTokenHost.Metrics(createMs, loadMs, readyMs, loads, recycles, blockedMs);
+	}
+}
@@ -1,11 +1,18 @@
 package com.hhst.youtubelite.extractor.potoken;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 /**
  * Session wrapper for PoToken collection.
+ * Also carries the visitorData fetched for this host generation, which expires on its own schedule.
  */
 final class PoTokenSession {
 	private final long hostGeneration;
 	private final long expiresAtMs;
+	@Nullable
+	private volatile String visitorData;
+	private volatile long visitorDataExpiresAtMs;
 
 	PoTokenSession(long hostGeneration,
 	               final long expiresAtMs) {
@@ -20,4 +27,20 @@ final class PoTokenSession {
 	boolean isExpired(long nowMs) {
 		return nowMs >= expiresAtMs;
 	}
+
+	long getExpiresAtMs() {
+		return expiresAtMs;
+	}
+
+	@Nullable
+	String getVisitorData(long nowMs) {
+		String value = visitorData;
+		return value != null && nowMs < visitorDataExpiresAtMs ? value : null;
+	}
+
+	void setVisitorData(@NonNull String visitorData,
+	                    final long expiresAtMs) {
+		this.visitorDataExpiresAtMs = expiresAtMs;
+		this.visitorData = visitorData;
+	}
 }
@@ -13,8 +13,10 @@ import androidx.media3.ui.DefaultTimeBar;
 
 import com.hhst.youtubelite.PlaybackService;
 import com.hhst.youtubelite.R;
+import com.hhst.youtubelite.extractor.ConnectionWarmer;
 import com.hhst.youtubelite.extractor.ExtractionSession;
 import com.hhst.youtubelite.extractor.PlaybackDetails;
+import com.hhst.youtubelite.extractor.PlaybackPlan;
 import com.hhst.youtubelite.extractor.PlaybackPlanner;
 import com.hhst.youtubelite.extractor.YoutubeExtractor;
 import com.hhst.youtubelite.extractor.exception.ExtractionException;
@@ -30,7 +32,6 @@ import com.hhst.youtubelite.player.sponsor.SponsorBlockManager;
 import com.hhst.youtubelite.player.sponsor.SponsorOverlayView;
 import com.hhst.youtubelite.ui.ErrorDialog;
 import com.hhst.youtubelite.util.DeviceUtils;
-import com.tencent.mmkv.MMKV;
 
 import org.schabi.newpipe.extractor.exceptions.SignInConfirmNotBotException;
 
@@ -56,7 +57,6 @@ import lombok.Getter;
 @UnstableApi
 @ActivityScoped
 public class LitePlayer {
-	private static final String KEY_LAST_AUDIO_LANG = "last_audio_lang";
 
 	@NonNull
 	private final Activity activity;
@@ -78,7 +78,8 @@ public class LitePlayer {
 	private final PlayerStateStore stateStore;
 	@NonNull
 	private final Executor executor;
-	private final MMKV kv = MMKV.defaultMMKV();
+	@NonNull
+	private final ConnectionWarmer connectionWarmer;
 	@Nullable
 	private PlaybackService playbackSvc;
 	@NonNull
@@ -109,7 +110,8 @@ public class LitePlayer {
 	                  @NonNull QueueRepository queueRepo,
 	                  @NonNull PlayerPreferences prefs,
 	                  @NonNull PlayerStateStore stateStore,
-	                  @NonNull Executor executor) {
+	                  @NonNull Executor executor,
+	                  @NonNull ConnectionWarmer connectionWarmer) {
 		this.activity = activity;
 		this.extractor = extractor;
 		this.playerView = playerView;
@@ -120,6 +122,7 @@ public class LitePlayer {
 		this.prefs = prefs;
 		this.stateStore = stateStore;
 		this.executor = executor;
+		this.connectionWarmer = connectionWarmer;
 		playerView.setup();
 		queueRepo.addListener(queueListener);
 		setupEngineListeners();
@@ -178,7 +181,7 @@ public class LitePlayer {
 					for (int i = 0; i < group.length; i++) {
 						if (group.isTrackSelected(i)) {
 							String lang = group.getTrackFormat(i).language;
-							kv.encode(KEY_LAST_AUDIO_LANG, lang != null ? lang : "und");
+							prefs.setAudioLanguage(lang);
 							return;
 						}
 					}
@@ -229,6 +232,7 @@ public class LitePlayer {
 		});
 
 		cancelExtraction();
+		engine.retainPrefetch(videoId);
 		if (task != null) task.cancel(true);
 		ExtractionSession session = new ExtractionSession();
 		extractSession = session;
@@ -240,12 +244,15 @@ public class LitePlayer {
 							}
 						}, executor).thenCompose(ignored -> extractor.getInfo(url, session))
 						.thenApply(details -> {
-							String lang = kv.decodeString(KEY_LAST_AUDIO_LANG, "und");
+							String lang = prefs.getAudioLanguage();
+							PlaybackPlan plan = PlaybackPlanner.plan(details.deliveries(), prefs.getQuality(), lang);
+							// Handshake with the stream hosts while the result hops to the main thread.
+							connectionWarmer.warm(plan);
 							return new PlaybackDetails(
 											details.video(),
 											details.catalog(),
 											details.deliveries(),
-											PlaybackPlanner.plan(details.deliveries(), prefs.getQuality(), lang),
+											plan,
 											details.segments(),
 											details.subtitles());
 						}).thenAccept(er -> activity.runOnUiThread(() -> {
@@ -301,6 +308,7 @@ public class LitePlayer {
 		this.activeId = null;
 		stateStore.setVideoId(null);
 		cancelExtraction();
+		engine.cancelPrefetch();
 		if (task != null) task.cancel(true);
 		activity.runOnUiThread(() -> {
 			controller.clearRotation();
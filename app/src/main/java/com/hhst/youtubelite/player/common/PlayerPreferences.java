@@ -34,6 +34,7 @@ public final class PlayerPreferences {
 	private static final String KEY_LOOP_ENABLED = "loop_enabled";
 	private static final String KEY_SUBTITLE_ENABLED = "subtitle_enabled";
 	private static final String KEY_SUBTITLE_LANGUAGE = "subtitle_language";
+	private static final String KEY_AUDIO_LANGUAGE = "last_audio_lang";
 	private static final String KEY_RESIZE_MODE = "resize_mode";
 	private static final String KEY_MINI_PLAYER_WIDTH_DP = "mini_player_width_dp";
 	private static final String KEY_MINI_PLAYER_TRANSLATION_X_DP = "mini_player_translation_x_dp";
@@ -130,6 +131,16 @@ public final class PlayerPreferences {
 		mmkv.encode(KEY_SUBTITLE_LANGUAGE, language);
 	}
 
+	@NonNull
+	public String getAudioLanguage() {
+		String language = mmkv.decodeString(KEY_AUDIO_LANGUAGE, "und");
+		return language != null ? language : "und";
+	}
+
+	public void setAudioLanguage(@Nullable String language) {
+		mmkv.encode(KEY_AUDIO_LANGUAGE, language != null ? language : "und");
+	}
+
 	public int getResizeMode() {
 		boolean enabled = extensionManager.isEnabled(Constant.REMEMBER_RESIZE_MODE);
 		if (!enabled) return 0;
@@ -25,9 +25,11 @@ import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
 
 import com.hhst.youtubelite.Constant;
+import com.hhst.youtubelite.browser.CookieAccessCoordinator;
 import com.hhst.youtubelite.browser.TabManager;
 import com.hhst.youtubelite.extractor.Delivery;
 import com.hhst.youtubelite.extractor.DeliveryCatalog;
+import com.hhst.youtubelite.extractor.ExtractionPrefetcher;
 import com.hhst.youtubelite.extractor.PlaybackDetails;
 import com.hhst.youtubelite.extractor.PlaybackMode;
 import com.hhst.youtubelite.extractor.PlaybackPlan;
@@ -62,6 +64,7 @@ import javax.inject.Inject;
 
 import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.android.scopes.ActivityScoped;
+import okhttp3.OkHttpClient;
 
 /**
  * Coordinates playback state and queue navigation.
@@ -71,6 +74,7 @@ import dagger.hilt.android.scopes.ActivityScoped;
 public class Engine {
 	static final String NO_PLAYABLE_SOURCE_MESSAGE = "No supported playable stream URL in StreamCatalog";
 	private static final int SAFE_ZONE_MS = 5000;
+	private static final long PREFETCH_LEAD_MS = 45_000L;
 	@NonNull
 	private final ExoPlayer player;
 	@NonNull
@@ -82,12 +86,17 @@ public class Engine {
 	@NonNull
 	private final QueueRepository queueRepository;
 	@NonNull
+	private final ExtractionPrefetcher prefetcher;
+	@NonNull
 	private final PlayerDataSource sources;
+	@NonNull
+	private final SegmentPrebuffer prebuffer;
 	private final Handler handler = new Handler(Looper.getMainLooper());
 	@NonNull
 	private PlayerLoopMode loopMode = PlayerLoopMode.PLAYLIST_NEXT;
 	@Nullable
 	private String videoId;
+	private boolean upcomingRewarmed;
 	private final Runnable onTimeUpdate = new Runnable() {
 		@Override
 		public void run() {
@@ -100,6 +109,11 @@ public class Engine {
 					prefs.persistProgress(videoId, pos, duration, TimeUnit.MILLISECONDS);
 				}
 			}
+			// Refresh upcoming extractions before their short-lived cache entries are needed.
+			if (!upcomingRewarmed && duration > 0 && duration - pos < PREFETCH_LEAD_MS) {
+				upcomingRewarmed = true;
+				prefetchUpcoming();
+			}
 			// Skip sponsor segments.
 			List<long[]> segments = sponsor.getSegments();
 			for (final long[] segment : segments) {
@@ -133,12 +147,17 @@ public class Engine {
 	              @NonNull PlayerPreferences prefs,
 	              @NonNull TabManager tabManager,
 	              @NonNull SponsorBlockManager sponsor,
-	              @NonNull QueueRepository queueRepository) {
+	              @NonNull QueueRepository queueRepository,
+	              @NonNull ExtractionPrefetcher prefetcher,
+	              @NonNull OkHttpClient okHttpClient,
+	              @NonNull CookieAccessCoordinator cookieAccessCoordinator) {
 		this.prefs = prefs;
 		this.tabManager = tabManager;
 		this.sponsor = sponsor;
 		this.queueRepository = queueRepository;
-		this.sources = new PlayerDataSource(simpleCache);
+		this.prefetcher = prefetcher;
+		this.sources = new PlayerDataSource(simpleCache, okHttpClient, cookieAccessCoordinator);
+		this.prebuffer = new SegmentPrebuffer(context, sources);
 		DefaultTrackSelector trackSelector = new DefaultTrackSelector(context, new AdaptiveTrackSelection.Factory());
 		trackSelector.setParameters(params(trackSelector).setTunnelingEnabled(true).build());
 		this.player = new ExoPlayer.Builder(context)
@@ -273,6 +292,38 @@ public class Engine {
 						""".replace("__NEXT_NAVIGATION__", Boolean.toString(nextNavigation));
 	}
 
+	static String buildPlaylistUpcomingScript(int count) {
+		return """
+						(function(){
+						const playlistContents=globalThis.ytInitialData?.contents?.singleColumnWatchNextResults?.playlist?.playlist?.contents;
+						if(!Array.isArray(playlistContents) || playlistContents.length===0) return '';
+						const watchUrl=new URL(location.href);
+						const videoId=watchUrl.searchParams.get('v') ?? globalThis.ytInitialPlayerResponse?.videoDetails?.videoId;
+						if(!videoId) return '';
+						const index=playlistContents.findIndex(item => item?.playlistPanelVideoRenderer?.videoId === videoId);
+						if(index < 0) return '';
+						const upcoming=[];
+						for (let step = 1; step <= __COUNT__ && step < playlistContents.length; step++) {
+							const id=playlistContents[(index + step) % playlistContents.length]?.playlistPanelVideoRenderer?.videoId;
+							if (typeof id === 'string' && id !== videoId && !upcoming.includes(id)) upcoming.push(id);
+						}
+						return upcoming.join(',');
+						})();
+						""".replace("__COUNT__", Integer.toString(Math.max(0, count)));
+	}
+
+	@NonNull
+	static List<String> parseVideoIds(@Nullable String value) {
+		if (value == null || value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+			return List.of();
+		}
+		List<String> ids = new ArrayList<>();
+		for (String id : value.substring(1, value.length() - 1).split(",")) {
+			if (id.matches("[A-Za-z0-9_-]{11}") && !ids.contains(id)) ids.add(id);
+		}
+		return ids;
+	}
+
 	static String buildRandomPlaylistNavigationScript() {
 		return """
 						(function(){
@@ -346,6 +397,47 @@ public class Engine {
 
 		this.player.prepare();
 		this.player.setPlayWhenReady(true);
+		this.upcomingRewarmed = false;
+		prefetchUpcoming();
+	}
+
+	/**
+	 * Keeps the prefetch for the video being opened and drops the rest.
+	 */
+	public void retainPrefetch(@Nullable String videoId) {
+		prefetcher.retainOnly(videoId);
+		prebuffer.cancel();
+	}
+
+	public void cancelPrefetch() {
+		prefetcher.cancel();
+		prebuffer.cancel();
+	}
+
+	private void prebufferNext(@NonNull PlaybackDetails details) {
+		prebuffer.submit(details.withPlan(
+						PlaybackPlanner.plan(details.deliveries(), prefs.getQuality(), prefs.getAudioLanguage())));
+	}
+
+	private void prefetchUpcoming() {
+		boolean queueContext = queueRepository.isEnabled() && queueRepository.hasItems();
+		String watchId = watchVideoId();
+		if (queueContext) {
+			List<String> ids = new ArrayList<>();
+			for (int offset = 1; offset <= ExtractionPrefetcher.DEPTH; offset++) {
+				QueueItem item = queueRepository.findRelative(watchId, offset);
+				if (item == null || item.getVideoId() == null || item.getVideoId().equals(watchId)) break;
+				if (!ids.contains(item.getVideoId())) ids.add(item.getVideoId());
+			}
+			prefetcher.prefetch(ids, this::prebufferNext);
+			return;
+		}
+		if (tabManager.watchHasPlaylist()) {
+			tabManager.evalWatchJs(buildPlaylistUpcomingScript(ExtractionPrefetcher.DEPTH),
+							value -> prefetcher.prefetch(parseVideoIds(value), this::prebufferNext));
+			return;
+		}
+		cancelPrefetch();
 	}
 
 	public void play() {
@@ -821,7 +913,8 @@ public class Engine {
 		if (audio != null && content.equals(audio.getContent())) return;
 		long pos = player.getCurrentPosition();
 		boolean playWhenReady = player.getPlayWhenReady();
-		plan.setAudioCandidate(findAudioCandidate(state.catalog(), stream));
+		plan = plan.withAudioCandidate(findAudioCandidate(state.catalog(), stream));
+		this.playbackPlan = plan;
 		player.setMediaSource(PlaybackSourceFactory.create(sources,
 						new PlaybackDetails(state.video(), state.catalog(), state.deliveries(), plan, segments, subtitles),
 						plan));
@@ -866,6 +959,8 @@ public class Engine {
 
 	public void release() {
 		handler.removeCallbacks(onTimeUpdate);
+		prefetcher.cancel();
+		prebuffer.release();
 		this.player.release();
 	}
 
@@ -204,7 +204,7 @@ class PlaybackSourceFactory {
 	}
 
 	@Nullable
-	private static String normalizePlayableUrl(@Nullable String url) {
+	static String normalizePlayableUrl(@Nullable String url) {
 		if (url == null || url.isBlank()) {
 			return null;
 		}
@@ -17,12 +17,15 @@ import androidx.media3.exoplayer.hls.HlsMediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
 
 import com.hhst.youtubelite.Constant;
+import com.hhst.youtubelite.browser.CookieAccessCoordinator;
 import com.hhst.youtubelite.player.engine.datasource.YoutubeHttpDataSource;
 
 import org.schabi.newpipe.extractor.services.youtube.dashmanifestcreators.YoutubeOtfDashManifestCreator;
 import org.schabi.newpipe.extractor.services.youtube.dashmanifestcreators.YoutubePostLiveStreamDvrDashManifestCreator;
 import org.schabi.newpipe.extractor.services.youtube.dashmanifestcreators.YoutubeProgressiveDashManifestCreator;
 
+import okhttp3.OkHttpClient;
+
 /**
  * Component that handles app logic.
  */
@@ -43,15 +46,17 @@ final class PlayerDataSource {
 	@NonNull
 	private final YoutubeHttpDataSource.Factory ytProgressiveHttp;
 
-	PlayerDataSource(@Nullable SimpleCache cache) {
+	PlayerDataSource(@Nullable SimpleCache cache,
+	                 @NonNull OkHttpClient client,
+	                 @NonNull CookieAccessCoordinator cookies) {
 		this.cache = cache;
 		liveHttp = new DefaultHttpDataSource.Factory()
 						.setUserAgent(Constant.USER_AGENT)
 						.setConnectTimeoutMs(30_000)
 						.setReadTimeoutMs(45_000);
-		ytHlsHttp = youtubeFactory(false, false);
-		ytDashHttp = youtubeFactory(true, true);
-		ytProgressiveHttp = youtubeFactory(false, true);
+		ytHlsHttp = youtubeFactory(client, cookies, false, false);
+		ytDashHttp = youtubeFactory(client, cookies, true, true);
+		ytProgressiveHttp = youtubeFactory(client, cookies, false, true);
 		Log.d(TAG, "init cache=" + (cache != null)
 						+ " ytHls(range=false,rn=false)"
 						+ " ytDash(range=true,rn=true)"
@@ -111,20 +116,36 @@ final class PlayerDataSource {
 	}
 
 	@NonNull
-	private YoutubeHttpDataSource.Factory youtubeFactory(boolean rangeEnabled,
-	                                                     boolean rnEnabled) {
-		return new YoutubeHttpDataSource.Factory(Constant.USER_AGENT)
+	private static YoutubeHttpDataSource.Factory youtubeFactory(@NonNull OkHttpClient client,
+	                                                            @NonNull CookieAccessCoordinator cookies,
+	                                                            boolean rangeEnabled,
+	                                                            boolean rnEnabled) {
+		return new YoutubeHttpDataSource.Factory(client, cookies, Constant.USER_AGENT)
 						.setConnectTimeoutMs(30_000)
 						.setReadTimeoutMs(30_000)
 						.setRangeParameterEnabled(rangeEnabled)
 						.setRnParameterEnabled(rnEnabled);
 	}
 
+	/**
+	 * Returns a cache-writing source keyed like the non-live stream sources, or null without a cache.
+	 */
+	@Nullable
+	CacheDataSource prebufferSource() {
+		return cache == null ? null : cacheFactory(cache, ytProgressiveHttp).createDataSourceForDownloading();
+	}
+
 	@NonNull
 	private DataSource.Factory maybeCache(@NonNull DataSource.Factory upstream) {
 		if (cache == null) {
 			return upstream;
 		}
+		return cacheFactory(cache, upstream);
+	}
+
+	@NonNull
+	private static CacheDataSource.Factory cacheFactory(@NonNull SimpleCache cache,
+	                                                    @NonNull DataSource.Factory upstream) {
 		return new CacheDataSource.Factory()
 						.setCache(cache)
 						.setUpstreamDataSourceFactory(upstream)
@@ -0,0 +1,244 @@
+package com.hhst.youtubelite.player.engine;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.Uri;
+import android.os.PowerManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheWriter;
+
+import com.hhst.youtubelite.extractor.PlaybackDetails;
+import com.hhst.youtubelite.extractor.PlaybackPlan;
+import com.hhst.youtubelite.extractor.StreamCandidate;
+
+import org.schabi.newpipe.extractor.services.youtube.ItagItem;
+import org.schabi.newpipe.extractor.stream.Stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the opening seconds of the next item's planned streams into the player cache.
+ */
+@UnstableApi
+final class SegmentPrebuffer {
+	private static final String TAG = "YTLPrebuffer";
+	private static final long PREBUFFER_SECONDS = 10L;
+	private static final long ITEM_BUDGET_BYTES = 6L * 1024L * 1024L;
+	private static final long FALLBACK_VIDEO_BYTES = 2L * 1024L * 1024L;
+	private static final long FALLBACK_AUDIO_BYTES = 192L * 1024L;
+
+	@NonNull
+	private final Context context;
+	@Nullable
+	private final CacheDataSource source;
+	@Nullable
+	private final ConnectivityManager connectivity;
+	@Nullable
+	private final PowerManager power;
+	@NonNull
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "player-prebuffer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	@NonNull
+	private final AtomicInteger generation = new AtomicInteger();
+	@NonNull
+	private final BroadcastReceiver powerReceiver = new BroadcastReceiver() {
+		@Override
+		public void onReceive(Context context, Intent intent) {
+			onConstraintsChanged();
+		}
+	};
+	@NonNull
+	private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+		@Override
+		public void onCapabilitiesChanged(@NonNull Network network,
+		                                  @NonNull NetworkCapabilities capabilities) {
+			onConstraintsChanged();
+		}
+
+		@Override
+		public void onLost(@NonNull Network network) {
+			onConstraintsChanged();
+		}
+	};
+	@Nullable
+	private volatile CacheWriter writer;
+	@Nullable
+	private PlaybackDetails pending;
+	private boolean paused;
+	private boolean watching;
+
+	SegmentPrebuffer(@NonNull Context context,
+	                 @NonNull PlayerDataSource sources) {
+		this.context = context.getApplicationContext();
+		this.source = sources.prebufferSource();
+		this.connectivity = ContextCompat.getSystemService(this.context, ConnectivityManager.class);
+		this.power = ContextCompat.getSystemService(this.context, PowerManager.class);
+	}
+
+	/**
+	 * Replaces the pending pre-buffer with the planned streams of {@code details}.
+	 */
+	synchronized void submit(@NonNull PlaybackDetails details) {
+		if (source == null) return;
+		pending = details;
+		watch();
+		start();
+	}
+
+	synchronized void cancel() {
+		pending = null;
+		stop();
+		unwatch();
+	}
+
+	void release() {
+		cancel();
+		executor.shutdownNow();
+	}
+
+	private synchronized void onConstraintsChanged() {
+		if (pending == null) return;
+		boolean allowed = allowed();
+		if (allowed && paused) {
+			start();
+		} else if (!allowed && !paused) {
+			Log.d(TAG, "pause metered or battery saver");
+			paused = true;
+			stop();
+		}
+	}
+
+	private void start() {
+		PlaybackDetails details = pending;
+		if (details == null || executor.isShutdown()) return;
+		paused = !allowed();
+		if (paused) return;
+		int token = stop();
+		List<DataSpec> specs = plan(details.plan());
+		executor.execute(() -> run(token, details, specs));
+	}
+
+	private int stop() {
+		int token = generation.incrementAndGet();
+		CacheWriter current = writer;
+		if (current != null) current.cancel();
+		return token;
+	}
+
+	private void run(final int token,
+	                 @NonNull PlaybackDetails details,
+	                 @NonNull List<DataSpec> specs) {
+		if (source == null) return;
+		for (DataSpec spec : specs) {
+			CacheWriter current = new CacheWriter(source, spec, null, null);
+			writer = current;
+			try {
+				if (token != generation.get()) return;
+				current.cache();
+			} catch (InterruptedIOException e) {
+				return;
+			} catch (IOException | RuntimeException e) {
+				Log.w(TAG, "prebuffer failed uri=" + spec.uri, e);
+			} finally {
+				if (writer == current) writer = null;
+			}
+		}
+		synchronized (this) {
+			if (token == generation.get() && pending == details) {
+				pending = null;
+				unwatch();
+			}
+		}
+	}
+
+	@NonNull
+	private static List<DataSpec> plan(@NonNull PlaybackPlan plan) {
+		List<DataSpec> specs = new ArrayList<>();
+		long budget = ITEM_BUDGET_BYTES;
+		switch (plan.getMode()) {
+			case ADAPTIVE -> {
+				budget -= add(specs, streamOf(plan.getAudioCandidate(), true), FALLBACK_AUDIO_BYTES, budget);
+				add(specs, streamOf(plan.getVideoCandidate(), false), FALLBACK_VIDEO_BYTES, budget);
+			}
+			case MUXED -> add(specs, streamOf(plan.getMuxedCandidate(), false), FALLBACK_VIDEO_BYTES, budget);
+			case AUDIO_ONLY -> add(specs, streamOf(plan.getAudioCandidate(), true), FALLBACK_AUDIO_BYTES, budget);
+			default -> {
+				// Live and manifest-only plans are not pre-buffered.
+			}
+		}
+		return specs;
+	}
+
+	@Nullable
+	private static Stream streamOf(@Nullable StreamCandidate candidate,
+	                               boolean audio) {
+		if (candidate == null) return null;
+		return audio ? candidate.getAudioStream() : candidate.getVideoStream();
+	}
+
+	private static long add(@NonNull List<DataSpec> specs,
+	                        @Nullable Stream stream,
+	                        final long fallbackBytes,
+	                        final long budget) {
+		if (stream == null || budget <= 0) return 0L;
+		String url = PlaybackSourceFactory.normalizePlayableUrl(stream.getContent());
+		if (url == null) return 0L;
+		long length = Math.min(budget, openingBytes(stream.getItagItem(), fallbackBytes));
+		specs.add(new DataSpec.Builder()
+						.setUri(Uri.parse(url))
+						.setPosition(0L)
+						.setLength(length)
+						.build());
+		return length;
+	}
+
+	private static long openingBytes(@Nullable ItagItem item,
+	                                 final long fallbackBytes) {
+		if (item == null) return fallbackBytes;
+		long header = Math.max(0L, item.getIndexEnd() + 1L);
+		long media = item.getBitrate() > 0 ? item.getBitrate() / 8L * PREBUFFER_SECONDS : fallbackBytes;
+		return header + media;
+	}
+
+	private boolean allowed() {
+		boolean metered = connectivity != null && connectivity.isActiveNetworkMetered();
+		boolean saver = power != null && power.isPowerSaveMode();
+		return !metered && !saver;
+	}
+
+	private void watch() {
+		if (watching) return;
+		watching = true;
+		ContextCompat.registerReceiver(context, powerReceiver,
+						new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+		if (connectivity != null) connectivity.registerDefaultNetworkCallback(networkCallback);
+	}
+
+	private void unwatch() {
+		if (!watching) return;
+		watching = false;
+		context.unregisterReceiver(powerReceiver);
+		if (connectivity != null) connectivity.unregisterNetworkCallback(networkCallback);
+	}
+}
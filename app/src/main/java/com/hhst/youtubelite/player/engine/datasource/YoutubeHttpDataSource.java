@@ -1,5 +1,5 @@
 /*
- * Based on ExoPlayer's DefaultHttpDataSource.
+ * Based on ExoPlayer's DefaultHttpDataSource and OkHttpDataSource.
  */
 
 package com.hhst.youtubelite.player.engine.datasource;
@@ -15,7 +15,6 @@ import static org.schabi.newpipe.extractor.services.youtube.YoutubeParsingHelper
 
 import android.net.Uri;
 import android.util.Log;
-import android.webkit.CookieManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -26,81 +25,83 @@ import androidx.media3.common.util.Util;
 import androidx.media3.datasource.BaseDataSource;
 import androidx.media3.datasource.DataSourceException;
 import androidx.media3.datasource.DataSpec;
-import androidx.media3.datasource.DataSpec.HttpMethod;
-import androidx.media3.datasource.DefaultHttpDataSource;
 import androidx.media3.datasource.HttpDataSource;
 import androidx.media3.datasource.HttpUtil;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HttpHeaders;
-import com.hhst.youtubelite.util.StreamIOUtils;
+import com.hhst.youtubelite.browser.CookieAccessCoordinator;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.NoRouteToHostException;
-import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
 /**
- * An {@link HttpDataSource} that uses Android's {@link HttpURLConnection}, based on
- * {@link DefaultHttpDataSource}, for YouTube streams.
+ * An {@link HttpDataSource} for YouTube streams backed by the app's shared {@link OkHttpClient}, so
+ * segment requests reuse pooled HTTP/2 connections and run on the shared dispatcher.
+ * Stream URLs get the {@code rn}/{@code range} parameters and client headers YouTube expects.
  */
 @UnstableApi
 public final class YoutubeHttpDataSource extends BaseDataSource implements HttpDataSource {
 
 	private static final String TAG = "YTLPlayback";
-	private static final int MAX_REDIRECTS = 20;
-	private static final int HTTP_STATUS_TEMPORARY_REDIRECT = 307;
-	private static final int HTTP_STATUS_PERMANENT_REDIRECT = 308;
 	private static final byte[] POST_BODY = new byte[]{0x78, 0};
-	private final boolean allowCrossProtocolRedirects;
+	@NonNull
+	private final Call.Factory callFactory;
+	@Nullable
+	private final CookieAccessCoordinator cookies;
 	private final boolean rangeParameterEnabled;
 	private final boolean rnParameterEnabled;
-	private final int connectTimeoutMillis;
-	private final int readTimeoutMillis;
 	@Nullable
 	private final RequestProperties defaultRequestProperties;
 	private final RequestProperties requestProperties;
-	private final boolean keepPostFor302Redirects;
 	private final String userAgent;
 
 	@Nullable
 	private DataSpec dataSpec;
 	@Nullable
-	private HttpURLConnection connection;
+	private Response response;
 	@Nullable
 	private InputStream inputStream;
 	private boolean opened;
-	private int responseCode;
 	private long bytesToRead;
 	private long bytesRead;
 	private long requestNumber;
 
-	private YoutubeHttpDataSource(int connectTimeoutMillis, int readTimeoutMillis, boolean allowCrossProtocolRedirects, boolean rangeParameterEnabled, boolean rnParameterEnabled, @Nullable RequestProperties defaultRequestProperties, boolean keepPostFor302Redirects, String userAgent) {
+	private YoutubeHttpDataSource(@NonNull Call.Factory callFactory, @Nullable CookieAccessCoordinator cookies, boolean rangeParameterEnabled, boolean rnParameterEnabled, @Nullable RequestProperties defaultRequestProperties, String userAgent) {
 		super(true);
-		this.connectTimeoutMillis = connectTimeoutMillis;
-		this.readTimeoutMillis = readTimeoutMillis;
-		this.allowCrossProtocolRedirects = allowCrossProtocolRedirects;
+		this.callFactory = callFactory;
+		this.cookies = cookies;
 		this.rangeParameterEnabled = rangeParameterEnabled;
 		this.rnParameterEnabled = rnParameterEnabled;
 		this.defaultRequestProperties = defaultRequestProperties;
 		this.requestProperties = new RequestProperties();
-		this.keepPostFor302Redirects = keepPostFor302Redirects;
 		this.userAgent = userAgent;
 		this.requestNumber = 0;
 	}
 
-	private static boolean isCompressed(HttpURLConnection connection) {
-		String contentEncoding = connection.getHeaderField("Content-Encoding");
-		return "gzip".equalsIgnoreCase(contentEncoding);
+	private static boolean isDebugLogging() {
+		return Log.isLoggable(TAG, Log.DEBUG);
+	}
+
+	private static boolean isCompressed(@NonNull Response response) {
+		return "gzip".equalsIgnoreCase(response.header(HttpHeaders.CONTENT_ENCODING));
 	}
 
 	@NonNull
@@ -114,19 +115,19 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 	@Override
 	@Nullable
 	public Uri getUri() {
-		return connection == null ? null : Uri.parse(connection.getURL().toString());
+		return response == null ? null : Uri.parse(response.request().url().toString());
 	}
 
 	@Override
 	public int getResponseCode() {
-		return connection == null || responseCode <= 0 ? -1 : responseCode;
+		return response == null ? -1 : response.code();
 	}
 
 	@NonNull
 	@Override
 	public Map<String, List<String>> getResponseHeaders() {
-		if (connection == null) return ImmutableMap.of();
-		return new NullFilteringHeadersMap(connection.getHeaderFields());
+		if (response == null) return ImmutableMap.of();
+		return new NullFilteringHeadersMap(response.headers().toMultimap());
 	}
 
 	@Override
@@ -153,34 +154,37 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 		bytesRead = 0;
 		bytesToRead = 0;
 		transferInitializing(dataSpecParameter);
-		Log.d(TAG, "open uri=" + dataSpecParameter.uri
-						+ " method=" + dataSpecParameter.httpMethod
-						+ " position=" + dataSpecParameter.position
-						+ " length=" + dataSpecParameter.length
-						+ " rangeParam=" + rangeParameterEnabled
-						+ " rnParam=" + rnParameterEnabled);
-
-		HttpURLConnection httpURLConnection;
-		String responseMessage;
+		if (isDebugLogging()) {
+			Log.d(TAG, "open uri=" + dataSpecParameter.uri
+							+ " method=" + dataSpecParameter.httpMethod
+							+ " position=" + dataSpecParameter.position
+							+ " length=" + dataSpecParameter.length
+							+ " rangeParam=" + rangeParameterEnabled
+							+ " rnParam=" + rnParameterEnabled);
+		}
+
+		Response okHttpResponse;
 		try {
-			this.connection = makeConnection(dataSpec);
-			httpURLConnection = this.connection;
-			responseCode = httpURLConnection.getResponseCode();
-			responseMessage = httpURLConnection.getResponseMessage();
+			okHttpResponse = execute(callFactory.newCall(makeRequest(dataSpecParameter)));
+			this.response = okHttpResponse;
 		} catch (IOException e) {
-			closeConnectionQuietly();
 			Log.e(TAG, "open failed uri=" + dataSpecParameter.uri, e);
-			throw HttpDataSourceException.createForIOException(e, dataSpec, HttpDataSourceException.TYPE_OPEN);
+			throw HttpDataSourceException.createForIOException(e, dataSpecParameter, HttpDataSourceException.TYPE_OPEN);
+		}
+		int responseCode = okHttpResponse.code();
+		ResponseBody body = okHttpResponse.body();
+
+		if (isDebugLogging()) {
+			Log.d(TAG, "response code=" + responseCode
+							+ " message=" + okHttpResponse.message()
+							+ " protocol=" + okHttpResponse.protocol()
+							+ " url=" + okHttpResponse.request().url());
 		}
-
-		Log.d(TAG, "response code=" + responseCode
-						+ " message=" + responseMessage
-						+ " url=" + httpURLConnection.getURL());
 
 		if (responseCode < 200 || responseCode > 299) {
-			final Map<String, List<String>> headers = httpURLConnection.getHeaderFields();
+			final Map<String, List<String>> headers = okHttpResponse.headers().toMultimap();
 			if (responseCode == 416) {
-				long documentSize = HttpUtil.getDocumentSize(httpURLConnection.getHeaderField(HttpHeaders.CONTENT_RANGE));
+				long documentSize = HttpUtil.getDocumentSize(okHttpResponse.header(HttpHeaders.CONTENT_RANGE));
 				if (dataSpecParameter.position == documentSize) {
 					opened = true;
 					transferStarted(dataSpecParameter);
@@ -188,50 +192,52 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 				}
 			}
 
-			InputStream errorStream = httpURLConnection.getErrorStream();
-			byte[] errorResponseBody = errorStream != null ? StreamIOUtils.readInputStreamToBytes(errorStream) : Util.EMPTY_BYTE_ARRAY;
+			byte[] errorResponseBody;
+			try {
+				errorResponseBody = body.bytes();
+			} catch (IOException e) {
+				errorResponseBody = Util.EMPTY_BYTE_ARRAY;
+			}
 			Log.w(TAG, "non-2xx response code=" + responseCode
-							+ " url=" + httpURLConnection.getURL()
-							+ " location=" + httpURLConnection.getHeaderField(HttpHeaders.LOCATION)
+							+ " url=" + okHttpResponse.request().url()
 							+ " errorBody=" + summarize(errorResponseBody));
 
 			closeConnectionQuietly();
 			IOException cause = responseCode == 416 ? new DataSourceException(PlaybackException.ERROR_CODE_IO_READ_POSITION_OUT_OF_RANGE) : null;
-			throw new InvalidResponseCodeException(responseCode, responseMessage, cause, headers, dataSpec, errorResponseBody);
+			throw new InvalidResponseCodeException(responseCode, okHttpResponse.message(), cause, headers, dataSpecParameter, errorResponseBody);
 		}
 
-
 		long bytesToSkip;
 		if (!rangeParameterEnabled)
 			bytesToSkip = responseCode == 200 && dataSpecParameter.position != 0 ? dataSpecParameter.position : 0;
 		else bytesToSkip = 0;
 
-		boolean isCompressed = isCompressed(httpURLConnection);
+		boolean isCompressed = isCompressed(okHttpResponse);
 		if (!isCompressed) {
 			if (dataSpecParameter.length != C.LENGTH_UNSET) bytesToRead = dataSpecParameter.length;
 			else {
-				long contentLength = HttpUtil.getContentLength(httpURLConnection.getHeaderField(HttpHeaders.CONTENT_LENGTH), httpURLConnection.getHeaderField(HttpHeaders.CONTENT_RANGE));
+				long contentLength = HttpUtil.getContentLength(okHttpResponse.header(HttpHeaders.CONTENT_LENGTH), okHttpResponse.header(HttpHeaders.CONTENT_RANGE));
 				bytesToRead = contentLength != C.LENGTH_UNSET ? (contentLength - bytesToSkip) : C.LENGTH_UNSET;
 			}
 		} else bytesToRead = dataSpecParameter.length;
 
 		try {
-			inputStream = httpURLConnection.getInputStream();
+			inputStream = body.byteStream();
 			if (isCompressed) inputStream = new GZIPInputStream(inputStream);
 		} catch (IOException e) {
 			closeConnectionQuietly();
-			throw new HttpDataSourceException(e, dataSpec, PlaybackException.ERROR_CODE_IO_UNSPECIFIED, HttpDataSourceException.TYPE_OPEN);
+			throw new HttpDataSourceException(e, dataSpecParameter, PlaybackException.ERROR_CODE_IO_UNSPECIFIED, HttpDataSourceException.TYPE_OPEN);
 		}
 
 		opened = true;
 		transferStarted(dataSpecParameter);
 
 		try {
-			skipFully(bytesToSkip, dataSpec);
+			skipFully(bytesToSkip, dataSpecParameter);
 		} catch (IOException e) {
 			closeConnectionQuietly();
 			if (e instanceof HttpDataSourceException) throw (HttpDataSourceException) e;
-			throw new HttpDataSourceException(e, dataSpec, PlaybackException.ERROR_CODE_IO_UNSPECIFIED, HttpDataSourceException.TYPE_OPEN);
+			throw new HttpDataSourceException(e, dataSpecParameter, PlaybackException.ERROR_CODE_IO_UNSPECIFIED, HttpDataSourceException.TYPE_OPEN);
 		}
 
 		return bytesToRead;
@@ -247,74 +253,55 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 	}
 
 	@Override
-	public void close() throws HttpDataSourceException {
-		try {
-			InputStream input = this.inputStream;
-			if (input != null) {
-				try {
-					input.close();
-				} catch (IOException e) {
-					throw new HttpDataSourceException(e, Util.castNonNull(dataSpec), PlaybackException.ERROR_CODE_IO_UNSPECIFIED, HttpDataSourceException.TYPE_CLOSE);
-				}
-			}
-		} finally {
-			inputStream = null;
-			closeConnectionQuietly();
-			if (opened) {
-				opened = false;
-				transferEnded();
-			}
+	public void close() {
+		inputStream = null;
+		closeConnectionQuietly();
+		if (opened) {
+			opened = false;
+			transferEnded();
 		}
 	}
 
+	/**
+	 * Runs {@code call} on the shared dispatcher and waits for its headers; an interrupt cancels the call.
+	 */
 	@NonNull
-	private HttpURLConnection makeConnection(@NonNull DataSpec dataSpecToUse) throws IOException {
-		URL url = new URL(dataSpecToUse.uri.toString());
-		@HttpMethod int httpMethod = dataSpecToUse.httpMethod;
-		long position = dataSpecToUse.position;
-		long length = dataSpecToUse.length;
-		boolean allowGzip = dataSpecToUse.isFlagSet(DataSpec.FLAG_ALLOW_GZIP);
+	private static Response execute(@NonNull Call call) throws IOException {
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(@NonNull Call call, @NonNull IOException e) {
+				future.completeExceptionally(e);
+			}
 
-		if (!allowCrossProtocolRedirects && !keepPostFor302Redirects)
-			return makeConnection(url, position, length, allowGzip, true, dataSpecToUse.httpRequestHeaders);
-
-		// Follow redirects manually so POST and range handling stay intact.
-		int redirectCount = 0;
-		while (redirectCount++ <= MAX_REDIRECTS) {
-			HttpURLConnection connection = makeConnection(url, position, length, allowGzip, false, dataSpecToUse.httpRequestHeaders);
-			int code = connection.getResponseCode();
-			String location = connection.getHeaderField(HttpHeaders.LOCATION);
-
-			if ((httpMethod == DataSpec.HTTP_METHOD_GET || httpMethod == DataSpec.HTTP_METHOD_HEAD)
-							&& (code == HttpURLConnection.HTTP_MULT_CHOICE
-							|| code == HttpURLConnection.HTTP_MOVED_PERM
-							|| code == HttpURLConnection.HTTP_MOVED_TEMP
-							|| code == HttpURLConnection.HTTP_SEE_OTHER
-							|| code == HTTP_STATUS_TEMPORARY_REDIRECT
-							|| code == HTTP_STATUS_PERMANENT_REDIRECT)) {
-				connection.disconnect();
-				url = handleRedirect(url, location, dataSpecToUse);
-			} else if (httpMethod == DataSpec.HTTP_METHOD_POST
-							&& (code == HttpURLConnection.HTTP_MULT_CHOICE
-							|| code == HttpURLConnection.HTTP_MOVED_PERM
-							|| code == HttpURLConnection.HTTP_MOVED_TEMP
-							|| code == HttpURLConnection.HTTP_SEE_OTHER)) {
-				connection.disconnect();
-				if (!(keepPostFor302Redirects && code == HttpURLConnection.HTTP_MOVED_TEMP)) {
-					httpMethod = DataSpec.HTTP_METHOD_GET;
-				}
-				url = handleRedirect(url, location, dataSpecToUse);
-			} else return connection;
+			@Override
+			public void onResponse(@NonNull Call call, @NonNull Response response) {
+				if (!future.complete(response)) response.close();
+			}
+		});
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			call.cancel();
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException io) throw io;
+			throw new IOException(cause);
 		}
-
-		throw new HttpDataSourceException(new NoRouteToHostException("Too many redirects: " + redirectCount), dataSpecToUse, PlaybackException.ERROR_CODE_IO_NETWORK_CONNECTION_FAILED, HttpDataSourceException.TYPE_OPEN);
 	}
 
 	@NonNull
-	private HttpURLConnection makeConnection(@NonNull URL url, long position, long length, boolean allowGzip, boolean followRedirects, final Map<String, String> requestParameters) throws IOException {
-		String requestUrl = url.toString();
+	private Request makeRequest(@NonNull DataSpec dataSpecToUse) {
+		String requestUrl = dataSpecToUse.uri.toString();
+		long position = dataSpecToUse.position;
+		long length = dataSpecToUse.length;
+		boolean allowGzip = dataSpecToUse.isFlagSet(DataSpec.FLAG_ALLOW_GZIP);
 
-		boolean isVideoPlaybackUrl = url.getPath().startsWith("/videoplayback");
+		String path = dataSpecToUse.uri.getPath();
+		boolean isVideoPlaybackUrl = path != null && path.startsWith("/videoplayback");
 		if (isVideoPlaybackUrl && rnParameterEnabled && !requestUrl.contains("&rn=")) {
 			requestUrl += "&rn=" + requestNumber;
 			++requestNumber;
@@ -323,79 +310,55 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 		if (rangeParameterEnabled && isVideoPlaybackUrl && (position != 0 || length != C.LENGTH_UNSET)) {
 			requestUrl += "&range=" + position + (length != C.LENGTH_UNSET ? "-" + (position + length - 1) : "-");
 		}
-		Log.d(TAG, "connect url=" + requestUrl
-						+ " followRedirects=" + followRedirects
-						+ " isVideoPlayback=" + isVideoPlaybackUrl
-						+ " headers=" + requestParameters.size());
+		if (isDebugLogging()) {
+			Log.d(TAG, "connect url=" + requestUrl
+							+ " isVideoPlayback=" + isVideoPlaybackUrl
+							+ " headers=" + dataSpecToUse.httpRequestHeaders.size());
+		}
 
-		HttpURLConnection conn = (HttpURLConnection) new URL(requestUrl).openConnection();
-		conn.setConnectTimeout(connectTimeoutMillis);
-		conn.setReadTimeout(readTimeoutMillis);
+		Request.Builder builder = new Request.Builder().url(requestUrl);
 
 		Map<String, String> requestHeaders = new HashMap<>();
 		if (defaultRequestProperties != null)
 			requestHeaders.putAll(defaultRequestProperties.getSnapshot());
 		requestHeaders.putAll(requestProperties.getSnapshot());
-		requestHeaders.putAll(requestParameters);
+		requestHeaders.putAll(dataSpecToUse.httpRequestHeaders);
 
-		String cookies = CookieManager.getInstance().getCookie(requestUrl);
-		if (cookies != null && !cookies.isEmpty())
-			requestHeaders.put(HttpHeaders.COOKIE, cookies);
+		String cookie = cookies != null ? cookies.getCookie(requestUrl) : null;
+		if (cookie != null && !cookie.isEmpty())
+			requestHeaders.put(HttpHeaders.COOKIE, cookie);
 
 		for (final Map.Entry<String, String> property : requestHeaders.entrySet())
-			conn.setRequestProperty(property.getKey(), property.getValue());
+			builder.header(property.getKey(), property.getValue());
 
 		if (!rangeParameterEnabled) {
 			String rangeHeader = HttpUtil.buildRangeRequestHeader(position, length);
-			if (rangeHeader != null) conn.setRequestProperty(HttpHeaders.RANGE, rangeHeader);
+			if (rangeHeader != null) builder.header(HttpHeaders.RANGE, rangeHeader);
 		}
 
 		if (isWebStreamingUrl(requestUrl) || isWebEmbeddedPlayerStreamingUrl(requestUrl)) {
-			conn.setRequestProperty(HttpHeaders.ORIGIN, "https://www.youtube.com");
-			conn.setRequestProperty(HttpHeaders.REFERER, "https://www.youtube.com");
-			conn.setRequestProperty(HttpHeaders.SEC_FETCH_DEST, "empty");
-			conn.setRequestProperty(HttpHeaders.SEC_FETCH_MODE, "cors");
-			conn.setRequestProperty(HttpHeaders.SEC_FETCH_SITE, "cross-site");
+			builder.header(HttpHeaders.ORIGIN, "https://www.youtube.com");
+			builder.header(HttpHeaders.REFERER, "https://www.youtube.com");
+			builder.header(HttpHeaders.SEC_FETCH_DEST, "empty");
+			builder.header(HttpHeaders.SEC_FETCH_MODE, "cors");
+			builder.header(HttpHeaders.SEC_FETCH_SITE, "cross-site");
 		}
 
-		conn.setRequestProperty(HttpHeaders.TE, "trailers");
-		conn.setRequestProperty(HttpHeaders.ACCEPT, "*/*");
+		builder.header(HttpHeaders.TE, "trailers");
+		builder.header(HttpHeaders.ACCEPT, "*/*");
 
-		boolean isAndroidStreamingUrl = isAndroidStreamingUrl(requestUrl);
-		boolean isIosStreamingUrl = isIosStreamingUrl(requestUrl);
-		if (isAndroidStreamingUrl)
-			conn.setRequestProperty(HttpHeaders.USER_AGENT, getAndroidUserAgent(null));
-		else if (isIosStreamingUrl)
-			conn.setRequestProperty(HttpHeaders.USER_AGENT, getIosUserAgent(null));
+		if (isAndroidStreamingUrl(requestUrl))
+			builder.header(HttpHeaders.USER_AGENT, getAndroidUserAgent(null));
+		else if (isIosStreamingUrl(requestUrl))
+			builder.header(HttpHeaders.USER_AGENT, getIosUserAgent(null));
 		else
-			conn.setRequestProperty(HttpHeaders.USER_AGENT, userAgent);
-
-		conn.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, allowGzip ? "gzip" : "identity");
-		conn.setInstanceFollowRedirects(followRedirects);
-		if (isVideoPlaybackUrl) {
-			conn.setRequestMethod("POST");
-			conn.setDoOutput(true);
-			conn.setFixedLengthStreamingMode(POST_BODY.length);
-			try (OutputStream os = conn.getOutputStream()) {
-				os.write(POST_BODY);
-			}
-		} else {
-			conn.setRequestMethod("GET");
-			conn.connect();
-		}
-		return conn;
-	}
-
-	@NonNull
-	private URL handleRedirect(URL originalUrl, @Nullable String location, DataSpec dataSpecToHandleRedirect) throws HttpDataSourceException {
-		if (location == null)
-			throw new HttpDataSourceException("Null location redirect", dataSpecToHandleRedirect, PlaybackException.ERROR_CODE_IO_NETWORK_CONNECTION_FAILED, HttpDataSourceException.TYPE_OPEN);
+			builder.header(HttpHeaders.USER_AGENT, userAgent);
 
-		try {
-			return new URL(originalUrl, location);
-		} catch (MalformedURLException e) {
-			throw new HttpDataSourceException(e, dataSpecToHandleRedirect, PlaybackException.ERROR_CODE_IO_NETWORK_CONNECTION_FAILED, HttpDataSourceException.TYPE_OPEN);
-		}
+		// Set explicitly so OkHttp leaves the body encoded; gzip is unwrapped in open().
+		builder.header(HttpHeaders.ACCEPT_ENCODING, allowGzip ? "gzip" : "identity");
+		if (isVideoPlaybackUrl) builder.post(RequestBody.create(POST_BODY, null));
+		else builder.get();
+		return builder.build();
 	}
 
 	private void skipFully(long bytesToSkip, DataSpec dataSpec) throws IOException {
@@ -434,38 +397,43 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 	}
 
 	private void closeConnectionQuietly() {
-		if (connection != null) {
+		if (response != null) {
 			try {
-				connection.disconnect();
+				response.close();
 			} catch (Exception e) {
-				Log.e(TAG, "Unexpected error while disconnecting", e);
+				Log.e(TAG, "Unexpected error while closing response", e);
 			}
-			connection = null;
+			response = null;
 		}
 	}
 
 /**
- * Component that handles app logic.
+ * Factory for data sources that share one OkHttp client; the timeouts are applied to a client derived
+ * from the shared one, which keeps its connection pool and dispatcher but skips its disk cache.
  */
 	public static final class Factory implements HttpDataSource.Factory {
 
+		@NonNull
+		private final OkHttpClient sharedClient;
+		@Nullable
+		private final CookieAccessCoordinator cookies;
 		private final RequestProperties defaultRequestProperties;
-		private final boolean allowCrossProtocolRedirects;
-		private final boolean keepPostFor302Redirects;
 		private final String userAgent;
 		private boolean rangeParameterEnabled;
 		private boolean rnParameterEnabled;
 
 		private int connectTimeoutMs;
 		private int readTimeoutMs;
+		@Nullable
+		private OkHttpClient client;
 
-		public Factory(String userAgent) {
+		public Factory(@NonNull OkHttpClient sharedClient, @Nullable CookieAccessCoordinator cookies, String userAgent) {
+			this.sharedClient = sharedClient;
+			this.cookies = cookies;
 			this.userAgent = userAgent;
 			defaultRequestProperties = new RequestProperties();
 			connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MILLIS;
 			readTimeoutMs = DEFAULT_READ_TIMEOUT_MILLIS;
-			allowCrossProtocolRedirects = false;
-			keepPostFor302Redirects = false;
 			rangeParameterEnabled = false;
 			rnParameterEnabled = false;
 		}
@@ -479,11 +447,13 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 
 		public Factory setConnectTimeoutMs(int connectTimeoutMsValue) {
 			connectTimeoutMs = connectTimeoutMsValue;
+			client = null;
 			return this;
 		}
 
 		public Factory setReadTimeoutMs(int readTimeoutMsValue) {
 			readTimeoutMs = readTimeoutMsValue;
+			client = null;
 			return this;
 		}
 
@@ -500,7 +470,20 @@ public final class YoutubeHttpDataSource extends BaseDataSource implements HttpD
 		@NonNull
 		@Override
 		public YoutubeHttpDataSource createDataSource() {
-			return new YoutubeHttpDataSource(connectTimeoutMs, readTimeoutMs, allowCrossProtocolRedirects, rangeParameterEnabled, rnParameterEnabled, defaultRequestProperties, keepPostFor302Redirects, userAgent);
+			return new YoutubeHttpDataSource(client(), cookies, rangeParameterEnabled, rnParameterEnabled, defaultRequestProperties, userAgent);
+		}
+
+		@NonNull
+		private synchronized OkHttpClient client() {
+			if (client == null) {
+				// Media3's SimpleCache stores stream bytes; the HTTP cache would only duplicate them.
+				client = sharedClient.newBuilder()
+								.cache(null)
+								.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+								.readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+								.build();
+			}
+			return client;
 		}
 	}
 }
@@ -0,0 +1,64 @@
+package com.hhst.youtubelite.player.queue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Value object for one structural queue edit, numbered by the queue revision it produced.
+ * Positions refer to the list as it was right before the edit; a clear carries the removed count in {@code to}.
+ */
+public record QueueChange(@NonNull Type type,
+                          long revision,
+                          int from,
+                          int to,
+                          @Nullable QueueItem item) {
+	public QueueChange {
+		Objects.requireNonNull(type);
+		item = item != null ? item.copy() : null;
+	}
+
+	@NonNull
+	static QueueChange insert(final long revision, final int index, @NonNull QueueItem item) {
+		return new QueueChange(Type.INSERT, revision, index, index, item);
+	}
+
+	@NonNull
+	static QueueChange remove(final long revision, final int index) {
+		return new QueueChange(Type.REMOVE, revision, index, index, null);
+	}
+
+	@NonNull
+	static QueueChange move(final long revision, final int from, final int to) {
+		return new QueueChange(Type.MOVE, revision, from, to, null);
+	}
+
+	@NonNull
+	static QueueChange clear(final long revision, final int size) {
+		return new QueueChange(Type.CLEAR, revision, 0, size, null);
+	}
+
+	/**
+	 * Replays this edit on a list that mirrors the queue at {@code revision - 1}.
+	 */
+	public void applyTo(@NonNull List<QueueItem> items) {
+		switch (type) {
+			case INSERT -> items.add(from, Objects.requireNonNull(item).copy());
+			case REMOVE -> items.remove(from);
+			case MOVE -> items.add(to, items.remove(from));
+			case CLEAR -> items.clear();
+		}
+	}
+
+/**
+ * Kind of structural edit.
+ */
+	public enum Type {
+		INSERT,
+		REMOVE,
+		MOVE,
+		CLEAR
+	}
+}
@@ -10,48 +10,89 @@ import com.google.gson.reflect.TypeToken;
 import com.tencent.mmkv.MMKV;
 
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
- * Repository that persists the playback queue in MMKV.
+ * Repository that owns the playback queue in memory and persists it to MMKV behind a short delay.
+ * Lookups use a video id index; a burst of edits, such as the moves of one drag, is written once.
+ * Every edit is also logged as a {@link QueueChange} so observers can patch their lists instead of rebuilding.
  */
 @Singleton
 public final class QueueRepository {
 	static final String KEY_QUEUE_ITEMS = "local_queue_items";
 	static final String KEY_QUEUE_ENABLED = "local_queue_enabled";
+	static final long WRITE_DELAY_MS = 500L;
+	static final int MAX_LOGGED_CHANGES = 128;
 	private static final Type LIST_TYPE = new TypeToken<List<QueueItem>>() {
 	}.getType();
 
 	@NonNull
-	private final MMKV mmkv;
+	private final Backend backend;
 	@NonNull
 	private final Gson gson;
 	@NonNull
+	private final ScheduledExecutorService writer;
+	private final long writeDelayMs;
+	@NonNull
+	private final Object writeLock = new Object();
+	@NonNull
 	private final List<QueueInvalidationListener> listeners = new ArrayList<>();
 	@NonNull
 	private final MutableLiveData<QueueState> state;
+	@NonNull
+	private final List<QueueItem> items;
+	@NonNull
+	private final Map<String, Integer> positions = new HashMap<>();
+	@NonNull
+	private final ArrayDeque<QueueChange> changes = new ArrayDeque<>();
+	private boolean enabled;
+	private long revision;
+	private long writtenRevision;
+	private boolean writePending;
 
 	@Inject
 	public QueueRepository(@NonNull MMKV mmkv, @NonNull Gson gson) {
-		this.mmkv = mmkv;
-		this.gson = gson;
+		this(new MmkvBackend(mmkv), gson, Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "queue-store");
+			thread.setDaemon(true);
+			return thread;
+		}), WRITE_DELAY_MS);
+	}
+
+	QueueRepository(@NonNull Backend backend,
+	                @NonNull Gson gson,
+	                @NonNull ScheduledExecutorService writer,
+	                final long writeDelayMs) {
+		this.backend = Objects.requireNonNull(backend);
+		this.gson = Objects.requireNonNull(gson);
+		this.writer = Objects.requireNonNull(writer);
+		this.writeDelayMs = writeDelayMs;
+		this.enabled = backend.getBool(KEY_QUEUE_ENABLED);
+		this.items = readItems();
+		reindex(0, items.size() - 1);
 		this.state = new MutableLiveData<>(snapshotState());
 	}
 
 	public synchronized boolean isEnabled() {
-		return mmkv.decodeBool(KEY_QUEUE_ENABLED, false);
+		return enabled;
 	}
 
 	public void setEnabled(boolean enabled) {
 		synchronized (this) {
-			mmkv.encode(KEY_QUEUE_ENABLED, enabled);
+			this.enabled = enabled;
+			backend.putBool(KEY_QUEUE_ENABLED, enabled);
 		}
 		notifyListeners();
 	}
@@ -73,7 +114,6 @@ public final class QueueRepository {
 
 	@NonNull
 	public synchronized List<QueueItem> getItems() {
-		List<QueueItem> items = readItems();
 		List<QueueItem> out = new ArrayList<>(items.size());
 		for (QueueItem item : items) {
 			out.add(item.copy());
@@ -83,77 +123,90 @@ public final class QueueRepository {
 
 	public void add(@NonNull QueueItem item) {
 		synchronized (this) {
-			List<QueueItem> items = readItems();
-			items.removeIf(it -> sameVideo(it, item));
+			Integer existing = item.getVideoId() == null ? null : positions.get(item.getVideoId());
+			if (existing != null) {
+				removeAt(existing);
+				log(QueueChange.remove(++revision, existing));
+			}
 			items.add(item.copy());
-			writeItems(items);
+			reindex(items.size() - 1, items.size() - 1);
+			log(QueueChange.insert(++revision, items.size() - 1, item));
+			scheduleWrite();
 		}
 		notifyListeners();
 	}
 
 	public boolean remove(@NonNull String videoId) {
-		boolean removed = false;
 		synchronized (this) {
-			List<QueueItem> items = readItems();
-			Iterator<QueueItem> iterator = items.iterator();
-			while (iterator.hasNext()) {
-				if (Objects.equals(iterator.next().getVideoId(), videoId)) {
-					iterator.remove();
-					removed = true;
-					break;
-				}
-			}
-			if (removed) {
-				writeItems(items);
-			}
-		}
-		if (removed) {
-			notifyListeners();
+			Integer index = positions.get(videoId);
+			if (index == null) return false;
+			removeAt(index);
+			log(QueueChange.remove(++revision, index));
+			scheduleWrite();
 		}
-		return removed;
+		notifyListeners();
+		return true;
 	}
 
 	public boolean move(int fromIndex, int toIndex) {
+		synchronized (this) {
+			if (!isValidIndex(fromIndex, items.size()) || !isValidIndex(toIndex, items.size()) || fromIndex == toIndex) {
+				return false;
+			}
+			QueueItem item = items.remove(fromIndex);
+			items.add(toIndex, item);
+			reindex(Math.min(fromIndex, toIndex), Math.max(fromIndex, toIndex));
+			log(QueueChange.move(++revision, fromIndex, toIndex));
+			scheduleWrite();
+		}
+		notifyListeners();
+		return true;
+	}
+
+	/**
+	 * Moves queued items into the given video id order, such as the result of one drag gesture.
+	 * Each displaced item is logged as a move, but observers are notified once for the whole reorder.
+	 */
+	public boolean reorder(@NonNull List<String> order) {
 		boolean moved = false;
 		synchronized (this) {
-			List<QueueItem> items = readItems();
-			if (isValidIndex(fromIndex, items.size()) && isValidIndex(toIndex, items.size()) && fromIndex != toIndex) {
-				QueueItem item = items.remove(fromIndex);
-				items.add(toIndex, item);
-				writeItems(items);
+			for (int to = 0; to < order.size() && to < items.size(); to++) {
+				int from = indexOf(order.get(to));
+				if (from < 0 || from == to) continue;
+				QueueItem item = items.remove(from);
+				items.add(to, item);
+				reindex(Math.min(from, to), Math.max(from, to));
+				log(QueueChange.move(++revision, from, to));
 				moved = true;
 			}
+			if (moved) scheduleWrite();
 		}
-		if (moved) {
-			notifyListeners();
-		}
+		if (moved) notifyListeners();
 		return moved;
 	}
 
 	public synchronized boolean containsVideo(@Nullable String videoId) {
-		if (videoId == null) return false;
-		for (QueueItem item : readItems()) {
-			if (Objects.equals(item.getVideoId(), videoId)) return true;
-		}
-		return false;
+		return videoId != null && positions.containsKey(videoId);
 	}
 
 	public synchronized boolean hasItems() {
-		return !readItems().isEmpty();
+		return !items.isEmpty();
 	}
 
 	public void clear() {
 		synchronized (this) {
-			mmkv.removeValueForKey(KEY_QUEUE_ITEMS);
+			log(QueueChange.clear(++revision, items.size()));
+			items.clear();
+			positions.clear();
+			scheduleWrite();
 		}
 		notifyListeners();
 	}
 
 	@Nullable
 	public synchronized QueueItem findRelative(@Nullable String videoId, int offset) {
-		List<QueueItem> items = readItems();
 		if (items.isEmpty() || offset == 0) return null;
-		int index = indexOf(items, videoId);
+		int index = indexOf(videoId);
 		if (index < 0) {
 			return offset > 0 ? items.get(0).copy() : items.get(items.size() - 1).copy();
 		}
@@ -170,40 +223,80 @@ public final class QueueRepository {
 
 	@Nullable
 	public synchronized QueueItem findRandom(@Nullable String videoId) {
-		List<QueueItem> items = readItems();
 		if (items.isEmpty()) return null;
 		if (items.size() == 1) return items.get(0).copy();
-		int index = indexOf(items, videoId);
-		List<QueueItem> candidates = new ArrayList<>(items);
-		if (index >= 0) candidates.remove(index);
-		if (candidates.isEmpty()) return items.get(0).copy();
-		return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size())).copy();
+		int index = indexOf(videoId);
+		if (index < 0) return items.get(ThreadLocalRandom.current().nextInt(items.size())).copy();
+		// Draw from the other positions without building a candidate list.
+		int pick = ThreadLocalRandom.current().nextInt(items.size() - 1);
+		return items.get(pick >= index ? pick + 1 : pick).copy();
+	}
+
+	/**
+	 * Writes any pending edits now instead of waiting for the write-behind delay.
+	 */
+	public void flush() {
+		synchronized (writeLock) {
+			final String json;
+			final long target;
+			synchronized (this) {
+				writePending = false;
+				if (writtenRevision == revision) return;
+				target = revision;
+				json = items.isEmpty() ? null : gson.toJson(items, LIST_TYPE);
+			}
+			if (json == null) backend.remove(KEY_QUEUE_ITEMS);
+			else backend.putString(KEY_QUEUE_ITEMS, json);
+			synchronized (this) {
+				writtenRevision = target;
+			}
+		}
 	}
 
 	private boolean isValidIndex(int index, int size) {
 		return index >= 0 && index < size;
 	}
 
-	private int indexOf(@NonNull List<QueueItem> items, @Nullable String videoId) {
+	private int indexOf(@Nullable String videoId) {
 		if (videoId == null) return -1;
-		for (int i = 0; i < items.size(); i++) {
-			if (Objects.equals(items.get(i).getVideoId(), videoId)) return i;
+		Integer index = positions.get(videoId);
+		return index != null ? index : -1;
+	}
+
+	private void removeAt(final int index) {
+		QueueItem removed = items.remove(index);
+		if (removed.getVideoId() != null) positions.remove(removed.getVideoId());
+		reindex(index, items.size() - 1);
+	}
+
+	/**
+	 * Refreshes the index for positions {@code from..to} after items shifted.
+	 */
+	private void reindex(final int from, final int to) {
+		for (int i = from; i <= to; i++) {
+			String videoId = items.get(i).getVideoId();
+			if (videoId != null) positions.put(videoId, i);
 		}
-		return -1;
 	}
 
-	private boolean sameVideo(@NonNull QueueItem first, @NonNull QueueItem second) {
-		if (first.getVideoId() == null || second.getVideoId() == null) return false;
-		return Objects.equals(first.getVideoId(), second.getVideoId());
+	private void log(@NonNull QueueChange change) {
+		if (changes.size() == MAX_LOGGED_CHANGES) changes.removeFirst();
+		changes.addLast(change);
+	}
+
+	private void scheduleWrite() {
+		if (writePending) return;
+		writePending = true;
+		writer.schedule(this::flush, writeDelayMs, TimeUnit.MILLISECONDS);
 	}
 
 	@NonNull
 	private List<QueueItem> readItems() {
-		String json = mmkv.decodeString(KEY_QUEUE_ITEMS, null);
+		String json = backend.getString(KEY_QUEUE_ITEMS);
 		if (json == null || json.isBlank()) return new ArrayList<>();
 		try {
 			List<QueueItem> items = gson.fromJson(json, LIST_TYPE);
-			return items != null ? items : new ArrayList<>();
+			return items != null ? new ArrayList<>(items) : new ArrayList<>();
 		} catch (Exception ignored) {
 			return new ArrayList<>();
 		}
@@ -222,12 +315,62 @@ public final class QueueRepository {
 		}
 	}
 
-	private void writeItems(@NonNull List<QueueItem> items) {
-		mmkv.encode(KEY_QUEUE_ITEMS, gson.toJson(items, LIST_TYPE));
+	/**
+	 * Returns the current queue as a snapshot, for callers that cannot wait for {@link #getState()}.
+	 */
+	@NonNull
+	public synchronized QueueState snapshotState() {
+		return new QueueState(enabled, items, revision, new ArrayList<>(changes));
 	}
 
-	@NonNull
-	private synchronized QueueState snapshotState() {
-		return new QueueState(isEnabled(), readItems());
+/**
+ * Contract for queue storage.
+ */
+	interface Backend {
+		@Nullable
+		String getString(@NonNull String key);
+
+		void putString(@NonNull String key, @NonNull String value);
+
+		boolean getBool(@NonNull String key);
+
+		void putBool(@NonNull String key, boolean value);
+
+		void remove(@NonNull String key);
+	}
+
+/**
+ * Value object for app logic.
+ */
+	private record MmkvBackend(@NonNull MMKV kv) implements Backend {
+		private MmkvBackend {
+			Objects.requireNonNull(kv);
+		}
+
+		@Override
+		@Nullable
+		public String getString(@NonNull String key) {
+			return kv.decodeString(key, null);
+		}
+
+		@Override
+		public void putString(@NonNull String key, @NonNull String value) {
+			kv.encode(key, value);
+		}
+
+		@Override
+		public boolean getBool(@NonNull String key) {
+			return kv.decodeBool(key, false);
+		}
+
+		@Override
+		public void putBool(@NonNull String key, boolean value) {
+			kv.encode(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			kv.removeValueForKey(key);
+		}
 	}
 }
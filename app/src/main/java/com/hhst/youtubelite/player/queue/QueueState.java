@@ -1,20 +1,42 @@
 package com.hhst.youtubelite.player.queue;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Snapshot of queue enablement and items.
+ * Snapshot of queue enablement and items, with the recent edits that led to it.
+ * {@code changes} holds the newest edits in order, ending at {@code revision}.
  */
-public record QueueState(boolean enabled, @NonNull List<QueueItem> items) {
+public record QueueState(boolean enabled,
+                         @NonNull List<QueueItem> items,
+                         long revision,
+                         @NonNull List<QueueChange> changes) {
 	public QueueState {
 		List<QueueItem> copies = new ArrayList<>(items.size());
 		for (QueueItem item : items) {
 			copies.add(item.copy());
 		}
 		items = Collections.unmodifiableList(copies);
+		changes = List.copyOf(changes);
+	}
+
+	public QueueState(boolean enabled, @NonNull List<QueueItem> items) {
+		this(enabled, items, 0L, List.of());
+	}
+
+	/**
+	 * Returns the edits that turn the queue at {@code since} into this snapshot, or null when
+	 * they are no longer retained and the caller has to diff the items instead.
+	 */
+	@Nullable
+	public List<QueueChange> changesSince(final long since) {
+		if (since == revision) return List.of();
+		if (since > revision || changes.isEmpty() || changes.get(0).revision() > since + 1) return null;
+		int start = (int) (since + 1 - changes.get(0).revision());
+		return changes.subList(start, changes.size());
 	}
 }
@@ -11,7 +11,6 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
-import android.os.SystemClock;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.TextView;
@@ -183,34 +182,39 @@ public final class MainActivity extends AppCompatActivity implements LifecycleEv
 		};
 		getOnBackPressedDispatcher().addCallback(this, appBackCallback);
 
-		// Initialize potoken dependency and open home page.
-		long startupDeadlineMs = SystemClock.uptimeMillis() + 4_000L;
-
-		mainView.post(new Runnable() {
-			@Override
-			public void run() {
-				if (bootstrapped) {
-					handleIntent(getIntent());
-					return;
-				}
-				poTokenHost.prewarm();
-				if (tabManager.getWebView() == null) {
-					String initialUrl = restoredUrl;
-					if (initialUrl == null || initialUrl.isBlank()) {
-						initialUrl = Constant.HOME_URL;
-					}
-					tabManager.openTab(initialUrl, UrlUtils.getPageClass(initialUrl));
-				}
-				if (!poTokenHost.isReady() && SystemClock.uptimeMillis() < startupDeadlineMs) {
-					handler.postDelayed(this, 100L);
-					return;
-				}
-				bootstrapped = true;
+		// Open the home page right away; extraction waits for the potoken host off the main thread when it has to.
+		String initialUrl = restoredUrl;
+		if (initialUrl == null || initialUrl.isBlank()) {
+			initialUrl = Constant.HOME_URL;
+		}
+		poTokenHost.schedulePrewarm(warmUpPointFor(getIntent(), initialUrl));
+		String startUrl = initialUrl;
+		mainView.post(() -> {
+			if (bootstrapped) {
 				handleIntent(getIntent());
+				return;
+			}
+			if (tabManager.getWebView() == null) {
+				tabManager.openTab(startUrl, UrlUtils.getPageClass(startUrl));
 			}
+			bootstrapped = true;
+			handleIntent(getIntent());
 		});
 	}
 
+	/**
+	 * Launches that lead straight to a video warm the potoken host after the first frame, others once idle.
+	 */
+	@NonNull
+	static PoTokenHost.WarmUpPoint warmUpPointFor(@Nullable Intent intent, @NonNull String initialUrl) {
+		String action = intent != null ? intent.getAction() : null;
+		boolean opensVideo = Intent.ACTION_VIEW.equals(action)
+						|| Intent.ACTION_SEND.equals(action)
+						|| "TRIGGER_DOWNLOAD_FROM_SHARE".equals(action)
+						|| Constant.PAGE_WATCH.equals(UrlUtils.getPageClass(initialUrl));
+		return opensVideo ? PoTokenHost.WarmUpPoint.FIRST_FRAME : PoTokenHost.WarmUpPoint.IDLE;
+	}
+
 	@Override
 	protected void onNewIntent(@NonNull Intent intent) {
 		super.onNewIntent(intent);
@@ -338,11 +342,13 @@ public final class MainActivity extends AppCompatActivity implements LifecycleEv
 			@Override
 			public void onDragStateChanged(boolean dragging) {
 				if (sheet.behavior != null) sheet.behavior.setDraggable(!dragging);
+				if (dragging) adapter.beginDrag();
 			}
 
 			@Override
 			public void onDragFinished() {
 				viewModel.moveQueue(adapter.snapshotItems());
+				adapter.endDrag(queueRepository.snapshotState(), uiState().videoId());
 				if (sheet.behavior != null) sheet.behavior.setDraggable(true);
 			}
 		})).attachToRecyclerView(recyclerView);
@@ -475,8 +481,7 @@ public final class MainActivity extends AppCompatActivity implements LifecycleEv
 		final MainActivityViewModel.UiState state = viewModel.getState().getValue();
 		if (state != null) return state;
 		return new MainActivityViewModel.UiState(
-						queueRepository.isEnabled(),
-						queueRepository.getItems(),
+						queueRepository.snapshotState(),
 						player.getVideoId(),
 						player.getLoopMode(),
 						player.isInMiniPlayer());
@@ -489,7 +494,7 @@ public final class MainActivity extends AppCompatActivity implements LifecycleEv
 			sheet.enabledSwitch.setChecked(state.queueEnabled());
 		}
 		renderLoop(sheet.orderButton, state.loopMode());
-		sheet.adapter.replaceItems(state.items(), state.videoId());
+		sheet.adapter.submit(state.queue(), state.videoId());
 		boolean empty = state.items().isEmpty();
 		sheet.emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
 		sheet.recyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
@@ -637,6 +642,8 @@ public final class MainActivity extends AppCompatActivity implements LifecycleEv
 		if (player != null && player.isInMiniPlayer() && !isChangingConfigurations() && !DeviceUtils.isInPictureInPictureMode(this)) {
 			player.suspendInAppMiniPlayerUiIfNeeded();
 		}
+		// Persist queue edits still waiting for write-behind before the process may be killed.
+		queueRepository.flush();
 		super.onStop();
 	}
 
@@ -16,7 +16,6 @@ import com.hhst.youtubelite.player.queue.QueueState;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 import javax.inject.Inject;
 
@@ -77,29 +76,16 @@ public final class MainActivityViewModel extends ViewModel {
 	}
 
 	public void moveQueue(@NonNull List<QueueItem> order) {
-		List<QueueItem> items = new ArrayList<>(queueRepository.getItems());
-		for (int to = 0; to < order.size(); to++) {
-			String videoId = order.get(to).getVideoId();
-			if (videoId == null) continue;
-			int from = -1;
-			for (int i = 0; i < items.size(); i++) {
-				if (Objects.equals(videoId, items.get(i).getVideoId())) {
-					from = i;
-					break;
-				}
-			}
-			if (from < 0 || from == to) continue;
-			if (queueRepository.move(from, to)) {
-				QueueItem item = items.remove(from);
-				items.add(to, item);
-			}
+		List<String> videoIds = new ArrayList<>(order.size());
+		for (QueueItem item : order) {
+			videoIds.add(item.getVideoId());
 		}
+		queueRepository.reorder(videoIds);
 	}
 
 	private void publish() {
 		state.setValue(new UiState(
-						queue.enabled(),
-						queue.items(),
+						queue,
 						player.videoId(),
 						loopMode,
 						player.miniPlayer()));
@@ -108,10 +94,17 @@ public final class MainActivityViewModel extends ViewModel {
 /**
  * Value object for app logic.
  */
-	public record UiState(boolean queueEnabled,
-	                      @NonNull List<QueueItem> items,
+	public record UiState(@NonNull QueueState queue,
 	                      @Nullable String videoId,
 	                      @NonNull PlayerLoopMode loopMode,
 	                      boolean miniPlayer) {
+		public boolean queueEnabled() {
+			return queue.enabled();
+		}
+
+		@NonNull
+		public List<QueueItem> items() {
+			return queue.items();
+		}
 	}
 }
@@ -1,5 +1,7 @@
 package com.hhst.youtubelite.ui.queue;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,37 +11,87 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.hhst.youtubelite.R;
+import com.hhst.youtubelite.player.queue.QueueChange;
 import com.hhst.youtubelite.player.queue.QueueItem;
+import com.hhst.youtubelite.player.queue.QueueState;
 import com.hhst.youtubelite.util.ImageUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Adapter that binds queue items into the bottom sheet list.
+ * Snapshots are applied as item-level notifications from the queue change log; when the log
+ * does not cover the gap, or the list was reordered locally by a drag, the items are diffed
+ * off the main thread instead.
  */
 public final class QueueAdapter extends RecyclerView.Adapter<QueueAdapter.ViewHolder> {
+	private static final Object PAYLOAD_PLAYING = new Object();
+	private static final ExecutorService DIFFER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "queue-diff");
+		thread.setDaemon(true);
+		return thread;
+	});
 	@NonNull
 	private final List<QueueItem> items = new ArrayList<>();
 	@NonNull
 	private final Actions actions;
+	@NonNull
+	private final Handler handler = new Handler(Looper.getMainLooper());
 	@Nullable
 	private String playingId;
+	private long revision = -1L;
+	private long diffRevision = -1L;
+	private int diffGeneration;
+	private boolean dragging;
+	private boolean localEdits;
 
 	public QueueAdapter(@NonNull Actions actions) {
 		this.actions = actions;
 	}
 
-	public void replaceItems(@NonNull List<QueueItem> newItems, @Nullable String playingId) {
-		items.clear();
-		for (QueueItem item : newItems) {
-			items.add(item.copy());
+	/**
+	 * Brings the list to {@code state}. Must be called on the main thread.
+	 */
+	public void submit(@NonNull QueueState state, @Nullable String playingId) {
+		updatePlaying(playingId);
+		if (dragging) {
+			// Keep the dragged rows still; the snapshot is reconciled when the drag ends.
+			return;
 		}
-		this.playingId = playingId;
-		notifySafe(this::notifyDataSetChanged);
+		long target = Math.max(revision, diffRevision);
+		if (state.revision() < target || (state.revision() == target && !localEdits)) return;
+		if (diffRevision < 0 && !localEdits) {
+			if (items.isEmpty() && revision < 0) {
+				items.addAll(state.items());
+				revision = state.revision();
+				notifyItemRangeInserted(0, items.size());
+				return;
+			}
+			List<QueueChange> changes = state.changesSince(revision);
+			if (changes != null && apply(changes, state)) return;
+		}
+		diff(state);
+	}
+
+	public void beginDrag() {
+		dragging = true;
+	}
+
+	/**
+	 * Ends a drag and reconciles the locally reordered rows with {@code current}, which should
+	 * already include the moves the drag produced.
+	 */
+	public void endDrag(@NonNull QueueState current, @Nullable String playingId) {
+		dragging = false;
+		submit(current, playingId);
 	}
 
 	public boolean moveItem(int from, int to) {
@@ -48,7 +100,11 @@ public final class QueueAdapter extends RecyclerView.Adapter<QueueAdapter.ViewHo
 		}
 		QueueItem moved = items.remove(from);
 		items.add(to, moved);
-		notifySafe(() -> notifyItemMoved(from, to));
+		// Any diff in flight was computed against the old order.
+		localEdits = true;
+		diffGeneration++;
+		diffRevision = -1L;
+		notifyItemMoved(from, to);
 		return true;
 	}
 
@@ -74,16 +130,93 @@ public final class QueueAdapter extends RecyclerView.Adapter<QueueAdapter.ViewHo
 		holder.bind(items.get(position), playingId, actions);
 	}
 
+	@Override
+	public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+		if (payloads.size() == 1 && payloads.get(0) == PAYLOAD_PLAYING) {
+			holder.bindPlaying(items.get(position), playingId);
+			return;
+		}
+		onBindViewHolder(holder, position);
+	}
+
 	@Override
 	public int getItemCount() {
 		return items.size();
 	}
 
-	private void notifySafe(@NonNull Runnable task) {
-		try {
-			task.run();
-		} catch (NullPointerException ignored) {
-			// The JVM unit-test stub for RecyclerView.Adapter has no observer list until attached.
+	/**
+	 * Replays logged edits on the shown rows; returns false when the result does not match the snapshot,
+	 * so the caller falls back to a full diff.
+	 */
+	private boolean apply(@NonNull List<QueueChange> changes, @NonNull QueueState state) {
+		for (QueueChange change : changes) {
+			change.applyTo(items);
+			switch (change.type()) {
+				case INSERT -> notifyItemInserted(change.from());
+				case REMOVE -> notifyItemRemoved(change.from());
+				case MOVE -> notifyItemMoved(change.from(), change.to());
+				case CLEAR -> notifyItemRangeRemoved(0, change.to());
+			}
+		}
+		List<QueueItem> expected = state.items();
+		if (items.size() != expected.size()) return false;
+		for (int i = 0; i < items.size(); i++) {
+			if (!Objects.equals(items.get(i).getVideoId(), expected.get(i).getVideoId())) return false;
+		}
+		revision = state.revision();
+		return true;
+	}
+
+	private void diff(@NonNull QueueState state) {
+		final int generation = ++diffGeneration;
+		final List<QueueItem> oldItems = new ArrayList<>(items);
+		final List<QueueItem> newItems = state.items();
+		diffRevision = state.revision();
+		DIFFER.execute(() -> {
+			final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+				@Override
+				public int getOldListSize() {
+					return oldItems.size();
+				}
+
+				@Override
+				public int getNewListSize() {
+					return newItems.size();
+				}
+
+				@Override
+				public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+					return Objects.equals(
+									oldItems.get(oldItemPosition).getVideoId(),
+									newItems.get(newItemPosition).getVideoId());
+				}
+
+				@Override
+				public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+					return Objects.equals(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+				}
+			});
+			handler.post(() -> {
+				if (generation != diffGeneration) return;
+				items.clear();
+				items.addAll(newItems);
+				revision = state.revision();
+				diffRevision = -1L;
+				localEdits = false;
+				result.dispatchUpdatesTo(this);
+			});
+		});
+	}
+
+	private void updatePlaying(@Nullable String playingId) {
+		if (Objects.equals(this.playingId, playingId)) return;
+		String previous = this.playingId;
+		this.playingId = playingId;
+		for (int i = 0; i < items.size(); i++) {
+			String videoId = items.get(i).getVideoId();
+			if (videoId != null && (videoId.equals(previous) || videoId.equals(playingId))) {
+				notifyItemChanged(i, PAYLOAD_PLAYING);
+			}
 		}
 	}
 
@@ -130,12 +263,16 @@ public final class QueueAdapter extends RecyclerView.Adapter<QueueAdapter.ViewHo
 							? itemView.getContext().getString(R.string.queue_unknown_author)
 							: item.getAuthor());
 			ImageUtils.loadThumb(thumbnailView, item.getThumbnailUrl());
-			boolean playing = item.getVideoId() != null && item.getVideoId().equals(playingId);
-			itemView.setActivated(playing);
+			bindPlaying(item, playingId);
 			itemView.setAlpha(1.0f);
-			playingBadgeView.setVisibility(playing ? View.VISIBLE : View.GONE);
 			itemView.setOnClickListener(v -> actions.onPlayRequested(item.copy()));
 			deleteButton.setOnClickListener(v -> actions.onDeleteRequested(item.copy()));
 		}
+
+		void bindPlaying(@NonNull QueueItem item, @Nullable String playingId) {
+			boolean playing = item.getVideoId() != null && item.getVideoId().equals(playingId);
+			itemView.setActivated(playing);
+			playingBadgeView.setVisibility(playing ? View.VISIBLE : View.GONE);
+		}
 	}
 }
@@ -0,0 +1,65 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CookieAccessCoordinatorTest {
+	private final AtomicLong now = new AtomicLong(1_000L);
+	private final CountingBackend backend = new CountingBackend();
+	private final CookieAccessCoordinator coordinator = new CookieAccessCoordinator(backend, (delayMillis, task) -> task.run(), now::get, 250L, 0L);
+
+	@Test
+	public void getCookie_servesRepeatedReadsFromCache() {
+		coordinator.getCookie("https://m.youtube.com/watch?v=a");
+		coordinator.getCookie("https://m.youtube.com/watch?v=b");
+		now.addAndGet(300L);
+		coordinator.getCookie("https://m.youtube.com/watch?v=c");
+
+		assertEquals(2, backend.reads);
+	}
+
+	@Test
+	public void getCookie_prunesExpiredKeysPastTheLimit() {
+		for (int i = 0; i < CookieAccessCoordinator.MAX_CACHED_URLS; i++) {
+			coordinator.getCookie("https://i.ytimg.com/vi/" + i + "/hqdefault.jpg");
+		}
+		now.addAndGet(300L);
+		coordinator.getCookie("https://i.ytimg.com/vi/fresh/hqdefault.jpg");
+
+		assertEquals(1, coordinator.cachedUrls());
+	}
+
+	@Test
+	public void getCookie_staysBoundedWhileEveryKeyIsFresh() {
+		for (int i = 0; i < 10 * CookieAccessCoordinator.MAX_CACHED_URLS; i++) {
+			coordinator.getCookie("https://i.ytimg.com/vi/" + i + "/hqdefault.jpg");
+			assertTrue(coordinator.cachedUrls() <= CookieAccessCoordinator.MAX_CACHED_URLS);
+		}
+	}
+
+	private static final class CountingBackend implements CookieAccessCoordinator.Backend {
+		int reads;
+
+		@Nullable
+		@Override
+		public String getCookie(@NonNull String url) {
+			reads++;
+			return "SID=1";
+		}
+
+		@Override
+		public void setCookie(@NonNull String url, @NonNull String cookie) {
+		}
+
+		@Override
+		public void flush() {
+		}
+	}
+}
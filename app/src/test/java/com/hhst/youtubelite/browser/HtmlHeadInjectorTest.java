@@ -0,0 +1,108 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+public class HtmlHeadInjectorTest {
+	private static final byte[] SNIPPET = "<script>x()</script>".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	public void inject_insertsAfterHeadAcrossChunkBoundaries() throws IOException {
+		String html = inject("<!DOCTYPE html><html lang=\"en\"><he", "ad data-a=\"1\"", "><title>t</title></head><body></body></html>");
+
+		assertEquals("<!DOCTYPE html><html lang=\"en\"><head data-a=\"1\"><script>x()</script><title>t</title></head><body></body></html>", html);
+	}
+
+	@Test
+	public void inject_skipsCommentsAndLookalikeTags() throws IOException {
+		String html = inject("<html><!-- <head> --", "><header></header><HEAD>", "<body></body></html>");
+
+		assertEquals("<html><!-- <head> --><header></header><HEAD><script>x()</script><body></body></html>", html);
+	}
+
+	@Test
+	public void inject_fallsBackToBodyWithoutHead() throws IOException {
+		assertEquals("<html><script>x()</script><body>b</body></html>", inject("<html><body>b</body></html>"));
+		assertEquals("plain text", inject("plain ", "text"));
+	}
+
+	@Test
+	public void inject_passesBytesThroughBeforeTheUpstreamStalls() throws IOException {
+		ChunkedSource upstream = new ChunkedSource(List.of("<!DOCTYPE html><html><he"), true);
+		Buffer sink = new Buffer();
+		Source source = HtmlHeadInjector.inject(upstream, SNIPPET);
+
+		long read = source.read(sink, 8192L);
+
+		assertEquals("<!DOCTYPE html><html>", sink.readUtf8());
+		assertEquals(21L, read);
+	}
+
+	@Test
+	public void snippetFor_joinsMatchingSnippets() {
+		HtmlHeadInjector injector = new HtmlHeadInjector();
+		injector.add("/live_chat", "<a>");
+		injector.add(null, "<b>");
+
+		assertArrayEquals("<a><b>".getBytes(StandardCharsets.UTF_8), injector.snippetFor("/live_chat"));
+		assertArrayEquals("<b>".getBytes(StandardCharsets.UTF_8), injector.snippetFor("/watch"));
+		assertNull(new HtmlHeadInjector().snippetFor("/watch"));
+	}
+
+	@NonNull
+	private static String inject(@NonNull String... chunks) throws IOException {
+		try (var source = Okio.buffer(HtmlHeadInjector.inject(new ChunkedSource(List.of(chunks), false), SNIPPET))) {
+			return source.readUtf8();
+		}
+	}
+
+	/**
+	 * Upstream that hands out one chunk per read; a stalling one fails instead of ending after its chunks.
+	 */
+	private static final class ChunkedSource implements Source {
+		private final Deque<String> chunks;
+		private final boolean stalls;
+
+		private ChunkedSource(@NonNull List<String> chunks, final boolean stalls) {
+			this.chunks = new ArrayDeque<>(chunks);
+			this.stalls = stalls;
+		}
+
+		@Override
+		public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+			String chunk = chunks.poll();
+			if (chunk == null) {
+				if (stalls) throw new IOException("stalled");
+				return -1L;
+			}
+			sink.writeUtf8(chunk);
+			return chunk.length();
+		}
+
+		@NonNull
+		@Override
+		public Timeout timeout() {
+			return Timeout.NONE;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
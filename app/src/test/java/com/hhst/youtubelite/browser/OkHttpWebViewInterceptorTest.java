@@ -1,12 +1,16 @@
 package com.hhst.youtubelite.browser;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import java.util.Map;
 
+import okhttp3.Request;
+
 public class OkHttpWebViewInterceptorTest {
 
 	@Test
@@ -32,4 +36,17 @@ public class OkHttpWebViewInterceptorTest {
 						Map.of("Range", "bytes=0-1024"),
 						"https://m.youtube.com/watch?v=test"));
 	}
+
+	@Test
+	public void flightKey_ignoresRefererButVariesOnCookie() {
+		Request watch = new Request.Builder().url("https://m.youtube.com/s/player/base.js")
+						.header("Referer", "https://m.youtube.com/watch?v=a")
+						.header("Cookie", "PREF=1")
+						.build();
+		Request home = watch.newBuilder().header("Referer", "https://m.youtube.com/").build();
+		Request signedOut = watch.newBuilder().removeHeader("Cookie").build();
+
+		assertEquals(OkHttpWebViewInterceptor.flightKey(watch), OkHttpWebViewInterceptor.flightKey(home));
+		assertNotEquals(OkHttpWebViewInterceptor.flightKey(watch), OkHttpWebViewInterceptor.flightKey(signedOut));
+	}
 }
@@ -0,0 +1,145 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Replays a home feed scroll: pages of 24 thumbnails (18-60 KB) are buffered while the previous
+ * page is still being decoded, and each image is read by the WebView in 8 KiB chunks.
+ * The baseline is the previous body.bytes() + ByteArrayInputStream path.
+ * Runs only with {@code -Pbenchmarks=true} on a JVM that counts per-thread allocations.
+ */
+public class PooledBodyStreamBenchmark {
+	private static final int PAGES = 40;
+	private static final int PAGE_SIZE = 24;
+	private static final MediaType JPEG = MediaType.get("image/jpeg");
+	private static final byte[] SINK = new byte[8 * 1024];
+
+	@Test
+	public void feedScroll_pooledBodiesAllocateLessThanHeapCopies() throws IOException {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+						&& threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		byte[] network = new byte[64 * 1024];
+		for (int i = 0; i < network.length; i++) network[i] = (byte) i;
+		scroll(network, false);
+		scroll(network, true);
+
+		long heapAllocated = scroll(network, false);
+		PooledBodyStream.Pool pool = new PooledBodyStream.Pool(PooledBodyStream.Pool.CHUNK_SIZE, PooledBodyStream.Pool.MAX_POOLED_CHUNKS);
+		long pooledAllocated = scrollPooled(network, pool);
+		PooledBodyStream.Metrics metrics = pool.metrics();
+
+		assertEquals(0L, metrics.liveBytes());
+		assertEquals(PAGES * PAGE_SIZE, metrics.responses());
+		String summary = String.format("heap copies %.1f KB/image, pooled %.1f KB/image; peak live %d KB",
+						heapAllocated / 1024.0 / (PAGES * PAGE_SIZE), pooledAllocated / 1024.0 / (PAGES * PAGE_SIZE),
+						metrics.peakLiveBytes() / 1024);
+		assertTrue(summary, pooledAllocated * 2 < heapAllocated);
+	}
+
+	private static long scroll(@NonNull byte[] network, final boolean pooled) throws IOException {
+		return pooled ? scrollPooled(network, new PooledBodyStream.Pool(PooledBodyStream.Pool.CHUNK_SIZE, PooledBodyStream.Pool.MAX_POOLED_CHUNKS)) : scrollHeap(network);
+	}
+
+	private static long scrollHeap(@NonNull byte[] network) throws IOException {
+		long before = allocatedBytes();
+		List<InputStream> decoding = new ArrayList<>();
+		for (int page = 0; page < PAGES; page++) {
+			List<InputStream> loaded = new ArrayList<>();
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				ResponseBody body = body(network, size(page, i));
+				loaded.add(new ByteArrayInputStream(body.bytes()));
+			}
+			decode(decoding);
+			decoding = loaded;
+		}
+		decode(decoding);
+		return allocatedBytes() - before;
+	}
+
+	private static long scrollPooled(@NonNull byte[] network, @NonNull PooledBodyStream.Pool pool) throws IOException {
+		long before = allocatedBytes();
+		List<InputStream> decoding = new ArrayList<>();
+		for (int page = 0; page < PAGES; page++) {
+			List<InputStream> loaded = new ArrayList<>();
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				ResponseBody body = body(network, size(page, i));
+				loaded.add(PooledBodyStream.readFully(body.source(), pool));
+			}
+			decode(decoding);
+			decoding = loaded;
+		}
+		decode(decoding);
+		return allocatedBytes() - before;
+	}
+
+	private static void decode(@NonNull List<InputStream> streams) throws IOException {
+		for (InputStream stream : streams) {
+			try (stream) {
+				while (stream.read(SINK, 0, SINK.length) != -1) {
+					// Decoder consumes the chunk.
+				}
+			}
+		}
+	}
+
+	private static int size(final int page, final int index) {
+		return 18 * 1024 + ((page * 31 + index * 17) % 42) * 1024;
+	}
+
+	/**
+	 * Body that delivers {@code size} bytes in socket-sized reads, like a network source.
+	 */
+	@NonNull
+	private static ResponseBody body(@NonNull byte[] network, final int size) {
+		BufferedSource source = Okio.buffer(new Source() {
+			private int remaining = size;
+
+			@Override
+			public long read(@NonNull Buffer sink, long byteCount) {
+				if (remaining == 0) return -1L;
+				int count = (int) Math.min(Math.min(byteCount, remaining), network.length);
+				sink.write(network, 0, count);
+				remaining -= count;
+				return count;
+			}
+
+			@NonNull
+			@Override
+			public Timeout timeout() {
+				return Timeout.NONE;
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+		return ResponseBody.create(source, JPEG, size);
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+						.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,62 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import okio.Buffer;
+
+public class PooledBodyStreamTest {
+
+	@Test
+	public void read_crossesChunkBoundaries() throws IOException {
+		PooledBodyStream.Pool pool = new PooledBodyStream.Pool(16, 8);
+		byte[] payload = payload(50);
+
+		PooledBodyStream stream = PooledBodyStream.readFully(new Buffer().write(payload), pool);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(stream.read());
+		byte[] chunk = new byte[7];
+		int read;
+		while ((read = stream.read(chunk, 0, chunk.length)) != -1) {
+			out.write(chunk, 0, read);
+		}
+
+		assertEquals(50L, stream.size());
+		assertArrayEquals(payload, out.toByteArray());
+		assertEquals(0L, pool.metrics().liveBytes());
+	}
+
+	@Test
+	public void close_returnsUnreadChunksForReuse() throws IOException {
+		PooledBodyStream.Pool pool = new PooledBodyStream.Pool(16, 8);
+
+		PooledBodyStream first = PooledBodyStream.readFully(new Buffer().write(payload(40)), pool);
+		first.read(new byte[10], 0, 10);
+		first.close();
+		PooledBodyStream second = PooledBodyStream.readFully(new Buffer().write(payload(40)), pool);
+
+		PooledBodyStream.Metrics metrics = pool.metrics();
+		assertEquals(3L, metrics.allocatedChunks());
+		assertEquals(3L, metrics.reusedChunks());
+		assertEquals(40L, metrics.liveBytes());
+		assertEquals(80L, metrics.bufferedBytes());
+		second.close();
+		assertEquals(0L, pool.metrics().liveBytes());
+	}
+
+	@NonNull
+	private static byte[] payload(final int size) {
+		byte[] payload = new byte[size];
+		for (int i = 0; i < size; i++) {
+			payload[i] = (byte) (i * 13);
+		}
+		return payload;
+	}
+}
@@ -0,0 +1,213 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class ResponseCoalescerTest {
+	private static final String KEY = "GET https://i.ytimg.com/vi/a/hqdefault.jpg";
+	private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void concurrentRequests_shareOneFetch() throws Exception {
+		ResponseCoalescer coalescer = new ResponseCoalescer();
+		byte[] payload = payload(300_000);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger fetches = new AtomicInteger();
+		ResponseCoalescer.Fetch fetch = () -> {
+			fetches.incrementAndGet();
+			await(release);
+			return response(payload);
+		};
+
+		Future<byte[]> leader = pool.submit(() -> read(coalescer.execute(KEY, fetch)));
+		waitFor(() -> fetches.get() == 1);
+		List<Future<byte[]>> followers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			followers.add(pool.submit(() -> read(coalescer.execute(KEY, fetch))));
+		}
+		waitFor(() -> coalescer.metrics().coalescedFetches() == 3);
+		release.countDown();
+
+		assertArrayEquals(payload, leader.get(5, TimeUnit.SECONDS));
+		for (Future<byte[]> follower : followers) {
+			assertArrayEquals(payload, follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, fetches.get());
+		assertEquals(new ResponseCoalescer.Metrics(1L, 3L, 0), coalescer.metrics());
+	}
+
+	@Test
+	public void completedFlight_isNotReused() throws Exception {
+		ResponseCoalescer coalescer = new ResponseCoalescer();
+		AtomicInteger fetches = new AtomicInteger();
+		ResponseCoalescer.Fetch fetch = () -> {
+			fetches.incrementAndGet();
+			return response(payload(10));
+		};
+
+		read(coalescer.execute(KEY, fetch));
+		read(coalescer.execute(KEY, fetch));
+
+		assertEquals(2, fetches.get());
+		assertEquals(0L, coalescer.metrics().coalescedFetches());
+	}
+
+	@Test
+	public void failure_reachesEveryWaiter() throws Exception {
+		ResponseCoalescer coalescer = new ResponseCoalescer();
+		CountDownLatch release = new CountDownLatch(1);
+		IOException error = new IOException("reset");
+		ResponseCoalescer.Fetch fetch = () -> {
+			await(release);
+			throw error;
+		};
+
+		Future<byte[]> leader = pool.submit(() -> read(coalescer.execute(KEY, fetch)));
+		waitFor(() -> coalescer.metrics().networkFetches() == 1);
+		Future<byte[]> follower = pool.submit(() -> read(coalescer.execute(KEY, fetch)));
+		waitFor(() -> coalescer.metrics().coalescedFetches() == 1);
+		release.countDown();
+
+		for (Future<byte[]> future : List.of(leader, follower)) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Expected the shared failure");
+			} catch (ExecutionException e) {
+				assertSame(error, e.getCause());
+			}
+		}
+		assertEquals(0, coalescer.metrics().inFlight());
+	}
+
+	@Test
+	public void interruptedFollower_leavesLeaderAndLaterRequestsIntact() throws Exception {
+		ResponseCoalescer coalescer = new ResponseCoalescer();
+		byte[] payload = payload(100_000);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger fetches = new AtomicInteger();
+		ResponseCoalescer.Fetch fetch = () -> {
+			if (fetches.incrementAndGet() == 1) await(release);
+			return response(payload);
+		};
+
+		Future<byte[]> leader = pool.submit(() -> read(coalescer.execute(KEY, fetch)));
+		waitFor(() -> fetches.get() == 1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Future<?> follower = pool.submit(() -> {
+			try {
+				coalescer.execute(KEY, fetch).close();
+			} catch (InterruptedIOException e) {
+				interrupted.countDown();
+			}
+			return null;
+		});
+		waitFor(() -> coalescer.metrics().coalescedFetches() == 1);
+		follower.cancel(true);
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		release.countDown();
+
+		assertArrayEquals(payload, leader.get(5, TimeUnit.SECONDS));
+		assertEquals(0, coalescer.metrics().inFlight());
+		assertArrayEquals(payload, read(coalescer.execute(KEY, fetch)));
+		assertEquals(2, fetches.get());
+	}
+
+	@Test
+	public void bodyPastJoinLimit_startsNewFlight() throws Exception {
+		ResponseCoalescer coalescer = new ResponseCoalescer(1024L);
+		byte[] payload = payload(200_000);
+		AtomicInteger fetches = new AtomicInteger();
+		ResponseCoalescer.Fetch fetch = () -> {
+			fetches.incrementAndGet();
+			return response(payload);
+		};
+
+		Response first = coalescer.execute(KEY, fetch);
+		byte[] head = new byte[2048];
+		first.body().byteStream().readNBytes(head, 0, head.length);
+		Response second = coalescer.execute(KEY, fetch);
+
+		assertArrayEquals(payload, read(second));
+		first.close();
+		assertEquals(2, fetches.get());
+		assertEquals(0, coalescer.metrics().inFlight());
+	}
+
+	@NonNull
+	private static byte[] read(@NonNull Response response) throws IOException {
+		try (response) {
+			return response.body().bytes();
+		}
+	}
+
+	@NonNull
+	private static Response response(@NonNull byte[] payload) {
+		return new Response.Builder()
+						.request(new Request.Builder().url("https://i.ytimg.com/vi/a/hqdefault.jpg").build())
+						.protocol(Protocol.HTTP_1_1)
+						.code(200)
+						.message("OK")
+						.body(ResponseBody.create(payload, MediaType.get("image/jpeg")))
+						.build();
+	}
+
+	@NonNull
+	private static byte[] payload(final int size) {
+		byte[] payload = new byte[size];
+		for (int i = 0; i < size; i++) {
+			payload[i] = (byte) (i * 31);
+		}
+		return payload;
+	}
+
+	private static void await(@NonNull CountDownLatch latch) throws IOException {
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) throw new IOException("timed out");
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void waitFor(@NonNull Condition condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (!condition.met() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(2L);
+		}
+		assertTrue(condition.met());
+	}
+
+	private interface Condition {
+		boolean met();
+	}
+}
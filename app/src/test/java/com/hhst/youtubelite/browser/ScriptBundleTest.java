@@ -0,0 +1,66 @@
+package com.hhst.youtubelite.browser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ScriptBundleTest {
+
+	@Test
+	public void build_runsInitFirstInsideOneGuard() {
+		Map<String, String> scripts = new LinkedHashMap<>();
+		scripts.put("display_dislikes.js", "window.a=1;");
+		scripts.put("init.js", "window.b=2;");
+		scripts.put("remove_shorts_ads.js", "window.c=3;");
+
+		ScriptBundle bundle = ScriptBundle.build(Map.of("theme.css", "html { color: red; }"), scripts);
+		String source = bundle.source();
+
+		assertTrue(source.startsWith("if(!/^accounts\\./.test(location.hostname)&&window.__liteBundle!=='" + bundle.version() + "'){"));
+		assertTrue(source.indexOf("window.b=2;") < source.indexOf("window.a=1;"));
+		assertTrue(source.indexOf("window.a=1;") < source.indexOf("window.c=3;"));
+		assertEquals(1, count(source, "createElement('style')"));
+		assertEquals("window.__liteBundle==='" + bundle.version() + "'", bundle.installedProbe());
+	}
+
+	@Test
+	public void version_followsContent() {
+		ScriptBundle first = ScriptBundle.build(Map.of(), Map.of("init.js", "window.a=1;"));
+		ScriptBundle same = ScriptBundle.build(Map.of(), Map.of("init.js", "window.a=1;"));
+		ScriptBundle changed = ScriptBundle.build(Map.of(), Map.of("init.js", "window.a=2;"));
+
+		assertEquals(first.version(), same.version());
+		assertNotEquals(first.version(), changed.version());
+		assertFalse(first.source().contains("createElement('style')"));
+	}
+
+	@Test
+	public void minifyCss_keepsSelectorsAndStrings() {
+		String css = """
+						/* header */
+						a :hover ,  b > c {
+						    content: "  keep  /* this */ ";
+						    margin : 0  auto;
+						}
+						""";
+
+		assertEquals("a :hover,b > c{content: \"  keep  /* this */ \";margin : 0 auto;}", ScriptBundle.minifyCss(css));
+	}
+
+	@Test
+	public void quote_escapesLineTerminatorsAndTags() {
+		assertEquals("\"a\\\"b\\\\c\\nd\\x3c/style>\\u2028\"", ScriptBundle.quote("a\"b\\c\nd</style>\u2028"));
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) count++;
+		return count;
+	}
+}
@@ -0,0 +1,119 @@
+package com.hhst.youtubelite.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+public class WebAssetMemoryCacheTest {
+
+	@Test
+	public void remember_servesLaterHitsFromMemory() throws IOException {
+		WebAssetMemoryCache cache = new WebAssetMemoryCache(1024L * 1024L, 64L * 1024L);
+		Request request = request("https://m.youtube.com/s/player/base.js", "en");
+		byte[] payload = payload(10_000);
+
+		Response served = cache.remember(request, response(request, payload, null));
+		WebAssetMemoryCache.Hit hit = cache.get(request);
+
+		assertArrayEquals(payload, served.body().bytes());
+		assertNotNull(hit);
+		assertArrayEquals(payload, hit.stream().readAllBytes());
+		assertEquals("text/javascript; charset=utf-8", String.valueOf(hit.response().body().contentType()));
+		assertEquals(1L, cache.stats().hits());
+	}
+
+	@Test
+	public void get_honorsVaryHeaders() throws IOException {
+		WebAssetMemoryCache cache = new WebAssetMemoryCache(1024L * 1024L, 64L * 1024L);
+		Request english = request("https://m.youtube.com/s/desktop/app.css", "en");
+		cache.remember(english, response(english, payload(100), "Accept-Language"));
+
+		assertNotNull(cache.get(request("https://m.youtube.com/s/desktop/app.css", "en")));
+		assertNull(cache.get(request("https://m.youtube.com/s/desktop/app.css", "de")));
+	}
+
+	@Test
+	public void remember_streamsOversizedBodiesWithoutCaching() throws IOException {
+		WebAssetMemoryCache cache = new WebAssetMemoryCache(1024L * 1024L, 1024L);
+		Request request = request("https://m.youtube.com/s/player/base.js", "en");
+		byte[] payload = payload(5_000);
+
+		Response served = cache.remember(request, unknownLength(request, payload));
+
+		assertArrayEquals(payload, served.body().bytes());
+		assertNull(cache.get(request));
+		assertEquals(0L, cache.stats().bytes());
+	}
+
+	@Test
+	public void eviction_followsByteWeightAndTrimLevels() throws IOException {
+		WebAssetMemoryCache cache = new WebAssetMemoryCache(40_000L, 20_000L);
+		for (String name : new String[]{"a", "b", "c"}) {
+			Request request = request("https://m.youtube.com/s/" + name + ".js", "en");
+			cache.remember(request, response(request, payload(15_000), null));
+			if (name.equals("b")) cache.get(request("https://m.youtube.com/s/a.js", "en"));
+		}
+
+		assertNotNull(cache.get(request("https://m.youtube.com/s/a.js", "en")));
+		assertNull(cache.get(request("https://m.youtube.com/s/b.js", "en")));
+		assertEquals(2, cache.stats().entries());
+
+		cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+		assertEquals(1, cache.stats().entries());
+		cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+		assertEquals(0, cache.stats().entries());
+		assertEquals(0L, cache.stats().bytes());
+	}
+
+	@NonNull
+	private static Request request(@NonNull String url, @NonNull String language) {
+		return new Request.Builder().url(url).header("Accept-Language", language).build();
+	}
+
+	@NonNull
+	private static Response response(@NonNull Request request, @NonNull byte[] payload, @Nullable String vary) {
+		Response.Builder builder = new Response.Builder()
+						.request(request)
+						.protocol(Protocol.HTTP_1_1)
+						.code(200)
+						.message("OK")
+						.header("Cache-Control", "public, max-age=31536000, immutable")
+						.body(ResponseBody.create(payload, MediaType.get("text/javascript; charset=utf-8")));
+		if (vary != null) builder.header("Vary", vary);
+		return builder.build();
+	}
+
+	@NonNull
+	private static Response unknownLength(@NonNull Request request, @NonNull byte[] payload) {
+		Buffer buffer = new Buffer().write(payload);
+		return response(request, payload, null).newBuilder()
+						.body(ResponseBody.create(buffer, MediaType.get("text/javascript"), -1L))
+						.build();
+	}
+
+	@NonNull
+	private static byte[] payload(final int size) {
+		byte[] payload = new byte[size];
+		for (int i = 0; i < size; i++) {
+			payload[i] = (byte) (i * 7);
+		}
+		return payload;
+	}
+}
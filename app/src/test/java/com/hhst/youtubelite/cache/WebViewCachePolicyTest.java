@@ -134,4 +134,13 @@ public class WebViewCachePolicyTest {
 		assertEquals("max-age=120", rewritten.header("Cache-Control"));
 		assertNull(rewritten.header(WebViewCachePolicy.ORIGINAL_CACHE_CONTROL_HEADER));
 	}
+
+	@Test
+	public void shouldKeepInMemory_coversScriptsStylesAndFontsOnly() {
+		assertTrue(policy.shouldKeepInMemory("/s/player/abc/player_ias.vflset/en_US/base.js"));
+		assertTrue(policy.shouldKeepInMemory("/s/desktop/abc/cssbin/www-main.css"));
+		assertTrue(policy.shouldKeepInMemory("/fonts/roboto.woff2"));
+		assertFalse(policy.shouldKeepInMemory("/vi/abc/hqdefault.jpg"));
+		assertFalse(policy.shouldKeepInMemory("/watch"));
+	}
 }
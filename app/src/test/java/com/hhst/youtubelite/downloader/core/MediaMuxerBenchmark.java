@@ -0,0 +1,120 @@
+package com.hhst.youtubelite.downloader.core;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+
+import com.hhst.youtubelite.downloader.core.mp4.StreamingMuxer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the streaming muxer with the mp4parser path on generated fragmented inputs.
+ * The video size defaults to 64 MiB; set {@code MUXER_BENCHMARK_MB=2048} (or more) for a multi-GB run.
+ * Runs only with {@code -Pbenchmarks=true}, since heap peaks depend on when the collector runs.
+ */
+public class MediaMuxerBenchmark {
+	private static final int VIDEO_SAMPLE_BYTES = 32 * 1024;
+	private static final int AUDIO_SAMPLE_BYTES = 372;
+	private static final int VIDEO_FRAGMENT = 150;
+	private static final int AUDIO_FRAGMENT = 215;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void merge_streamingUsesLessHeapThanMp4parser() throws Exception {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		String configured = System.getenv("MUXER_BENCHMARK_MB");
+		long videoBytes = (configured == null ? 64L : Long.parseLong(configured)) * 1024L * 1024L;
+		int videoSamples = (int) (videoBytes / VIDEO_SAMPLE_BYTES);
+		double seconds = videoSamples * (double) Mp4Fixture.VIDEO_DELTA / Mp4Fixture.VIDEO_TIMESCALE;
+		int audioSamples = (int) (seconds * Mp4Fixture.AUDIO_TIMESCALE / Mp4Fixture.AUDIO_DELTA);
+		File v = new File(folder.getRoot(), "v.tmp");
+		File a = new File(folder.getRoot(), "a.tmp");
+		new Mp4Fixture(true, videoSamples, VIDEO_SAMPLE_BYTES, VIDEO_FRAGMENT).writeFragmented(v);
+		new Mp4Fixture(false, audioSamples, AUDIO_SAMPLE_BYTES, AUDIO_FRAGMENT).writeFragmented(a);
+
+		Result legacy = measure("mp4parser", out -> MediaMuxer.mergeWithMp4parser(v, a, out));
+		Result streaming = measure("streaming", out -> StreamingMuxer.merge(v, a, out));
+
+		assertTrue(legacy + " / " + streaming, streaming.peakHeap < legacy.peakHeap);
+	}
+
+	@NonNull
+	private Result measure(@NonNull String name,
+	                       @NonNull Merge merge) throws Exception {
+		File out = new File(folder.getRoot(), name + ".mp4");
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		Thread.sleep(200L);
+		long baseline = memory.getHeapMemoryUsage().getUsed();
+		AtomicLong peakHeap = new AtomicLong(baseline);
+		AtomicLong peakDisk = new AtomicLong(diskUsage());
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread sampler = new Thread(() -> {
+			while (running.get()) {
+				peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+				peakDisk.accumulateAndGet(diskUsage(), Math::max);
+				try {
+					Thread.sleep(5L);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}, "mux-sampler");
+		sampler.setDaemon(true);
+		sampler.start();
+		long begin = System.nanoTime();
+		try {
+			merge.run(out);
+		} finally {
+			running.set(false);
+			sampler.join();
+		}
+		long nanos = System.nanoTime() - begin;
+		peakDisk.accumulateAndGet(diskUsage(), Math::max);
+		Result result = new Result(name, nanos, Math.max(0L, peakHeap.get() - baseline), peakDisk.get());
+		//noinspection ResultOfMethodCallIgnored
+		out.delete();
+		return result;
+	}
+
+	private long diskUsage() {
+		long total = 0L;
+		File[] files = folder.getRoot().listFiles();
+		if (files == null) return 0L;
+		for (File file : files) {
+			total += file.length();
+		}
+		return total;
+	}
+
+/**
+ * Contract for a merge under measurement.
+ */
+	private interface Merge {
+		void run(@NonNull File out) throws Exception;
+	}
+
+/**
+ * Value object for one measured merge.
+ */
+	private record Result(String name, long nanos, long peakHeap, long peakDisk) {
+		@NonNull
+		@Override
+		public String toString() {
+			return String.format("%-9s wall %6.2f s, peak heap +%7.1f MiB, disk high-water %7.1f MiB",
+							name, nanos / 1e9, peakHeap / (double) (1L << 20), peakDisk / (double) (1L << 20));
+		}
+	}
+}
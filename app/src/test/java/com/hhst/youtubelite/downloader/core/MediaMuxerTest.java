@@ -0,0 +1,139 @@
+package com.hhst.youtubelite.downloader.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+
+import androidx.annotation.NonNull;
+
+import com.googlecode.mp4parser.authoring.Movie;
+import com.googlecode.mp4parser.authoring.Track;
+import com.googlecode.mp4parser.authoring.container.mp4.MovieCreator;
+import com.hhst.youtubelite.downloader.core.mp4.Mp4FormatException;
+import com.hhst.youtubelite.downloader.core.mp4.StreamingMuxer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MediaMuxerTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final Mp4Fixture video = new Mp4Fixture(true, 300, 4_000, 30);
+	private final Mp4Fixture audio = new Mp4Fixture(false, 431, 400, 43);
+
+	@Test
+	public void merge_fragmentedInputs_copiesEverySample() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = folder.newFile("m.mp4");
+		video.writeFragmented(v);
+		audio.writeFragmented(a);
+
+		StreamingMuxer.merge(v, a, out);
+
+		assertMerged(out);
+	}
+
+	@Test
+	public void merge_truncatedHandlerBox_reportsFormatError() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = folder.newFile("m.mp4");
+		ByteBuffer moov = ByteBuffer.allocate(36);
+		moov.putInt(36).put("moov".getBytes(StandardCharsets.ISO_8859_1))
+						.putInt(28).put("trak".getBytes(StandardCharsets.ISO_8859_1))
+						.putInt(20).put("mdia".getBytes(StandardCharsets.ISO_8859_1))
+						.putInt(12).put("hdlr".getBytes(StandardCharsets.ISO_8859_1)).putInt(0);
+		Files.write(v.toPath(), moov.array());
+		audio.writeFragmented(a);
+
+		assertThrows(Mp4FormatException.class, () -> StreamingMuxer.merge(v, a, out));
+	}
+
+	@Test
+	public void merge_flatInputs_copiesEverySample() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = folder.newFile("m.mp4");
+		video.writeFlat(v);
+		audio.writeFlat(a);
+
+		StreamingMuxer.merge(v, a, out);
+
+		assertMerged(out);
+	}
+
+	@Test
+	public void merge_writesHeaderBeforeMediaData() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = folder.newFile("m.mp4");
+		video.writeFragmented(v);
+		audio.writeFlat(a);
+
+		StreamingMuxer.merge(v, a, out);
+
+		assertEquals(List.of("ftyp", "moov", "mdat"), topLevelBoxes(out));
+	}
+
+	private void assertMerged(@NonNull File out) throws Exception {
+		Movie movie = MovieCreator.build(out.getAbsolutePath());
+		assertEquals(2, movie.getTracks().size());
+		assertTrack(track(movie, "vide"), video);
+		assertTrack(track(movie, "soun"), audio);
+	}
+
+	static void assertTrack(@NonNull Track track,
+	                        @NonNull Mp4Fixture fixture) {
+		assertEquals(fixture.timescale(), track.getTrackMetaData().getTimescale());
+		assertEquals(fixture.samples, track.getSamples().size());
+		for (int i = 0; i < fixture.samples; i++) {
+			ByteBuffer sample = track.getSamples().get(i).asByteBuffer();
+			assertEquals(fixture.size(i), sample.remaining());
+			while (sample.hasRemaining()) {
+				assertEquals(Mp4Fixture.fill(i, fixture.seed()), sample.get());
+			}
+			assertEquals(fixture.delta(), track.getSampleDurations()[i]);
+		}
+		if (fixture.video) {
+			long[] sync = track.getSyncSamples();
+			assertNotNull(sync);
+			assertEquals((fixture.samples + Mp4Fixture.KEYFRAME_INTERVAL - 1) / Mp4Fixture.KEYFRAME_INTERVAL, sync.length);
+			assertEquals(Mp4Fixture.KEYFRAME_INTERVAL + 1, sync[1]);
+		}
+	}
+
+	@NonNull
+	static Track track(@NonNull Movie movie,
+	                   @NonNull String handler) {
+		return movie.getTracks().stream().filter(t -> handler.equals(t.getHandler())).findFirst().orElseThrow();
+	}
+
+	@NonNull
+	private static List<String> topLevelBoxes(@NonNull File file) throws Exception {
+		List<String> types = new ArrayList<>();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			long pos = 0L;
+			byte[] type = new byte[4];
+			while (pos < raf.length()) {
+				raf.seek(pos);
+				long size = raf.readInt() & 0xFFFFFFFFL;
+				raf.readFully(type);
+				if (size == 1) size = raf.readLong();
+				types.add(new String(type, StandardCharsets.ISO_8859_1));
+				pos += size;
+			}
+		}
+		return types;
+	}
+}
@@ -0,0 +1,319 @@
+package com.hhst.youtubelite.downloader.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Writes synthetic single-track MP4 files, flat or fragmented like YouTube's DASH streams.
+ * Every byte of sample {@code i} equals {@link #fill(int, int)}, so muxed output can be checked sample by sample.
+ */
+final class Mp4Fixture {
+	static final int VIDEO_TIMESCALE = 30_000;
+	static final int VIDEO_DELTA = 1_001;
+	static final int AUDIO_TIMESCALE = 44_100;
+	static final int AUDIO_DELTA = 1_024;
+	static final int KEYFRAME_INTERVAL = 30;
+
+	final boolean video;
+	final int samples;
+	final int sampleSize;
+	final int samplesPerFragment;
+
+	Mp4Fixture(final boolean video,
+	           final int samples,
+	           final int sampleSize,
+	           final int samplesPerFragment) {
+		this.video = video;
+		this.samples = samples;
+		this.sampleSize = sampleSize;
+		this.samplesPerFragment = samplesPerFragment;
+	}
+
+	static byte fill(final int sample,
+	                 final int seed) {
+		return (byte) (sample * 31 + seed);
+	}
+
+	int seed() {
+		return video ? 7 : 101;
+	}
+
+	int size(final int sample) {
+		// Vary sizes a little so stsz is a real table.
+		return sampleSize - (sample % 3) * 16;
+	}
+
+	long payloadBytes() {
+		long total = 0L;
+		for (int i = 0; i < samples; i++) {
+			total += size(i);
+		}
+		return total;
+	}
+
+	boolean sync(final int sample) {
+		return !video || sample % KEYFRAME_INTERVAL == 0;
+	}
+
+	int timescale() {
+		return video ? VIDEO_TIMESCALE : AUDIO_TIMESCALE;
+	}
+
+	int delta() {
+		return video ? VIDEO_DELTA : AUDIO_DELTA;
+	}
+
+	/**
+	 * Writes ftyp, an empty-table moov with mvex, then one moof and mdat pair per fragment.
+	 */
+	void writeFragmented(@NonNull File file) throws IOException {
+		try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			write(out, ftyp("dash"));
+			Writer moov = new Writer().start("moov");
+			mvhd(moov, 0L);
+			trak(moov, null);
+			moov.start("mvex").start("trex", 0, 0).u32(1).u32(1).u32(0).u32(0).u32(0).end().end();
+			write(out, moov.end().array());
+			long time = 0L;
+			for (int first = 0, sequence = 1; first < samples; first += samplesPerFragment, sequence++) {
+				int count = Math.min(samplesPerFragment, samples - first);
+				Writer moof = new Writer().start("moof");
+				moof.start("mfhd", 0, 0).u32(sequence).end();
+				moof.start("traf");
+				moof.start("tfhd", 0, 0x20000).u32(1).end();
+				moof.start("tfdt", 1, 0).u64(time).end();
+				moof.start("trun", 0, 0x701).u32(count);
+				int dataOffsetAt = moof.size();
+				moof.u32(0);
+				long bytes = 0L;
+				for (int i = first; i < first + count; i++) {
+					moof.u32(delta()).u32(size(i)).u32(sync(i) ? 0x02000000 : 0x01010000);
+					bytes += size(i);
+				}
+				moof.end().end().end();
+				byte[] header = moof.array();
+				ByteBuffer.wrap(header).putInt(dataOffsetAt, header.length + 8);
+				write(out, header);
+				write(out, ByteBuffer.allocate(8).putInt((int) (bytes + 8)).put(type("mdat")).array());
+				writeSamples(out, first, count);
+				time += (long) count * delta();
+			}
+		}
+	}
+
+	/**
+	 * Writes ftyp, mdat, then a moov whose tables address chunks of {@code samplesPerFragment} samples.
+	 */
+	void writeFlat(@NonNull File file) throws IOException {
+		try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			byte[] ftyp = ftyp("isom");
+			write(out, ftyp);
+			long payload = payloadBytes();
+			write(out, ByteBuffer.allocate(16).putInt(1).put(type("mdat")).putLong(payload + 16).array());
+			writeSamples(out, 0, samples);
+			int chunks = (samples + samplesPerFragment - 1) / samplesPerFragment;
+			long[] offsets = new long[chunks];
+			long offset = ftyp.length + 16L;
+			for (int c = 0; c < chunks; c++) {
+				offsets[c] = offset;
+				for (int i = c * samplesPerFragment; i < Math.min(samples, (c + 1) * samplesPerFragment); i++) {
+					offset += size(i);
+				}
+			}
+			Writer moov = new Writer().start("moov");
+			mvhd(moov, (long) samples * delta() * 1000L / timescale());
+			trak(moov, offsets);
+			write(out, moov.end().array());
+		}
+	}
+
+	private void writeSamples(@NonNull FileChannel out,
+	                          final int first,
+	                          final int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+		for (int i = first; i < first + count; i++) {
+			byte[] sample = new byte[size(i)];
+			Arrays.fill(sample, fill(i, seed()));
+			if (buffer.remaining() < sample.length) {
+				buffer.flip();
+				write(out, buffer);
+				buffer.clear();
+			}
+			buffer.put(sample);
+		}
+		buffer.flip();
+		write(out, buffer);
+	}
+
+	private void mvhd(@NonNull Writer w,
+	                  final long duration) {
+		w.start("mvhd", 0, 0).u32(0).u32(0).u32(1000).u32(duration).u32(0x00010000).u16(0x0100).zeros(10);
+		w.u32(0x00010000).u32(0).u32(0).u32(0).u32(0x00010000).u32(0).u32(0).u32(0).u32(0x40000000);
+		w.zeros(24).u32(2).end();
+	}
+
+	private void trak(@NonNull Writer w,
+	                  final long[] chunkOffsets) {
+		w.start("trak");
+		w.start("tkhd", 0, 3).u32(0).u32(0).u32(1).u32(0).u32(0).zeros(8).u16(0).u16(0).u16(video ? 0 : 0x0100).u16(0);
+		w.u32(0x00010000).u32(0).u32(0).u32(0).u32(0x00010000).u32(0).u32(0).u32(0).u32(0x40000000);
+		w.u32(video ? 1920 << 16 : 0).u32(video ? 1080 << 16 : 0).end();
+		w.start("mdia");
+		long duration = chunkOffsets == null ? 0L : (long) samples * delta();
+		w.start("mdhd", 0, 0).u32(0).u32(0).u32(timescale()).u32(duration).u16(0x55C4).u16(0).end();
+		w.start("hdlr", 0, 0).u32(0).bytes(type(video ? "vide" : "soun")).zeros(12).bytes(type(video ? "Vide" : "Soun")).u8(0).end();
+		w.start("minf");
+		if (video) {
+			w.start("vmhd", 0, 1).zeros(8).end();
+		} else {
+			w.start("smhd", 0, 0).zeros(4).end();
+		}
+		w.start("dinf").start("dref", 0, 0).u32(1).start("url ", 0, 1).end().end().end();
+		w.start("stbl");
+		w.start("stsd", 0, 0).u32(1);
+		if (video) {
+			w.start("avc1").zeros(6).u16(1).zeros(16).u16(1920).u16(1080).u32(0x00480000).u32(0x00480000).u32(0).u16(1).zeros(32).u16(0x18).u16(0xFFFF);
+			byte[] sps = {0x67, 0x42, (byte) 0xC0, 0x28, (byte) 0xDA, 0x01, (byte) 0xE0, 0x08, (byte) 0x9F, (byte) 0x96};
+			byte[] pps = {0x68, (byte) 0xCE, 0x0F, (byte) 0xC8};
+			w.start("avcC").u8(1).u8(0x42).u8(0xC0).u8(0x28).u8(0xFF).u8(0xE1).u16(sps.length).bytes(sps).u8(1).u16(pps.length).bytes(pps).end();
+			w.end();
+		} else {
+			w.start("mp4a").zeros(6).u16(1).zeros(8).u16(2).u16(16).u16(0).u16(0).u32((long) AUDIO_TIMESCALE << 16);
+			w.start("esds", 0, 0)
+							.u8(0x03).u8(25).u16(1).u8(0)
+							.u8(0x04).u8(17).u8(0x40).u8(0x15).u8(0).u16(0).u32(128_000).u32(128_000)
+							.u8(0x05).u8(2).u8(0x12).u8(0x10)
+							.u8(0x06).u8(1).u8(0x02)
+							.end();
+			w.end();
+		}
+		w.end();
+		if (chunkOffsets == null) {
+			w.start("stts", 0, 0).u32(0).end();
+			w.start("stsc", 0, 0).u32(0).end();
+			w.start("stsz", 0, 0).u32(0).u32(0).end();
+			w.start("stco", 0, 0).u32(0).end();
+		} else {
+			w.start("stts", 0, 0).u32(1).u32(samples).u32(delta()).end();
+			if (video) {
+				int keys = (samples + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL;
+				w.start("stss", 0, 0).u32(keys);
+				for (int i = 0; i < samples; i += KEYFRAME_INTERVAL) {
+					w.u32(i + 1);
+				}
+				w.end();
+			}
+			int last = samples - (chunkOffsets.length - 1) * samplesPerFragment;
+			boolean even = last == samplesPerFragment;
+			w.start("stsc", 0, 0).u32(even ? 1 : 2).u32(1).u32(samplesPerFragment).u32(1);
+			if (!even) w.u32(chunkOffsets.length).u32(last).u32(1);
+			w.end();
+			w.start("stsz", 0, 0).u32(0).u32(samples);
+			for (int i = 0; i < samples; i++) {
+				w.u32(size(i));
+			}
+			w.end();
+			w.start("co64", 0, 0).u32(chunkOffsets.length);
+			for (long offset : chunkOffsets) {
+				w.u64(offset);
+			}
+			w.end();
+		}
+		w.end().end().end().end();
+	}
+
+	@NonNull
+	private static byte[] ftyp(@NonNull String major) {
+		return new Writer().start("ftyp").bytes(type(major)).u32(0).bytes(type("iso6")).bytes(type("avc1")).bytes(type("mp41")).end().array();
+	}
+
+	@NonNull
+	private static byte[] type(@NonNull String type) {
+		return type.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static void write(@NonNull FileChannel out,
+	                          @NonNull byte[] bytes) throws IOException {
+		write(out, ByteBuffer.wrap(bytes));
+	}
+
+	private static void write(@NonNull FileChannel out,
+	                          @NonNull ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+/**
+ * Minimal box builder for fixtures, kept separate from the code under test.
+ */
+	private static final class Writer {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final Deque<Integer> open = new ArrayDeque<>();
+
+		Writer start(String type) {
+			open.push(bytes.size());
+			u32(0);
+			return bytes(type(type));
+		}
+
+		Writer start(String type, int version, int flags) {
+			return start(type).u32((long) version << 24 | flags);
+		}
+
+		Writer end() {
+			int at = open.pop();
+			byte[] all = bytes.toByteArray();
+			ByteBuffer.wrap(all).putInt(at, all.length - at);
+			bytes.reset();
+			bytes.write(all, 0, all.length);
+			return this;
+		}
+
+		Writer u8(int value) {
+			bytes.write(value);
+			return this;
+		}
+
+		Writer u16(int value) {
+			return u8(value >>> 8).u8(value);
+		}
+
+		Writer u32(long value) {
+			return u16((int) (value >>> 16)).u16((int) value);
+		}
+
+		Writer u64(long value) {
+			return u32(value >>> 32).u32(value);
+		}
+
+		Writer zeros(int count) {
+			return bytes(new byte[count]);
+		}
+
+		Writer bytes(byte[] value) {
+			bytes.write(value, 0, value.length);
+			return this;
+		}
+
+		int size() {
+			return bytes.size();
+		}
+
+		byte[] array() {
+			return bytes.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.hhst.youtubelite.downloader.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.googlecode.mp4parser.authoring.Movie;
+import com.googlecode.mp4parser.authoring.container.mp4.MovieCreator;
+import com.hhst.youtubelite.downloader.core.mp4.Mp4FormatException;
+import com.hhst.youtubelite.downloader.core.mp4.PipelinedMuxer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class PipelinedMuxerTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final Mp4Fixture video = new Mp4Fixture(true, 300, 4_000, 30);
+	private final Mp4Fixture audio = new Mp4Fixture(false, 431, 400, 43);
+
+	@Test
+	public void finish_afterGrowingPrefixes_writesPlayableFragmentedFile() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = new File(folder.getRoot(), "m.tmp");
+		video.writeFragmented(v);
+		audio.writeFragmented(a);
+		PipelinedMuxer muxer = new PipelinedMuxer(v, a, out);
+
+		for (int step = 1; step <= 10; step++) {
+			muxer.videoAvailable(v.length() * step / 10);
+			muxer.audioAvailable(a.length() * step / 10);
+		}
+		muxer.finish();
+
+		Movie movie = MovieCreator.build(out.getAbsolutePath());
+		assertEquals(2, movie.getTracks().size());
+		MediaMuxerTest.assertTrack(MediaMuxerTest.track(movie, "vide"), video);
+		MediaMuxerTest.assertTrack(MediaMuxerTest.track(movie, "soun"), audio);
+	}
+
+	@Test
+	public void available_copiesFragmentsBeforeFinish() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = new File(folder.getRoot(), "m.tmp");
+		video.writeFragmented(v);
+		audio.writeFragmented(a);
+		PipelinedMuxer muxer = new PipelinedMuxer(v, a, out);
+
+		muxer.videoAvailable(v.length());
+		muxer.audioAvailable(a.length());
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (out.length() < video.payloadBytes() + audio.payloadBytes() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+
+		assertTrue(out.length() >= video.payloadBytes() + audio.payloadBytes());
+		muxer.finish();
+	}
+
+	@Test
+	public void finish_rejectsFlatSources() throws Exception {
+		File v = folder.newFile("v.tmp");
+		File a = folder.newFile("a.tmp");
+		File out = new File(folder.getRoot(), "m.tmp");
+		video.writeFlat(v);
+		audio.writeFragmented(a);
+		PipelinedMuxer muxer = new PipelinedMuxer(v, a, out);
+		muxer.videoAvailable(v.length());
+		muxer.audioAvailable(a.length());
+
+		try {
+			muxer.finish();
+			fail("Flat sources cannot be muxed fragment by fragment");
+		} catch (Mp4FormatException expected) {
+			// LiteDownloaderImpl falls back to MediaMuxer.merge.
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.hhst.youtubelite.downloader.core.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Replays the per-progress work DownloadService does against 10k records (100 playlists of 99 items):
+ * find the child, upsert it, then read the parent and its children and upsert the parent.
+ * The baseline is the previous single-blob repository, kept here verbatim.
+ * Runs only with {@code -Pbenchmarks=true}, since it compares wall-clock timings.
+ */
+public class DownloadHistoryRepositoryBenchmark {
+	private static final int PLAYLISTS = 100;
+	private static final int CHILDREN = 99;
+	private static final int LEGACY_UPDATES = 20;
+	private static final int INDEXED_UPDATES = 2_000;
+
+	private final Gson gson = new Gson();
+
+	@Test
+	public void progressUpdates_indexedStoreBeatsBlob() {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		List<DownloadRecord> seed = seed();
+		assertEquals(10_000, seed.size());
+
+		DownloadHistoryRepositoryTest.MemoryBackend blobStore = new DownloadHistoryRepositoryTest.MemoryBackend();
+		BlobRepository blob = new BlobRepository(blobStore, gson);
+		blob.writeAll(seed);
+		double blobMs = run(LEGACY_UPDATES, blob::find, blob::upsert, blob::children);
+
+		DownloadHistoryRepositoryTest.MemoryBackend store = new DownloadHistoryRepositoryTest.MemoryBackend();
+		long migrateStart = System.nanoTime();
+		DownloadHistoryRepository indexed = new DownloadHistoryRepository(store, blobStore, gson);
+		indexed.findByTaskId("p0");
+		double migrateMs = (System.nanoTime() - migrateStart) / 1e6;
+		assertEquals(seed.size(), store.values.size());
+		double indexedMs = run(INDEXED_UPDATES, indexed::findByTaskId, indexed::upsert, indexed::getChildrenSorted);
+
+		assertTrue(String.format("blob %.2f ms, indexed %.4f ms per update; one-time migration %.0f ms", blobMs, indexedMs, migrateMs),
+						indexedMs < blobMs);
+	}
+
+	/**
+	 * Returns the mean milliseconds per simulated progress update.
+	 */
+	private static double run(final int updates,
+	                          @NonNull Finder find,
+	                          @NonNull Writer upsert,
+	                          @NonNull Children children) {
+		long begin = System.nanoTime();
+		for (int i = 0; i < updates; i++) {
+			String parentId = "p" + (i % PLAYLISTS);
+			DownloadRecord child = find.find(parentId + "-" + (i % CHILDREN));
+			child.setProgress(child.getProgress() + 1);
+			upsert.upsert(child);
+			DownloadRecord parent = find.find(parentId);
+			int done = 0;
+			for (DownloadRecord item : children.children(parentId)) {
+				if (item.getProgress() > 0) done++;
+			}
+			parent.setDoneCount(done);
+			upsert.upsert(parent);
+		}
+		return (System.nanoTime() - begin) / 1e6 / updates;
+	}
+
+	@NonNull
+	private static List<DownloadRecord> seed() {
+		List<DownloadRecord> records = new ArrayList<>();
+		long time = 1_700_000_000_000L;
+		for (int p = 0; p < PLAYLISTS; p++) {
+			String parentId = "p" + p;
+			DownloadRecord parent = DownloadHistoryRepositoryTest.record(parentId, null, time++);
+			parent.setTitle("Playlist " + p);
+			parent.setItemCount(CHILDREN);
+			records.add(parent);
+			for (int c = 0; c < CHILDREN; c++) {
+				DownloadRecord child = DownloadHistoryRepositoryTest.record(parentId + "-" + c, parentId, time++);
+				child.setTitle("Playlist " + p + " item " + c);
+				child.setThumbnailUrl("https://i.ytimg.com/vi/" + child.getTaskId() + "/hqdefault.jpg");
+				records.add(child);
+			}
+		}
+		return records;
+	}
+
+	private interface Finder {
+		DownloadRecord find(@NonNull String taskId);
+	}
+
+	private interface Writer {
+		void upsert(@NonNull DownloadRecord record);
+	}
+
+	private interface Children {
+		List<DownloadRecord> children(@NonNull String parentId);
+	}
+
+	/**
+	 * The previous repository: one JSON list, parsed and scanned on every call.
+	 */
+	private static final class BlobRepository {
+		private static final Type LIST_TYPE = new TypeToken<List<DownloadRecord>>() {
+		}.getType();
+		private final DownloadHistoryRepositoryTest.MemoryBackend backend;
+		private final Gson gson;
+
+		BlobRepository(@NonNull DownloadHistoryRepositoryTest.MemoryBackend backend,
+		               @NonNull Gson gson) {
+			this.backend = backend;
+			this.gson = gson;
+		}
+
+		@Nullable
+		DownloadRecord find(@NonNull String taskId) {
+			for (DownloadRecord record : readAll()) {
+				if (Objects.equals(record.getTaskId(), taskId)) return record;
+			}
+			return null;
+		}
+
+		@NonNull
+		List<DownloadRecord> children(@NonNull String parentId) {
+			List<DownloadRecord> children = new ArrayList<>();
+			for (DownloadRecord record : readAll()) {
+				if (Objects.equals(parentId, record.getParentId())) children.add(record);
+			}
+			children.sort(Comparator.comparingLong(DownloadRecord::getCreatedAt).reversed());
+			return children;
+		}
+
+		void upsert(@NonNull DownloadRecord record) {
+			List<DownloadRecord> items = readAll();
+			boolean updated = false;
+			for (int i = 0; i < items.size(); i++) {
+				if (Objects.equals(items.get(i).getTaskId(), record.getTaskId())) {
+					items.set(i, record);
+					updated = true;
+					break;
+				}
+			}
+			if (!updated) items.add(record);
+			writeAll(items);
+		}
+
+		@NonNull
+		private List<DownloadRecord> readAll() {
+			List<DownloadRecord> items = gson.fromJson(backend.get(DownloadHistoryRepository.KEY_DOWNLOAD_HISTORY), LIST_TYPE);
+			return items != null ? items : new ArrayList<>();
+		}
+
+		void writeAll(@NonNull List<DownloadRecord> items) {
+			backend.put(DownloadHistoryRepository.KEY_DOWNLOAD_HISTORY, gson.toJson(items, LIST_TYPE));
+		}
+	}
+}
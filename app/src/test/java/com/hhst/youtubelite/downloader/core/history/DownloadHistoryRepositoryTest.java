@@ -0,0 +1,210 @@
+package com.hhst.youtubelite.downloader.core.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DownloadHistoryRepositoryTest {
+	private final Gson gson = new Gson();
+	private final MemoryBackend store = new MemoryBackend();
+	private final MemoryBackend legacy = new MemoryBackend();
+
+	@Test
+	public void upsert_writesOnlyTheChangedRecord() {
+		DownloadHistoryRepository repository = repository();
+		repository.upsert(record("a", null, 1L));
+		repository.upsert(record("b", null, 2L));
+		store.writes = 0;
+
+		DownloadRecord a = repository.findByTaskId("a");
+		assertNotNull(a);
+		a.setProgress(42);
+		repository.upsert(a);
+
+		assertEquals(1, store.writes);
+		assertEquals(42, repository.findByTaskId("a").getProgress());
+	}
+
+	@Test
+	public void findByTaskId_returnsCopies() {
+		DownloadHistoryRepository repository = repository();
+		repository.upsert(record("a", null, 1L));
+
+		repository.findByTaskId("a").setCreatedAt(99L);
+
+		assertEquals(1L, repository.findByTaskId("a").getCreatedAt());
+	}
+
+	@Test
+	public void pages_followCreatedAtOrderFromCursor() {
+		DownloadHistoryRepository repository = repository();
+		for (int i = 0; i < 7; i++) {
+			repository.upsert(record("c" + i, "p", i));
+		}
+		repository.upsert(record("p", null, 100L));
+		repository.upsert(record("r", null, 50L));
+
+		List<DownloadRecord> first = repository.getChildrenPage("p", null, 3);
+		List<DownloadRecord> second = repository.getChildrenPage("p", first.get(2), 3);
+		repository.remove(second.get(2).getTaskId());
+		List<DownloadRecord> third = repository.getChildrenPage("p", second.get(2), 3);
+
+		assertEquals(List.of("c6", "c5", "c4"), ids(first));
+		assertEquals(List.of("c3", "c2", "c1"), ids(second));
+		assertEquals(List.of("c0"), ids(third));
+		assertEquals(List.of("p", "r"), ids(repository.getRootsPage(null, 10)));
+	}
+
+	@Test
+	public void upsert_movesRecordWhenParentOrTimeChanges() {
+		DownloadHistoryRepository repository = repository();
+		repository.upsert(record("a", null, 1L));
+		repository.upsert(record("b", null, 2L));
+
+		DownloadRecord a = repository.findByTaskId("a");
+		a.setCreatedAt(3L);
+		repository.upsert(a);
+		DownloadRecord b = repository.findByTaskId("b");
+		b.setParentId("a");
+		repository.upsert(b);
+
+		assertEquals(List.of("a"), ids(repository.getRootsPage(null, 10)));
+		assertEquals(List.of("b"), ids(repository.getChildrenSorted("a")));
+	}
+
+	@Test
+	public void removeWithChildren_dropsParentAndChildren() {
+		DownloadHistoryRepository repository = repository();
+		repository.upsert(record("p", null, 10L));
+		repository.upsert(record("c1", "p", 1L));
+		repository.upsert(record("c2", "p", 2L));
+		repository.upsert(record("x", null, 5L));
+
+		repository.removeWithChildren("p");
+
+		assertEquals(List.of("x"), ids(repository.getRootsPage(null, 10)));
+		assertTrue(repository.getChildrenSorted("p").isEmpty());
+		assertEquals(List.of("x"), new ArrayList<>(store.values.keySet()));
+	}
+
+	@Test
+	public void load_rebuildsIndexesFromStore() {
+		DownloadHistoryRepository first = repository();
+		first.upsert(record("p", null, 10L));
+		first.upsert(record("c", "p", 1L));
+		store.values.put("broken", "{not json");
+
+		DownloadHistoryRepository reopened = repository();
+
+		assertEquals(List.of("c"), ids(reopened.getChildrenSorted("p")));
+		assertNull(store.get("broken"));
+	}
+
+	@Test
+	public void load_migratesLegacyBlobOnce() {
+		store.put("b", gson.toJson(record("b", null, 5L, DownloadStatus.COMPLETED)));
+		List<DownloadRecord> blob = List.of(
+						record("a", null, 1L),
+						record("b", null, 5L, DownloadStatus.RUNNING),
+						record("c", "a", 2L));
+		legacy.put(DownloadHistoryRepository.KEY_DOWNLOAD_HISTORY, gson.toJson(blob));
+
+		DownloadHistoryRepository repository = repository();
+
+		assertEquals(List.of("b", "a"), ids(repository.getRootsPage(null, 10)));
+		assertEquals(List.of("c"), ids(repository.getChildrenSorted("a")));
+		assertEquals(DownloadStatus.COMPLETED, repository.findByTaskId("b").getStatus());
+		assertNull(legacy.get(DownloadHistoryRepository.KEY_DOWNLOAD_HISTORY));
+		assertEquals(3, store.values.size());
+	}
+
+	@NonNull
+	private DownloadHistoryRepository repository() {
+		return new DownloadHistoryRepository(store, legacy, gson);
+	}
+
+	@NonNull
+	static DownloadRecord record(@NonNull String taskId,
+	                             @Nullable String parentId,
+	                             final long createdAt) {
+		return record(taskId, parentId, createdAt, DownloadStatus.RUNNING);
+	}
+
+	@NonNull
+	private static DownloadRecord record(@NonNull String taskId,
+	                                     @Nullable String parentId,
+	                                     final long createdAt,
+	                                     @NonNull DownloadStatus status) {
+		DownloadRecord record = new DownloadRecord();
+		record.setTaskId(taskId);
+		record.setVideoId(taskId);
+		record.setType(parentId == null ? DownloadType.PLAYLIST : DownloadType.VIDEO);
+		record.setStatus(status);
+		record.setFileName(taskId + ".mp4");
+		record.setOutputPath("/downloads/" + taskId + ".mp4");
+		record.setCreatedAt(createdAt);
+		record.setUpdatedAt(createdAt);
+		record.setParentId(parentId);
+		return record;
+	}
+
+	@NonNull
+	private static List<String> ids(@NonNull List<DownloadRecord> records) {
+		List<String> ids = new ArrayList<>();
+		for (DownloadRecord record : records) {
+			ids.add(record.getTaskId());
+		}
+		return ids;
+	}
+
+	static final class MemoryBackend implements DownloadHistoryRepository.Backend {
+		final Map<String, String> values = new LinkedHashMap<>();
+		int writes;
+
+		@Nullable
+		@Override
+		public String get(@NonNull String key) {
+			return values.get(key);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull String value) {
+			writes++;
+			values.put(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			values.remove(key);
+		}
+
+		@Override
+		public void removeAll(@NonNull List<String> keys) {
+			keys.forEach(values::remove);
+		}
+
+		@NonNull
+		@Override
+		public List<String> keys() {
+			return new ArrayList<>(values.keySet());
+		}
+
+		@Override
+		public void clear() {
+			values.clear();
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ChunkPlannerTest {
+	private static final long MB = 1024L * 1024L;
+
+	private final AtomicLong now = new AtomicLong(10_000L);
+
+	private ChunkPlanner planner(long total, int workers) {
+		return new ChunkPlanner(List.of(new long[]{0L, total}), List.of(), workers, true, now::get);
+	}
+
+	@Test
+	public void constructor_startsWithOneLargeRangePerWorker() {
+		ChunkPlanner planner = planner(8 * MB, 4);
+
+		for (int i = 0; i < 4; i++) {
+			ChunkPlanner.Range range = planner.next();
+			assertNotNull(range);
+			assertEquals(i * 2 * MB, range.start);
+			assertEquals((i + 1) * 2 * MB, range.limit());
+		}
+	}
+
+	@Test
+	public void next_splitsRemainingRangeByThroughput() {
+		ChunkPlanner planner = planner(8 * MB, 1);
+		ChunkPlanner.Range first = planner.next();
+		assertNotNull(first);
+		now.addAndGet(1_000L);
+		planner.advance(first, (int) MB);
+
+		ChunkPlanner.Range tail = planner.next();
+
+		assertNotNull(tail);
+		assertEquals(MB + 7 * MB / 2, tail.start);
+		assertEquals(tail.start, first.limit());
+		assertEquals(8 * MB, tail.limit());
+	}
+
+	@Test
+	public void next_stealsWholeRemainderOfStalledRange() {
+		ChunkPlanner planner = planner(8 * MB, 1);
+		ChunkPlanner.Range stalled = planner.next();
+		assertNotNull(stalled);
+		AtomicBoolean aborted = new AtomicBoolean();
+		stalled.onAbort(() -> aborted.set(true));
+		planner.advance(stalled, 4096);
+		now.addAndGet(ChunkPlanner.STALL_MS);
+
+		ChunkPlanner.Range tail = planner.next();
+
+		assertNotNull(tail);
+		assertEquals(4096L, tail.start);
+		assertEquals(0L, stalled.remaining());
+		assertTrue(aborted.get());
+	}
+
+	@Test
+	public void next_leavesSmallRangesAlone() {
+		ChunkPlanner planner = planner(ChunkPlanner.MIN_SPLIT_BYTES, 1);
+		assertNotNull(planner.next());
+
+		assertNull(planner.next());
+	}
+
+	@Test
+	public void finish_requeuesUndeliveredRemainder() {
+		ChunkPlanner planner = planner(4 * MB, 1);
+		ChunkPlanner.Range range = planner.next();
+		assertNotNull(range);
+		planner.advance(range, (int) MB);
+
+		planner.finish(range);
+		ChunkPlanner.Range retry = planner.next();
+
+		assertNotNull(retry);
+		assertEquals(MB, retry.start);
+		assertEquals(MB, planner.completedBytes());
+	}
+
+	@Test
+	public void finish_neverRequeuesUnsplittableRange() {
+		ChunkPlanner planner = new ChunkPlanner(List.of(new long[]{0L, Long.MAX_VALUE}), List.of(), 4, false, now::get);
+		ChunkPlanner.Range range = planner.next();
+		assertNotNull(range);
+		planner.advance(range, (int) MB);
+
+		planner.finish(range);
+
+		assertNull(planner.next());
+		assertEquals(MB, planner.completedBytes());
+	}
+
+	@Test
+	public void take_parksIdleWorkerUntilStallAllowsSteal() {
+		ChunkPlanner planner = planner(ChunkPlanner.MIN_SPLIT_BYTES, 2);
+		AtomicInteger wakes = new AtomicInteger();
+		planner.onWake(wakes::incrementAndGet);
+		ChunkPlanner.Range busy = planner.take();
+		assertNotNull(busy);
+
+		assertNull(planner.take());
+		assertTrue(planner.hasParked());
+		planner.wakeIfReady();
+		assertEquals(0, wakes.get());
+
+		now.addAndGet(ChunkPlanner.STALL_MS);
+		planner.wakeIfReady();
+
+		assertEquals(1, wakes.get());
+		assertFalse(planner.hasParked());
+		assertNotNull(planner.take());
+	}
+
+	@Test
+	public void finish_wakesParkedWorkerForRequeuedRemainder() {
+		ChunkPlanner planner = planner(ChunkPlanner.MIN_SPLIT_BYTES, 2);
+		AtomicInteger wakes = new AtomicInteger();
+		planner.onWake(wakes::incrementAndGet);
+		ChunkPlanner.Range range = planner.take();
+		assertNotNull(range);
+		assertNull(planner.take());
+		planner.advance(range, 4096);
+
+		planner.finish(range);
+
+		assertEquals(1, wakes.get());
+		ChunkPlanner.Range retry = planner.take();
+		assertNotNull(retry);
+		assertEquals(4096L, retry.start);
+	}
+
+	@Test
+	public void finish_releasesParkedWorkersOnceNothingIsLeft() {
+		ChunkPlanner planner = planner(ChunkPlanner.MIN_SPLIT_BYTES, 2);
+		AtomicInteger wakes = new AtomicInteger();
+		planner.onWake(wakes::incrementAndGet);
+		ChunkPlanner.Range range = planner.take();
+		assertNotNull(range);
+		assertNull(planner.take());
+		planner.advance(range, (int) ChunkPlanner.MIN_SPLIT_BYTES);
+
+		planner.finish(range);
+
+		assertEquals(0, wakes.get());
+		assertFalse(planner.hasParked());
+	}
+
+	@Test
+	public void abort_stopsHandingOutRangesAndDropsInFlightOnes() {
+		ChunkPlanner planner = planner(8 * MB, 4);
+		AtomicInteger wakes = new AtomicInteger();
+		planner.onWake(wakes::incrementAndGet);
+		ChunkPlanner.Range failed = planner.take();
+		ChunkPlanner.Range running = planner.take();
+		assertNotNull(failed);
+		assertNotNull(running);
+		AtomicBoolean dropped = new AtomicBoolean();
+		running.onAbort(() -> dropped.set(true));
+		planner.advance(failed, 4096);
+
+		planner.finish(failed);
+		planner.abort();
+
+		assertTrue(dropped.get());
+		assertNull(planner.take());
+		assertFalse(planner.hasParked());
+		planner.advance(running, 4096);
+		planner.finish(running);
+		assertNull(planner.take());
+		assertEquals(0, wakes.get());
+		assertEquals(8192L, planner.completedBytes());
+		AtomicBoolean late = new AtomicBoolean();
+		running.onAbort(() -> late.set(true));
+		assertTrue(late.get());
+	}
+
+	@Test
+	public void encode_roundTripsMergedIntervals() {
+		byte[] data = ChunkPlanner.encode(100L, List.of(new long[]{10L, 20L}, new long[]{0L, 10L}, new long[]{50L, 60L}));
+
+		List<long[]> done = ChunkPlanner.decode(data, 100L);
+
+		assertEquals(2, done.size());
+		assertArrayEquals(new long[]{0L, 20L}, done.get(0));
+		assertArrayEquals(new long[]{50L, 60L}, done.get(1));
+		assertTrue(ChunkPlanner.decode(data, 99L).isEmpty());
+	}
+
+	@Test
+	public void gaps_coversMissingBytesOnly() {
+		List<long[]> gaps = ChunkPlanner.gaps(100L, List.of(new long[]{0L, 20L}, new long[]{50L, 60L}));
+
+		assertEquals(2, gaps.size());
+		assertArrayEquals(new long[]{20L, 50L}, gaps.get(0));
+		assertArrayEquals(new long[]{60L, 100L}, gaps.get(1));
+	}
+
+	@Test
+	public void decodeLegacy_mapsFinishedChunksToBytes() {
+		BitSet bits = new BitSet();
+		bits.set(0);
+		bits.set(127);
+
+		List<long[]> done = ChunkPlanner.decodeLegacy(bits.toByteArray(), 1000L);
+
+		assertEquals(2, done.size());
+		assertArrayEquals(new long[]{0L, 7L}, done.get(0));
+		assertArrayEquals(new long[]{889L, 1000L}, done.get(1));
+	}
+}
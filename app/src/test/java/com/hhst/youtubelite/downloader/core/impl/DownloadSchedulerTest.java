@@ -0,0 +1,171 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DownloadSchedulerTest {
+	private static final long TIMEOUT_MS = 5_000L;
+
+	@Test
+	public void submit_neverExceedsGlobalOrHostBudget() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(6, 4, 8);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger hostA = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		AtomicInteger peakA = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(80);
+		for (int file = 0; file < 4; file++) {
+			boolean onA = file % 2 == 0;
+			DownloadScheduler.Lane lane = scheduler.lane(onA ? "a.example" : "b.example", DownloadPriority.NORMAL, 8);
+			for (int i = 0; i < 20; i++) {
+				lane.submit(() -> {
+					peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+					if (onA) peakA.accumulateAndGet(hostA.incrementAndGet(), Math::max);
+					sleep(2L);
+					if (onA) hostA.decrementAndGet();
+					running.decrementAndGet();
+					done.countDown();
+				});
+			}
+		}
+
+		assertTrue(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		assertTrue(peak.get() <= 6);
+		assertTrue(peakA.get() <= 4);
+		assertEquals(6, scheduler.metrics().peakConnections());
+	}
+
+	@Test
+	public void submit_sharesConnectionsFairlyBetweenFiles() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(4, 4, 8);
+		Semaphore gate = new Semaphore(0);
+		AtomicInteger first = new AtomicInteger();
+		AtomicInteger second = new AtomicInteger();
+		DownloadScheduler.Lane a = scheduler.lane("host", DownloadPriority.NORMAL, 4);
+		DownloadScheduler.Lane b = scheduler.lane("host", DownloadPriority.NORMAL, 4);
+		for (int i = 0; i < 8; i++) {
+			a.submit(blocking(gate, first));
+		}
+		awaitActive(scheduler, 4);
+		for (int i = 0; i < 4; i++) {
+			b.submit(blocking(gate, second));
+		}
+
+		// Each finished connection of the busy file goes to the file running fewer, until both hold half.
+		gate.release(2);
+		awaitActive(scheduler, 4);
+		waitFor(() -> second.get() == 2);
+		assertEquals(4, first.get());
+		assertEquals(2, second.get());
+		assertEquals(6, scheduler.metrics().queuedJobs());
+		gate.release(100);
+	}
+
+	@Test
+	public void submit_runsHigherPriorityFirst() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(1, 1, 8);
+		Semaphore gate = new Semaphore(0);
+		List<String> order = new CopyOnWriteArrayList<>();
+		DownloadScheduler.Lane low = scheduler.lane("host", DownloadPriority.LOW, 1);
+		DownloadScheduler.Lane normal = scheduler.lane("host", DownloadPriority.NORMAL, 1);
+		DownloadScheduler.Lane high = scheduler.lane("host", DownloadPriority.HIGH, 1);
+		low.submit(blocking(gate, new AtomicInteger()));
+		awaitActive(scheduler, 1);
+		low.submit(() -> order.add("low"));
+		normal.submit(() -> order.add("normal"));
+		high.submit(() -> order.add("high"));
+
+		gate.release();
+		waitFor(() -> order.size() == 3);
+		assertEquals(List.of("high", "normal", "low"), order);
+	}
+
+	@Test
+	public void lane_waitsForAdmissionUntilAnOpenFileCloses() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(4, 4, 1);
+		Semaphore gate = new Semaphore(0);
+		AtomicInteger started = new AtomicInteger();
+		DownloadScheduler.Lane first = scheduler.lane("host", DownloadPriority.NORMAL, 1);
+		DownloadScheduler.Lane second = scheduler.lane("host", DownloadPriority.NORMAL, 1);
+		first.submit(blocking(gate, started));
+		second.submit(blocking(gate, started));
+		awaitActive(scheduler, 1);
+
+		DownloadScheduler.Metrics waiting = scheduler.metrics();
+		assertEquals(1, waiting.openLanes());
+		assertEquals(1, waiting.waitingLanes());
+		assertEquals(1, waiting.queuedJobs());
+
+		gate.release();
+		waitFor(() -> scheduler.metrics().activeConnections() == 0);
+		assertEquals(1, started.get());
+		first.close();
+		waitFor(() -> started.get() == 2);
+		gate.release();
+		second.close();
+		waitFor(() -> scheduler.metrics().openLanes() == 0);
+	}
+
+	@Test
+	public void lane_higherPriorityJumpsAdmissionLimit() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(4, 4, 1);
+		Semaphore gate = new Semaphore(0);
+		AtomicInteger started = new AtomicInteger();
+		DownloadScheduler.Lane bulk = scheduler.lane("host", DownloadPriority.LOW, 1);
+		DownloadScheduler.Lane user = scheduler.lane("host", DownloadPriority.NORMAL, 1);
+		bulk.submit(blocking(gate, started));
+		awaitActive(scheduler, 1);
+		user.submit(blocking(gate, started));
+
+		awaitActive(scheduler, 2);
+		assertEquals(2, scheduler.metrics().openLanes());
+		gate.release(2);
+	}
+
+	@NonNull
+	private static Runnable blocking(@NonNull Semaphore gate,
+	                                 @NonNull AtomicInteger started) {
+		return () -> {
+			started.incrementAndGet();
+			gate.acquireUninterruptibly();
+		};
+	}
+
+	private static void awaitActive(@NonNull DownloadScheduler scheduler,
+	                                final int connections) throws InterruptedException {
+		waitFor(() -> scheduler.metrics().activeConnections() == connections);
+	}
+
+	private static void waitFor(@NonNull Condition condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!condition.met()) {
+			if (System.currentTimeMillis() > deadline) throw new AssertionError("Timed out");
+			Thread.sleep(5L);
+		}
+	}
+
+	private static void sleep(final long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private interface Condition {
+		boolean met();
+	}
+}
@@ -0,0 +1,89 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResumeJournalTest {
+	private static final long TOTAL = 1_000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final AtomicLong now = new AtomicLong(10_000L);
+
+	@Test
+	public void close_makesCommittedIntervalsReplayable() throws Exception {
+		File journal = new File(folder.getRoot(), "video.journal");
+		try (RandomAccessFile data = new RandomAccessFile(folder.newFile("video.tmp"), "rw")) {
+			ResumeJournal writer = ResumeJournal.open(journal, data.getChannel(), TOTAL, List.of(new long[]{0L, 100L}), now::get);
+			writer.commit(100L, 200L);
+			writer.commit(500L, 600L);
+			writer.close();
+		}
+
+		List<long[]> done = ResumeJournal.replay(journal, TOTAL);
+
+		assertEquals(2, done.size());
+		assertArrayEquals(new long[]{0L, 200L}, done.get(0));
+		assertArrayEquals(new long[]{500L, 600L}, done.get(1));
+	}
+
+	@Test
+	public void commit_flushesOnlyOncePerInterval() throws Exception {
+		File journal = new File(folder.getRoot(), "video.journal");
+		try (RandomAccessFile data = new RandomAccessFile(folder.newFile("video.tmp"), "rw")) {
+			ResumeJournal writer = ResumeJournal.open(journal, data.getChannel(), TOTAL, List.of(), now::get);
+			writer.commit(0L, 100L);
+			assertTrue(ResumeJournal.replay(journal, TOTAL).isEmpty());
+
+			now.addAndGet(ResumeJournal.FLUSH_INTERVAL_MS);
+			writer.commit(100L, 200L);
+			List<long[]> done = ResumeJournal.replay(journal, TOTAL);
+
+			assertEquals(1, done.size());
+			assertArrayEquals(new long[]{0L, 200L}, done.get(0));
+			writer.delete();
+		}
+		assertTrue(!journal.exists());
+	}
+
+	@Test
+	public void replay_stopsAtTornRecord() throws Exception {
+		File journal = new File(folder.getRoot(), "video.journal");
+		try (RandomAccessFile data = new RandomAccessFile(folder.newFile("video.tmp"), "rw")) {
+			ResumeJournal writer = ResumeJournal.open(journal, data.getChannel(), TOTAL, List.of(), now::get);
+			writer.commit(0L, 100L);
+			writer.close();
+		}
+		Files.write(journal.toPath(), new byte[]{0, 0, 0, 0, 0, 0, 1, 44, 0, 0, 0}, StandardOpenOption.APPEND);
+
+		List<long[]> done = ResumeJournal.replay(journal, TOTAL);
+
+		assertEquals(1, done.size());
+		assertArrayEquals(new long[]{0L, 100L}, done.get(0));
+	}
+
+	@Test
+	public void replay_discardsJournalForDifferentLength() throws Exception {
+		File journal = new File(folder.getRoot(), "video.journal");
+		try (RandomAccessFile data = new RandomAccessFile(folder.newFile("video.tmp"), "rw")) {
+			ResumeJournal writer = ResumeJournal.open(journal, data.getChannel(), TOTAL, List.of(new long[]{0L, 100L}), now::get);
+			writer.close();
+		}
+
+		assertTrue(ResumeJournal.replay(journal, TOTAL + 1).isEmpty());
+		assertTrue(ResumeJournal.replay(new File(folder.getRoot(), "missing.journal"), TOTAL).isEmpty());
+	}
+}
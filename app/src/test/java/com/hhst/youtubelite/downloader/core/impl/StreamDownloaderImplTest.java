@@ -0,0 +1,189 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+
+public class StreamDownloaderImplTest {
+	private static final int SIZE = 300 * 1024;
+	private static final long RANGED_SIZE = 40L * 1024L * 1024L;
+	private static final long STALL_MS = 10_000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final byte[] content = new byte[SIZE];
+	private final AtomicInteger gets = new AtomicInteger();
+	private final AtomicInteger rangedGets = new AtomicInteger();
+	private final CountDownLatch secondRange = new CountDownLatch(1);
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private String url;
+	private long advertisedLength = -1L;
+	private int servedBytes = SIZE;
+
+	@Before
+	public void setUp() throws IOException {
+		new Random(11L).nextBytes(content);
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.createContext("/plain", this::serve);
+		server.createContext("/ranged", this::serveRanged);
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/plain";
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	/**
+	 * Serves the body chunked, without Accept-Ranges and ignoring any Range header.
+	 */
+	private void serve(@NonNull HttpExchange exchange) throws IOException {
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			if (advertisedLength >= 0) {
+				exchange.getResponseHeaders().add("Content-Length", String.valueOf(advertisedLength));
+			}
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		gets.incrementAndGet();
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(content, 0, servedBytes);
+		}
+	}
+
+	/**
+	 * Serves ranges of zeros; the range at byte 0 fails once another range is in flight, which then stalls.
+	 */
+	private void serveRanged(@NonNull HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().add("Content-Length", String.valueOf(RANGED_SIZE));
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		rangedGets.incrementAndGet();
+		String[] bounds = exchange.getRequestHeaders().getFirst("Range").substring("bytes=".length()).split("-");
+		long start = Long.parseLong(bounds[0]);
+		long end = Long.parseLong(bounds[1]);
+		try {
+			if (start == 0L) {
+				secondRange.await(5, TimeUnit.SECONDS);
+				exchange.sendResponseHeaders(500, -1);
+				exchange.close();
+				return;
+			}
+			secondRange.countDown();
+			exchange.sendResponseHeaders(206, end - start + 1);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(new byte[64 * 1024]);
+				out.flush();
+				Thread.sleep(STALL_MS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException ignored) {
+			// The client dropped the connection.
+		}
+	}
+
+	@Test
+	public void download_failedRange_stopsOtherRangesWithoutFetchingTheRest() throws Exception {
+		File out = folder.newFile("ranged.bin");
+		StreamDownloaderImpl downloader = new StreamDownloaderImpl(new OkHttpClient(), new MemoryResumeStore(), new DownloadScheduler());
+		String ranged = url.replace("/plain", "/ranged");
+
+		long begin = System.nanoTime();
+		ExecutionException error = assertThrows(ExecutionException.class,
+						() -> downloader.download(ranged, out, null, 2, DownloadPriority.NORMAL).get(STALL_MS / 2, TimeUnit.MILLISECONDS));
+
+		assertTrue(String.valueOf(error.getCause()), String.valueOf(error.getCause().getMessage()).contains("500"));
+		assertTrue(System.nanoTime() - begin < TimeUnit.MILLISECONDS.toNanos(STALL_MS / 2));
+		assertEquals(2, rangedGets.get());
+	}
+
+	@Test
+	public void download_withoutLengthOrRanges_completesAtEof() throws Exception {
+		File out = folder.newFile("plain.bin");
+		StreamDownloaderImpl downloader = new StreamDownloaderImpl(new OkHttpClient(), new MemoryResumeStore(), new DownloadScheduler());
+
+		downloader.download(url, out, null, 4, DownloadPriority.NORMAL).get(10, TimeUnit.SECONDS);
+
+		assertArrayEquals(content, Files.readAllBytes(out.toPath()));
+		assertEquals(1, gets.get());
+	}
+
+	@Test
+	public void download_truncatedWithoutRanges_failsInsteadOfRefetching() throws Exception {
+		advertisedLength = SIZE;
+		servedBytes = SIZE / 2;
+		File out = folder.newFile("truncated.bin");
+		StreamDownloaderImpl downloader = new StreamDownloaderImpl(new OkHttpClient(), new MemoryResumeStore(), new DownloadScheduler());
+
+		ExecutionException error = assertThrows(ExecutionException.class,
+						() -> downloader.download(url, out, null, 4, DownloadPriority.NORMAL).get(10, TimeUnit.SECONDS));
+
+		assertTrue(String.valueOf(error.getCause()), String.valueOf(error.getCause().getMessage()).contains("Truncated"));
+		assertEquals(1, gets.get());
+		assertEquals(SIZE, out.length());
+	}
+
+	private static final class MemoryResumeStore implements StreamDownloaderImpl.ResumeStore {
+		private final Map<String, byte[]> values = new HashMap<>();
+
+		@Nullable
+		@Override
+		public synchronized byte[] get(@NonNull String key) {
+			return values.get(key);
+		}
+
+		@Override
+		public synchronized void put(@NonNull String key, @NonNull byte[] value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public synchronized void remove(@NonNull String key) {
+			values.remove(key);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package com.hhst.youtubelite.downloader.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hhst.youtubelite.downloader.core.DownloadPriority;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Throughput comparison against a local stand-in server that throttles one range and stalls another.
+ * The baseline downloads four fixed equal ranges; the planner starts with the same four and steals tails.
+ * Runs only with {@code -Pbenchmarks=true}, since it takes seconds of wall clock and compares timings.
+ */
+public class StreamDownloaderThroughputBenchmark {
+	private static final int SIZE = 8 * 1024 * 1024;
+	private static final int WORKERS = 4;
+	private static final long SLOW_START = SIZE / 4;
+	private static final long STALL_START = 3L * SIZE / 4;
+	private static final int SLOW_BYTES_PER_SECOND = 512 * 1024;
+	private static final long STALL_MS = 6_000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final byte[] content = new byte[SIZE];
+	private final AtomicBoolean stallArmed = new AtomicBoolean();
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private String url;
+
+	@Before
+	public void setUp() throws IOException {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		new Random(7L).nextBytes(content);
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.createContext("/video", this::serve);
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/video";
+	}
+
+	@After
+	public void tearDown() {
+		if (server == null) return;
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	private void serve(@NonNull HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().add("Content-Length", String.valueOf(SIZE));
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		long start = 0;
+		long end = SIZE - 1;
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (range != null) {
+			String[] bounds = range.substring("bytes=".length()).split("-");
+			start = Long.parseLong(bounds[0]);
+			end = Math.min(SIZE - 1, Long.parseLong(bounds[1]));
+		}
+		long length = end - start + 1;
+		exchange.sendResponseHeaders(range != null ? 206 : 200, length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			boolean slow = start == SLOW_START;
+			boolean stall = start == STALL_START && stallArmed.compareAndSet(true, false);
+			long offset = start;
+			int slice = 16 * 1024;
+			while (offset <= end) {
+				int count = (int) Math.min(slice, end - offset + 1);
+				out.write(content, (int) offset, count);
+				out.flush();
+				offset += count;
+				if (stall) {
+					stall = false;
+					Thread.sleep(STALL_MS);
+				} else if (slow) {
+					Thread.sleep(1000L * count / SLOW_BYTES_PER_SECOND);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException ignored) {
+			// The client dropped a connection whose tail was stolen.
+		}
+	}
+
+	private long staticRanges(@NonNull OkHttpClient client,
+	                          @NonNull File out) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+		long begin = System.nanoTime();
+		try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+			raf.setLength(SIZE);
+			long part = SIZE / WORKERS;
+			CompletableFuture.allOf(IntStream.range(0, WORKERS).mapToObj(i -> CompletableFuture.runAsync(() -> {
+				long start = i * part;
+				long end = i == WORKERS - 1 ? SIZE - 1 : start + part - 1;
+				Request request = new Request.Builder().url(url).header("Range", "bytes=" + start + "-" + end).build();
+				try (Response response = client.newCall(request).execute();
+				     InputStream in = response.body().byteStream()) {
+					byte[] buf = new byte[8192];
+					long offset = start;
+					int read;
+					while ((read = in.read(buf)) != -1) {
+						synchronized (raf) {
+							raf.seek(offset);
+							raf.write(buf, 0, read);
+						}
+						offset += read;
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}, pool)).toArray(CompletableFuture[]::new)).join();
+		} finally {
+			pool.shutdownNow();
+		}
+		return System.nanoTime() - begin;
+	}
+
+	private long planned(@NonNull OkHttpClient client,
+	                     @NonNull File out) throws Exception {
+		StreamDownloaderImpl downloader = new StreamDownloaderImpl(client, new MemoryResumeStore(), new DownloadScheduler());
+		long begin = System.nanoTime();
+		downloader.download(url, out, null, WORKERS, DownloadPriority.NORMAL).get(60, TimeUnit.SECONDS);
+		return System.nanoTime() - begin;
+	}
+
+	@Test
+	public void download_stealsFromSlowAndStalledRanges() throws Exception {
+		OkHttpClient client = new OkHttpClient();
+		File baseline = folder.newFile("baseline.bin");
+		File planned = folder.newFile("planned.bin");
+
+		stallArmed.set(true);
+		long staticNanos = staticRanges(client, baseline);
+		stallArmed.set(true);
+		long plannedNanos = planned(client, planned);
+
+		double mb = SIZE / (1024d * 1024d);
+		assertArrayEquals(content, Files.readAllBytes(baseline.toPath()));
+		assertArrayEquals(content, Files.readAllBytes(planned.toPath()));
+		assertTrue(String.format("static %.2f MiB/s, planner %.2f MiB/s", mb / (staticNanos / 1e9), mb / (plannedNanos / 1e9)),
+						plannedNanos < staticNanos);
+	}
+
+	private static final class MemoryResumeStore implements StreamDownloaderImpl.ResumeStore {
+		private final Map<String, byte[]> values = new HashMap<>();
+
+		@Nullable
+		@Override
+		public synchronized byte[] get(@NonNull String key) {
+			return values.get(key);
+		}
+
+		@Override
+		public synchronized void put(@NonNull String key, @NonNull byte[] value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public synchronized void remove(@NonNull String key) {
+			values.remove(key);
+		}
+	}
+}
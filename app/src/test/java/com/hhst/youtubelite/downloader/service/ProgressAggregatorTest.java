@@ -0,0 +1,142 @@
+package com.hhst.youtubelite.downloader.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ProgressAggregatorTest {
+	private final List<Runnable> scheduled = new ArrayList<>();
+	private final List<List<ProgressAggregator.Sample>> changedBatches = new CopyOnWriteArrayList<>();
+	private final List<List<ProgressAggregator.Sample>> activeBatches = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void reportsWithinInterval_publishOnceWithLatestSamples() {
+		ProgressAggregator aggregator = new ProgressAggregator((delayMillis, task) -> scheduled.add(task), this::record, 250L);
+
+		aggregator.report("a", "a.mp4", 10, 10L, 100L);
+		aggregator.report("a", "a.mp4", 20, 20L, 100L);
+		aggregator.report("b", "b.mp4", 5, 5L, 100L);
+
+		assertEquals(1, scheduled.size());
+		scheduled.remove(0).run();
+
+		assertEquals(1, changedBatches.size());
+		List<ProgressAggregator.Sample> changed = sorted(changedBatches.get(0));
+		assertEquals(2, changed.size());
+		assertEquals(20, changed.get(0).progress());
+		assertEquals(5, changed.get(1).progress());
+		assertEquals(new ProgressAggregator.Metrics(3L, 1L), aggregator.metrics());
+	}
+
+	@Test
+	public void nextPublish_carriesOnlyChangedTasksButFullSnapshot() {
+		ProgressAggregator aggregator = new ProgressAggregator((delayMillis, task) -> scheduled.add(task), this::record, 250L);
+		aggregator.report("a", "a.mp4", 10, 10L, 100L);
+		aggregator.report("b", "b.mp4", 10, 10L, 100L);
+		scheduled.remove(0).run();
+
+		aggregator.report("b", "b.mp4", 30, 30L, 100L);
+		scheduled.remove(0).run();
+
+		assertEquals(2, changedBatches.size());
+		assertEquals(List.of("b"), changedBatches.get(1).stream().map(ProgressAggregator.Sample::taskId).toList());
+		assertEquals(2, activeBatches.get(1).size());
+	}
+
+	@Test
+	public void removedTask_isNotPublishedAfterTerminalState() {
+		ProgressAggregator aggregator = new ProgressAggregator((delayMillis, task) -> scheduled.add(task), this::record, 250L);
+		aggregator.report("a", "a.mp4", 90, 90L, 100L);
+		aggregator.remove("a");
+
+		scheduled.remove(0).run();
+
+		assertTrue(changedBatches.isEmpty());
+		assertEquals(new ProgressAggregator.Metrics(1L, 0L), aggregator.metrics());
+	}
+
+	@Test
+	public void lateReportAfterRemove_doesNotRevivePublishedTask() {
+		ProgressAggregator aggregator = new ProgressAggregator((delayMillis, task) -> scheduled.add(task), this::record, 250L);
+		aggregator.report("a", "a.mp4", 50, 50L, 100L);
+		aggregator.report("b", "b.mp4", 10, 10L, 100L);
+		scheduled.remove(0).run();
+		aggregator.remove("a");
+
+		aggregator.report("a", "a.mp4", 99, 99L, 100L);
+		aggregator.report("b", "b.mp4", 20, 20L, 100L);
+		scheduled.remove(0).run();
+
+		assertEquals(List.of("b"), activeBatches.get(1).stream().map(ProgressAggregator.Sample::taskId).toList());
+		assertEquals(List.of("b"), changedBatches.get(1).stream().map(ProgressAggregator.Sample::taskId).toList());
+	}
+
+	@Test
+	public void begin_acceptsReportsForRestartedTask() {
+		ProgressAggregator aggregator = new ProgressAggregator((delayMillis, task) -> scheduled.add(task), this::record, 250L);
+		aggregator.report("a", "a.mp4", 50, 50L, 100L);
+		aggregator.remove("a");
+		aggregator.begin("a");
+
+		aggregator.report("a", "a.mp4", 5, 5L, 100L);
+		scheduled.remove(0).run();
+
+		assertEquals(1, changedBatches.size());
+		assertEquals(5, changedBatches.get(0).get(0).progress());
+	}
+
+	@Test
+	public void manyReportingThreads_publishRateStaysBounded() throws Exception {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			ProgressAggregator aggregator = new ProgressAggregator(new ProgressAggregator.ExecutorScheduler(executor), this::record, 50L);
+			int threads = 10;
+			long runMs = 500L;
+			CountDownLatch done = new CountDownLatch(threads);
+			for (int t = 0; t < threads; t++) {
+				String taskId = "task-" + t;
+				new Thread(() -> {
+					long deadline = System.currentTimeMillis() + runMs;
+					int progress = 0;
+					while (System.currentTimeMillis() < deadline) {
+						aggregator.report(taskId, taskId + ".mp4", progress++ % 100, progress, 100_000L);
+					}
+					done.countDown();
+				}).start();
+			}
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			Thread.sleep(120L);
+
+			ProgressAggregator.Metrics metrics = aggregator.metrics();
+			assertTrue(metrics.reports() > metrics.publishes() * 100L);
+			assertTrue("publishes=" + metrics.publishes(), metrics.publishes() <= runMs / 50L + 3L);
+			assertEquals(threads, activeBatches.get(activeBatches.size() - 1).size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void record(@NonNull List<ProgressAggregator.Sample> changed, @NonNull List<ProgressAggregator.Sample> active) {
+		changedBatches.add(changed);
+		activeBatches.add(active);
+	}
+
+	@NonNull
+	private static List<ProgressAggregator.Sample> sorted(@NonNull List<ProgressAggregator.Sample> samples) {
+		List<ProgressAggregator.Sample> copy = new ArrayList<>(samples);
+		copy.sort(Comparator.comparing(ProgressAggregator.Sample::taskId));
+		return copy;
+	}
+}
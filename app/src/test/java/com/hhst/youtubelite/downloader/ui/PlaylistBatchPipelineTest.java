@@ -0,0 +1,99 @@
+package com.hhst.youtubelite.downloader.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PlaylistBatchPipelineTest {
+	private final ScheduledExecutorService extractor = Executors.newScheduledThreadPool(8);
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger launched = new AtomicInteger();
+
+	@After
+	public void tearDown() {
+		extractor.shutdownNow();
+	}
+
+	@Test
+	public void run_keepsTheWindowFullAndSinksInCompletionOrder() throws Exception {
+		List<Integer> sunk = new ArrayList<>();
+		Thread caller = Thread.currentThread();
+
+		Set<Integer> processed = PlaylistBatchPipeline.run(List.of(0, 1, 2, 3, 4, 5, 6, 7), 3,
+						index -> extract(index, index == 0 ? 120L : 10L, null),
+						(index, value, error) -> {
+							assertEquals(caller, Thread.currentThread());
+							assertEquals("video" + index, value);
+							assertNull(error);
+							sunk.add(index);
+						},
+						() -> false);
+
+		assertEquals(Set.of(0, 1, 2, 3, 4, 5, 6, 7), processed);
+		assertEquals(8, sunk.size());
+		assertTrue(sunk.indexOf(0) > sunk.indexOf(3));
+		assertEquals(3, maxInFlight.get());
+	}
+
+	@Test
+	public void run_passesFailuresToTheSinkAndSkipsMissingItems() throws Exception {
+		List<Throwable> errors = new ArrayList<>();
+
+		Set<Integer> processed = PlaylistBatchPipeline.run(List.of(0, 1, 2), 2,
+						index -> index == 1 ? null : extract(index, 5L, index == 2 ? new IOException("gone") : null),
+						(index, value, error) -> {
+							if (error != null) errors.add(error);
+						},
+						() -> false);
+
+		assertEquals(Set.of(0, 1, 2), processed);
+		assertEquals(1, errors.size());
+		assertEquals("gone", errors.get(0).getMessage());
+	}
+
+	@Test
+	public void run_stopsLaunchingOnceCanceled() throws Exception {
+		AtomicBoolean canceled = new AtomicBoolean();
+		List<Integer> indexes = new ArrayList<>();
+		for (int i = 0; i < 50; i++) indexes.add(i);
+
+		Set<Integer> processed = PlaylistBatchPipeline.run(indexes, 4,
+						index -> extract(index, 10L, null),
+						(index, value, error) -> canceled.set(true),
+						canceled::get);
+
+		assertEquals(1, processed.size());
+		assertTrue(launched.get() <= 5);
+	}
+
+	private CompletableFuture<String> extract(final int index, final long delayMs, final Exception failure) {
+		launched.incrementAndGet();
+		int running = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(running, Math::max);
+		CompletableFuture<String> future = new CompletableFuture<>();
+		extractor.schedule(() -> {
+			inFlight.decrementAndGet();
+			if (failure != null) {
+				future.completeExceptionally(failure);
+			} else {
+				future.complete("video" + index);
+			}
+		}, delayMs, TimeUnit.MILLISECONDS);
+		return future;
+	}
+}
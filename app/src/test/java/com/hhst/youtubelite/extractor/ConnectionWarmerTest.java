@@ -0,0 +1,88 @@
+package com.hhst.youtubelite.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.schabi.newpipe.extractor.stream.StreamType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class ConnectionWarmerTest {
+	private final List<Request> requests = new CopyOnWriteArrayList<>();
+	private final AtomicLong now = new AtomicLong(1_000L);
+
+	@Test
+	public void warmOrigin_pingsOncePerInterval() throws Exception {
+		ConnectionWarmer warmer = new ConnectionWarmer(client(false), now::get);
+
+		assertTrue(warmer.warmOrigin("https://rr1---sn-a.googlevideo.com/videoplayback?id=1"));
+		assertFalse(warmer.warmOrigin("https://rr1---sn-a.googlevideo.com/videoplayback?id=2"));
+		now.addAndGet(ConnectionWarmer.REWARM_AFTER_MS);
+		assertTrue(warmer.warmOrigin("https://rr1---sn-a.googlevideo.com/videoplayback?id=3"));
+		assertFalse(warmer.warmOrigin("http://i.ytimg.com/vi/a/default.jpg"));
+
+		waitForRequests(2);
+		assertEquals("HEAD", requests.get(0).method());
+		assertEquals("https://rr1---sn-a.googlevideo.com/generate_204", requests.get(0).url().toString());
+	}
+
+	@Test
+	public void failedWarmUp_canBeRetried() throws Exception {
+		ConnectionWarmer warmer = new ConnectionWarmer(client(true), now::get);
+
+		assertTrue(warmer.warmOrigin(ConnectionWarmer.THUMBNAIL_ORIGIN));
+		waitForRequests(1);
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (!warmer.warmOrigin(ConnectionWarmer.THUMBNAIL_ORIGIN)) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(2L);
+		}
+	}
+
+	@Test
+	public void originsOf_listsManifestThenStreamHosts() {
+		PlaybackPlan plan = new PlaybackPlan(PlaybackMode.ADAPTIVE, StreamType.VIDEO_STREAM, null,
+						StreamCandidate.dashManifest("https://rr2---sn-b.googlevideo.com/videoplayback?itag=137", null, false, false, false),
+						StreamCandidate.dashManifest("https://rr2---sn-b.googlevideo.com/videoplayback?itag=140", null, false, false, false),
+						StreamCandidate.dashManifest("https://rr3---sn-c.googlevideo.com:8443/videoplayback?itag=18", null, false, false, false));
+
+		assertEquals(List.of("https://rr2---sn-b.googlevideo.com", "https://rr3---sn-c.googlevideo.com:8443"),
+						ConnectionWarmer.originsOf(plan));
+	}
+
+	@NonNull
+	private OkHttpClient client(final boolean fail) {
+		return new OkHttpClient.Builder().addInterceptor(chain -> {
+			requests.add(chain.request());
+			if (fail) throw new IOException("unreachable");
+			return new Response.Builder()
+							.request(chain.request())
+							.protocol(Protocol.HTTP_2)
+							.code(204)
+							.message("No Content")
+							.body(ResponseBody.EMPTY)
+							.build();
+		}).build();
+	}
+
+	private void waitForRequests(final int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (requests.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(2L);
+		}
+		assertEquals(count, requests.size());
+	}
+}
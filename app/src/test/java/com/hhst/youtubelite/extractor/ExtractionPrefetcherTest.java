@@ -0,0 +1,74 @@
+package com.hhst.youtubelite.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ExtractionPrefetcherTest {
+
+	private final Map<String, CompletableFuture<PlaybackDetails>> futures = new LinkedHashMap<>();
+	private final Map<String, ExtractionSession> sessions = new LinkedHashMap<>();
+	private final ExtractionPrefetcher prefetcher = new ExtractionPrefetcher((videoId, session) -> {
+		CompletableFuture<PlaybackDetails> future = new CompletableFuture<>();
+		futures.put(videoId, future);
+		sessions.put(videoId, session);
+		return future;
+	}, 2);
+
+	@Test
+	public void prefetch_startsWithinBudgetAndDrainsOnCompletion() {
+		prefetcher.prefetch(List.of("aaaaaaaaaaa", "bbbbbbbbbbb", "ccccccccccc"));
+
+		assertEquals(List.of("aaaaaaaaaaa", "bbbbbbbbbbb"), List.copyOf(futures.keySet()));
+
+		futures.get("aaaaaaaaaaa").complete(null);
+
+		assertTrue(futures.containsKey("ccccccccccc"));
+		assertEquals(2, prefetcher.activeCount());
+	}
+
+	@Test
+	public void prefetch_cancelsItemsThatAreNoLongerUpcoming() {
+		prefetcher.prefetch(List.of("aaaaaaaaaaa", "bbbbbbbbbbb"));
+
+		prefetcher.prefetch(List.of("bbbbbbbbbbb", "ccccccccccc"));
+
+		assertTrue(sessions.get("aaaaaaaaaaa").isCancelled());
+		assertFalse(sessions.get("bbbbbbbbbbb").isCancelled());
+		assertEquals(3, futures.size());
+	}
+
+	@Test
+	public void retainOnly_keepsTheFetchPlaybackWillJoin() {
+		prefetcher.prefetch(List.of("aaaaaaaaaaa", "bbbbbbbbbbb"));
+
+		prefetcher.retainOnly("bbbbbbbbbbb");
+
+		assertTrue(sessions.get("aaaaaaaaaaa").isCancelled());
+		assertFalse(sessions.get("bbbbbbbbbbb").isCancelled());
+		assertEquals(1, prefetcher.activeCount());
+	}
+
+	@Test
+	public void prefetch_reportsOnlyTheNextItemOnce() {
+		AtomicReference<PlaybackDetails> ready = new AtomicReference<>();
+		PlaybackDetails details = PlaybackDetailsHandOffBenchmark.sample();
+		prefetcher.prefetch(List.of("aaaaaaaaaaa", "bbbbbbbbbbb"), ready::set);
+
+		futures.get("bbbbbbbbbbb").complete(details);
+		assertNull(ready.get());
+
+		futures.get("aaaaaaaaaaa").complete(details);
+		assertSame(details, ready.get());
+	}
+}
@@ -0,0 +1,299 @@
+package com.hhst.youtubelite.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.schabi.newpipe.extractor.MediaFormat;
+import org.schabi.newpipe.extractor.services.youtube.ItagItem;
+import org.schabi.newpipe.extractor.stream.AudioStream;
+import org.schabi.newpipe.extractor.stream.AudioTrackType;
+import org.schabi.newpipe.extractor.stream.DeliveryMethod;
+import org.schabi.newpipe.extractor.stream.StreamSegment;
+import org.schabi.newpipe.extractor.stream.StreamType;
+import org.schabi.newpipe.extractor.stream.SubtitlesStream;
+import org.schabi.newpipe.extractor.stream.VideoStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class InfoCacheTest {
+
+	private final AtomicLong now = new AtomicLong(1_000L);
+	private final MemoryBackend backend = new MemoryBackend();
+	private final InfoStore store = new InfoStore(backend, now::get, () -> {
+	});
+
+	@NonNull
+	private static VideoDetails video(@NonNull String id) {
+		return new VideoDetails(id, "title", "author", "description", 42L,
+						"https://i.ytimg.com/vi/" + id + "/hqdefault.jpg", 1L, 2L, new Date(3L),
+						"https://www.youtube.com/@author", null, 4L);
+	}
+
+	@Test
+	public void getVideoDetails_servesMemoryHitsWithoutDecoding() {
+		InfoCache cache = new InfoCache(store, Runnable::run, now::get, 4);
+		VideoDetails details = video("aaaaaaaaaaa");
+
+		cache.putVideoDetails("aaaaaaaaaaa", details);
+
+		assertSame(details, cache.getVideoDetails("aaaaaaaaaaa"));
+		assertEquals(1L, cache.stats().memoryHits());
+		assertEquals(0L, cache.stats().diskHits());
+	}
+
+	@Test
+	public void getVideoDetails_fallsBackToBinaryDiskTier() {
+		new InfoCache(store, Runnable::run, now::get, 4).putVideoDetails("aaaaaaaaaaa", video("aaaaaaaaaaa"));
+		InfoCache cache = new InfoCache(store, Runnable::run, now::get, 4);
+
+		VideoDetails restored = cache.getVideoDetails("aaaaaaaaaaa");
+
+		assertNotNull(restored);
+		assertEquals(video("aaaaaaaaaaa"), restored);
+		assertEquals(1L, cache.stats().diskHits());
+		assertSame(restored, cache.getVideoDetails("aaaaaaaaaaa"));
+	}
+
+	@Test
+	public void remember_evictsLeastRecentlyUsedEntries() {
+		InfoCache cache = new InfoCache(store, Runnable::run, now::get, 2);
+		cache.putVideoDetails("aaaaaaaaaaa", video("aaaaaaaaaaa"));
+		cache.putVideoDetails("bbbbbbbbbbb", video("bbbbbbbbbbb"));
+		cache.getVideoDetails("aaaaaaaaaaa");
+		cache.putVideoDetails("ccccccccccc", video("ccccccccccc"));
+
+		assertEquals(1L, cache.stats().evictions());
+		cache.getVideoDetails("bbbbbbbbbbb");
+		assertEquals(1L, cache.stats().diskHits());
+	}
+
+	@Test
+	public void sweep_dropsExpiredEntriesFromBothTiers() {
+		InfoCache cache = new InfoCache(store, Runnable::run, now::get, 4);
+		cache.putVideoDetails("aaaaaaaaaaa", video("aaaaaaaaaaa"));
+		now.addAndGet(7L * 60L * 60L * 1000L);
+
+		cache.sweep();
+
+		assertEquals(0, backend.values.size());
+		assertNull(cache.getVideoDetails("aaaaaaaaaaa"));
+		assertEquals(1L, cache.stats().misses());
+	}
+
+	@Test
+	public void playbackCodec_roundTripsVideoAudioAndSubtitleStreams() throws Exception {
+		PlaybackDetails restored = InfoCodec.decodePlayback(InfoCodec.encodePlayback(playback()));
+
+		assertEquals(video("aaaaaaaaaaa"), restored.video());
+		StreamCatalog catalog = restored.catalog();
+		assertEquals(StreamType.VIDEO_STREAM, catalog.getStreamType());
+
+		VideoStream video = catalog.getVideoCandidates().get(0).getVideoStream();
+		assertNotNull(video);
+		assertEquals("137", video.getId());
+		assertEquals("https://rr1---sn-a.googlevideo.com/videoplayback?itag=137", video.getContent());
+		assertTrue(video.isUrl());
+		assertTrue(video.isVideoOnly());
+		assertEquals(MediaFormat.MPEG_4, video.getFormat());
+		assertEquals(DeliveryMethod.PROGRESSIVE_HTTP, video.getDeliveryMethod());
+		assertEquals("1080p", video.getResolution());
+		assertNotNull(video.getItagItem());
+		assertEquals(1920, video.getItagItem().getWidth());
+		assertEquals(1080, video.getItagItem().getHeight());
+		assertEquals(30, video.getItagItem().getFps());
+		assertEquals(741, video.getItagItem().getIndexEnd());
+		assertEquals(123_456_789L, video.getItagItem().getContentLength());
+		assertEquals("avc1.640028", video.getItagItem().getCodec());
+
+		AudioStream audio = catalog.getAudioCandidates().get(0).getAudioStream();
+		assertNotNull(audio);
+		assertEquals("140", audio.getId());
+		assertEquals(MediaFormat.M4A, audio.getFormat());
+		assertEquals(129_000, audio.getAverageBitrate());
+		assertEquals("en.4", audio.getAudioTrackId());
+		assertEquals("English original", audio.getAudioTrackName());
+		assertEquals(Locale.ENGLISH, audio.getAudioLocale());
+		assertEquals(AudioTrackType.ORIGINAL, audio.getAudioTrackType());
+		assertNotNull(audio.getItagItem());
+		assertEquals(44_100, audio.getItagItem().getSampleRate());
+		assertEquals(2, audio.getItagItem().getAudioChannels());
+
+		SubtitlesStream subtitle = restored.subtitles().get(0);
+		assertEquals("en", subtitle.getLanguageTag());
+		assertTrue(subtitle.isAutoGenerated());
+		assertEquals(MediaFormat.VTT, subtitle.getFormat());
+		assertEquals("https://www.youtube.com/api/timedtext?lang=en&fmt=vtt", subtitle.getContent());
+		assertEquals("en", catalog.getSubtitleCandidates().get(0).getSubtitleStream().getLanguageTag());
+
+		StreamSegment segment = restored.segments().get(0);
+		assertEquals("Intro", segment.getTitle());
+		assertEquals(12, segment.getStartTimeSeconds());
+		assertEquals("https://i.ytimg.com/vi/aaaaaaaaaaa/1.jpg", segment.getPreviewUrl());
+
+		PlaybackPlan plan = restored.plan();
+		assertSame(catalog.getVideoCandidates().get(0), plan.getVideoCandidate());
+		assertSame(catalog.getAudioCandidates().get(0), plan.getAudioCandidate());
+		assertSame(restored.deliveries().getItems().get(0), plan.getDelivery());
+	}
+
+	@Test
+	public void playbackCodec_writesPlanDeliveryOnlyWhenNotInCatalog() throws Exception {
+		PlaybackDetails details = playback();
+		Delivery listed = details.deliveries().getItems().get(0);
+		Delivery copy = new Delivery(listed.getMode(), listed.getStreamType(), listed.getManifest(),
+						listed.getVideo(), listed.getAudio(), listed.getMuxed(), listed.isAbr(), listed.isTrackLock(), listed.isCache());
+		PlaybackPlan plan = details.plan();
+		PlaybackDetails equalDelivery = details.withPlan(new PlaybackPlan(plan.getMode(), plan.getStreamType(), copy,
+						plan.getVideoCandidate(), plan.getAudioCandidate(), plan.getMuxedCandidate()));
+
+		byte[] encoded = InfoCodec.encodePlayback(equalDelivery);
+		PlaybackDetails restored = InfoCodec.decodePlayback(encoded);
+
+		assertEquals(InfoCodec.encodePlayback(details).length, encoded.length);
+		assertEquals(1, restored.deliveries().getItems().size());
+		assertSame(restored.deliveries().getItems().get(0), restored.plan().getDelivery());
+
+		Delivery unlisted = new Delivery(PlaybackMode.MUXED, StreamType.VIDEO_STREAM, null,
+						List.of(), List.of(), List.of(), false, false, false);
+		PlaybackDetails extra = details.withPlan(new PlaybackPlan(PlaybackMode.MUXED, StreamType.VIDEO_STREAM, unlisted,
+						null, null, null));
+		PlaybackDetails restoredExtra = InfoCodec.decodePlayback(InfoCodec.encodePlayback(extra));
+		assertEquals(1, restoredExtra.deliveries().getItems().size());
+		assertEquals(unlisted, restoredExtra.plan().getDelivery());
+	}
+
+	@Test
+	public void videoDetails_copiesUploadDateOnConstruction() {
+		Date uploaded = new Date(3L);
+		VideoDetails details = new VideoDetails("aaaaaaaaaaa", "title", "author", "description", 42L,
+						null, 1L, 2L, uploaded, null, null, 4L);
+
+		uploaded.setTime(99L);
+
+		assertEquals(3L, details.getUploadDate().getTime());
+	}
+
+	@Test
+	public void playbackCodec_rejectsOtherSchemaVersions() throws Exception {
+		byte[] data = InfoCodec.encodePlayback(playback());
+		data[0] = (byte) (InfoCodec.VERSION + 1);
+
+		assertThrows(IOException.class, () -> InfoCodec.decodePlayback(data));
+		assertThrows(IOException.class, () -> InfoCodec.decodeVideo(data));
+	}
+
+	@NonNull
+	private static PlaybackDetails playback() throws Exception {
+		ItagItem videoItag = ItagItem.getItag(137);
+		videoItag.setWidth(1920);
+		videoItag.setHeight(1080);
+		videoItag.setFps(30);
+		videoItag.setBitrate(4_000_000);
+		videoItag.setInitStart(0);
+		videoItag.setInitEnd(740);
+		videoItag.setIndexStart(741);
+		videoItag.setIndexEnd(741);
+		videoItag.setContentLength(123_456_789L);
+		videoItag.setApproxDurationMs(42_000L);
+		videoItag.setCodec("avc1.640028");
+		videoItag.setQuality("hd1080");
+		VideoStream video = new VideoStream.Builder()
+						.setId("137")
+						.setContent("https://rr1---sn-a.googlevideo.com/videoplayback?itag=137", true)
+						.setMediaFormat(MediaFormat.MPEG_4)
+						.setDeliveryMethod(DeliveryMethod.PROGRESSIVE_HTTP)
+						.setIsVideoOnly(true)
+						.setResolution("1080p")
+						.setItagItem(videoItag)
+						.build();
+
+		ItagItem audioItag = ItagItem.getItag(140);
+		audioItag.setBitrate(130_000);
+		audioItag.setSampleRate(44_100);
+		audioItag.setAudioChannels(2);
+		audioItag.setContentLength(678_910L);
+		audioItag.setAudioTrackId("en.4");
+		audioItag.setAudioTrackName("English original");
+		audioItag.setAudioLocale(Locale.ENGLISH);
+		audioItag.setAudioTrackType(AudioTrackType.ORIGINAL);
+		AudioStream audio = new AudioStream.Builder()
+						.setId("140")
+						.setContent("https://rr1---sn-a.googlevideo.com/videoplayback?itag=140", true)
+						.setMediaFormat(MediaFormat.M4A)
+						.setDeliveryMethod(DeliveryMethod.PROGRESSIVE_HTTP)
+						.setAverageBitrate(129_000)
+						.setAudioTrackId("en.4")
+						.setAudioTrackName("English original")
+						.setAudioLocale(Locale.ENGLISH)
+						.setAudioTrackType(AudioTrackType.ORIGINAL)
+						.setItagItem(audioItag)
+						.build();
+
+		SubtitlesStream subtitle = new SubtitlesStream.Builder()
+						.setId("en")
+						.setContent("https://www.youtube.com/api/timedtext?lang=en&fmt=vtt", true)
+						.setMediaFormat(MediaFormat.VTT)
+						.setLanguageCode("en")
+						.setAutoGenerated(true)
+						.build();
+
+		StreamSegment segment = new StreamSegment("Intro", 12);
+		segment.setPreviewUrl("https://i.ytimg.com/vi/aaaaaaaaaaa/1.jpg");
+
+		StreamCandidate videoCandidate = StreamCandidate.videoOnly(video, "WEB", true, true, false);
+		StreamCandidate audioCandidate = StreamCandidate.audioOnly(audio, "WEB", true, true, false);
+		StreamCandidate subtitleCandidate = StreamCandidate.subtitle(subtitle);
+		StreamCatalog catalog = new StreamCatalog(StreamType.VIDEO_STREAM, List.of(),
+						List.of(videoCandidate), List.of(audioCandidate), List.of(), List.of(subtitleCandidate));
+		Delivery delivery = new Delivery(PlaybackMode.ADAPTIVE, StreamType.VIDEO_STREAM, null,
+						List.of(videoCandidate), List.of(audioCandidate), List.of(), true, false, true);
+		DeliveryCatalog deliveries = new DeliveryCatalog(StreamType.VIDEO_STREAM, List.of(delivery));
+		PlaybackPlan plan = new PlaybackPlan(PlaybackMode.ADAPTIVE, StreamType.VIDEO_STREAM, delivery,
+						videoCandidate, audioCandidate, null);
+		return new PlaybackDetails(video("aaaaaaaaaaa"), catalog, deliveries, plan, List.of(segment), List.of(subtitle));
+	}
+
+	private static final class MemoryBackend implements InfoStore.Backend {
+		private final Map<String, byte[]> values = new HashMap<>();
+
+		@Override
+		public byte[] get(@NonNull String key) {
+			return values.get(key);
+		}
+
+		@Override
+		public void put(@NonNull String key, @NonNull byte[] value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public void remove(@NonNull String key) {
+			values.remove(key);
+		}
+
+		@Override
+		public void removeAll(@NonNull List<String> keys) {
+			keys.forEach(values::remove);
+		}
+
+		@NonNull
+		@Override
+		public List<String> keys() {
+			return new ArrayList<>(values.keySet());
+		}
+	}
+}
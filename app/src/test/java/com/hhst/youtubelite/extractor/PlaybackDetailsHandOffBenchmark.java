@@ -0,0 +1,116 @@
+package com.hhst.youtubelite.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.schabi.newpipe.extractor.MediaFormat;
+import org.schabi.newpipe.extractor.stream.AudioStream;
+import org.schabi.newpipe.extractor.stream.StreamType;
+import org.schabi.newpipe.extractor.stream.VideoStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * JMH-style comparison of the old Gson deep copy against sharing the immutable snapshot.
+ * Each operation is one subscriber hand-off of a catalog with 80 candidates.
+ * Runs only with {@code -Pbenchmarks=true}, since the timing comparison is too noisy for the default suite.
+ */
+public class PlaybackDetailsHandOffBenchmark {
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 1_000;
+
+	private static volatile Object sink;
+
+	@NonNull
+	static PlaybackDetails sample() {
+		List<StreamCandidate> manifests = new ArrayList<>();
+		List<StreamCandidate> videos = new ArrayList<>();
+		List<StreamCandidate> audios = new ArrayList<>();
+		List<StreamCandidate> muxed = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			manifests.add(StreamCandidate.dashManifest(
+							"https://manifest.googlevideo.com/api/manifest/dash/id/" + i, "web", true, false, false));
+		}
+		for (int i = 0; i < 40; i++) {
+			VideoStream stream = new VideoStream.Builder()
+							.setId(String.valueOf(100 + i))
+							.setContent("https://rr1---sn-test.googlevideo.com/videoplayback?itag=" + (100 + i) + "&n=" + i, true)
+							.setMediaFormat(MediaFormat.MPEG_4)
+							.setIsVideoOnly(true)
+							.setResolution((144 + i * 24) + "p")
+							.build();
+			videos.add(StreamCandidate.videoOnly(stream, i % 2 == 0 ? "web" : "android", true, true, false));
+		}
+		for (int i = 0; i < 30; i++) {
+			AudioStream stream = new AudioStream.Builder()
+							.setId(String.valueOf(200 + i))
+							.setContent("https://rr1---sn-test.googlevideo.com/videoplayback?itag=" + (200 + i) + "&n=" + i, true)
+							.setMediaFormat(MediaFormat.M4A)
+							.setAverageBitrate(48 + i * 4)
+							.build();
+			audios.add(StreamCandidate.audioOnly(stream, "web", true, true, false));
+		}
+		for (int i = 0; i < 8; i++) {
+			VideoStream stream = new VideoStream.Builder()
+							.setId(String.valueOf(18 + i))
+							.setContent("https://rr1---sn-test.googlevideo.com/videoplayback?itag=" + (18 + i), true)
+							.setMediaFormat(MediaFormat.MPEG_4)
+							.setIsVideoOnly(false)
+							.setResolution((144 + i * 120) + "p")
+							.build();
+			muxed.add(StreamCandidate.muxed(stream, "web", false, false, false));
+		}
+		StreamCatalog catalog = new StreamCatalog(StreamType.VIDEO_STREAM, manifests, videos, audios, muxed,
+						Collections.emptyList());
+		DeliveryCatalog deliveries = new DeliveryCatalog(StreamType.VIDEO_STREAM, List.of(
+						new Delivery(PlaybackMode.ADAPTIVE, StreamType.VIDEO_STREAM, null, videos, audios,
+										Collections.emptyList(), false, false, true),
+						new Delivery(PlaybackMode.MUXED, StreamType.VIDEO_STREAM, null, Collections.emptyList(),
+										Collections.emptyList(), muxed, false, false, true)));
+		Delivery adaptive = deliveries.getItems().get(0);
+		PlaybackPlan plan = new PlaybackPlan(PlaybackMode.ADAPTIVE, StreamType.VIDEO_STREAM, adaptive,
+						adaptive.getVideo().get(0), adaptive.getAudio().get(0), null);
+		VideoDetails video = new VideoDetails("aaaaaaaaaaa", "title", "author", "description", 600L,
+						"https://i.ytimg.com/vi/aaaaaaaaaaa/hqdefault.jpg", 10L, 1L, new Date(0L),
+						"https://www.youtube.com/@author", null, 1000L);
+		return new PlaybackDetails(video, catalog, deliveries, plan, Collections.emptyList(), Collections.emptyList());
+	}
+
+	private static double nanosPerOp(@NonNull PlaybackDetails details,
+	                                 @NonNull UnaryOperator<PlaybackDetails> handOff) {
+		for (int i = 0; i < WARMUP; i++) {
+			sink = handOff.apply(details);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink = handOff.apply(details);
+		}
+		return (System.nanoTime() - start) / (double) ITERATIONS;
+	}
+
+	@Test
+	public void handOff_sharedSnapshotVersusGsonCopy() {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		PlaybackDetails details = sample();
+		assertEquals(80, details.catalog().getManifestCandidates().size()
+						+ details.catalog().getVideoCandidates().size()
+						+ details.catalog().getAudioCandidates().size()
+						+ details.catalog().getMuxedCandidates().size());
+		Gson gson = new Gson();
+
+		double copy = nanosPerOp(details, value -> gson.fromJson(gson.toJson(value), PlaybackDetails.class));
+		double shared = nanosPerOp(details, value -> value);
+
+		assertTrue(String.format("gson copy %.0f ns/op, shared %.0f ns/op", copy, shared), shared < copy);
+	}
+}
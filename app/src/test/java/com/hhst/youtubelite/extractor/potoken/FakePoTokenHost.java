@@ -0,0 +1,104 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-in for the PoToken WebView.
+ * Scripts run one at a time on a single "main" thread like {@code evaluateJavascript}, and bridge replies
+ * arrive {@code replyLatencyMs} later from another thread, as the JavaScript interface callbacks do.
+ */
+final class FakePoTokenHost implements PoTokenCoordinator.ScriptHost, AutoCloseable {
+	private static final Pattern INIT = Pattern.compile("runInit\\(.*,\"([^\"]+)\"\\);return");
+	private static final Pattern MINT = Pattern.compile("mint\\(\"([^\"]*)\",\"([^\"]+)\"\\)");
+
+	final AtomicInteger inits = new AtomicInteger();
+	final AtomicInteger mints = new AtomicInteger();
+	final AtomicInteger evaluations = new AtomicInteger();
+	volatile boolean ready = true;
+
+	@NonNull
+	private final PoTokenBridge bridge;
+	private final long replyLatencyMs;
+	@NonNull
+	private final ExecutorService main = Executors.newSingleThreadExecutor();
+	@NonNull
+	private final ScheduledExecutorService replies = Executors.newScheduledThreadPool(4);
+
+	FakePoTokenHost(@NonNull PoTokenBridge bridge, final long replyLatencyMs) {
+		this.bridge = bridge;
+		this.replyLatencyMs = replyLatencyMs;
+	}
+
+	@Override
+	public void prewarm() {
+	}
+
+	@Override
+	public boolean isReady() {
+		return ready;
+	}
+
+	@Override
+	public boolean awaitReady(long timeoutMs) {
+		return ready;
+	}
+
+	@Override
+	public long getGeneration() {
+		return 1L;
+	}
+
+	@Override
+	public boolean isCurrentGeneration(long expectedGeneration) {
+		return expectedGeneration == 1L;
+	}
+
+	@Nullable
+	@Override
+	public String evaluateJavascript(long expectedGeneration, @NonNull String script, long timeoutMs) {
+		evaluations.incrementAndGet();
+		Future<String> result = main.submit(() -> run(script));
+		try {
+			return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	@NonNull
+	private String run(@NonNull String script) {
+		Matcher init = INIT.matcher(script);
+		if (init.find()) {
+			inits.incrementAndGet();
+			reply(init.group(1), "botguard-response");
+			return "\"queued\"";
+		}
+		Matcher mint = MINT.matcher(script);
+		if (mint.find()) {
+			mints.incrementAndGet();
+			reply(mint.group(2), "token-" + mint.group(1));
+			return "\"queued\"";
+		}
+		return "\"ok\"";
+	}
+
+	private void reply(@NonNull String requestId, @NonNull String value) {
+		replies.schedule(() -> bridge.onSuccess(requestId, value), replyLatencyMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void close() {
+		main.shutdownNow();
+		replies.shutdownNow();
+	}
+}
@@ -0,0 +1,89 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.hhst.youtubelite.extractor.AuthContext;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PoTokenCacheTest {
+	private final MemoryStore store = new MemoryStore();
+	private final PoTokenCache cache = new PoTokenCache(store, new Gson());
+
+	@Test
+	public void sessionToken_mustMatchTheAuthBinding() {
+		cache.putSessionToken("web", new PoTokenCache.Entry("s", "visitor", null, null, 100L), 0L);
+
+		assertNotNull(cache.getSessionToken("web", null, 99L));
+		assertNotNull(cache.getSessionToken("web", auth("visitor", null), 99L));
+		assertNull(cache.getSessionToken("web", auth("other", null), 99L));
+		assertNull(cache.getSessionToken("web", auth("visitor", "sync"), 99L));
+		assertNull(cache.getSessionToken("web", null, 100L));
+	}
+
+	@Test
+	public void evict_dropsExpiredAndOrphanedEntriesInOneBatch() {
+		cache.putContentToken("web", new PoTokenCache.Entry("a", "old", null, "a", 500L));
+		cache.putContentToken("web", new PoTokenCache.Entry("b", "new", null, "b", 500L));
+		cache.putContentToken("web", new PoTokenCache.Entry("c", "new", null, "c", 50L));
+		cache.putContentToken("android", new PoTokenCache.Entry("d", "new", null, "d", 500L));
+		store.put("web.video.e", "{broken");
+		store.removals = 0;
+
+		cache.putSessionToken("web", new PoTokenCache.Entry("s", "new", null, null, 500L), 100L);
+
+		assertEquals(1, store.removals);
+		assertEquals(List.of("web.session", "web.video.b"), store.keys());
+		PoTokenCache.Entry session = cache.getSessionToken("web", null, 100L);
+		assertNotNull(session);
+		assertEquals("b", cache.getContentToken("web", session, "b", 100L).token());
+		assertNull(cache.getContentToken("web", session, "a", 100L));
+	}
+
+	@NonNull
+	private static AuthContext auth(@Nullable String visitorData, @Nullable String dataSyncId) {
+		return new AuthContext("test", null, visitorData, dataSyncId, null, null, dataSyncId != null, false, 0L);
+	}
+
+	/**
+	 * In-memory store that counts batch removals.
+	 */
+	static final class MemoryStore implements PoTokenCache.Store {
+		private final Map<String, String> values = new TreeMap<>();
+		int removals;
+
+		@Nullable
+		@Override
+		public synchronized String get(@NonNull String key) {
+			return values.get(key);
+		}
+
+		@Override
+		public synchronized void put(@NonNull String key, @NonNull String value) {
+			values.put(key, value);
+		}
+
+		@Override
+		public synchronized void removeAll(@NonNull List<String> keys) {
+			removals++;
+			keys.forEach(values::remove);
+		}
+
+		@NonNull
+		@Override
+		public synchronized List<String> keys() {
+			return new ArrayList<>(values.keySet());
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.hhst.youtubelite.extractor.AuthContext;
+import com.hhst.youtubelite.extractor.ExtractionSessionScope;
+import com.tencent.mmkv.MMKV;
+
+import org.junit.Test;
+import org.schabi.newpipe.extractor.services.youtube.PoTokenResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class PoTokenCoordinatorTest {
+	private final AtomicLong now = new AtomicLong(1_000L);
+	private final AtomicInteger visitorFetches = new AtomicInteger();
+	private final PoTokenCacheTest.MemoryStore store = new PoTokenCacheTest.MemoryStore();
+
+	@Test
+	public void concurrentMints_shareOneSessionAndVisitorData() throws Exception {
+		PoTokenBridge bridge = new PoTokenBridge();
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try (FakePoTokenHost host = new FakePoTokenHost(bridge, 5L)) {
+			PoTokenCoordinator coordinator = coordinator(bridge, host, auth -> {
+				visitorFetches.incrementAndGet();
+				return "visitor";
+			});
+			List<Future<PoTokenResult>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				String videoId = "video" + i;
+				results.add(callers.submit(() -> coordinator.mintWebClientPoToken(videoId)));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				PoTokenResult result = results.get(i).get();
+				assertNotNull(result);
+				assertEquals("token-video" + i, result.playerRequestPoToken);
+				assertEquals("visitor", result.visitorData);
+				assertEquals("token-visitor", result.streamingDataPoToken);
+			}
+			assertEquals(1, host.inits.get());
+			assertTrue(host.mints.get() > 32);
+			assertEquals(1, visitorFetches.get());
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	@Test
+	public void visitorData_followsTheCachedSessionToken() {
+		PoTokenBridge bridge = new PoTokenBridge();
+		try (FakePoTokenHost host = new FakePoTokenHost(bridge, 0L)) {
+			PoTokenCoordinator coordinator = coordinator(bridge, host,
+							auth -> "visitor-" + visitorFetches.incrementAndGet());
+
+			assertEquals("visitor-1", coordinator.mintWebClientPoToken("a").visitorData);
+			now.addAndGet(PoTokenCoordinator.VISITOR_DATA_TTL_MS);
+			assertEquals("visitor-1", coordinator.mintWebClientPoToken("b").visitorData);
+			now.addAndGet(TimeUnit.HOURS.toMillis(12L));
+			assertEquals("visitor-2", coordinator.mintWebClientPoToken("c").visitorData);
+			assertEquals(2, host.inits.get());
+		}
+	}
+
+	@Test
+	public void cachedTokens_skipTheHost() {
+		PoTokenBridge bridge = new PoTokenBridge();
+		try (FakePoTokenHost host = new FakePoTokenHost(bridge, 0L)) {
+			PoTokenCoordinator coordinator = coordinator(bridge, host, auth -> "visitor");
+			PoTokenResult first = coordinator.mintWebClientPoToken("a");
+			int mints = host.mints.get();
+
+			PoTokenResult again = coordinator.mintWebClientPoToken("a");
+
+			assertEquals(first.playerRequestPoToken, again.playerRequestPoToken);
+			assertEquals(mints, host.mints.get());
+		}
+		try (FakePoTokenHost coldHost = new FakePoTokenHost(bridge, 0L)) {
+			coldHost.ready = false;
+			PoTokenCoordinator coordinator = coordinator(bridge, coldHost, auth -> {
+				throw new AssertionError("visitorData is cached");
+			});
+
+			PoTokenResult result = coordinator.mintWebClientPoToken("a");
+
+			assertEquals("token-a", result.playerRequestPoToken);
+			assertEquals("token-visitor", result.streamingDataPoToken);
+			assertEquals("visitor", result.visitorData);
+			assertEquals(0, coldHost.evaluations.get());
+		}
+	}
+
+	@Test
+	public void coldStart_neverSendsTheSessionTokenAsPlayerToken() {
+		PoTokenBridge bridge = new PoTokenBridge();
+		try (FakePoTokenHost host = new FakePoTokenHost(bridge, 0L)) {
+			assertNotNull(coordinator(bridge, host, auth -> "visitor").mintWebClientPoToken("a"));
+		}
+		try (FakePoTokenHost coldHost = new FakePoTokenHost(bridge, 0L)) {
+			coldHost.ready = false;
+			PoTokenCoordinator coordinator = coordinator(bridge, coldHost, auth -> {
+				throw new AssertionError("visitorData is cached");
+			});
+
+			assertNull(coordinator.mintWebClientPoToken("b"));
+			assertEquals(0, coldHost.evaluations.get());
+
+			coldHost.ready = true;
+			PoTokenResult result = coordinator.mintWebClientPoToken("b");
+
+			assertEquals("token-b", result.playerRequestPoToken);
+			assertEquals("token-visitor", result.streamingDataPoToken);
+			assertEquals("visitor", result.visitorData);
+		}
+	}
+
+	@NonNull
+	private PoTokenCoordinator coordinator(@NonNull PoTokenBridge bridge,
+	                                       @NonNull PoTokenCoordinator.ScriptHost host,
+	                                       @NonNull Function<AuthContext, String> visitorDataFetcher) {
+		return new PoTokenCoordinator(new Gson(), bridge, host, new ExtractionSessionScope(), botguardService(),
+						mock(MMKV.class), new PoTokenCache(store, new Gson()), visitorDataFetcher, now::get);
+	}
+
+	@NonNull
+	static OkHttpClient botguardService() {
+		return new OkHttpClient.Builder().addInterceptor(chain -> {
+			String body = chain.request().url().encodedPath().endsWith("GenerateIT")
+							? "[\"aW50ZWdyaXR5\",43200]"
+							: "[\"challenge\"]";
+			return new Response.Builder()
+							.request(chain.request())
+							.protocol(Protocol.HTTP_2)
+							.code(200)
+							.message("OK")
+							.body(ResponseBody.create(body, MediaType.get("application/json")))
+							.build();
+		}).build();
+	}
+}
@@ -0,0 +1,104 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PoTokenHostStateTest {
+	private final AtomicLong now = new AtomicLong(1_000L);
+	private final PoTokenHostState<Object> state = new PoTokenHostState<>(now::get);
+
+	@Test
+	public void warmUp_loadsOnceAndTimesEachPhase() {
+		Object view = new Object();
+		assertTrue(state.requestWarmUp());
+		now.addAndGet(40L);
+		assertTrue(state.needsView());
+		assertTrue(state.publish(view, 25L));
+
+		assertSame(view, state.beginLoad());
+		assertNull(state.beginLoad());
+		assertFalse(state.requestWarmUp());
+		now.addAndGet(60L);
+		assertTrue(state.onLoaded(view));
+
+		assertTrue(state.isReady());
+		assertTrue(state.isCurrentGeneration(1L));
+		assertSame(view, state.viewFor(1L));
+		assertFalse(state.requestWarmUp());
+		assertEquals(new PoTokenHost.Metrics(25L, 60L, 100L, 1, 0, 0L), state.metrics());
+	}
+
+	@Test
+	public void publish_keepsTheFirstView() {
+		Object first = new Object();
+
+		assertTrue(state.publish(first, 10L));
+		assertFalse(state.publish(new Object(), 20L));
+
+		assertSame(first, state.beginLoad());
+		assertEquals(10L, state.metrics().createMs());
+	}
+
+	@Test
+	public void recycle_startsNewGenerationAndIgnoresStaleCallbacks() {
+		Object old = new Object();
+		state.publish(old, 10L);
+		state.beginLoad();
+		state.onLoaded(old);
+		long loaded = state.generation();
+
+		assertSame(old, state.recycle());
+		assertNull(state.recycle());
+		assertFalse(state.isReady());
+		assertFalse(state.isCurrentGeneration(loaded));
+		assertNull(state.viewFor(loaded));
+		assertFalse(state.onLoaded(old));
+
+		Object fresh = new Object();
+		assertTrue(state.requestWarmUp());
+		assertTrue(state.publish(fresh, 12L));
+		assertSame(fresh, state.beginLoad());
+		assertTrue(state.onLoaded(fresh));
+		assertTrue(state.isCurrentGeneration(state.generation()));
+		assertEquals(2, state.metrics().loads());
+		assertEquals(1, state.metrics().recycles());
+	}
+
+	@Test
+	public void loadFailure_allowsAnotherLoad() {
+		Object view = new Object();
+		state.publish(view, 10L);
+		state.beginLoad();
+
+		state.onLoadFailed(view);
+
+		assertFalse(state.isReady());
+		assertTrue(state.requestWarmUp());
+		assertSame(view, state.beginLoad());
+	}
+
+	@Test
+	public void awaitReady_wakesWhenLoadFinishes() throws Exception {
+		PoTokenHostState<Object> timed = new PoTokenHostState<>(System::currentTimeMillis);
+		Object view = new Object();
+		timed.publish(view, 10L);
+		timed.beginLoad();
+
+		CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> timed.awaitReady(5_000L));
+		Thread.sleep(50L);
+		timed.onLoaded(view);
+
+		assertTrue(waiter.get(5, TimeUnit.SECONDS));
+		assertTrue(timed.metrics().blockedMs() > 0L);
+		assertFalse(new PoTokenHostState<>(System::currentTimeMillis).awaitReady(20L));
+	}
+}
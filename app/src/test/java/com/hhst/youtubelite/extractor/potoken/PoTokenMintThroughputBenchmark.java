@@ -0,0 +1,89 @@
+package com.hhst.youtubelite.extractor.potoken;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.hhst.youtubelite.extractor.ExtractionSessionScope;
+import com.tencent.mmkv.MMKV;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tokens per second against {@link FakePoTokenHost} with a 5 ms bridge round trip.
+ * The baseline reproduces the old coordinator: one global lock around every mint plus a 20 ms
+ * innertube visitorData request per token; the current path mints from 8 concurrent callers.
+ * Runs only with {@code -Pbenchmarks=true}, since it compares wall-clock rates.
+ */
+public class PoTokenMintThroughputBenchmark {
+	private static final int TOKENS = 64;
+	private static final int CALLERS = 8;
+	private static final long BRIDGE_LATENCY_MS = 5L;
+	private static final long VISITOR_DATA_MS = 20L;
+
+	@Test
+	public void mint_pipelinedVersusGlobalLock() throws Exception {
+		assumeTrue(Boolean.getBoolean("benchmarks"));
+		PoTokenBridge bridge = new PoTokenBridge();
+		try (FakePoTokenHost host = new FakePoTokenHost(bridge, BRIDGE_LATENCY_MS)) {
+			PoTokenCoordinator coordinator = new PoTokenCoordinator(new Gson(), bridge, host,
+							new ExtractionSessionScope(), PoTokenCoordinatorTest.botguardService(), mock(MMKV.class),
+							new PoTokenCache(new PoTokenCacheTest.MemoryStore(), new Gson()),
+							auth -> {
+								sleep(VISITOR_DATA_MS);
+								return "visitor";
+							}, System::currentTimeMillis);
+			assertNotNull(coordinator.mintWebClientPoToken("warmup"));
+
+			AtomicInteger videos = new AtomicInteger();
+			Object globalLock = new Object();
+			double locked = tokensPerSecond(() -> {
+				synchronized (globalLock) {
+					sleep(VISITOR_DATA_MS);
+					return coordinator.mintWebClientPoToken("video" + videos.incrementAndGet());
+				}
+			});
+			double pipelined = tokensPerSecond(() -> coordinator.mintWebClientPoToken("video" + videos.incrementAndGet()));
+
+			assertTrue(String.format("global lock %.0f tokens/s, pipelined %.0f tokens/s", locked, pipelined),
+							pipelined > locked * 4);
+		}
+	}
+
+	private static double tokensPerSecond(@NonNull Callable<Object> mint) throws Exception {
+		ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+		try {
+			long start = System.nanoTime();
+			List<Future<Object>> results = new ArrayList<>();
+			for (int i = 0; i < TOKENS; i++) {
+				results.add(callers.submit(mint));
+			}
+			for (Future<Object> result : results) {
+				assertNotNull(result.get());
+			}
+			return TOKENS / ((System.nanoTime() - start) / 1e9);
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package com.hhst.youtubelite.player.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class QueueRepositoryTest {
+	private final Gson gson = new Gson();
+	private final MemoryBackend backend = new MemoryBackend();
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+	@Before
+	public void setUp() {
+		ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+			@Override
+			public void executeOnDiskIO(@NonNull Runnable runnable) {
+				runnable.run();
+			}
+
+			@Override
+			public void postToMainThread(@NonNull Runnable runnable) {
+				runnable.run();
+			}
+
+			@Override
+			public boolean isMainThread() {
+				return true;
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		ArchTaskExecutor.getInstance().setDelegate(null);
+		writer.shutdownNow();
+	}
+
+	@Test
+	public void moves_coalesceIntoOneWrite() {
+		QueueRepository repository = repository(60_000L);
+		for (int i = 0; i < 50; i++) {
+			repository.add(item("v" + i));
+		}
+		backend.writes = 0;
+
+		for (int i = 0; i < 49; i++) {
+			assertTrue(repository.move(0, 49));
+		}
+		assertEquals(0, backend.writes);
+		repository.flush();
+		repository.flush();
+
+		assertEquals(1, backend.writes);
+		List<QueueItem> stored = gson.fromJson(backend.strings.get(QueueRepository.KEY_QUEUE_ITEMS),
+						new TypeToken<List<QueueItem>>() {
+						}.getType());
+		assertEquals("v49", stored.get(0).getVideoId());
+		assertEquals("v48", stored.get(49).getVideoId());
+	}
+
+	@Test
+	public void writeBehind_persistsAfterDelay() throws Exception {
+		QueueRepository repository = repository(20L);
+		repository.add(item("a"));
+		repository.add(item("b"));
+
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (backend.writes == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5L);
+		}
+
+		assertEquals(1, backend.writes);
+		QueueRepository reopened = repository(20L);
+		assertEquals(List.of("a", "b"), ids(reopened.getItems()));
+	}
+
+	@Test
+	public void lookups_followIndexAfterEdits() {
+		QueueRepository repository = repository(60_000L);
+		for (String id : List.of("a", "b", "c", "d")) {
+			repository.add(item(id));
+		}
+
+		repository.move(3, 0);
+		repository.remove("b");
+		repository.add(item("a"));
+
+		assertEquals(List.of("d", "c", "a"), ids(repository.getItems()));
+		assertTrue(repository.containsVideo("c"));
+		assertFalse(repository.containsVideo("b"));
+		assertEquals("a", repository.findRelative("c", 1).getVideoId());
+		assertEquals("d", repository.findRelative("a", 1).getVideoId());
+		assertNull(repository.findRelative("d", -1));
+		for (int i = 0; i < 20; i++) {
+			assertFalse("c".equals(repository.findRandom("c").getVideoId()));
+		}
+	}
+
+	@Test
+	public void state_carriesImmutableSnapshots() {
+		QueueRepository repository = repository(60_000L);
+		repository.add(item("a"));
+		QueueState first = repository.getState().getValue();
+
+		repository.add(item("b"));
+
+		assertNotNull(first);
+		assertEquals(List.of("a"), ids(first.items()));
+		assertEquals(List.of("a", "b"), ids(repository.getState().getValue().items()));
+		try {
+			first.items().add(item("c"));
+			fail("Snapshots must not be mutable");
+		} catch (UnsupportedOperationException expected) {
+			// QueueState wraps its copies.
+		}
+	}
+
+	@Test
+	public void clear_removesStoredItems() {
+		QueueRepository repository = repository(60_000L);
+		repository.add(item("a"));
+		repository.flush();
+
+		repository.clear();
+		repository.flush();
+
+		assertFalse(repository.hasItems());
+		assertFalse(backend.strings.containsKey(QueueRepository.KEY_QUEUE_ITEMS));
+	}
+
+	@Test
+	public void changes_replayOntoEarlierSnapshot() {
+		QueueRepository repository = repository(60_000L);
+		for (String id : List.of("a", "b", "c")) {
+			repository.add(item(id));
+		}
+		QueueState before = repository.snapshotState();
+
+		repository.move(0, 2);
+		repository.add(item("d"));
+		repository.add(item("b"));
+		repository.remove("c");
+		QueueState after = repository.snapshotState();
+
+		List<QueueChange> changes = after.changesSince(before.revision());
+		assertNotNull(changes);
+		assertEquals(List.of(QueueChange.Type.MOVE, QueueChange.Type.INSERT, QueueChange.Type.REMOVE,
+						QueueChange.Type.INSERT, QueueChange.Type.REMOVE), types(changes));
+		List<QueueItem> replayed = new ArrayList<>(before.items());
+		for (QueueChange change : changes) {
+			change.applyTo(replayed);
+		}
+		assertEquals(ids(after.items()), ids(replayed));
+		assertEquals(List.of("a", "d", "b"), ids(replayed));
+		assertTrue(after.changesSince(after.revision()).isEmpty());
+	}
+
+	@Test
+	public void reorder_notifiesOnceAndReplaysAsMoves() {
+		QueueRepository repository = repository(60_000L);
+		for (String id : List.of("a", "b", "c", "d")) {
+			repository.add(item(id));
+		}
+		QueueState before = repository.snapshotState();
+		int[] notifications = new int[1];
+		repository.addListener(() -> notifications[0]++);
+
+		assertTrue(repository.reorder(List.of("d", "c", "b", "a")));
+		QueueState after = repository.snapshotState();
+
+		assertEquals(1, notifications[0]);
+		assertEquals(List.of("d", "c", "b", "a"), ids(after.items()));
+		List<QueueChange> changes = after.changesSince(before.revision());
+		assertNotNull(changes);
+		List<QueueItem> replayed = new ArrayList<>(before.items());
+		for (QueueChange change : changes) {
+			assertEquals(QueueChange.Type.MOVE, change.type());
+			change.applyTo(replayed);
+		}
+		assertEquals(ids(after.items()), ids(replayed));
+		assertFalse(repository.reorder(List.of("d", "c", "b", "a")));
+		assertEquals(1, notifications[0]);
+	}
+
+	@Test
+	public void changesSince_reportsGapOnceLogIsTrimmed() {
+		QueueRepository repository = repository(60_000L);
+		repository.add(item("a"));
+		QueueState before = repository.snapshotState();
+
+		for (int i = 0; i < QueueRepository.MAX_LOGGED_CHANGES; i++) {
+			repository.add(item("v" + i));
+		}
+		repository.clear();
+		QueueState after = repository.snapshotState();
+
+		assertNull(after.changesSince(before.revision()));
+		assertEquals(QueueRepository.MAX_LOGGED_CHANGES, after.changes().size());
+		assertEquals(QueueChange.Type.CLEAR, after.changesSince(after.revision() - 1).get(0).type());
+		assertEquals(QueueRepository.MAX_LOGGED_CHANGES + 1, after.changesSince(after.revision() - 1).get(0).to());
+	}
+
+	@NonNull
+	private QueueRepository repository(final long delayMs) {
+		return new QueueRepository(backend, gson, writer, delayMs);
+	}
+
+	@NonNull
+	private static QueueItem item(@NonNull String videoId) {
+		return new QueueItem(videoId, "https://m.youtube.com/watch?v=" + videoId, videoId, null, null);
+	}
+
+	@NonNull
+	private static List<String> ids(@NonNull List<QueueItem> items) {
+		List<String> ids = new ArrayList<>();
+		for (QueueItem item : items) {
+			ids.add(item.getVideoId());
+		}
+		return ids;
+	}
+
+	@NonNull
+	private static List<QueueChange.Type> types(@NonNull List<QueueChange> changes) {
+		List<QueueChange.Type> types = new ArrayList<>();
+		for (QueueChange change : changes) {
+			types.add(change.type());
+		}
+		return types;
+	}
+
+	private static final class MemoryBackend implements QueueRepository.Backend {
+		final Map<String, String> strings = new HashMap<>();
+		final Map<String, Boolean> bools = new HashMap<>();
+		volatile int writes;
+
+		@Nullable
+		@Override
+		public synchronized String getString(@NonNull String key) {
+			return strings.get(key);
+		}
+
+		@Override
+		public synchronized void putString(@NonNull String key, @NonNull String value) {
+			writes++;
+			strings.put(key, value);
+		}
+
+		@Override
+		public synchronized boolean getBool(@NonNull String key) {
+			return Boolean.TRUE.equals(bools.get(key));
+		}
+
+		@Override
+		public synchronized void putBool(@NonNull String key, boolean value) {
+			bools.put(key, value);
+		}
+
+		@Override
+		public synchronized void remove(@NonNull String key) {
+			writes++;
+			strings.remove(key);
+		}
+	}
+}